@@ -0,0 +1,68 @@
+package com.db.awmd.challenge.admission;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AIMD concurrency limit: grows by roughly one slot per window of requests completing under the target latency and
+ * shrinks multiplicatively as soon as latency goes above it.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+  private static final double BACKOFF_RATIO = 0.9;
+
+  private static final double LATENCY_SMOOTHING = 0.1;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final long targetLatencyNanos;
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private volatile double limit;
+  private volatile double smoothedLatencyNanos;
+
+  public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long targetLatencyMillis) {
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis);
+    this.limit = initialLimit;
+  }
+
+  public boolean tryAcquire() {
+    if (inFlight.incrementAndGet() > (int) limit) {
+      inFlight.decrementAndGet();
+      return false;
+    }
+    return true;
+  }
+
+  public void release(long latencyNanos) {
+    inFlight.decrementAndGet();
+    synchronized (this) {
+      smoothedLatencyNanos = smoothedLatencyNanos == 0 ? latencyNanos
+        : smoothedLatencyNanos + LATENCY_SMOOTHING * (latencyNanos - smoothedLatencyNanos);
+      if (latencyNanos > targetLatencyNanos) {
+        limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+      } else {
+        limit = Math.min(maxLimit, limit + 1 / limit);
+      }
+    }
+  }
+
+  public int getLimit() {
+    return (int) limit;
+  }
+
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  /**
+   * How long a rejected caller should wait before retrying: the smoothed time a request holds a slot, scaled by how
+   * far the in-flight count is above the limit.
+   */
+  public long getRetryAfterMillis() {
+    double overload = Math.max(1, (double) inFlight.get() / Math.max(1, (int) limit));
+    return Math.max(1, (long) Math.ceil(smoothedLatencyNanos * overload / TimeUnit.MILLISECONDS.toNanos(1)));
+  }
+}
@@ -0,0 +1,139 @@
+package com.db.awmd.challenge.admission;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission control for transfer submission: a token bucket per client (API key header, falling back to the remote
+ * address) and a global latency-adaptive concurrency limit. Rejected requests get 429 and a Retry-After header.
+ * <p>
+ * At most {@code maxTrackedClients} buckets are kept. Once full, only buckets that have refilled completely are
+ * dropped, since recreating them changes nothing; clients arriving while every bucket is still in use share one
+ * overflow bucket, so churning keys can neither grow memory nor reset anyone's budget.
+ */
+@Slf4j
+@Component
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+  public static final String API_KEY_HEADER = "X-Api-Key";
+
+  private static final String GUARDED_PATH = "/v1/transfers";
+
+  private static final long EVICTION_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final boolean enabled;
+  private final double ratePerSecond;
+  private final double burst;
+  private final int maxTrackedClients;
+
+  private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+  private final TokenBucket overflowBucket;
+  private final AtomicLong nextEviction = new AtomicLong(System.nanoTime());
+  private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+  @Autowired
+  public AdmissionControlFilter(@Value("${admission.enabled:true}") boolean enabled,
+                                @Value("${admission.client.rate-per-second:1000}") double ratePerSecond,
+                                @Value("${admission.client.burst:2000}") double burst,
+                                @Value("${admission.client.max-tracked:100000}") int maxTrackedClients,
+                                @Value("${admission.concurrency.initial:64}") int initialLimit,
+                                @Value("${admission.concurrency.min:8}") int minLimit,
+                                @Value("${admission.concurrency.max:512}") int maxLimit,
+                                @Value("${admission.concurrency.target-latency-millis:100}") long targetLatencyMillis) {
+    this.enabled = enabled;
+    this.ratePerSecond = ratePerSecond;
+    this.burst = burst;
+    this.maxTrackedClients = maxTrackedClients;
+    this.overflowBucket = new TokenBucket(ratePerSecond, burst);
+    this.concurrencyLimiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, targetLatencyMillis);
+  }
+
+  public AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+    return concurrencyLimiter;
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !enabled || !"POST".equals(request.getMethod())
+      || !request.getRequestURI().startsWith(request.getContextPath() + GUARDED_PATH);
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+    throws ServletException, IOException {
+
+    String client = clientKey(request);
+    long waitMillis = bucketFor(client).tryAcquire();
+    if (waitMillis > 0) {
+      reject(response, waitMillis, "Rate limit exceeded for client " + client);
+      return;
+    }
+
+    if (!concurrencyLimiter.tryAcquire()) {
+      reject(response, concurrencyLimiter.getRetryAfterMillis(), "Server overloaded, concurrency limit " + concurrencyLimiter.getLimit() + " reached");
+      return;
+    }
+
+    long start = System.nanoTime();
+    try {
+      chain.doFilter(request, response);
+    } finally {
+      concurrencyLimiter.release(System.nanoTime() - start);
+    }
+  }
+
+  private String clientKey(HttpServletRequest request) {
+    String apiKey = request.getHeader(API_KEY_HEADER);
+    return apiKey != null ? apiKey : request.getRemoteAddr();
+  }
+
+  private TokenBucket bucketFor(String client) {
+    TokenBucket bucket = buckets.get(client);
+    if (bucket != null) {
+      return bucket;
+    }
+    if (buckets.size() >= maxTrackedClients) {
+      evictRefilled();
+      if (buckets.size() >= maxTrackedClients) {
+        return overflowBucket;
+      }
+    }
+    return buckets.computeIfAbsent(client, key -> new TokenBucket(ratePerSecond, burst));
+  }
+
+  private void evictRefilled() {
+    // Scanning every bucket is linear, so do it at most once per interval rather than for every new client
+    long now = System.nanoTime();
+    long next = nextEviction.get();
+    if (now - next >= 0 && nextEviction.compareAndSet(next, now + EVICTION_INTERVAL_NANOS)) {
+      buckets.values().removeIf(TokenBucket::isRefilled);
+    }
+  }
+
+  public int getTrackedClients() {
+    return buckets.size();
+  }
+
+  private void reject(HttpServletResponse response, long retryAfterMillis, String message) throws IOException {
+    log.debug(message);
+    response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+    response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf((retryAfterMillis + 999) / 1000));
+    response.setContentType("text/plain");
+    response.getWriter().write(message);
+  }
+}
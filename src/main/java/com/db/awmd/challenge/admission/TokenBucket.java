@@ -0,0 +1,53 @@
+package com.db.awmd.challenge.admission;
+
+public class TokenBucket {
+
+  private final double ratePerNano;
+  private final double capacity;
+
+  private double tokens;
+  private long lastRefill;
+
+  public TokenBucket(double ratePerSecond, double capacity) {
+    this.ratePerNano = ratePerSecond / 1_000_000_000d;
+    this.capacity = capacity;
+    this.tokens = capacity;
+    this.lastRefill = System.nanoTime();
+  }
+
+  /**
+   * Takes one token if available.
+   *
+   * @return 0 if the token was granted, otherwise the milliseconds until one becomes available
+   */
+  public synchronized long tryAcquire() {
+    refill();
+    if (tokens >= 1) {
+      tokens -= 1;
+      return 0;
+    }
+    return Math.max(1, (long) Math.ceil((1 - tokens) / ratePerNano / 1_000_000d));
+  }
+
+  /**
+   * Takes tokens for work that has already been admitted, going into debt when there are not enough, so that
+   * later calls to {@link #tryAcquire} wait until the debt has been refilled.
+   */
+  public synchronized void charge(double amount) {
+    refill();
+    tokens -= amount;
+  }
+
+  /**
+   * Whether the bucket has refilled to capacity, in which case a new bucket would behave exactly the same.
+   */
+  public synchronized boolean isRefilled() {
+    return tokens + (System.nanoTime() - lastRefill) * ratePerNano >= capacity;
+  }
+
+  private void refill() {
+    long now = System.nanoTime();
+    tokens = Math.min(capacity, tokens + (now - lastRefill) * ratePerNano);
+    lastRefill = now;
+  }
+}
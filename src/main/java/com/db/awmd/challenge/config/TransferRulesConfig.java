@@ -0,0 +1,38 @@
+package com.db.awmd.challenge.config;
+
+import com.db.awmd.challenge.rules.VelocityRule;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class TransferRulesConfig {
+
+  @Value("${rules.max-tracked-keys:1000000}")
+  private int maxTrackedKeys;
+
+  @Bean
+  public VelocityRule senderPerMinuteRule(@Value("${rules.sender.max-count-per-minute:0}") long maxCount,
+                                          @Value("${rules.sender.max-amount-per-minute:0}") BigDecimal maxAmount) {
+    return new VelocityRule("sender per minute", transfer -> transfer.getSenderAccountId(),
+      TimeUnit.MINUTES.toMillis(1), maxCount, maxAmount, maxTrackedKeys);
+  }
+
+  @Bean
+  public VelocityRule senderPerHourRule(@Value("${rules.sender.max-count-per-hour:0}") long maxCount,
+                                        @Value("${rules.sender.max-amount-per-hour:0}") BigDecimal maxAmount) {
+    return new VelocityRule("sender per hour", transfer -> transfer.getSenderAccountId(),
+      TimeUnit.HOURS.toMillis(1), maxCount, maxAmount, maxTrackedKeys);
+  }
+
+  @Bean
+  public VelocityRule pairPerMinuteRule(@Value("${rules.pair.max-count-per-minute:0}") long maxCount,
+                                        @Value("${rules.pair.max-amount-per-minute:0}") BigDecimal maxAmount) {
+    return new VelocityRule("account pair per minute",
+      transfer -> transfer.getSenderAccountId() + "->" + transfer.getReceiverAccountId(),
+      TimeUnit.MINUTES.toMillis(1), maxCount, maxAmount, maxTrackedKeys);
+  }
+}
@@ -1,50 +1,208 @@
 package com.db.awmd.challenge.domain;
 
 import com.db.awmd.challenge.exception.InsufficientFundsException;
+import com.db.awmd.challenge.tenant.TenantAccountIdDeserializer;
+import com.db.awmd.challenge.tenant.TenantAccountIdSerializer;
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.Value;
 import org.hibernate.validator.constraints.NotEmpty;
 
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
 import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Balance, held amount and version live in one immutable {@link Snapshot} that is swapped with a single CAS, so
+ * every change bumps the version. The balance-changing methods run under the account {@link #getLock() lock}, so
+ * callers holding it see no other change, while {@link #commit} lets optimistic callers apply a change computed
+ * from a snapshot without taking it.
+ */
 @Data
+@ToString(exclude = "lock")
+@JsonPropertyOrder({"accountId", "balance", "currency"})
 public class Account {
 
+  private static final AtomicReferenceFieldUpdater<Account, Snapshot> SNAPSHOT =
+    AtomicReferenceFieldUpdater.newUpdater(Account.class, Snapshot.class, "snapshot");
+
   @NotNull
   @NotEmpty
+  @JsonSerialize(using = TenantAccountIdSerializer.class)
   private final String accountId;
 
-  @NotNull
-  @Min(value = 0, message = "Initial balance must be positive.")
-  private BigDecimal balance;
+  @Pattern(regexp = "[A-Z]{3}", message = "Currency must be an ISO 4217 code.")
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private final String currency;
+
+  @JsonIgnore
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  private volatile Snapshot snapshot;
+
+  @JsonIgnore
+  private final transient ReentrantLock lock = new ReentrantLock();
 
   public Account(String accountId) {
-    this.accountId = accountId;
-    this.balance = BigDecimal.ZERO;
+    this(accountId, BigDecimal.ZERO);
+  }
+
+  public Account(String accountId, BigDecimal balance) {
+    this(accountId, balance, null);
   }
 
   @JsonCreator
-  public Account(@JsonProperty("accountId") String accountId,
-                 @JsonProperty("balance") BigDecimal balance) {
+  public Account(@JsonProperty("accountId") @JsonDeserialize(using = TenantAccountIdDeserializer.class) String accountId,
+                 @JsonProperty("balance") BigDecimal balance,
+                 @JsonProperty("currency") String currency) {
     this.accountId = accountId;
-    this.balance = balance;
+    this.currency = currency;
+    this.snapshot = new Snapshot(balance, BigDecimal.ZERO, 0);
   }
 
-  public synchronized void withdraw(BigDecimal amount) {
+  @NotNull
+  @Min(value = 0, message = "Initial balance must be positive.")
+  public BigDecimal getBalance() {
+    return snapshot.getBalance();
+  }
 
-    if (balance.compareTo(amount) >= 0) {
-      //log.info("Retrieving account for id {}", accountId);
-      balance = balance.subtract(amount);
-    } else {
-      throw new InsufficientFundsException("Account id: " + accountId + " does not have enough funds available!");
+  public void setBalance(BigDecimal balance) {
+    lock.lock();
+    try {
+      Snapshot current;
+      do {
+        current = snapshot;
+      } while (!SNAPSHOT.compareAndSet(this, current, current.next(balance, current.getHeldBalance())));
+    } finally {
+      lock.unlock();
     }
   }
 
-  public synchronized void deposit(BigDecimal amount) {
-    balance = balance.add(amount);
+  @JsonIgnore
+  public BigDecimal getHeldBalance() {
+    return snapshot.getHeldBalance();
+  }
+
+  @JsonIgnore
+  public long getVersion() {
+    return snapshot.getVersion();
+  }
+
+  @JsonIgnore
+  public Snapshot getSnapshot() {
+    return snapshot;
+  }
+
+  @JsonIgnore
+  public BigDecimal getAvailableBalance() {
+    return snapshot.getAvailableBalance();
+  }
+
+  /**
+   * Installs a new balance if the account has not changed since {@code expected} was read.
+   */
+  public boolean commit(Snapshot expected, BigDecimal balance) {
+    return SNAPSHOT.compareAndSet(this, expected, expected.next(balance, expected.getHeldBalance()));
+  }
+
+  public void withdraw(BigDecimal amount) {
+    lock.lock();
+    try {
+      Snapshot current;
+      do {
+        current = snapshot;
+        if (current.getAvailableBalance().compareTo(amount) < 0) {
+          throw new InsufficientFundsException("Account id: " + accountId + " does not have enough funds available!");
+        }
+      } while (!SNAPSHOT.compareAndSet(this, current,
+        current.next(current.getBalance().subtract(amount), current.getHeldBalance())));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public void deposit(BigDecimal amount) {
+    lock.lock();
+    try {
+      Snapshot current;
+      do {
+        current = snapshot;
+      } while (!SNAPSHOT.compareAndSet(this, current,
+        current.next(current.getBalance().add(amount), current.getHeldBalance())));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public void hold(BigDecimal amount) {
+    lock.lock();
+    try {
+      Snapshot current;
+      do {
+        current = snapshot;
+        if (current.getAvailableBalance().compareTo(amount) < 0) {
+          throw new InsufficientFundsException("Account id: " + accountId + " does not have enough funds available!");
+        }
+      } while (!SNAPSHOT.compareAndSet(this, current,
+        current.next(current.getBalance(), current.getHeldBalance().add(amount))));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public void capture(BigDecimal heldAmount, BigDecimal capturedAmount) {
+    lock.lock();
+    try {
+      Snapshot current;
+      do {
+        current = snapshot;
+      } while (!SNAPSHOT.compareAndSet(this, current,
+        current.next(current.getBalance().subtract(capturedAmount), current.getHeldBalance().subtract(heldAmount))));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public void release(BigDecimal heldAmount) {
+    lock.lock();
+    try {
+      Snapshot current;
+      do {
+        current = snapshot;
+      } while (!SNAPSHOT.compareAndSet(this, current,
+        current.next(current.getBalance(), current.getHeldBalance().subtract(heldAmount))));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Value
+  public static class Snapshot {
+
+    BigDecimal balance;
+    BigDecimal heldBalance;
+    long version;
+
+    public BigDecimal getAvailableBalance() {
+      return balance.subtract(heldBalance);
+    }
+
+    Snapshot next(BigDecimal balance, BigDecimal heldBalance) {
+      return new Snapshot(balance, heldBalance, version + 1);
+    }
   }
 
 }
@@ -0,0 +1,44 @@
+package com.db.awmd.challenge.domain;
+
+import com.db.awmd.challenge.tenant.TenantAccountIdSerializer;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class AccountImportResult {
+
+  private static final int MAX_REPORTED = 1000;
+
+  private long imported;
+  private long duplicateCount;
+  private long invalidCount;
+  private long overQuotaCount;
+  @JsonSerialize(contentUsing = TenantAccountIdSerializer.class)
+  private final List<String> duplicates = new ArrayList<>();
+  private final List<String> invalid = new ArrayList<>();
+
+  public void addImported(long count) {
+    this.imported += count;
+  }
+
+  public void addDuplicate(String accountId) {
+    this.duplicateCount++;
+    if (this.duplicates.size() < MAX_REPORTED) {
+      this.duplicates.add(accountId);
+    }
+  }
+
+  public void addOverQuota() {
+    this.overQuotaCount++;
+  }
+
+  public void addInvalid(String reason) {
+    this.invalidCount++;
+    if (this.invalid.size() < MAX_REPORTED) {
+      this.invalid.add(reason);
+    }
+  }
+}
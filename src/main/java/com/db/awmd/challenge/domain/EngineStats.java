@@ -0,0 +1,12 @@
+package com.db.awmd.challenge.domain;
+
+import lombok.Data;
+
+@Data
+public class EngineStats {
+
+  private final long commits;
+  private final long conflicts;
+  private final long fallbacks;
+  private final double conflictRate;
+}
@@ -0,0 +1,68 @@
+package com.db.awmd.challenge.domain;
+
+import com.db.awmd.challenge.tenant.TenantAccountIdSerializer;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Getter
+@ToString
+public class Hold {
+
+  @JsonIgnore
+  private static AtomicLong counter = new AtomicLong(0);
+  private final Long holdId;
+  @JsonSerialize(using = TenantAccountIdSerializer.class)
+  private final String accountId;
+  private final BigDecimal amount;
+  private final Long expiresAt;
+  @Getter(AccessLevel.NONE)
+  private final AtomicReference<Status> status = new AtomicReference<>(Status.ACTIVE);
+  @Setter
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private volatile BigDecimal capturedAmount;
+
+  public Hold(String accountId, BigDecimal amount, Long expiresAt) {
+    this.holdId = counter.addAndGet(1);
+    this.accountId = accountId;
+    this.amount = amount;
+    this.expiresAt = expiresAt;
+  }
+
+  public Status getStatus() {
+    return status.get();
+  }
+
+  /**
+   * Moves an active hold to its final status. Only one of capture, release or expiry can win.
+   */
+  public boolean close(Status finalStatus) {
+    return status.compareAndSet(Status.ACTIVE, finalStatus);
+  }
+
+  public enum Status {
+    ACTIVE("Active"),
+    CAPTURED("Captured"),
+    RELEASED("Released"),
+    EXPIRED("Expired");
+    private String description;
+
+    Status(String description) {
+      this.description = description;
+    }
+
+    @JsonValue
+    public String getDescription() {
+      return this.description;
+    }
+  }
+}
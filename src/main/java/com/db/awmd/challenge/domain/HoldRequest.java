@@ -0,0 +1,27 @@
+package com.db.awmd.challenge.domain;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.math.BigDecimal;
+
+@Data
+public class HoldRequest {
+
+  @NotNull
+  @Min(value = 0, message = "Amount to hold must be positive.")
+  private final BigDecimal amount;
+
+  @NotNull
+  private final Long expiresAt;
+
+  @JsonCreator
+  public HoldRequest(@JsonProperty("amount") BigDecimal amount,
+                     @JsonProperty("expiresAt") Long expiresAt) {
+    this.amount = amount;
+    this.expiresAt = expiresAt;
+  }
+}
@@ -0,0 +1,19 @@
+package com.db.awmd.challenge.domain;
+
+import lombok.Data;
+
+@Data
+public class LaneStats {
+
+  private final String lane;
+  private final int active;
+  private final int queued;
+  private final int maxConcurrency;
+  private final int queueCapacity;
+  private final long completed;
+  private final long rejected;
+  private final long waitP50Micros;
+  private final long waitP99Micros;
+  private final long latencyP50Micros;
+  private final long latencyP99Micros;
+}
@@ -0,0 +1,28 @@
+package com.db.awmd.challenge.domain;
+
+import com.db.awmd.challenge.tenant.TenantAccountIdSerializer;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+public class LedgerEntry {
+
+  private final long sequence;
+  @JsonSerialize(using = TenantAccountIdSerializer.class)
+  private final String accountId;
+  private final Type type;
+  private final BigDecimal amount;
+  private final String reference;
+  private final long timestamp;
+
+  public BigDecimal getSignedAmount() {
+    return type == Type.DEBIT ? amount.negate() : amount;
+  }
+
+  public enum Type {
+    DEBIT,
+    CREDIT
+  }
+}
@@ -0,0 +1,67 @@
+package com.db.awmd.challenge.domain;
+
+import com.db.awmd.challenge.tenant.TenantAccountIdDeserializer;
+import com.db.awmd.challenge.tenant.TenantAccountIdSerializer;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.Setter;
+import org.hibernate.validator.constraints.NotEmpty;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Data
+public class MultiLegTransfer {
+
+  @JsonIgnore
+  private static AtomicLong counter = new AtomicLong(0);
+  @Setter(AccessLevel.NONE)
+  private final Long transferId;
+  @NotNull
+  @NotEmpty
+  @Valid
+  private final List<Leg> debits;
+  @NotNull
+  @NotEmpty
+  @Valid
+  private final List<Leg> credits;
+  private Transfer.Status status;
+  private String failureCause;
+
+  @JsonCreator
+  public MultiLegTransfer(@JsonProperty("debits") List<Leg> debits,
+                          @JsonProperty("credits") List<Leg> credits) {
+    this.transferId = counter.addAndGet(1);
+    this.debits = debits;
+    this.credits = credits;
+    this.status = Transfer.Status.PENDING;
+  }
+
+  @Data
+  public static class Leg {
+
+    @NotNull
+    @NotEmpty
+    @JsonSerialize(using = TenantAccountIdSerializer.class)
+    private final String accountId;
+    @NotNull
+    @Min(value = 0, message = "Leg amount must be positive.")
+    private final BigDecimal amount;
+
+    @JsonCreator
+    public Leg(@JsonProperty("accountId") @JsonDeserialize(using = TenantAccountIdDeserializer.class) String accountId,
+               @JsonProperty("amount") BigDecimal amount) {
+      this.accountId = accountId;
+      this.amount = amount;
+    }
+  }
+}
@@ -0,0 +1,15 @@
+package com.db.awmd.challenge.domain;
+
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+public class OutboxStatus {
+
+  private final long headOffset;
+  private final int retainedEvents;
+  private final Map<String, Long> checkpoints;
+  private final long exportedBatches;
+  private final long failedExports;
+}
@@ -0,0 +1,17 @@
+package com.db.awmd.challenge.domain;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class ReplayResult {
+
+  private final long entries;
+  private final Map<String, BigDecimal> balances;
+  private final List<String> mismatchedAccounts;
+  private final boolean applied;
+  private final long elapsedMillis;
+}
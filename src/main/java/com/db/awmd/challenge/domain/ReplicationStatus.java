@@ -0,0 +1,18 @@
+package com.db.awmd.challenge.domain;
+
+import lombok.Data;
+
+@Data
+public class ReplicationStatus {
+
+  private final String role;
+  private final boolean connected;
+  private final boolean diverged;
+  private final long sequence;
+  private final long acknowledgedSequence;
+  private final long lagEvents;
+  private final long lagMillis;
+  private final long unconfirmedSyncEvents;
+  private final long appliedSequence;
+  private final long lastAppliedAt;
+}
@@ -0,0 +1,18 @@
+package com.db.awmd.challenge.domain;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ReportResult {
+
+  private final String reportDate;
+  private final String format;
+  private final long cutoffSequence;
+  private final String directory;
+  private final long accounts;
+  private final long transferLines;
+  private final List<String> files;
+  private final long elapsedMillis;
+}
@@ -0,0 +1,13 @@
+package com.db.awmd.challenge.domain;
+
+import lombok.Data;
+
+@Data
+public class ShardStats {
+
+  private final int shard;
+  private final long size;
+  private final long reads;
+  private final long misses;
+  private final long writes;
+}
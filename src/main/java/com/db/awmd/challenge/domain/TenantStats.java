@@ -0,0 +1,18 @@
+package com.db.awmd.challenge.domain;
+
+import lombok.Data;
+
+@Data
+public class TenantStats {
+
+  private final String tenant;
+  private final long accounts;
+  private final long maxAccounts;
+  private final long transfers;
+  private final long maxTransfers;
+  private final long requests;
+  private final long throttled;
+  private final long overQuota;
+  private final long latencyP50Micros;
+  private final long latencyP99Micros;
+}
@@ -1,58 +1,145 @@
 package com.db.awmd.challenge.domain;
 
+import com.db.awmd.challenge.tenant.TenantAccountIdDeserializer;
+import com.db.awmd.challenge.tenant.TenantAccountIdSerializer;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
 import lombok.Setter;
+import lombok.ToString;
 import org.hibernate.validator.constraints.NotEmpty;
 
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 @Data
+@ToString(exclude = "claimed")
 public class Transfer {
 
   @JsonIgnore
   private static AtomicLong counter = new AtomicLong(0);
+  private static final AtomicReferenceFieldUpdater<Transfer, Status> STATUS =
+    AtomicReferenceFieldUpdater.newUpdater(Transfer.class, Status.class, "status");
+  private static final AtomicIntegerFieldUpdater<Transfer> CLAIMED =
+    AtomicIntegerFieldUpdater.newUpdater(Transfer.class, "claimed");
   @NotNull
   @Setter(AccessLevel.NONE)
   private final Long transferId;
   @NotNull
   @NotEmpty
+  @JsonSerialize(using = TenantAccountIdSerializer.class)
   private final String senderAccountId;
   @NotNull
   @NotEmpty
+  @JsonSerialize(using = TenantAccountIdSerializer.class)
   private final String receiverAccountId;
   @NotNull
   @Min(value = 0, message = "Amount to transfer must be positive.")
   private final BigDecimal amount;
-  private Status status;
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private final Long executeAt;
+  private volatile Status status;
   private String failureCause;
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private BigDecimal creditedAmount;
+  @JsonIgnore
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  private transient volatile int claimed;
+
+  public Transfer(String senderAccountId, String receiverAccountId, BigDecimal amount) {
+    this(senderAccountId, receiverAccountId, amount, null);
+  }
 
   @JsonCreator
-  public Transfer(@JsonProperty("senderAccountId") String senderAccountId,
-                  @JsonProperty("receiverAccountId") String receiverAccountId,
-                  @JsonProperty("amount") BigDecimal amount) {
+  public Transfer(@JsonProperty("senderAccountId") @JsonDeserialize(using = TenantAccountIdDeserializer.class) String senderAccountId,
+                  @JsonProperty("receiverAccountId") @JsonDeserialize(using = TenantAccountIdDeserializer.class) String receiverAccountId,
+                  @JsonProperty("amount") BigDecimal amount,
+                  @JsonProperty("executeAt") Long executeAt) {
 
     this.transferId = counter.addAndGet(1);
     this.senderAccountId = senderAccountId;
     this.receiverAccountId = receiverAccountId;
     this.amount = amount;
+    this.executeAt = executeAt;
     this.status = Status.PENDING;
 
   }
 
-  public void setStatus(Status status) {
-    if (this.status == Status.COMPLETED) {
-      throw new UnsupportedOperationException("Not allowed to revert a completed transference to another status");
-    }
-    this.status = status;
+  /**
+   * Rebuilds a transfer that already has an id, e.g. from a replica or a database row. Ids handed out afterwards
+   * stay above it.
+   */
+  public Transfer(Long transferId, String senderAccountId, String receiverAccountId, BigDecimal amount,
+                  Long executeAt) {
+    this.transferId = transferId;
+    this.senderAccountId = senderAccountId;
+    this.receiverAccountId = receiverAccountId;
+    this.amount = amount;
+    this.executeAt = executeAt;
+    this.status = Status.PENDING;
+    advanceIdsPast(transferId);
+  }
 
+  /**
+   * Makes sure ids handed out from now on are greater than an id already stored elsewhere.
+   */
+  public static void advanceIdsPast(long transferId) {
+    counter.accumulateAndGet(transferId, Math::max);
+  }
+
+  @JsonIgnore
+  public BigDecimal getReceivedAmount() {
+    return creditedAmount != null ? creditedAmount : amount;
+  }
+
+  @JsonIgnore
+  public boolean isScheduled() {
+    return executeAt != null && executeAt > System.currentTimeMillis();
+  }
+
+  /**
+   * Claims a PENDING transfer for execution. Only one caller wins, so a transfer picked up by several executors at
+   * once (a lane, the sweeper, the scheduler, a retried request) is executed once.
+   */
+  public boolean claim() {
+    return status == Status.PENDING && CLAIMED.compareAndSet(this, 0, 1);
+  }
+
+  /**
+   * Hands back a claim on a transfer that was not executed, so it can be claimed again.
+   */
+  public void unclaim() {
+    CLAIMED.set(this, 0);
+  }
+
+  @JsonIgnore
+  public boolean isClaimed() {
+    return claimed != 0;
+  }
+
+  /**
+   * The completed check and the write are one CAS, so a concurrent failure can never overwrite a completion.
+   */
+  public void setStatus(Status status) {
+    Status current;
+    do {
+      current = this.status;
+      if (current == Status.COMPLETED) {
+        throw new UnsupportedOperationException("Not allowed to revert a completed transference to another status");
+      }
+    } while (!STATUS.compareAndSet(this, current, status));
   }
 
   public enum Status {
@@ -0,0 +1,13 @@
+package com.db.awmd.challenge.domain;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+public class TransferAggregate {
+
+  private final String status;
+  private final long count;
+  private final BigDecimal amount;
+}
@@ -0,0 +1,12 @@
+package com.db.awmd.challenge.domain;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class TransferRollup {
+
+  private final long bucketStart;
+  private final List<TransferAggregate> statuses;
+}
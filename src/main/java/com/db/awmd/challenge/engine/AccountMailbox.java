@@ -0,0 +1,108 @@
+package com.db.awmd.challenge.engine;
+
+import com.db.awmd.challenge.domain.Account;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Serialises every debit and credit for one account id. The mailbox is only scheduled on the shared executor
+ * while it has messages, so an idle account holds no thread and no task. Each run drains up to a batch of
+ * messages and folds consecutive credits into a single deposit.
+ */
+public class AccountMailbox {
+
+  private final Queue<Message> messages = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+  private final Executor executor;
+  private final int batchSize;
+
+  public AccountMailbox(Executor executor, int batchSize) {
+    this.executor = executor;
+    this.batchSize = batchSize;
+  }
+
+  public CompletableFuture<Void> debit(Account account, BigDecimal amount) {
+    return post(new Message(account, amount, true));
+  }
+
+  public CompletableFuture<Void> credit(Account account, BigDecimal amount) {
+    return post(new Message(account, amount, false));
+  }
+
+  private CompletableFuture<Void> post(Message message) {
+    messages.add(message);
+    if (scheduled.compareAndSet(false, true)) {
+      executor.execute(this::drain);
+    }
+    return message.result;
+  }
+
+  private void drain() {
+    List<Message> credits = new ArrayList<>();
+    for (int processed = 0; processed < batchSize; processed++) {
+      Message message = messages.poll();
+      if (message == null) {
+        break;
+      }
+      if (!message.debit) {
+        if (!credits.isEmpty() && credits.get(0).account != message.account) {
+          applyCredits(credits);
+        }
+        credits.add(message);
+        continue;
+      }
+      // Credits queued ahead of a debit must be visible to it
+      applyCredits(credits);
+      try {
+        message.account.withdraw(message.amount);
+        message.result.complete(null);
+      } catch (RuntimeException e) {
+        message.result.completeExceptionally(e);
+      }
+    }
+    applyCredits(credits);
+
+    scheduled.set(false);
+    if (!messages.isEmpty() && scheduled.compareAndSet(false, true)) {
+      executor.execute(this::drain);
+    }
+  }
+
+  private static void applyCredits(List<Message> credits) {
+    if (credits.isEmpty()) {
+      return;
+    }
+    try {
+      BigDecimal total = BigDecimal.ZERO;
+      for (Message credit : credits) {
+        total = total.add(credit.amount);
+      }
+      credits.get(0).account.deposit(total);
+      credits.forEach(credit -> credit.result.complete(null));
+    } catch (RuntimeException e) {
+      credits.forEach(credit -> credit.result.completeExceptionally(e));
+    }
+    credits.clear();
+  }
+
+  private static class Message {
+
+    private final Account account;
+    private final BigDecimal amount;
+    private final boolean debit;
+    private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+    private Message(Account account, BigDecimal amount, boolean debit) {
+      this.account = account;
+      this.amount = amount;
+      this.debit = debit;
+    }
+  }
+}
@@ -0,0 +1,99 @@
+package com.db.awmd.challenge.engine;
+
+import com.db.awmd.challenge.domain.Account;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Runs each transfer as a debit message to the sender's mailbox followed by a credit message to the receiver's,
+ * all mailboxes sharing one pool of carrier threads. A credit that cannot be applied is compensated by crediting
+ * the debit back to the sender.
+ *
+ * {@link #transferAsync} chains the legs without holding a thread. {@link #transfer} waits once for the whole
+ * chain, because the transfers service records the ledger entries and status on the calling thread while it holds
+ * the ledger write gate. Mailboxes apply their messages through the account lock, so netted and multi-leg
+ * settlements, which lock the accounts directly, serialise with them.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "transfers.engine", havingValue = "actor")
+public class ActorTransferEngine implements TransferExecutionEngine {
+
+  private final Map<String, AccountMailbox> mailboxes = new ConcurrentHashMap<>();
+
+  private final ForkJoinPool carriers;
+
+  private final int batchSize;
+
+  @Autowired
+  public ActorTransferEngine(@Value("${transfers.actor.parallelism:0}") int parallelism,
+                             @Value("${transfers.actor.batch-size:256}") int batchSize) {
+    this.carriers = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(),
+      ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+    this.batchSize = batchSize;
+  }
+
+  @PreDestroy
+  public void stop() {
+    this.carriers.shutdown();
+  }
+
+  @Override
+  public void transfer(Account senderAccount, Account receiverAccount, BigDecimal debitAmount,
+                       BigDecimal creditAmount) {
+    await(transferAsync(senderAccount, receiverAccount, debitAmount, creditAmount));
+  }
+
+  /**
+   * Completes once both legs are applied, or exceptionally once a failed credit has been compensated.
+   */
+  public CompletableFuture<Void> transferAsync(Account senderAccount, Account receiverAccount,
+                                               BigDecimal debitAmount, BigDecimal creditAmount) {
+    return mailboxFor(senderAccount).debit(senderAccount, debitAmount)
+      .thenCompose(debited -> mailboxFor(receiverAccount).credit(receiverAccount, creditAmount)
+        .handle((credited, failure) -> failure)
+        .thenCompose(failure -> failure == null ? CompletableFuture.<Void>completedFuture(null)
+          : compensate(senderAccount, receiverAccount, debitAmount, failure)));
+  }
+
+  public int getMailboxCount() {
+    return mailboxes.size();
+  }
+
+  private AccountMailbox mailboxFor(Account account) {
+    return mailboxes.computeIfAbsent(account.getAccountId(), accountId -> new AccountMailbox(carriers, batchSize));
+  }
+
+  private CompletableFuture<Void> compensate(Account senderAccount, Account receiverAccount, BigDecimal debitAmount,
+                                             Throwable failure) {
+    log.warn("Credit to {} failed, compensating debit on {}", receiverAccount.getAccountId(),
+      senderAccount.getAccountId());
+    Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+    CompletableFuture<Void> compensated = new CompletableFuture<>();
+    mailboxFor(senderAccount).credit(senderAccount, debitAmount)
+      .whenComplete((credited, error) -> compensated.completeExceptionally(cause));
+    return compensated;
+  }
+
+  private static void await(CompletableFuture<Void> result) {
+    try {
+      result.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+}
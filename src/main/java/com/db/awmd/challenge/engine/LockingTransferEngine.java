@@ -0,0 +1,41 @@
+package com.db.awmd.challenge.engine;
+
+import com.db.awmd.challenge.domain.Account;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+/**
+ * Holds both account locks, taken in id order, for the whole transfer. Every balance change takes its account
+ * lock, so no other transfer touching either account sees the debit without the credit.
+ */
+@Component
+@ConditionalOnProperty(name = "transfers.engine", havingValue = "locking", matchIfMissing = true)
+public class LockingTransferEngine implements TransferExecutionEngine {
+
+  @Override
+  public void transfer(Account senderAccount, Account receiverAccount, BigDecimal debitAmount,
+                       BigDecimal creditAmount) {
+    transferLocked(senderAccount, receiverAccount, debitAmount, creditAmount);
+  }
+
+  static void transferLocked(Account senderAccount, Account receiverAccount, BigDecimal debitAmount,
+                             BigDecimal creditAmount) {
+    boolean senderFirst = senderAccount.getAccountId().compareTo(receiverAccount.getAccountId()) <= 0;
+    Account first = senderFirst ? senderAccount : receiverAccount;
+    Account second = senderFirst ? receiverAccount : senderAccount;
+    first.getLock().lock();
+    try {
+      second.getLock().lock();
+      try {
+        senderAccount.withdraw(debitAmount);
+        receiverAccount.deposit(creditAmount);
+      } finally {
+        second.getLock().unlock();
+      }
+    } finally {
+      first.getLock().unlock();
+    }
+  }
+}
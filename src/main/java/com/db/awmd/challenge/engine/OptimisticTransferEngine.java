@@ -0,0 +1,69 @@
+package com.db.awmd.challenge.engine;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.exception.InsufficientFundsException;
+import com.db.awmd.challenge.metrics.TransferMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+/**
+ * Reads the sender's snapshot, decides the outcome on it and commits the debit only if the sender's version is
+ * unchanged, without taking account locks. A transfer that keeps conflicting falls back to locking both accounts
+ * in id order after {@code maxRetries} attempts.
+ *
+ * Only the sender's version is validated. The credit is applied afterwards as a second commit against whatever the
+ * receiver's balance is by then, so the two legs are separate atomic steps: a reader can see the debit before the
+ * credit, and the pair of balances is never committed as one. This is weaker than a two-account transaction.
+ */
+@Component
+@ConditionalOnProperty(name = "transfers.engine", havingValue = "optimistic")
+public class OptimisticTransferEngine implements TransferExecutionEngine {
+
+  private final TransferMetrics transferMetrics;
+
+  private final int maxRetries;
+
+  @Autowired
+  public OptimisticTransferEngine(TransferMetrics transferMetrics,
+                                  @Value("${transfers.optimistic.max-retries:8}") int maxRetries) {
+    this.transferMetrics = transferMetrics;
+    this.maxRetries = maxRetries;
+  }
+
+  @Override
+  public void transfer(Account senderAccount, Account receiverAccount, BigDecimal debitAmount,
+                       BigDecimal creditAmount) {
+    for (int attempt = 0; attempt < maxRetries; attempt++) {
+      Account.Snapshot sender = senderAccount.getSnapshot();
+
+      if (sender.getAvailableBalance().compareTo(debitAmount) < 0) {
+        if (senderAccount.getSnapshot() == sender) {
+          throw new InsufficientFundsException("Account id: " + senderAccount.getAccountId()
+            + " does not have enough funds available!");
+        }
+        this.transferMetrics.getOptimisticConflicts().increment();
+        continue;
+      }
+
+      if (!senderAccount.commit(sender, sender.getBalance().subtract(debitAmount))) {
+        this.transferMetrics.getOptimisticConflicts().increment();
+        continue;
+      }
+      // The debit is committed and a credit cannot fail, so a conflicting credit is re-applied on a fresh snapshot
+      Account.Snapshot receiver = receiverAccount.getSnapshot();
+      while (!receiverAccount.commit(receiver, receiver.getBalance().add(creditAmount))) {
+        this.transferMetrics.getOptimisticConflicts().increment();
+        receiver = receiverAccount.getSnapshot();
+      }
+      this.transferMetrics.getOptimisticCommits().increment();
+      return;
+    }
+
+    this.transferMetrics.getPessimisticFallbacks().increment();
+    LockingTransferEngine.transferLocked(senderAccount, receiverAccount, debitAmount, creditAmount);
+  }
+}
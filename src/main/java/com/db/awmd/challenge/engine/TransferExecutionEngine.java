@@ -0,0 +1,14 @@
+package com.db.awmd.challenge.engine;
+
+import com.db.awmd.challenge.domain.Account;
+
+import java.math.BigDecimal;
+
+/**
+ * Moves funds between two accounts for a single transfer. Implementations either apply both legs or neither and
+ * surface an insufficient balance as {@link com.db.awmd.challenge.exception.InsufficientFundsException}.
+ */
+public interface TransferExecutionEngine {
+
+  void transfer(Account senderAccount, Account receiverAccount, BigDecimal debitAmount, BigDecimal creditAmount);
+}
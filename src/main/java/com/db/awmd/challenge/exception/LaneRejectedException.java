@@ -0,0 +1,8 @@
+package com.db.awmd.challenge.exception;
+
+public class LaneRejectedException extends RuntimeException {
+
+  public LaneRejectedException(String message) {
+    super(message);
+  }
+}
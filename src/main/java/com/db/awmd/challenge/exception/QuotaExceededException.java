@@ -0,0 +1,8 @@
+package com.db.awmd.challenge.exception;
+
+public class QuotaExceededException extends RuntimeException {
+
+  public QuotaExceededException(String message) {
+    super(message);
+  }
+}
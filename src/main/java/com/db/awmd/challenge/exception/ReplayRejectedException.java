@@ -0,0 +1,8 @@
+package com.db.awmd.challenge.exception;
+
+public class ReplayRejectedException extends RuntimeException {
+
+  public ReplayRejectedException(String message) {
+    super(message);
+  }
+}
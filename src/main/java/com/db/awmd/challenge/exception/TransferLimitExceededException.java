@@ -0,0 +1,8 @@
+package com.db.awmd.challenge.exception;
+
+public class TransferLimitExceededException extends RuntimeException {
+
+  public TransferLimitExceededException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,93 @@
+package com.db.awmd.challenge.fx;
+
+import com.db.awmd.challenge.exception.UnsupportedCurrencyException;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable snapshot of FX rates. Every cross rate is precomputed once as a fixed-point long with {@link #SCALE}
+ * decimals, so a conversion is two map lookups, an array read and a single multiplication.
+ */
+public final class RateTable {
+
+  public static final int SCALE = 9;
+
+  private static final BigDecimal FIXED_POINT_ONE = BigDecimal.ONE.movePointRight(SCALE);
+
+  @Getter
+  private final String baseCurrency;
+
+  @Getter
+  private final Map<String, BigDecimal> rates;
+
+  private final Map<String, Integer> index;
+
+  private final long[][] crossRates;
+
+  /**
+   * @param ratesPerBase units of each currency bought by one unit of the base currency
+   */
+  public RateTable(String baseCurrency, Map<String, BigDecimal> ratesPerBase) {
+    Map<String, BigDecimal> all = new TreeMap<>(ratesPerBase);
+    all.put(baseCurrency, BigDecimal.ONE);
+    all.forEach((currency, rate) -> {
+      if (rate == null || rate.signum() <= 0) {
+        throw new IllegalArgumentException("Exchange rate for " + currency + " must be positive");
+      }
+    });
+
+    this.baseCurrency = baseCurrency;
+    this.rates = Collections.unmodifiableMap(all);
+    this.index = new HashMap<>();
+    this.crossRates = new long[all.size()][all.size()];
+
+    String[] currencies = all.keySet().toArray(new String[0]);
+    for (int i = 0; i < currencies.length; i++) {
+      index.put(currencies[i], i);
+    }
+    for (int from = 0; from < currencies.length; from++) {
+      for (int to = 0; to < currencies.length; to++) {
+        crossRates[from][to] = all.get(currencies[to])
+          .divide(all.get(currencies[from]), SCALE, RoundingMode.HALF_EVEN)
+          .multiply(FIXED_POINT_ONE).longValueExact();
+      }
+    }
+  }
+
+  /**
+   * Whether two account currencies are the same, a missing currency meaning the base currency.
+   */
+  public boolean isSameCurrency(String fromCurrency, String toCurrency) {
+    return orBase(fromCurrency).equals(orBase(toCurrency));
+  }
+
+  public BigDecimal convert(BigDecimal amount, String fromCurrency, String toCurrency) {
+    String from = orBase(fromCurrency);
+    String to = orBase(toCurrency);
+    if (from.equals(to)) {
+      return amount;
+    }
+
+    long rate = crossRates[indexOf(from)][indexOf(to)];
+    return amount.multiply(BigDecimal.valueOf(rate, SCALE))
+      .setScale(Math.max(amount.scale(), 2), RoundingMode.HALF_EVEN);
+  }
+
+  private String orBase(String currency) {
+    return currency == null ? baseCurrency : currency;
+  }
+
+  private int indexOf(String currency) {
+    Integer position = index.get(currency);
+    if (position == null) {
+      throw new UnsupportedCurrencyException("No exchange rate available for currency: " + currency);
+    }
+    return position;
+  }
+}
@@ -0,0 +1,29 @@
+package com.db.awmd.challenge.health;
+
+import com.db.awmd.challenge.service.AsyncTransferService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Accepted transfers still waiting in the async sender lanes.
+ */
+@Component
+public class AsyncQueueReadinessCheck implements ReadinessCheck {
+
+  private final AsyncTransferService asyncTransferService;
+
+  private final long maxQueued;
+
+  @Autowired
+  public AsyncQueueReadinessCheck(AsyncTransferService asyncTransferService,
+                                  @Value("${health.readiness.max-queued-transfers:20000}") long maxQueued) {
+    this.asyncTransferService = asyncTransferService;
+    this.maxQueued = maxQueued;
+  }
+
+  @Override
+  public CheckResult check() {
+    return CheckResult.atMost("queuedTransfers", asyncTransferService.getQueuedCount(), maxQueued);
+  }
+}
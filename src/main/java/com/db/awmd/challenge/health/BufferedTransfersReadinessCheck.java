@@ -0,0 +1,31 @@
+package com.db.awmd.challenge.health;
+
+import com.db.awmd.challenge.repository.TransfersRepositoryJdbc;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Transfer rows buffered by the JDBC repository and not written to the database yet.
+ */
+@Component
+@ConditionalOnProperty(name = "repository.type", havingValue = "jdbc")
+public class BufferedTransfersReadinessCheck implements ReadinessCheck {
+
+  private final TransfersRepositoryJdbc transfersRepository;
+
+  private final long maxBuffered;
+
+  @Autowired
+  public BufferedTransfersReadinessCheck(TransfersRepositoryJdbc transfersRepository,
+                                         @Value("${health.readiness.max-buffered-transfers:10000}") long maxBuffered) {
+    this.transfersRepository = transfersRepository;
+    this.maxBuffered = maxBuffered;
+  }
+
+  @Override
+  public CheckResult check() {
+    return CheckResult.atMost("bufferedTransfers", transfersRepository.getBufferedCount(), maxBuffered);
+  }
+}
@@ -0,0 +1,16 @@
+package com.db.awmd.challenge.health;
+
+import lombok.Data;
+
+@Data
+public class CheckResult {
+
+  private final String name;
+  private final boolean ready;
+  private final double value;
+  private final double threshold;
+
+  public static CheckResult atMost(String name, double value, double threshold) {
+    return new CheckResult(name, value <= threshold, value, threshold);
+  }
+}
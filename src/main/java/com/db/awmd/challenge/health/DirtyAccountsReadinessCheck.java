@@ -0,0 +1,31 @@
+package com.db.awmd.challenge.health;
+
+import com.db.awmd.challenge.repository.AccountsRepositoryJdbc;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Account balances changed in memory and not written to the database yet.
+ */
+@Component
+@ConditionalOnProperty(name = "repository.type", havingValue = "jdbc")
+public class DirtyAccountsReadinessCheck implements ReadinessCheck {
+
+  private final AccountsRepositoryJdbc accountsRepository;
+
+  private final long maxDirty;
+
+  @Autowired
+  public DirtyAccountsReadinessCheck(AccountsRepositoryJdbc accountsRepository,
+                                     @Value("${health.readiness.max-dirty-accounts:10000}") long maxDirty) {
+    this.accountsRepository = accountsRepository;
+    this.maxDirty = maxDirty;
+  }
+
+  @Override
+  public CheckResult check() {
+    return CheckResult.atMost("dirtyAccounts", accountsRepository.getDirtyCount(), maxDirty);
+  }
+}
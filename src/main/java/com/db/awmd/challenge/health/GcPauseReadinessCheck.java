@@ -0,0 +1,51 @@
+package com.db.awmd.challenge.health;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * Fraction of wall-clock time spent in GC since the previous sample, sampled at most once per second.
+ */
+@Component
+public class GcPauseReadinessCheck implements ReadinessCheck {
+
+  private static final long MIN_SAMPLE_MILLIS = 1000;
+
+  private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+
+  private final double maxGcRatio;
+
+  private long lastSampleTime = System.currentTimeMillis();
+  private long lastGcTime = totalGcTime();
+  private double lastRatio;
+
+  @Autowired
+  public GcPauseReadinessCheck(@Value("${health.readiness.max-gc-time-ratio:0.25}") double maxGcRatio) {
+    this.maxGcRatio = maxGcRatio;
+  }
+
+  @Override
+  public synchronized CheckResult check() {
+    long now = System.currentTimeMillis();
+    if (now - lastSampleTime >= MIN_SAMPLE_MILLIS) {
+      long gcTime = totalGcTime();
+      lastRatio = (double) (gcTime - lastGcTime) / (now - lastSampleTime);
+      lastSampleTime = now;
+      lastGcTime = gcTime;
+    }
+    return CheckResult.atMost("gcTimeRatio", lastRatio, maxGcRatio);
+  }
+
+  private long totalGcTime() {
+    long total = 0;
+    for (GarbageCollectorMXBean collector : collectors) {
+      total += Math.max(collector.getCollectionTime(), 0);
+    }
+    return total;
+  }
+}
@@ -0,0 +1,29 @@
+package com.db.awmd.challenge.health;
+
+import com.db.awmd.challenge.outbox.OutboxRelay;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Outbox events the slowest sink has not exported yet.
+ */
+@Component
+public class OutboxBacklogReadinessCheck implements ReadinessCheck {
+
+  private final OutboxRelay outboxRelay;
+
+  private final long maxBacklog;
+
+  @Autowired
+  public OutboxBacklogReadinessCheck(OutboxRelay outboxRelay,
+                                     @Value("${health.readiness.max-outbox-backlog:50000}") long maxBacklog) {
+    this.outboxRelay = outboxRelay;
+    this.maxBacklog = maxBacklog;
+  }
+
+  @Override
+  public CheckResult check() {
+    return CheckResult.atMost("outboxBacklog", outboxRelay.getBacklog(), maxBacklog);
+  }
+}
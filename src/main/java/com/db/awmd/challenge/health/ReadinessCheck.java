@@ -0,0 +1,9 @@
+package com.db.awmd.challenge.health;
+
+/**
+ * A live performance signal taken into account by the readiness endpoint.
+ */
+public interface ReadinessCheck {
+
+  CheckResult check();
+}
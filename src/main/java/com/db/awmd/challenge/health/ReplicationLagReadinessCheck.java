@@ -0,0 +1,29 @@
+package com.db.awmd.challenge.health;
+
+import com.db.awmd.challenge.replication.ReplicationSender;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Age of the oldest change the follower has not acknowledged yet. Always zero unless this instance is a primary.
+ */
+@Component
+public class ReplicationLagReadinessCheck implements ReadinessCheck {
+
+  private final ReplicationSender replicationSender;
+
+  private final long maxLagMillis;
+
+  @Autowired
+  public ReplicationLagReadinessCheck(ReplicationSender replicationSender,
+                                      @Value("${health.readiness.max-replication-lag-millis:5000}") long maxLagMillis) {
+    this.replicationSender = replicationSender;
+    this.maxLagMillis = maxLagMillis;
+  }
+
+  @Override
+  public CheckResult check() {
+    return CheckResult.atMost("replicationLagMillis", replicationSender.getLagMillis(), maxLagMillis);
+  }
+}
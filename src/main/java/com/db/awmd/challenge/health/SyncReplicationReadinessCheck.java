@@ -0,0 +1,25 @@
+package com.db.awmd.challenge.health;
+
+import com.db.awmd.challenge.replication.ReplicationSender;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Synchronous writes the follower failed to acknowledge in time. Any such write is at risk until the follower
+ * catches up, so the instance stays unready meanwhile.
+ */
+@Component
+public class SyncReplicationReadinessCheck implements ReadinessCheck {
+
+  private final ReplicationSender replicationSender;
+
+  @Autowired
+  public SyncReplicationReadinessCheck(ReplicationSender replicationSender) {
+    this.replicationSender = replicationSender;
+  }
+
+  @Override
+  public CheckResult check() {
+    return CheckResult.atMost("unconfirmedSyncReplicationEvents", replicationSender.getUnconfirmedSyncEvents(), 0);
+  }
+}
@@ -0,0 +1,27 @@
+package com.db.awmd.challenge.health;
+
+import com.db.awmd.challenge.metrics.TransferMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class TransferLatencyReadinessCheck implements ReadinessCheck {
+
+  private final TransferMetrics transferMetrics;
+
+  private final double maxP99Millis;
+
+  @Autowired
+  public TransferLatencyReadinessCheck(TransferMetrics transferMetrics,
+                                       @Value("${health.readiness.transfer-p99-millis:250}") double maxP99Millis) {
+    this.transferMetrics = transferMetrics;
+    this.maxP99Millis = maxP99Millis;
+  }
+
+  @Override
+  public CheckResult check() {
+    double p99Millis = transferMetrics.getExecuteLatency().getPercentileMicros(99) / 1000d;
+    return CheckResult.atMost("transferP99Millis", p99Millis, maxP99Millis);
+  }
+}
@@ -0,0 +1,22 @@
+package com.db.awmd.challenge.health;
+
+import com.db.awmd.challenge.service.WarmUpService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+@Component
+public class WarmUpReadinessCheck implements ReadinessCheck {
+
+  private final WarmUpService warmUpService;
+
+  @Autowired
+  public WarmUpReadinessCheck(WarmUpService warmUpService) {
+    this.warmUpService = warmUpService;
+  }
+
+  @Override
+  public CheckResult check() {
+    boolean complete = warmUpService.isComplete();
+    return new CheckResult("warmUp", complete, complete ? 1 : 0, 1);
+  }
+}
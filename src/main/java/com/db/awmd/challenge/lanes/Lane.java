@@ -0,0 +1,22 @@
+package com.db.awmd.challenge.lanes;
+
+public enum Lane {
+
+  INTERACTIVE,
+  BULK;
+
+  /**
+   * @return the lane with the given name ignoring case, or null when the value names no lane
+   */
+  public static Lane parse(String value) {
+    if (value == null) {
+      return null;
+    }
+    for (Lane lane : values()) {
+      if (lane.name().equalsIgnoreCase(value.trim())) {
+        return lane;
+      }
+    }
+    return null;
+  }
+}
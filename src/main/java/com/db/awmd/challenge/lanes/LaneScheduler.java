@@ -0,0 +1,286 @@
+package com.db.awmd.challenge.lanes;
+
+import com.db.awmd.challenge.domain.LaneStats;
+import com.db.awmd.challenge.exception.LaneRejectedException;
+import com.db.awmd.challenge.metrics.LatencyHistogram;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Shares a fixed number of execution slots between traffic lanes. Each lane is a bulkhead with its own concurrency
+ * cap and bounded wait queue; when a slot frees up it goes to a waiting lane chosen either by strict priority
+ * (interactive first) or by smooth weighted round-robin, so bulk work can never hold more than its share.
+ */
+@Component
+public class LaneScheduler {
+
+  public enum Policy {
+    STRICT,
+    WEIGHTED
+  }
+
+  private static final int LATENCY_WINDOW_SECONDS = 60;
+
+  private final ReentrantLock lock = new ReentrantLock();
+
+  private final Map<Lane, LaneState> lanes = new EnumMap<>(Lane.class);
+
+  private final Policy policy;
+
+  private final int slots;
+
+  private final long queueTimeoutNanos;
+
+  private int active;
+
+  @Autowired
+  public LaneScheduler(@Value("${lanes.policy:weighted}") String policy,
+                       @Value("${lanes.slots:64}") int slots,
+                       @Value("${lanes.interactive.max-concurrency:64}") int interactiveMaxConcurrency,
+                       @Value("${lanes.interactive.queue-capacity:500}") int interactiveQueueCapacity,
+                       @Value("${lanes.interactive.weight:4}") int interactiveWeight,
+                       @Value("${lanes.bulk.max-concurrency:8}") int bulkMaxConcurrency,
+                       @Value("${lanes.bulk.queue-capacity:50}") int bulkQueueCapacity,
+                       @Value("${lanes.bulk.weight:1}") int bulkWeight,
+                       @Value("${lanes.queue-timeout-millis:2000}") long queueTimeoutMillis) {
+    this.policy = Policy.valueOf(policy.trim().toUpperCase());
+    this.slots = slots;
+    this.queueTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(queueTimeoutMillis);
+    lanes.put(Lane.INTERACTIVE, new LaneState(interactiveMaxConcurrency, interactiveQueueCapacity, interactiveWeight));
+    lanes.put(Lane.BULK, new LaneState(bulkMaxConcurrency, bulkQueueCapacity, bulkWeight));
+  }
+
+  /**
+   * Takes a slot in the given lane, waiting in the lane's queue if the lane or the scheduler is saturated.
+   *
+   * @throws LaneRejectedException when the lane's queue is full or no slot was granted within the queue timeout
+   */
+  public Permit acquire(Lane lane) throws InterruptedException {
+    LaneState state = lanes.get(lane);
+    long start = System.nanoTime();
+    Waiter waiter;
+    lock.lock();
+    try {
+      if (state.waiting.isEmpty() && active < slots && state.active < state.maxConcurrency) {
+        grant(state);
+        return admitted(lane, state, start);
+      }
+      if (state.waiting.size() >= state.queueCapacity) {
+        state.rejected.increment();
+        throw new LaneRejectedException("Lane " + lane + " queue is full (" + state.queueCapacity + ")");
+      }
+      waiter = new Waiter(lock.newCondition());
+      state.waiting.addLast(waiter);
+      long remaining = queueTimeoutNanos;
+      try {
+        while (!waiter.granted && remaining > 0) {
+          remaining = waiter.condition.awaitNanos(remaining);
+        }
+      } catch (InterruptedException e) {
+        abandon(state, waiter);
+        throw e;
+      }
+      if (!waiter.granted) {
+        state.waiting.remove(waiter);
+        state.rejected.increment();
+        throw new LaneRejectedException("Lane " + lane + " waited longer than "
+          + TimeUnit.NANOSECONDS.toMillis(queueTimeoutNanos) + " ms for a slot");
+      }
+    } finally {
+      lock.unlock();
+    }
+    return admitted(lane, state, start);
+  }
+
+  private Permit admitted(Lane lane, LaneState state, long start) {
+    long now = System.nanoTime();
+    state.waitTimes.record(now - start);
+    return new Permit(lane, now);
+  }
+
+  private void abandon(LaneState state, Waiter waiter) {
+    if (waiter.granted) {
+      // The slot was handed over just as we were interrupted, pass it on
+      release(state);
+    } else {
+      state.waiting.remove(waiter);
+    }
+  }
+
+  private void release(LaneState state) {
+    state.active--;
+    active--;
+    dispatch();
+  }
+
+  private void grant(LaneState state) {
+    state.active++;
+    active++;
+  }
+
+  private void dispatch() {
+    while (active < slots) {
+      LaneState next = next();
+      if (next == null) {
+        return;
+      }
+      Waiter waiter = next.waiting.pollFirst();
+      grant(next);
+      waiter.granted = true;
+      waiter.condition.signal();
+    }
+  }
+
+  private LaneState next() {
+    if (policy == Policy.STRICT) {
+      for (LaneState state : lanes.values()) {
+        if (state.isRunnable()) {
+          return state;
+        }
+      }
+      return null;
+    }
+    // Smooth weighted round-robin: every runnable lane earns its weight, the richest one runs and pays the total
+    LaneState chosen = null;
+    int totalWeight = 0;
+    for (LaneState state : lanes.values()) {
+      if (state.isRunnable()) {
+        state.credit += state.weight;
+        totalWeight += state.weight;
+        if (chosen == null || state.credit > chosen.credit) {
+          chosen = state;
+        }
+      }
+    }
+    if (chosen != null) {
+      chosen.credit -= totalWeight;
+    }
+    return chosen;
+  }
+
+  public Policy getPolicy() {
+    return policy;
+  }
+
+  public int getQueued(Lane lane) {
+    lock.lock();
+    try {
+      return lanes.get(lane).waiting.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int getActive(Lane lane) {
+    lock.lock();
+    try {
+      return lanes.get(lane).active;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public List<LaneStats> getStats() {
+    List<LaneStats> stats = new ArrayList<>();
+    lock.lock();
+    try {
+      for (Map.Entry<Lane, LaneState> entry : lanes.entrySet()) {
+        LaneState state = entry.getValue();
+        stats.add(new LaneStats(entry.getKey().name(), state.active, state.waiting.size(), state.maxConcurrency,
+          state.queueCapacity, state.completed.sum(), state.rejected.sum(),
+          state.waitTimes.getPercentileMicros(50), state.waitTimes.getPercentileMicros(99),
+          state.latencies.getPercentileMicros(50), state.latencies.getPercentileMicros(99)));
+      }
+    } finally {
+      lock.unlock();
+    }
+    return stats;
+  }
+
+  /**
+   * A held slot. Closing it records the execution time and hands the slot to the next waiting lane.
+   */
+  public class Permit implements AutoCloseable {
+
+    private final Lane lane;
+
+    private final long startNanos;
+
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private Permit(Lane lane, long startNanos) {
+      this.lane = lane;
+      this.startNanos = startNanos;
+    }
+
+    public Lane getLane() {
+      return lane;
+    }
+
+    @Override
+    public void close() {
+      if (!released.compareAndSet(false, true)) {
+        return;
+      }
+      LaneState state = lanes.get(lane);
+      state.latencies.record(System.nanoTime() - startNanos);
+      state.completed.increment();
+      lock.lock();
+      try {
+        release(state);
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  private static class Waiter {
+
+    private final Condition condition;
+
+    private boolean granted;
+
+    private Waiter(Condition condition) {
+      this.condition = condition;
+    }
+  }
+
+  private static class LaneState {
+
+    private final int maxConcurrency;
+    private final int queueCapacity;
+    private final int weight;
+
+    private final Deque<Waiter> waiting = new ArrayDeque<>();
+    private int active;
+    private int credit;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LatencyHistogram waitTimes = new LatencyHistogram(LATENCY_WINDOW_SECONDS);
+    private final LatencyHistogram latencies = new LatencyHistogram(LATENCY_WINDOW_SECONDS);
+
+    private LaneState(int maxConcurrency, int queueCapacity, int weight) {
+      this.maxConcurrency = maxConcurrency;
+      this.queueCapacity = queueCapacity;
+      this.weight = weight;
+    }
+
+    private boolean isRunnable() {
+      return !waiting.isEmpty() && active < maxConcurrency;
+    }
+  }
+}
@@ -0,0 +1,89 @@
+package com.db.awmd.challenge.lanes;
+
+import com.db.awmd.challenge.exception.LaneRejectedException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Runs every write request inside a {@link LaneScheduler} lane. Batch, multi-leg, import, replay and report endpoints
+ * always go to the bulk lane; any other request is interactive unless the client marks it bulk with the traffic
+ * class header. Requests the lane cannot take get 503 and a Retry-After header.
+ */
+@Slf4j
+@Component
+public class TrafficLaneFilter extends OncePerRequestFilter {
+
+  public static final String TRAFFIC_CLASS_HEADER = "X-Traffic-Class";
+
+  private static final String GUARDED_PATH = "/v1/";
+
+  private static final String[] BULK_PATHS = {
+    "/v1/transfers/batch", "/v1/transfers/multi-leg", "/v1/accounts/bulk", "/v1/ledger/replay", "/v1/reports/"
+  };
+
+  private final boolean enabled;
+
+  private final LaneScheduler laneScheduler;
+
+  @Autowired
+  public TrafficLaneFilter(@Value("${lanes.enabled:true}") boolean enabled, LaneScheduler laneScheduler) {
+    this.enabled = enabled;
+    this.laneScheduler = laneScheduler;
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !enabled || !"POST".equals(request.getMethod())
+      || !request.getRequestURI().startsWith(request.getContextPath() + GUARDED_PATH);
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+    throws ServletException, IOException {
+
+    Lane lane = laneOf(request);
+    LaneScheduler.Permit permit;
+    try {
+      permit = laneScheduler.acquire(lane);
+    } catch (LaneRejectedException e) {
+      log.debug(e.getMessage());
+      response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+      response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+      response.setContentType("text/plain");
+      response.getWriter().write(e.getMessage());
+      return;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ServletException("Interrupted waiting for lane " + lane, e);
+    }
+
+    try {
+      chain.doFilter(request, response);
+    } finally {
+      permit.close();
+    }
+  }
+
+  Lane laneOf(HttpServletRequest request) {
+    String path = request.getRequestURI().substring(request.getContextPath().length());
+    for (String bulkPath : BULK_PATHS) {
+      if (path.startsWith(bulkPath)) {
+        // Clients may demote their own traffic but never promote a bulk endpoint
+        return Lane.BULK;
+      }
+    }
+    Lane requested = Lane.parse(request.getHeader(TRAFFIC_CLASS_HEADER));
+    return requested != null ? requested : Lane.INTERACTIVE;
+  }
+}
@@ -0,0 +1,48 @@
+package com.db.awmd.challenge.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free sampler for hot-path log statements: lets through one event every {@code rate} calls, capped at
+ * {@code maxPerSecond}. Callers check it before building any log arguments so sampled-out events allocate nothing.
+ */
+public class LogSampler {
+
+  private final long rate;
+  private final long maxPerSecond;
+
+  private final AtomicLong calls = new AtomicLong();
+  private final AtomicLong window = new AtomicLong();
+  private final AtomicLong emittedInWindow = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+
+  public LogSampler(long rate, long maxPerSecond) {
+    this.rate = Math.max(rate, 1);
+    this.maxPerSecond = maxPerSecond;
+  }
+
+  public boolean sample() {
+    if (calls.incrementAndGet() % rate != 0) {
+      dropped.incrementAndGet();
+      return false;
+    }
+    if (maxPerSecond <= 0) {
+      return true;
+    }
+
+    long second = System.currentTimeMillis() / 1000;
+    long current = window.get();
+    if (current != second && window.compareAndSet(current, second)) {
+      emittedInWindow.set(0);
+    }
+    if (emittedInWindow.incrementAndGet() > maxPerSecond) {
+      dropped.incrementAndGet();
+      return false;
+    }
+    return true;
+  }
+
+  public long getDropped() {
+    return dropped.get();
+  }
+}
@@ -0,0 +1,37 @@
+package com.db.awmd.challenge.logging;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-endpoint {@link LogSampler}s. Defaults come from {@code logging.sampling.rate} and
+ * {@code logging.sampling.max-per-second}, overridable per endpoint under {@code logging.sampling.endpoints.<name>}.
+ */
+@Component
+public class RequestLogSampling {
+
+  private final Environment environment;
+
+  private final Map<String, LogSampler> samplers = new ConcurrentHashMap<>();
+
+  @Autowired
+  public RequestLogSampling(Environment environment) {
+    this.environment = environment;
+  }
+
+  public LogSampler sampler(String endpoint) {
+    return samplers.computeIfAbsent(endpoint, this::createSampler);
+  }
+
+  private LogSampler createSampler(String endpoint) {
+    long rate = environment.getProperty("logging.sampling.rate", Long.class, 1L);
+    long maxPerSecond = environment.getProperty("logging.sampling.max-per-second", Long.class, 0L);
+    String prefix = "logging.sampling.endpoints." + endpoint + ".";
+    return new LogSampler(environment.getProperty(prefix + "rate", Long.class, rate),
+      environment.getProperty(prefix + "max-per-second", Long.class, maxPerSecond));
+  }
+}
@@ -0,0 +1,121 @@
+package com.db.awmd.challenge.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free latency histogram over a sliding window of one-second slots. Buckets are log-linear in microseconds
+ * (eight sub-buckets per power of two), so reported percentiles are upper bounds within 12.5%.
+ *
+ * A slot is never cleared in place: the first sample of a new second swaps in a fresh slot, so a sample recorded
+ * concurrently lands either in the slot being replaced or, after retrying, in the fresh one, and is never wiped.
+ */
+public class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+  private final AtomicReferenceArray<Slot> slots;
+
+  public LatencyHistogram(int windowSeconds) {
+    this.slots = new AtomicReferenceArray<>(Math.max(windowSeconds, 1));
+    for (int i = 0; i < slots.length(); i++) {
+      slots.set(i, new Slot(-1));
+    }
+  }
+
+  public void record(long nanos) {
+    long second = currentSecond();
+    int index = (int) (second % slots.length());
+    Slot slot = slots.get(index);
+    while (slot.second < second) {
+      Slot fresh = new Slot(second);
+      if (slots.compareAndSet(index, slot, fresh)) {
+        slot = fresh;
+      } else {
+        slot = slots.get(index);
+      }
+    }
+    slot.counts.incrementAndGet(bucketOf(TimeUnit.NANOSECONDS.toMicros(nanos)));
+    slot.total.incrementAndGet();
+  }
+
+  public long getCount() {
+    long second = currentSecond();
+    long count = 0;
+    for (int i = 0; i < slots.length(); i++) {
+      Slot slot = slots.get(i);
+      if (second - slot.second < slots.length()) {
+        count += slot.total.get();
+      }
+    }
+    return count;
+  }
+
+  /**
+   * @return the upper bound in microseconds of the given percentile (0-100) over the window, 0 when empty
+   */
+  public long getPercentileMicros(double percentile) {
+    long second = currentSecond();
+    long[] merged = new long[BUCKETS];
+    long count = 0;
+    for (int slotIndex = 0; slotIndex < slots.length(); slotIndex++) {
+      Slot slot = slots.get(slotIndex);
+      if (second - slot.second < slots.length()) {
+        for (int i = 0; i < BUCKETS; i++) {
+          long bucketCount = slot.counts.get(i);
+          merged[i] += bucketCount;
+          count += bucketCount;
+        }
+      }
+    }
+    if (count == 0) {
+      return 0;
+    }
+
+    long rank = (long) Math.ceil(count * percentile / 100d);
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += merged[i];
+      if (seen >= rank) {
+        return upperBoundOf(i);
+      }
+    }
+    return upperBoundOf(BUCKETS - 1);
+  }
+
+  private static int bucketOf(long micros) {
+    if (micros < SUB_BUCKETS) {
+      return (int) Math.max(micros, 0);
+    }
+    int magnitude = 63 - Long.numberOfLeadingZeros(micros);
+    int subBucket = (int) (micros >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  private static long upperBoundOf(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket + 1;
+    }
+    int magnitude = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    long subBucket = bucket % SUB_BUCKETS;
+    return ((SUB_BUCKETS + subBucket + 1) << (magnitude - SUB_BUCKET_BITS));
+  }
+
+  private static long currentSecond() {
+    return System.currentTimeMillis() / 1000;
+  }
+
+  private static final class Slot {
+    private final long second;
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private Slot(long second) {
+      this.second = second;
+    }
+  }
+}
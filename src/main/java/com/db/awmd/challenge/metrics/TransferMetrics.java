@@ -0,0 +1,39 @@
+package com.db.awmd.challenge.metrics;
+
+import com.db.awmd.challenge.domain.EngineStats;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+@Getter
+@Component
+public class TransferMetrics {
+
+  private final LatencyHistogram executeLatency;
+
+  private final LongAdder optimisticCommits = new LongAdder();
+
+  private final LongAdder optimisticConflicts = new LongAdder();
+
+  private final LongAdder pessimisticFallbacks = new LongAdder();
+
+  public TransferMetrics() {
+    this(10);
+  }
+
+  @Autowired
+  public TransferMetrics(@Value("${metrics.window-seconds:10}") int windowSeconds) {
+    this.executeLatency = new LatencyHistogram(windowSeconds);
+  }
+
+  public EngineStats getEngineStats() {
+    long commits = optimisticCommits.sum();
+    long conflicts = optimisticConflicts.sum();
+    long attempts = commits + conflicts;
+    return new EngineStats(commits, conflicts, pessimisticFallbacks.sum(),
+      attempts == 0 ? 0 : (double) conflicts / attempts);
+  }
+}
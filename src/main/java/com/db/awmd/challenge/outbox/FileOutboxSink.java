@@ -0,0 +1,43 @@
+package com.db.awmd.challenge.outbox;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Writes each batch to its own {@code transfers-<first>-<last>.ndjson.gz} file. Files are written under a temporary
+ * name and moved into place, so readers never see a partial batch and a redelivered batch replaces the same file.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.file-sink.enabled", havingValue = "true")
+public class FileOutboxSink implements OutboxSink {
+
+  private final Path directory;
+
+  @Autowired
+  public FileOutboxSink(@Value("${outbox.file-sink.directory:outbox/transfers}") String directory) {
+    this.directory = Paths.get(directory);
+  }
+
+  @Override
+  public String getName() {
+    return "file";
+  }
+
+  @Override
+  public void export(OutboxBatch batch) throws IOException {
+    Files.createDirectories(directory);
+    String name = String.format("transfers-%019d-%019d.ndjson.gz", batch.getFirstOffset(), batch.getLastOffset());
+    Path temporary = directory.resolve(name + ".tmp");
+    Files.write(temporary, batch.getPayload());
+    Files.move(temporary, directory.resolve(name), StandardCopyOption.REPLACE_EXISTING,
+      StandardCopyOption.ATOMIC_MOVE);
+  }
+}
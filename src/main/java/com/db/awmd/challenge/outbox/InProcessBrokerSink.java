@@ -0,0 +1,53 @@
+package com.db.awmd.challenge.outbox;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stand-in for a message broker topic inside the JVM. Consumers poll batches in offset order; when nobody consumes,
+ * the oldest batches are evicted once the retention limit is reached.
+ */
+@Component
+public class InProcessBrokerSink implements OutboxSink {
+
+  private final BlockingQueue<OutboxBatch> topic;
+
+  private final AtomicLong evicted = new AtomicLong();
+
+  @Autowired
+  public InProcessBrokerSink(@Value("${outbox.broker.retained-batches:1000}") int retainedBatches) {
+    this.topic = new ArrayBlockingQueue<>(retainedBatches);
+  }
+
+  @Override
+  public String getName() {
+    return "broker";
+  }
+
+  @Override
+  public void export(OutboxBatch batch) {
+    while (!topic.offer(batch)) {
+      if (topic.poll() != null) {
+        evicted.incrementAndGet();
+      }
+    }
+  }
+
+  public OutboxBatch poll(long timeout, TimeUnit unit) throws InterruptedException {
+    return topic.poll(timeout, unit);
+  }
+
+  public int getRetainedCount() {
+    return topic.size();
+  }
+
+  public long getEvictedCount() {
+    return evicted.get();
+  }
+}
@@ -0,0 +1,54 @@
+package com.db.awmd.challenge.outbox;
+
+import lombok.Value;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A contiguous range of outbox events encoded as gzip-compressed NDJSON, one event per line.
+ */
+@Value
+public class OutboxBatch {
+
+  private final long firstOffset;
+  private final long lastOffset;
+  private final int count;
+  private final byte[] payload;
+
+  public static OutboxBatch of(List<OutboxEvent> events) {
+    StringBuilder lines = new StringBuilder(events.size() * 192);
+    events.forEach(event -> event.appendJson(lines));
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(lines.length() / 4);
+    try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(bytes), StandardCharsets.UTF_8)) {
+      writer.append(lines);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return new OutboxBatch(events.get(0).getOffset(), events.get(events.size() - 1).getOffset(), events.size(),
+      bytes.toByteArray());
+  }
+
+  public List<String> readLines() throws IOException {
+    List<String> lines = new ArrayList<>(count);
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+      new GZIPInputStream(new ByteArrayInputStream(payload)), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        lines.add(line);
+      }
+    }
+    return lines;
+  }
+}
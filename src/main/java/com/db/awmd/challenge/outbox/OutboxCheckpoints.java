@@ -0,0 +1,71 @@
+package com.db.awmd.challenge.outbox;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Last exported offset per sink, written to a properties file through a temporary file and an atomic move. A
+ * {@code null} file keeps checkpoints in memory only.
+ */
+public class OutboxCheckpoints {
+
+  private final Path file;
+
+  private final Map<String, Long> offsets = new ConcurrentHashMap<>();
+
+  public OutboxCheckpoints(Path file) throws IOException {
+    this.file = file;
+    if (file != null && Files.exists(file)) {
+      Properties properties = new Properties();
+      try (InputStream in = Files.newInputStream(file)) {
+        properties.load(in);
+      }
+      properties.stringPropertyNames().forEach(name -> offsets.put(name, Long.valueOf(properties.getProperty(name))));
+    }
+  }
+
+  public long get(String sink) {
+    return offsets.getOrDefault(sink, 0L);
+  }
+
+  public Map<String, Long> getAll() {
+    return offsets;
+  }
+
+  public long getHighest() {
+    return offsets.values().stream().mapToLong(Long::longValue).max().orElse(0);
+  }
+
+  public synchronized void commit(String sink, long offset) throws IOException {
+    Long previous = offsets.put(sink, offset);
+    if (file == null) {
+      return;
+    }
+    try {
+      Properties properties = new Properties();
+      offsets.forEach((name, value) -> properties.setProperty(name, Long.toString(value)));
+      Path directory = file.toAbsolutePath().getParent();
+      Files.createDirectories(directory);
+      Path temporary = directory.resolve(file.getFileName() + ".tmp");
+      try (OutputStream out = Files.newOutputStream(temporary)) {
+        properties.store(out, null);
+      }
+      Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      // Not durable, so the batch will be exported again
+      if (previous == null) {
+        offsets.remove(sink);
+      } else {
+        offsets.put(sink, previous);
+      }
+      throw e;
+    }
+  }
+}
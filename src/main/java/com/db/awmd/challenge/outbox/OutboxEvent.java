@@ -0,0 +1,151 @@
+package com.db.awmd.challenge.outbox;
+
+import com.db.awmd.challenge.domain.MultiLegTransfer;
+import com.db.awmd.challenge.domain.Transfer;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import lombok.Value;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable copy of a transfer taken at the moment its status changed, so later mutations of the live transfer
+ * do not leak into events that are still waiting to be exported. Multi-leg transfers are numbered apart from plain
+ * ones, so the type tells their ids apart; their events carry the legs instead of a sender and receiver.
+ */
+@Value
+public class OutboxEvent {
+
+  public enum Type {
+    TRANSFER,
+    MULTI_LEG
+  }
+
+  private final long offset;
+  private final Type type;
+  private final long transferId;
+  private final Transfer.Status status;
+  private final String senderAccountId;
+  private final String receiverAccountId;
+  private final BigDecimal amount;
+  private final BigDecimal creditedAmount;
+  private final String failureCause;
+  private final long timestamp;
+  private final List<MultiLegTransfer.Leg> debits;
+  private final List<MultiLegTransfer.Leg> credits;
+
+  public static OutboxEvent of(long offset, Transfer transfer) {
+    return new OutboxEvent(offset, Type.TRANSFER, transfer.getTransferId(), transfer.getStatus(),
+      transfer.getSenderAccountId(), transfer.getReceiverAccountId(), transfer.getAmount(),
+      transfer.getCreditedAmount(), transfer.getFailureCause(), System.currentTimeMillis(), Collections.emptyList(),
+      Collections.emptyList());
+  }
+
+  public static OutboxEvent of(long offset, MultiLegTransfer transfer) {
+    BigDecimal amount = transfer.getDebits().stream().map(MultiLegTransfer.Leg::getAmount)
+      .reduce(BigDecimal.ZERO, BigDecimal::add);
+    return new OutboxEvent(offset, Type.MULTI_LEG, transfer.getTransferId(), transfer.getStatus(), null, null, amount,
+      null, transfer.getFailureCause(), System.currentTimeMillis(), new ArrayList<>(transfer.getDebits()),
+      new ArrayList<>(transfer.getCredits()));
+  }
+
+  public void appendJson(StringBuilder line) {
+    line.append("{\"offset\":").append(offset).append(",\"type\":\"").append(type.name())
+      .append("\",\"transferId\":").append(transferId).append(",\"status\":\"").append(status.name()).append('"');
+    appendString(line, "senderAccountId", senderAccountId);
+    appendString(line, "receiverAccountId", receiverAccountId);
+    if (amount != null) {
+      line.append(",\"amount\":").append(amount.toPlainString());
+    }
+    if (creditedAmount != null) {
+      line.append(",\"creditedAmount\":").append(creditedAmount.toPlainString());
+    }
+    appendString(line, "failureCause", failureCause);
+    appendLegs(line, "debits", debits);
+    appendLegs(line, "credits", credits);
+    line.append(",\"timestamp\":").append(timestamp).append("}\n");
+  }
+
+  public void writeTo(DataOutputStream out) throws IOException {
+    out.writeLong(offset);
+    out.writeByte(type.ordinal());
+    out.writeLong(transferId);
+    out.writeByte(status.ordinal());
+    writeString(out, senderAccountId);
+    writeString(out, receiverAccountId);
+    writeDecimal(out, amount);
+    writeDecimal(out, creditedAmount);
+    writeString(out, failureCause);
+    out.writeLong(timestamp);
+    writeLegs(out, debits);
+    writeLegs(out, credits);
+  }
+
+  public static OutboxEvent readFrom(DataInputStream in) throws IOException {
+    return new OutboxEvent(in.readLong(), Type.values()[in.readByte()], in.readLong(),
+      Transfer.Status.values()[in.readByte()], readString(in), readString(in), readDecimal(in), readDecimal(in),
+      readString(in), in.readLong(), readLegs(in), readLegs(in));
+  }
+
+  private static void appendString(StringBuilder line, String name, String value) {
+    if (value != null) {
+      line.append(",\"").append(name).append("\":\"").append(JsonStringEncoder.getInstance().quoteAsString(value))
+        .append('"');
+    }
+  }
+
+  private static void appendLegs(StringBuilder line, String name, List<MultiLegTransfer.Leg> legs) {
+    if (legs.isEmpty()) {
+      return;
+    }
+    line.append(",\"").append(name).append("\":[");
+    for (int i = 0; i < legs.size(); i++) {
+      line.append(i == 0 ? "{\"accountId\":\"" : ",{\"accountId\":\"")
+        .append(JsonStringEncoder.getInstance().quoteAsString(legs.get(i).getAccountId()))
+        .append("\",\"amount\":").append(legs.get(i).getAmount().toPlainString()).append('}');
+    }
+    line.append(']');
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeUTF(value);
+    }
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+
+  private static void writeDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+    writeString(out, value == null ? null : value.toString());
+  }
+
+  private static BigDecimal readDecimal(DataInputStream in) throws IOException {
+    String value = readString(in);
+    return value == null ? null : new BigDecimal(value);
+  }
+
+  private static void writeLegs(DataOutputStream out, List<MultiLegTransfer.Leg> legs) throws IOException {
+    out.writeInt(legs.size());
+    for (MultiLegTransfer.Leg leg : legs) {
+      writeString(out, leg.getAccountId());
+      writeDecimal(out, leg.getAmount());
+    }
+  }
+
+  private static List<MultiLegTransfer.Leg> readLegs(DataInputStream in) throws IOException {
+    int size = in.readInt();
+    List<MultiLegTransfer.Leg> legs = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      legs.add(new MultiLegTransfer.Leg(readString(in), readDecimal(in)));
+    }
+    return legs;
+  }
+}
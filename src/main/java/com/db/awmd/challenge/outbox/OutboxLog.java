@@ -0,0 +1,164 @@
+package com.db.awmd.challenge.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Append-only segment files holding every outbox event until all sinks have exported it. Each event is written
+ * with one length-prefixed write before the outbox makes it readable, so it survives a crash of the process; it is
+ * not forced to disk, so a crash of the machine can still lose the most recent ones. A record cut short by a crash
+ * ends the replay of its segment.
+ *
+ * Events are appended in the order they are recorded, which can differ slightly from offset order, so a segment is
+ * deleted once every offset it holds has been exported rather than by position.
+ */
+@Slf4j
+public class OutboxLog {
+
+  private static final String PREFIX = "outbox-";
+
+  private static final String SUFFIX = ".log";
+
+  private final Path directory;
+
+  private final int segmentEvents;
+
+  // Highest offset held by each closed segment, keyed by segment number
+  private final Map<Long, Long> closedSegments = new TreeMap<>();
+
+  private long segment;
+
+  private FileChannel channel;
+
+  private int appended;
+
+  private long highestAppended;
+
+  public OutboxLog(Path directory, int segmentEvents) throws IOException {
+    this.directory = directory;
+    this.segmentEvents = segmentEvents;
+    Files.createDirectories(directory);
+  }
+
+  /**
+   * Reads every event left by earlier runs. The segments read are closed; appends go to a new one.
+   */
+  public synchronized List<OutboxEvent> replay() throws IOException {
+    List<OutboxEvent> events = new ArrayList<>();
+    for (Path file : segments()) {
+      long number = segmentNumber(file);
+      long highest = 0;
+      try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+        while (true) {
+          byte[] record = new byte[in.readInt()];
+          in.readFully(record);
+          OutboxEvent event = OutboxEvent.readFrom(new DataInputStream(new ByteArrayInputStream(record)));
+          events.add(event);
+          highest = Math.max(highest, event.getOffset());
+        }
+      } catch (EOFException e) {
+        // End of the segment, or a record cut short by a crash
+      }
+      closedSegments.put(number, highest);
+      segment = Math.max(segment, number);
+    }
+    return events;
+  }
+
+  public synchronized void append(OutboxEvent event) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(0);
+    event.writeTo(out);
+    ByteBuffer record = ByteBuffer.wrap(bytes.toByteArray());
+    record.putInt(0, record.remaining() - 4);
+    if (channel == null || appended >= segmentEvents) {
+      roll();
+    }
+    while (record.hasRemaining()) {
+      channel.write(record);
+    }
+    appended++;
+    highestAppended = Math.max(highestAppended, event.getOffset());
+  }
+
+  /**
+   * Deletes the closed segments whose events are all at or below {@code upToOffset}.
+   */
+  public synchronized void truncate(long upToOffset) {
+    closedSegments.entrySet().removeIf(closed -> {
+      if (closed.getValue() > upToOffset) {
+        return false;
+      }
+      try {
+        Files.deleteIfExists(segmentFile(closed.getKey()));
+        return true;
+      } catch (IOException e) {
+        log.warn("Could not delete outbox segment {}: {}", closed.getKey(), e.toString());
+        return false;
+      }
+    });
+  }
+
+  public synchronized void close() throws IOException {
+    if (channel != null) {
+      channel.close();
+      channel = null;
+    }
+  }
+
+  private void roll() throws IOException {
+    if (channel != null) {
+      channel.close();
+      closedSegments.put(segment, highestAppended);
+    }
+    while (true) {
+      segment++;
+      try {
+        channel = FileChannel.open(segmentFile(segment), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        break;
+      } catch (FileAlreadyExistsException e) {
+        // Left by an earlier run that was not replayed, keep it and move on
+      }
+    }
+    appended = 0;
+    highestAppended = 0;
+  }
+
+  private List<Path> segments() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(file -> file.getFileName().toString().startsWith(PREFIX)
+        && file.getFileName().toString().endsWith(SUFFIX))
+        .sorted()
+        .collect(Collectors.toList());
+    }
+  }
+
+  private Path segmentFile(long number) {
+    return directory.resolve(String.format("%s%019d%s", PREFIX, number, SUFFIX));
+  }
+
+  private static long segmentNumber(Path file) {
+    String name = file.getFileName().toString();
+    return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+  }
+}
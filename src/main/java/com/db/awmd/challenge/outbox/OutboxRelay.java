@@ -0,0 +1,154 @@
+package com.db.awmd.challenge.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exports the transfer outbox to every sink from a single background thread. Each sink advances its own
+ * checkpoint only after a successful export, so a failing sink is retried from where it stopped on the next run
+ * without holding back the others, and delivery is at-least-once. On start the outbox has read its log back, so
+ * every sink resumes at its own checkpoint. Only a sink that is behind everything the outbox still holds, such as
+ * one added since the last run or any sink of an outbox kept in memory only, is moved up to the oldest event held.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+  private final TransferOutbox outbox;
+
+  private final List<OutboxSink> sinks;
+
+  private final OutboxCheckpoints checkpoints;
+
+  private final long intervalMillis;
+
+  private final int batchSize;
+
+  private final AtomicLong exportedBatches = new AtomicLong();
+
+  private final AtomicLong failedExports = new AtomicLong();
+
+  private final ScheduledExecutorService relay = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "outbox-relay");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  @Autowired
+  public OutboxRelay(TransferOutbox outbox, List<OutboxSink> sinks,
+                     @Value("${outbox.checkpoint-file:outbox/checkpoints.properties}") String checkpointFile,
+                     @Value("${outbox.relay.interval-millis:200}") long intervalMillis,
+                     @Value("${outbox.relay.batch-size:1000}") int batchSize) throws IOException {
+    this.outbox = outbox;
+    this.sinks = sinks;
+    this.checkpoints = new OutboxCheckpoints(checkpointFile.isEmpty() ? null : Paths.get(checkpointFile));
+    this.intervalMillis = intervalMillis;
+    this.batchSize = batchSize;
+    outbox.resumeAfter(checkpoints.getHighest());
+    long tail = outbox.getTailOffset();
+    for (OutboxSink sink : sinks) {
+      long checkpoint = checkpoints.get(sink.getName());
+      if (checkpoint < tail - 1) {
+        log.warn("Outbox events {} to {} are no longer held for {}, resuming it at offset {}", checkpoint + 1,
+          tail - 1, sink.getName(), tail);
+        checkpoints.commit(sink.getName(), tail - 1);
+      }
+    }
+  }
+
+  @PostConstruct
+  public void start() {
+    this.relay.scheduleWithFixedDelay(this::relayQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  public void stop() {
+    this.relay.shutdown();
+  }
+
+  /**
+   * Exports everything recorded so far to each sink, then drops events that all sinks have checkpointed.
+   *
+   * @return the number of batches exported
+   */
+  public synchronized int relay() {
+    int exported = 0;
+    // Sinks at the same checkpoint share one encoded batch
+    Map<Long, OutboxBatch> encoded = new HashMap<>();
+    for (OutboxSink sink : sinks) {
+      while (true) {
+        long from = checkpoints.get(sink.getName()) + 1;
+        OutboxBatch batch = encoded.get(from);
+        if (batch == null) {
+          List<OutboxEvent> events = outbox.read(from, batchSize);
+          if (events.isEmpty()) {
+            break;
+          }
+          batch = OutboxBatch.of(events);
+          encoded.put(from, batch);
+        }
+        try {
+          sink.export(batch);
+          checkpoints.commit(sink.getName(), batch.getLastOffset());
+        } catch (IOException | RuntimeException e) {
+          failedExports.incrementAndGet();
+          log.warn("Outbox export to {} failed at offset {}: {}", sink.getName(), from, e.toString());
+          break;
+        }
+        exportedBatches.incrementAndGet();
+        exported++;
+      }
+    }
+    long exportedByAll = Long.MAX_VALUE;
+    for (OutboxSink sink : sinks) {
+      exportedByAll = Math.min(exportedByAll, checkpoints.get(sink.getName()));
+    }
+    outbox.truncate(sinks.isEmpty() ? outbox.getHeadOffset() : exportedByAll);
+    return exported;
+  }
+
+  private void relayQuietly() {
+    try {
+      relay();
+    } catch (RuntimeException e) {
+      log.error("Outbox relay failed", e);
+    }
+  }
+
+  public Map<String, Long> getCheckpoints() {
+    return checkpoints.getAll();
+  }
+
+  /**
+   * Events recorded but not yet exported by the slowest sink.
+   */
+  public long getBacklog() {
+    long exportedByAll = outbox.getHeadOffset();
+    for (OutboxSink sink : sinks) {
+      exportedByAll = Math.min(exportedByAll, checkpoints.get(sink.getName()));
+    }
+    return outbox.getHeadOffset() - exportedByAll;
+  }
+
+  public long getExportedBatches() {
+    return exportedBatches.get();
+  }
+
+  public long getFailedExports() {
+    return failedExports.get();
+  }
+}
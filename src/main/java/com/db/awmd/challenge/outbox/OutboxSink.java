@@ -0,0 +1,14 @@
+package com.db.awmd.challenge.outbox;
+
+import java.io.IOException;
+
+/**
+ * Destination for exported outbox batches. A batch can be delivered more than once, e.g. when the relay failed to
+ * checkpoint after a successful export, so sinks should treat the offset range as the idempotency key.
+ */
+public interface OutboxSink {
+
+  String getName();
+
+  void export(OutboxBatch batch) throws IOException;
+}
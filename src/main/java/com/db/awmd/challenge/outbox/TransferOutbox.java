@@ -0,0 +1,171 @@
+package com.db.awmd.challenge.outbox;
+
+import com.db.awmd.challenge.domain.MultiLegTransfer;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.repository.TransfersRepository;
+import com.db.awmd.challenge.service.TransferListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+/**
+ * Records one event per transfer status change on the thread that made the change, before
+ * {@link com.db.awmd.challenge.service.TransfersService} returns, and one per multi-leg transfer once it has been
+ * executed. Exporting is left to {@link OutboxRelay}, which reads contiguous offset ranges and truncates what every
+ * sink has checkpointed.
+ *
+ * Each event is appended to an {@link OutboxLog} before it becomes readable, and on start the events left in the
+ * log are read back, so a restart resumes every sink where it stopped. Without a log directory the outbox lives in
+ * memory only and events not yet exported are lost with the process.
+ */
+@Slf4j
+@Component
+public class TransferOutbox implements TransferListener {
+
+  private final ConcurrentSkipListMap<Long, OutboxEvent> events = new ConcurrentSkipListMap<>();
+
+  private final AtomicLong offsets = new AtomicLong();
+
+  // Transfers whose PENDING event has been recorded but not their final status yet
+  private final Map<Long, Boolean> pending = new ConcurrentHashMap<>();
+
+  private final OutboxLog outboxLog;
+
+  public TransferOutbox() {
+    this.outboxLog = null;
+  }
+
+  @Autowired
+  public TransferOutbox(TransfersRepository transfersRepository,
+                        @Value("${outbox.log.directory:outbox/log}") String logDirectory,
+                        @Value("${outbox.log.segment-events:10000}") int segmentEvents) throws IOException {
+    this.outboxLog = logDirectory.isEmpty() ? null : new OutboxLog(Paths.get(logDirectory), segmentEvents);
+    if (outboxLog != null) {
+      for (OutboxEvent event : outboxLog.replay()) {
+        events.put(event.getOffset(), event);
+        offsets.accumulateAndGet(event.getOffset(), Math::max);
+        if (event.getType() == OutboxEvent.Type.TRANSFER) {
+          if (event.getStatus() == Transfer.Status.PENDING) {
+            pending.put(event.getTransferId(), Boolean.TRUE);
+          } else {
+            pending.remove(event.getTransferId());
+          }
+        }
+      }
+      if (!events.isEmpty()) {
+        log.info("Replayed {} outbox events up to offset {}", events.size(), offsets.get());
+      }
+    }
+    // Their PENDING event may have been exported and truncated already, their final status is still owed
+    for (Transfer transfer : transfersRepository.getTransfer()) {
+      if (transfer.getStatus() == Transfer.Status.PENDING) {
+        pending.put(transfer.getTransferId(), Boolean.TRUE);
+      }
+    }
+  }
+
+  @PreDestroy
+  public void stop() throws IOException {
+    if (outboxLog != null) {
+      outboxLog.close();
+    }
+  }
+
+  @Override
+  public void onCreated(Transfer transfer) {
+    if (pending.putIfAbsent(transfer.getTransferId(), Boolean.TRUE) == null) {
+      append(offset -> OutboxEvent.of(offset, transfer));
+    }
+  }
+
+  @Override
+  public void onUpdated(Transfer transfer) {
+    // Listeners are told again about unchanged transfers, only the first final status is an event
+    if (transfer.getStatus() != Transfer.Status.PENDING && pending.remove(transfer.getTransferId()) != null) {
+      append(offset -> OutboxEvent.of(offset, transfer));
+    }
+  }
+
+  @Override
+  public void onCleared() {
+    pending.clear();
+  }
+
+  @Override
+  public void onMultiLegUpdated(MultiLegTransfer transfer) {
+    append(offset -> OutboxEvent.of(offset, transfer));
+  }
+
+  private void append(LongFunction<OutboxEvent> snapshot) {
+    long offset = offsets.incrementAndGet();
+    OutboxEvent event = snapshot.apply(offset);
+    if (outboxLog != null) {
+      try {
+        outboxLog.append(event);
+      } catch (IOException e) {
+        // Still exported from memory, but lost if the process stops before that
+        log.error("Could not append outbox event {} to the log", offset, e);
+      }
+    }
+    events.put(offset, event);
+  }
+
+  /**
+   * Events starting at {@code fromOffset}, stopping at the first offset that has been assigned but not stored yet
+   * so that a reader never skips past an event that is still being appended.
+   */
+  public List<OutboxEvent> read(long fromOffset, int maxEvents) {
+    List<OutboxEvent> batch = new ArrayList<>(Math.min(maxEvents, 1024));
+    long expected = fromOffset;
+    for (OutboxEvent event : events.tailMap(fromOffset).values()) {
+      if (event.getOffset() != expected || batch.size() == maxEvents) {
+        break;
+      }
+      batch.add(event);
+      expected++;
+    }
+    return batch;
+  }
+
+  public void truncate(long upToOffset) {
+    events.headMap(upToOffset, true).clear();
+    if (outboxLog != null) {
+      outboxLog.truncate(upToOffset);
+    }
+  }
+
+  /**
+   * Continues numbering after offsets that were exported by an earlier run, so sink checkpoints stay valid.
+   */
+  public void resumeAfter(long offset) {
+    offsets.accumulateAndGet(offset, Math::max);
+  }
+
+  public long getHeadOffset() {
+    return offsets.get();
+  }
+
+  /**
+   * The lowest offset still held, or the next one to be assigned when nothing is.
+   */
+  public long getTailOffset() {
+    Map.Entry<Long, OutboxEvent> first = events.firstEntry();
+    return first == null ? offsets.get() + 1 : first.getKey();
+  }
+
+  public int getRetainedCount() {
+    return events.size();
+  }
+}
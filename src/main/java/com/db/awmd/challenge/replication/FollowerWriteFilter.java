@@ -0,0 +1,41 @@
+package com.db.awmd.challenge.replication;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * A follower serves reads only until it is promoted; writes would diverge from the primary's log.
+ */
+@Component
+public class FollowerWriteFilter extends OncePerRequestFilter {
+
+  private static final String REPLICATION_PATH = "/v1/replication";
+
+  private final ReplicationReceiver replicationReceiver;
+
+  @Autowired
+  public FollowerWriteFilter(ReplicationReceiver replicationReceiver) {
+    this.replicationReceiver = replicationReceiver;
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !replicationReceiver.isFollower() || "GET".equals(request.getMethod())
+      || "HEAD".equals(request.getMethod())
+      || request.getRequestURI().startsWith(request.getContextPath() + REPLICATION_PATH);
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+    throws ServletException, IOException {
+    response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Read-only follower, send writes to the primary");
+  }
+}
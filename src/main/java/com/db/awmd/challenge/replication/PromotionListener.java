@@ -0,0 +1,10 @@
+package com.db.awmd.challenge.replication;
+
+/**
+ * Notified by {@link ReplicationReceiver} once a follower has been promoted and accepts writes. Components that
+ * drive transfers on their own stay idle while following, since the primary already executes them.
+ */
+public interface PromotionListener {
+
+  void onPromoted();
+}
@@ -0,0 +1,165 @@
+package com.db.awmd.challenge.replication;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.LedgerEntry;
+import com.db.awmd.challenge.domain.Transfer;
+import lombok.Getter;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * One entry of the mutation log. Field values are captured when the event is created, so later changes to the
+ * source object do not leak into an event that is already queued.
+ */
+@Getter
+public class ReplicationEvent {
+
+  public enum Type {
+    ACCOUNT,
+    ENTRY,
+    TRANSFER,
+    HOLD
+  }
+
+  private final long sequence;
+  private final Type type;
+  private final long timestamp;
+  private final String accountId;
+  private final String currency;
+  private final BigDecimal amount;
+  private final long entrySequence;
+  private final LedgerEntry.Type entryType;
+  private final String reference;
+  private final Long transferId;
+  private final String receiverAccountId;
+  private final Long executeAt;
+  private final Transfer.Status status;
+  private final String failureCause;
+  private final BigDecimal creditedAmount;
+
+  private ReplicationEvent(long sequence, Type type, long timestamp, String accountId, String currency,
+                           BigDecimal amount, long entrySequence, LedgerEntry.Type entryType, String reference,
+                           Long transferId, String receiverAccountId, Long executeAt, Transfer.Status status,
+                           String failureCause, BigDecimal creditedAmount) {
+    this.sequence = sequence;
+    this.type = type;
+    this.timestamp = timestamp;
+    this.accountId = accountId;
+    this.currency = currency;
+    this.amount = amount;
+    this.entrySequence = entrySequence;
+    this.entryType = entryType;
+    this.reference = reference;
+    this.transferId = transferId;
+    this.receiverAccountId = receiverAccountId;
+    this.executeAt = executeAt;
+    this.status = status;
+    this.failureCause = failureCause;
+    this.creditedAmount = creditedAmount;
+  }
+
+  public static ReplicationEvent account(long sequence, Account account) {
+    return new ReplicationEvent(sequence, Type.ACCOUNT, System.currentTimeMillis(), account.getAccountId(),
+      account.getCurrency(), null, 0, null, null, null, null, null, null, null, null);
+  }
+
+  public static ReplicationEvent entry(long sequence, LedgerEntry entry) {
+    return new ReplicationEvent(sequence, Type.ENTRY, entry.getTimestamp(), entry.getAccountId(), null,
+      entry.getAmount(), entry.getSequence(), entry.getType(), entry.getReference(), null, null, null, null, null,
+      null);
+  }
+
+  public static ReplicationEvent transfer(long sequence, Transfer transfer) {
+    return new ReplicationEvent(sequence, Type.TRANSFER, System.currentTimeMillis(), transfer.getSenderAccountId(),
+      null, transfer.getAmount(), 0, null, null, transfer.getTransferId(), transfer.getReceiverAccountId(),
+      transfer.getExecuteAt(), transfer.getStatus(), transfer.getFailureCause(), transfer.getCreditedAmount());
+  }
+
+  public static ReplicationEvent hold(long sequence, String accountId, BigDecimal heldDelta) {
+    return new ReplicationEvent(sequence, Type.HOLD, System.currentTimeMillis(), accountId, null, heldDelta, 0, null,
+      null, null, null, null, null, null, null);
+  }
+
+  public LedgerEntry toLedgerEntry() {
+    return new LedgerEntry(entrySequence, accountId, entryType, amount, reference, timestamp);
+  }
+
+  public void writeTo(DataOutputStream out) throws IOException {
+    out.writeLong(sequence);
+    out.writeByte(type.ordinal());
+    out.writeLong(timestamp);
+    writeString(out, accountId);
+    switch (type) {
+      case ACCOUNT:
+        writeString(out, currency);
+        break;
+      case ENTRY:
+        writeDecimal(out, amount);
+        out.writeLong(entrySequence);
+        out.writeByte(entryType.ordinal());
+        writeString(out, reference);
+        break;
+      case HOLD:
+        writeDecimal(out, amount);
+        break;
+      default:
+        writeDecimal(out, amount);
+        out.writeLong(transferId);
+        writeString(out, receiverAccountId);
+        out.writeLong(executeAt == null ? Long.MIN_VALUE : executeAt);
+        out.writeByte(status == null ? -1 : status.ordinal());
+        writeString(out, failureCause);
+        writeDecimal(out, creditedAmount);
+    }
+  }
+
+  public static ReplicationEvent readFrom(DataInputStream in) throws IOException {
+    long sequence = in.readLong();
+    Type type = Type.values()[in.readByte()];
+    long timestamp = in.readLong();
+    String accountId = readString(in);
+    switch (type) {
+      case ACCOUNT:
+        return new ReplicationEvent(sequence, type, timestamp, accountId, readString(in), null, 0, null, null, null,
+          null, null, null, null, null);
+      case ENTRY:
+        return new ReplicationEvent(sequence, type, timestamp, accountId, null, readDecimal(in), in.readLong(),
+          LedgerEntry.Type.values()[in.readByte()], readString(in), null, null, null, null, null, null);
+      case HOLD:
+        return new ReplicationEvent(sequence, type, timestamp, accountId, null, readDecimal(in), 0, null, null, null,
+          null, null, null, null, null);
+      default:
+        BigDecimal amount = readDecimal(in);
+        long transferId = in.readLong();
+        String receiverAccountId = readString(in);
+        long executeAt = in.readLong();
+        byte status = in.readByte();
+        return new ReplicationEvent(sequence, type, timestamp, accountId, null, amount, 0, null, null, transferId,
+          receiverAccountId, executeAt == Long.MIN_VALUE ? null : executeAt,
+          status < 0 ? null : Transfer.Status.values()[status], readString(in), readDecimal(in));
+    }
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeUTF(value);
+    }
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+
+  private static void writeDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+    writeString(out, value == null ? null : value.toString());
+  }
+
+  private static BigDecimal readDecimal(DataInputStream in) throws IOException {
+    String value = readString(in);
+    return value == null ? null : new BigDecimal(value);
+  }
+}
@@ -0,0 +1,262 @@
+package com.db.awmd.challenge.replication;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.exception.DuplicateAccountIdException;
+import com.db.awmd.challenge.outbox.TransferOutbox;
+import com.db.awmd.challenge.repository.AccountsRepository;
+import com.db.awmd.challenge.repository.TransfersRepository;
+import com.db.awmd.challenge.service.LedgerService;
+import com.db.awmd.challenge.service.TransferListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Follower side of hot-standby replication: accepts the primary's connection, applies each batch to the local
+ * repositories and ledger and acknowledges the last applied sequence. Events at or below that sequence are
+ * skipped, so batches resent after a reconnect are applied once. Ledger entries and hold changes are deltas and
+ * may arrive before the opening of their account, in which case they are parked until it appears.
+ */
+@Slf4j
+@Component
+public class ReplicationReceiver {
+
+  private final AccountsRepository accountsRepository;
+
+  private final TransfersRepository transfersRepository;
+
+  private final LedgerService ledgerService;
+
+  private final List<TransferListener> transferListeners;
+
+  private final List<PromotionListener> promotionListeners;
+
+  private final int port;
+
+  private final Map<String, BigDecimal> parkedDeltas = new ConcurrentHashMap<>();
+
+  private final Map<String, BigDecimal> parkedHolds = new ConcurrentHashMap<>();
+
+  private volatile boolean follower;
+
+  private volatile long appliedSequence;
+
+  private volatile long lastAppliedAt;
+
+  private volatile ServerSocket serverSocket;
+
+  private volatile Socket connection;
+
+  @Autowired
+  public ReplicationReceiver(AccountsRepository accountsRepository, TransfersRepository transfersRepository,
+                             LedgerService ledgerService, List<TransferListener> transferListeners,
+                             List<PromotionListener> promotionListeners,
+                             @Value("${replication.role:standalone}") String role,
+                             @Value("${replication.port:7400}") int port) {
+    this.accountsRepository = accountsRepository;
+    this.transfersRepository = transfersRepository;
+    this.ledgerService = ledgerService;
+    // The primary's outbox already exports every transfer change, so the follower must not export them again
+    this.transferListeners = transferListeners.stream()
+      .filter(listener -> !(listener instanceof TransferOutbox))
+      .collect(Collectors.toList());
+    this.promotionListeners = promotionListeners;
+    this.follower = ReplicationRole.parse(role) == ReplicationRole.FOLLOWER;
+    this.port = port;
+  }
+
+  @PostConstruct
+  public void start() throws IOException {
+    if (!follower) {
+      return;
+    }
+    serverSocket = new ServerSocket(port);
+    Thread thread = new Thread(this::acceptLoop, "replication-receiver");
+    thread.setDaemon(true);
+    thread.start();
+    log.info("Following on port {}", serverSocket.getLocalPort());
+  }
+
+  @PreDestroy
+  public void stop() {
+    closeQuietly(connection);
+    if (serverSocket != null) {
+      try {
+        serverSocket.close();
+      } catch (IOException e) {
+        log.debug("Closing replication server socket failed", e);
+      }
+    }
+  }
+
+  /**
+   * Stops following and accepts writes from now on, then hands the replicated PENDING transfers to the promotion
+   * listeners. Events the primary has not yet delivered are lost.
+   */
+  public void promote() {
+    if (!follower) {
+      return;
+    }
+    follower = false;
+    stop();
+    log.warn("Promoted to primary at replicated sequence {}", appliedSequence);
+    for (PromotionListener listener : promotionListeners) {
+      listener.onPromoted();
+    }
+  }
+
+  public boolean isFollower() {
+    return follower;
+  }
+
+  public long getAppliedSequence() {
+    return appliedSequence;
+  }
+
+  public long getLastAppliedAt() {
+    return lastAppliedAt;
+  }
+
+  public int getLocalPort() {
+    return serverSocket == null ? -1 : serverSocket.getLocalPort();
+  }
+
+  private void acceptLoop() {
+    while (follower && !serverSocket.isClosed()) {
+      try (Socket socket = serverSocket.accept()) {
+        connection = socket;
+        socket.setTcpNoDelay(true);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        out.writeLong(appliedSequence);
+        out.flush();
+
+        while (follower) {
+          int count = in.readInt();
+          for (int i = 0; i < count; i++) {
+            ReplicationEvent event = ReplicationEvent.readFrom(in);
+            if (event.getSequence() > appliedSequence) {
+              apply(event);
+              appliedSequence = event.getSequence();
+            }
+          }
+          lastAppliedAt = System.currentTimeMillis();
+          out.writeLong(appliedSequence);
+          out.flush();
+        }
+      } catch (IOException e) {
+        if (follower && !serverSocket.isClosed()) {
+          log.warn("Replication connection closed: {}", e.getMessage());
+        }
+      } finally {
+        connection = null;
+      }
+    }
+  }
+
+  private void apply(ReplicationEvent event) {
+    switch (event.getType()) {
+      case ACCOUNT:
+        Account account = new Account(event.getAccountId(), BigDecimal.ZERO, event.getCurrency());
+        try {
+          this.accountsRepository.createAccount(account);
+        } catch (DuplicateAccountIdException e) {
+          account = this.accountsRepository.getAccount(event.getAccountId());
+        }
+        BigDecimal parked = parkedDeltas.remove(event.getAccountId());
+        if (parked != null) {
+          account.deposit(parked);
+        }
+        BigDecimal parkedHeld = parkedHolds.remove(event.getAccountId());
+        if (parkedHeld != null) {
+          account.release(parkedHeld.negate());
+        }
+        break;
+      case ENTRY:
+        this.ledgerService.write(() -> applyEntry(event));
+        break;
+      case HOLD:
+        applyHold(event);
+        break;
+      default:
+        applyTransfer(event);
+    }
+  }
+
+  private void applyEntry(ReplicationEvent event) {
+    this.ledgerService.restoreEntry(event.toLedgerEntry());
+    BigDecimal delta = event.toLedgerEntry().getSignedAmount();
+    if (LedgerService.isInternalAccount(event.getAccountId())) {
+      // Exists in the ledger only
+      return;
+    }
+    Account target = this.accountsRepository.getAccount(event.getAccountId());
+    if (target == null) {
+      parkedDeltas.merge(event.getAccountId(), delta, BigDecimal::add);
+    } else {
+      // A negative deposit: replicated debits are already validated on the primary
+      target.deposit(delta);
+    }
+  }
+
+  private void applyHold(ReplicationEvent event) {
+    Account target = this.accountsRepository.getAccount(event.getAccountId());
+    if (target == null) {
+      parkedHolds.merge(event.getAccountId(), event.getAmount(), BigDecimal::add);
+    } else {
+      // A negative release: replicated holds are already validated on the primary
+      target.release(event.getAmount().negate());
+    }
+  }
+
+  private void applyTransfer(ReplicationEvent event) {
+    Transfer transfer = this.transfersRepository.getTransfer(event.getTransferId());
+    boolean created = transfer == null;
+    if (created) {
+      transfer = new Transfer(event.getTransferId(), event.getAccountId(), event.getReceiverAccountId(),
+        event.getAmount(), event.getExecuteAt());
+      this.transfersRepository.createTransfer(transfer);
+    }
+    // The follower never executes transfers, so the primary's latest status always wins
+    if (event.getStatus() != null) {
+      transfer.setStatus(event.getStatus());
+      transfer.setFailureCause(event.getFailureCause());
+      transfer.setCreditedAmount(event.getCreditedAmount());
+    }
+    for (TransferListener listener : transferListeners) {
+      if (created) {
+        listener.onCreated(transfer);
+      } else {
+        listener.onUpdated(transfer);
+      }
+    }
+  }
+
+  private static void closeQuietly(Socket socket) {
+    if (socket == null) {
+      return;
+    }
+    try {
+      socket.close();
+    } catch (IOException e) {
+      log.debug("Closing replication connection failed", e);
+    }
+  }
+}
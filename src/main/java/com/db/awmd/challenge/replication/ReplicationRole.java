@@ -0,0 +1,11 @@
+package com.db.awmd.challenge.replication;
+
+public enum ReplicationRole {
+  STANDALONE,
+  PRIMARY,
+  FOLLOWER;
+
+  public static ReplicationRole parse(String role) {
+    return valueOf(role.trim().toUpperCase());
+  }
+}
@@ -0,0 +1,274 @@
+package com.db.awmd.challenge.replication;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.LedgerEntry;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.service.LedgerListener;
+import com.db.awmd.challenge.service.TransferListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+
+/**
+ * Primary side of hot-standby replication. Account openings, ledger entries, hold changes and transfer changes are
+ * appended to a bounded in-memory log and streamed in batches to the follower, which acknowledges the last sequence
+ * it has applied. Unacknowledged batches are resent after a reconnect. In synchronous mode the mutating thread waits
+ * for the follower's acknowledgement; a write that times out has already been applied locally, so it is kept and
+ * the instance reports itself degraded until the follower catches up with it.
+ */
+@Slf4j
+@Component
+public class ReplicationSender implements LedgerListener, TransferListener {
+
+  private final boolean active;
+
+  private final String followerHost;
+
+  private final int followerPort;
+
+  private final int batchSize;
+
+  private final boolean synchronous;
+
+  private final long syncTimeoutMillis;
+
+  private final long reconnectMillis;
+
+  private final BlockingQueue<ReplicationEvent> queue;
+
+  private final Object ackMonitor = new Object();
+
+  private long sequence;
+
+  private volatile long acknowledgedSequence;
+
+  private volatile long timedOutSequence;
+
+  private volatile ReplicationEvent oldestUnacknowledged;
+
+  private volatile boolean connected;
+
+  private volatile boolean diverged;
+
+  private volatile boolean running;
+
+  private Thread senderThread;
+
+  @Autowired
+  public ReplicationSender(@Value("${replication.role:standalone}") String role,
+                           @Value("${replication.follower-host:localhost}") String followerHost,
+                           @Value("${replication.follower-port:7400}") int followerPort,
+                           @Value("${replication.batch-size:500}") int batchSize,
+                           @Value("${replication.queue-capacity:100000}") int queueCapacity,
+                           @Value("${replication.synchronous:false}") boolean synchronous,
+                           @Value("${replication.sync-timeout-millis:1000}") long syncTimeoutMillis,
+                           @Value("${replication.reconnect-millis:500}") long reconnectMillis) {
+    this.active = ReplicationRole.parse(role) == ReplicationRole.PRIMARY;
+    this.followerHost = followerHost;
+    this.followerPort = followerPort;
+    this.batchSize = batchSize;
+    this.synchronous = synchronous;
+    this.syncTimeoutMillis = syncTimeoutMillis;
+    this.reconnectMillis = reconnectMillis;
+    this.queue = new LinkedBlockingQueue<>(queueCapacity);
+  }
+
+  @PostConstruct
+  public void start() {
+    if (!active) {
+      return;
+    }
+    running = true;
+    senderThread = new Thread(this::run, "replication-sender");
+    senderThread.setDaemon(true);
+    senderThread.start();
+  }
+
+  @PreDestroy
+  public void stop() {
+    running = false;
+    if (senderThread != null) {
+      senderThread.interrupt();
+    }
+  }
+
+  @Override
+  public void onAccountOpened(Account account) {
+    publish(sequence -> ReplicationEvent.account(sequence, account));
+  }
+
+  @Override
+  public void onEntry(LedgerEntry entry) {
+    publish(sequence -> ReplicationEvent.entry(sequence, entry));
+  }
+
+  @Override
+  public void onHoldChanged(String accountId, BigDecimal heldDelta) {
+    publish(sequence -> ReplicationEvent.hold(sequence, accountId, heldDelta));
+  }
+
+  @Override
+  public void onCreated(Transfer transfer) {
+    publish(sequence -> ReplicationEvent.transfer(sequence, transfer));
+  }
+
+  @Override
+  public void onUpdated(Transfer transfer) {
+    publish(sequence -> ReplicationEvent.transfer(sequence, transfer));
+  }
+
+  public boolean isActive() {
+    return active;
+  }
+
+  public synchronized long getSequence() {
+    return sequence;
+  }
+
+  public long getAcknowledgedSequence() {
+    return acknowledgedSequence;
+  }
+
+  public long getLagMillis() {
+    ReplicationEvent oldest = oldestUnacknowledged;
+    if (oldest == null) {
+      oldest = queue.peek();
+    }
+    return oldest == null ? 0 : Math.max(0, System.currentTimeMillis() - oldest.getTimestamp());
+  }
+
+  /**
+   * Events up to the last timed-out synchronous write that the follower has not acknowledged yet. Non-zero means
+   * writes were accepted that a failover would lose.
+   */
+  public long getUnconfirmedSyncEvents() {
+    return Math.max(0, timedOutSequence - acknowledgedSequence);
+  }
+
+  public boolean isConnected() {
+    return connected;
+  }
+
+  public boolean isDiverged() {
+    return diverged;
+  }
+
+  private void publish(LongFunction<ReplicationEvent> factory) {
+    if (!active) {
+      return;
+    }
+    long eventSequence;
+    // Sequence assignment and enqueueing happen together so the log stays in sequence order
+    synchronized (this) {
+      eventSequence = ++sequence;
+      if (!queue.offer(factory.apply(eventSequence)) && !diverged) {
+        diverged = true;
+        log.error("Replication log full at sequence {}, the follower must be rebuilt", eventSequence);
+      }
+    }
+    if (synchronous) {
+      awaitAcknowledgement(eventSequence);
+    }
+  }
+
+  private void awaitAcknowledgement(long eventSequence) {
+    long deadline = System.currentTimeMillis() + syncTimeoutMillis;
+    synchronized (ackMonitor) {
+      long remaining;
+      while (acknowledgedSequence < eventSequence && (remaining = deadline - System.currentTimeMillis()) > 0) {
+        try {
+          ackMonitor.wait(remaining);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+    if (acknowledgedSequence < eventSequence) {
+      synchronized (ackMonitor) {
+        timedOutSequence = Math.max(timedOutSequence, eventSequence);
+      }
+      log.warn("Follower did not acknowledge sequence {} within {} ms", eventSequence, syncTimeoutMillis);
+    }
+  }
+
+  private void run() {
+    List<ReplicationEvent> pending = new ArrayList<>(batchSize);
+    while (running) {
+      try (Socket socket = new Socket()) {
+        socket.connect(new InetSocketAddress(followerHost, followerPort), (int) reconnectMillis);
+        socket.setTcpNoDelay(true);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        acknowledge(in.readLong());
+        connected = true;
+        log.info("Replicating to {}:{} from sequence {}", followerHost, followerPort, acknowledgedSequence);
+
+        while (running) {
+          if (pending.isEmpty()) {
+            ReplicationEvent first = queue.poll(100, TimeUnit.MILLISECONDS);
+            if (first == null) {
+              continue;
+            }
+            pending.add(first);
+            queue.drainTo(pending, batchSize - 1);
+            oldestUnacknowledged = first;
+          }
+          out.writeInt(pending.size());
+          for (ReplicationEvent event : pending) {
+            event.writeTo(out);
+          }
+          out.flush();
+          acknowledge(in.readLong());
+          pending.removeIf(event -> event.getSequence() <= acknowledgedSequence);
+          oldestUnacknowledged = pending.isEmpty() ? null : pending.get(0);
+        }
+      } catch (IOException e) {
+        if (connected) {
+          log.warn("Lost replication connection to {}:{}: {}", followerHost, followerPort, e.getMessage());
+        }
+        connected = false;
+        sleepQuietly();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  private void acknowledge(long sequence) {
+    synchronized (ackMonitor) {
+      if (sequence > acknowledgedSequence) {
+        acknowledgedSequence = sequence;
+      }
+      ackMonitor.notifyAll();
+    }
+  }
+
+  private void sleepQuietly() {
+    try {
+      Thread.sleep(reconnectMillis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      running = false;
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package com.db.awmd.challenge.report;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+import java.math.BigDecimal;
+
+public enum ReportFormat {
+
+  CSV("csv") {
+    @Override
+    public String balanceHeader() {
+      return "accountId,currency,balance\n";
+    }
+
+    @Override
+    public String transferHeader() {
+      return "accountId,transferId,direction,amount,counterpartyAccountId,timestamp\n";
+    }
+
+    @Override
+    public void appendBalance(StringBuilder line, String accountId, String currency, BigDecimal balance) {
+      appendCsv(line, accountId).append(',');
+      appendCsv(line, currency).append(',').append(balance.toPlainString()).append('\n');
+    }
+
+    @Override
+    public void appendTransfer(StringBuilder line, String accountId, String transferId, String direction,
+                               BigDecimal amount, String counterpartyAccountId, long timestamp) {
+      appendCsv(line, accountId).append(',');
+      appendCsv(line, transferId).append(',').append(direction).append(',').append(amount.toPlainString())
+        .append(',');
+      appendCsv(line, counterpartyAccountId).append(',').append(timestamp).append('\n');
+    }
+  },
+
+  NDJSON("ndjson") {
+    @Override
+    public String balanceHeader() {
+      return "";
+    }
+
+    @Override
+    public String transferHeader() {
+      return "";
+    }
+
+    @Override
+    public void appendBalance(StringBuilder line, String accountId, String currency, BigDecimal balance) {
+      line.append("{\"accountId\":");
+      appendJson(line, accountId);
+      if (currency != null) {
+        line.append(",\"currency\":");
+        appendJson(line, currency);
+      }
+      line.append(",\"balance\":").append(balance.toPlainString()).append("}\n");
+    }
+
+    @Override
+    public void appendTransfer(StringBuilder line, String accountId, String transferId, String direction,
+                               BigDecimal amount, String counterpartyAccountId, long timestamp) {
+      line.append("{\"accountId\":");
+      appendJson(line, accountId);
+      if (transferId != null) {
+        line.append(",\"transferId\":").append(transferId);
+      }
+      line.append(",\"direction\":\"").append(direction).append("\",\"amount\":").append(amount.toPlainString());
+      if (counterpartyAccountId != null) {
+        line.append(",\"counterpartyAccountId\":");
+        appendJson(line, counterpartyAccountId);
+      }
+      line.append(",\"timestamp\":").append(timestamp).append("}\n");
+    }
+  };
+
+  private final String extension;
+
+  ReportFormat(String extension) {
+    this.extension = extension;
+  }
+
+  public String getExtension() {
+    return extension;
+  }
+
+  public abstract String balanceHeader();
+
+  public abstract String transferHeader();
+
+  public abstract void appendBalance(StringBuilder line, String accountId, String currency, BigDecimal balance);
+
+  public abstract void appendTransfer(StringBuilder line, String accountId, String transferId, String direction,
+                                      BigDecimal amount, String counterpartyAccountId, long timestamp);
+
+  private static StringBuilder appendCsv(StringBuilder line, String value) {
+    if (value == null) {
+      return line;
+    }
+    if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+      return line.append(value);
+    }
+    return line.append('"').append(value.replace("\"", "\"\"")).append('"');
+  }
+
+  private static void appendJson(StringBuilder line, String value) {
+    line.append('"').append(JsonStringEncoder.getInstance().quoteAsString(value)).append('"');
+  }
+}
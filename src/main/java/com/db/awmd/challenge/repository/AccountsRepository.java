@@ -3,11 +3,17 @@ package com.db.awmd.challenge.repository;
 import com.db.awmd.challenge.domain.Account;
 import com.db.awmd.challenge.exception.DuplicateAccountIdException;
 
+import java.util.List;
+
 public interface AccountsRepository {
 
   void createAccount(Account account) throws DuplicateAccountIdException;
 
+  List<String> createAccounts(List<Account> accounts);
+
   Account getAccount(String accountId);
 
+  long countAccounts();
+
   void clearAccounts();
 }
@@ -2,33 +2,86 @@ package com.db.awmd.challenge.repository;
 
 import com.db.awmd.challenge.domain.Account;
 import com.db.awmd.challenge.exception.DuplicateAccountIdException;
+import com.db.awmd.challenge.tenant.TenantNamespace;
+import com.db.awmd.challenge.tenant.TenantRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToIntFunction;
 
 @Repository
+@ConditionalOnProperty(name = "repository.type", havingValue = "in-memory", matchIfMissing = true)
 public class AccountsRepositoryInMemory implements AccountsRepository {
 
+  private static final int DEFAULT_PARTITION_CAPACITY = 16;
+
   private final Map<String, Account> accounts = new ConcurrentHashMap<>();
 
+  // Each tenant namespace has its own map, sized for the tenant, so one tenant's growth never rehashes another's
+  private final Map<String, Map<String, Account>> tenantAccounts = new ConcurrentHashMap<>();
+
+  private final ToIntFunction<String> partitionCapacity;
+
+  public AccountsRepositoryInMemory() {
+    this(tenant -> DEFAULT_PARTITION_CAPACITY);
+  }
+
+  @Autowired
+  public AccountsRepositoryInMemory(TenantRegistry tenantRegistry) {
+    this(tenantRegistry::getPartitionCapacity);
+  }
+
+  private AccountsRepositoryInMemory(ToIntFunction<String> partitionCapacity) {
+    this.partitionCapacity = partitionCapacity;
+  }
+
   @Override
   public void createAccount(Account account) throws DuplicateAccountIdException {
-    Account previousAccount = accounts.putIfAbsent(account.getAccountId(), account);
+    Account previousAccount = partitionFor(account.getAccountId()).putIfAbsent(account.getAccountId(), account);
     if (previousAccount != null) {
       throw new DuplicateAccountIdException(
         "Account id " + account.getAccountId() + " already exists!");
     }
   }
 
+  @Override
+  public List<String> createAccounts(List<Account> batch) {
+    List<String> duplicates = new ArrayList<>();
+    for (Account account : batch) {
+      if (partitionFor(account.getAccountId()).putIfAbsent(account.getAccountId(), account) != null) {
+        duplicates.add(account.getAccountId());
+      }
+    }
+    return duplicates;
+  }
+
   @Override
   public Account getAccount(String accountId) {
-    return accounts.get(accountId);
+    String tenant = TenantNamespace.tenantOf(accountId);
+    Map<String, Account> partition = tenant == null ? accounts : tenantAccounts.get(tenant);
+    return partition == null ? null : partition.get(accountId);
+  }
+
+  @Override
+  public long countAccounts() {
+    return accounts.size() + tenantAccounts.values().stream().mapToLong(Map::size).sum();
   }
 
   @Override
   public void clearAccounts() {
     accounts.clear();
+    tenantAccounts.clear();
+  }
+
+  private Map<String, Account> partitionFor(String accountId) {
+    String tenant = TenantNamespace.tenantOf(accountId);
+    return tenant == null ? accounts
+      : tenantAccounts.computeIfAbsent(tenant, key -> new ConcurrentHashMap<>(partitionCapacity.applyAsInt(key)));
   }
 
 }
@@ -0,0 +1,254 @@
+package com.db.awmd.challenge.repository;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.LedgerEntry;
+import com.db.awmd.challenge.exception.DuplicateAccountIdException;
+import com.db.awmd.challenge.service.LedgerListener;
+import com.db.awmd.challenge.service.LedgerService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accounts stored in a relational table. Loaded accounts stay in an identity map because the transfer engines lock
+ * and CAS the {@link Account} objects themselves; balance changes are picked up from the ledger and written behind
+ * in batches as absolute balances. The identity map is the source of truth, so exactly one instance may write a
+ * given table: a second writer would overwrite the first one's balances with its own stale copies.
+ */
+@Slf4j
+@Repository
+@ConditionalOnProperty(name = "repository.type", havingValue = "jdbc")
+public class AccountsRepositoryJdbc implements AccountsRepository, LedgerListener {
+
+  private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS account ("
+    + "account_id VARCHAR(255) PRIMARY KEY, currency CHAR(3), balance DECIMAL(30, 10) NOT NULL)";
+
+  private static final String INSERT = "INSERT INTO account (account_id, currency, balance) VALUES (?, ?, ?)";
+
+  private static final String UPDATE_BALANCE = "UPDATE account SET balance = ? WHERE account_id = ?";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  private final TransactionTemplate transactionTemplate;
+
+  private final int batchSize;
+
+  private final long flushIntervalMillis;
+
+  private final Map<String, Account> accounts = new ConcurrentHashMap<>();
+
+  private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+  private final AtomicLong flushedBalances = new AtomicLong();
+
+  private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "account-write-behind");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  @Autowired
+  public AccountsRepositoryJdbc(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                @Value("${repository.jdbc.batch-size:500}") int batchSize,
+                                @Value("${repository.jdbc.flush-interval-millis:50}") long flushIntervalMillis) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.batchSize = batchSize;
+    this.flushIntervalMillis = flushIntervalMillis;
+    jdbcTemplate.execute(CREATE_TABLE);
+  }
+
+  @PostConstruct
+  public void start() {
+    this.flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+      TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  public void stop() {
+    this.flusher.shutdown();
+    flushQuietly();
+  }
+
+  @Override
+  public void createAccount(Account account) throws DuplicateAccountIdException {
+    if (accounts.containsKey(account.getAccountId())) {
+      throw duplicate(account.getAccountId());
+    }
+    try {
+      jdbcTemplate.update(INSERT, account.getAccountId(), account.getCurrency(), account.getBalance());
+    } catch (DuplicateKeyException e) {
+      throw duplicate(account.getAccountId());
+    }
+    accounts.put(account.getAccountId(), account);
+  }
+
+  @Override
+  public List<String> createAccounts(List<Account> batch) {
+    List<String> duplicates = new ArrayList<>();
+    List<Account> inserts = new ArrayList<>(batch.size());
+    Set<String> seen = new HashSet<>();
+    Set<String> existing = findExisting(batch);
+    for (Account account : batch) {
+      if (!seen.add(account.getAccountId()) || existing.contains(account.getAccountId())) {
+        duplicates.add(account.getAccountId());
+      } else {
+        inserts.add(account);
+      }
+    }
+    jdbcTemplate.batchUpdate(INSERT, inserts, batchSize, (statement, account) -> {
+      statement.setString(1, account.getAccountId());
+      statement.setString(2, account.getCurrency());
+      statement.setBigDecimal(3, account.getBalance());
+    });
+    inserts.forEach(account -> accounts.put(account.getAccountId(), account));
+    return duplicates;
+  }
+
+  @Override
+  public Account getAccount(String accountId) {
+    Account account = accounts.get(accountId);
+    if (account != null) {
+      return account;
+    }
+    List<Account> rows = jdbcTemplate.query("SELECT account_id, currency, balance FROM account WHERE account_id = ?",
+      (resultSet, row) -> new Account(resultSet.getString(1), resultSet.getBigDecimal(3), resultSet.getString(2)),
+      accountId);
+    if (rows.isEmpty()) {
+      return null;
+    }
+    Account loaded = accounts.putIfAbsent(accountId, rows.get(0));
+    return loaded != null ? loaded : rows.get(0);
+  }
+
+  @Override
+  public long countAccounts() {
+    return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM account", Long.class);
+  }
+
+  @Override
+  public synchronized void clearAccounts() {
+    dirty.clear();
+    accounts.clear();
+    jdbcTemplate.update("DELETE FROM account");
+  }
+
+  @Override
+  public void onAccountOpened(Account account) {
+  }
+
+  @Override
+  public void onEntry(LedgerEntry entry) {
+    if (!LedgerService.isInternalAccount(entry.getAccountId())) {
+      dirty.add(entry.getAccountId());
+    }
+  }
+
+  @Override
+  public void onBalanceReplayed(Account account) {
+    dirty.add(account.getAccountId());
+  }
+
+  /**
+   * Writes the current balance of every account changed since the last flush. Several changes to one account
+   * collapse into a single update.
+   *
+   * @return the number of balances written
+   */
+  public synchronized int flush() {
+    if (dirty.isEmpty()) {
+      return 0;
+    }
+    List<String> accountIds = new ArrayList<>(dirty);
+    dirty.removeAll(accountIds);
+    try {
+      int written = 0;
+      for (int from = 0; from < accountIds.size(); from += batchSize) {
+        written += flushChunk(accountIds.subList(from, Math.min(from + batchSize, accountIds.size())));
+      }
+      flushedBalances.addAndGet(written);
+      return written;
+    } catch (RuntimeException e) {
+      dirty.addAll(accountIds);
+      throw e;
+    }
+  }
+
+  private int flushChunk(List<String> accountIds) {
+    List<Object[]> updates = new ArrayList<>(accountIds.size());
+    for (String accountId : accountIds) {
+      Account account = accounts.get(accountId);
+      if (account != null) {
+        updates.add(new Object[]{account.getBalance(), accountId});
+      }
+    }
+    if (updates.isEmpty()) {
+      return 0;
+    }
+    return transactionTemplate.execute(status -> {
+      jdbcTemplate.batchUpdate(UPDATE_BALANCE, updates);
+      return updates.size();
+    });
+  }
+
+  private void flushQuietly() {
+    try {
+      flush();
+    } catch (RuntimeException e) {
+      log.warn("Balance write-behind failed, retrying on the next flush: {}", e.toString());
+    }
+  }
+
+  /**
+   * Balance as last written to the database, which lags the in-memory balance by up to one flush interval.
+   */
+  public BigDecimal getStoredBalance(String accountId) {
+    List<BigDecimal> rows = jdbcTemplate.queryForList("SELECT balance FROM account WHERE account_id = ?",
+      BigDecimal.class, accountId);
+    return rows.isEmpty() ? null : rows.get(0);
+  }
+
+  public long getFlushedBalances() {
+    return flushedBalances.get();
+  }
+
+  public int getDirtyCount() {
+    return dirty.size();
+  }
+
+  private Set<String> findExisting(List<Account> batch) {
+    Set<String> existing = new HashSet<>();
+    for (int from = 0; from < batch.size(); from += batchSize) {
+      List<Account> chunk = batch.subList(from, Math.min(from + batchSize, batch.size()));
+      Object[] ids = chunk.stream().map(Account::getAccountId).toArray();
+      existing.addAll(jdbcTemplate.queryForList("SELECT account_id FROM account WHERE account_id IN ("
+        + String.join(",", Collections.nCopies(ids.length, "?")) + ")", String.class, ids));
+    }
+    return existing;
+  }
+
+  private DuplicateAccountIdException duplicate(String accountId) {
+    return new DuplicateAccountIdException("Account id " + accountId + " already exists!");
+  }
+}
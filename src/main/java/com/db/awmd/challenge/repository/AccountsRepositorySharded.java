@@ -0,0 +1,70 @@
+package com.db.awmd.challenge.repository;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.ShardStats;
+import com.db.awmd.challenge.exception.DuplicateAccountIdException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Repository
+@ConditionalOnProperty(name = "repository.type", havingValue = "sharded")
+public class AccountsRepositorySharded implements AccountsRepository {
+
+  private final RepositoryShard<String, Account>[] shards;
+
+  @Autowired
+  public AccountsRepositorySharded(@Value("${repository.shards:16}") int shardCount) {
+    this.shards = RepositoryShard.create(shardCount);
+  }
+
+  @Override
+  public void createAccount(Account account) throws DuplicateAccountIdException {
+    Account previousAccount = shardFor(account.getAccountId()).putIfAbsent(account.getAccountId(), account);
+    if (previousAccount != null) {
+      throw new DuplicateAccountIdException(
+        "Account id " + account.getAccountId() + " already exists!");
+    }
+  }
+
+  @Override
+  public List<String> createAccounts(List<Account> batch) {
+    List<String> duplicates = new ArrayList<>();
+    for (Account account : batch) {
+      if (shardFor(account.getAccountId()).putIfAbsent(account.getAccountId(), account) != null) {
+        duplicates.add(account.getAccountId());
+      }
+    }
+    return duplicates;
+  }
+
+  @Override
+  public Account getAccount(String accountId) {
+    return shardFor(accountId).get(accountId);
+  }
+
+  @Override
+  public long countAccounts() {
+    return Arrays.stream(shards).parallel().mapToLong(RepositoryShard::size).sum();
+  }
+
+  @Override
+  public void clearAccounts() {
+    Arrays.stream(shards).parallel().forEach(RepositoryShard::clear);
+  }
+
+  public List<ShardStats> getShardStats() {
+    return Arrays.stream(shards).map(RepositoryShard::stats).collect(Collectors.toList());
+  }
+
+  private RepositoryShard<String, Account> shardFor(String accountId) {
+    return shards[RepositoryShard.indexFor(accountId, shards.length)];
+  }
+
+}
@@ -0,0 +1,18 @@
+package com.db.awmd.challenge.repository;
+
+import com.db.awmd.challenge.domain.Hold;
+
+import java.util.List;
+
+public interface HoldsRepository {
+
+  void createHold(Hold hold);
+
+  Hold getHold(Long holdId);
+
+  void removeHold(Hold hold);
+
+  List<Hold> getHolds(String accountId);
+
+  void clearHolds();
+}
@@ -0,0 +1,60 @@
+package com.db.awmd.challenge.repository;
+
+import com.db.awmd.challenge.domain.Hold;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Repository
+public class HoldsRepositoryInMemory implements HoldsRepository {
+
+  private final Map<Long, Hold> holds = new ConcurrentHashMap<>();
+
+  private final Map<String, Map<Long, Hold>> holdsByAccount = new ConcurrentHashMap<>();
+
+  @Override
+  public void createHold(Hold hold) {
+    holds.put(hold.getHoldId(), hold);
+    holdsByAccount.compute(hold.getAccountId(), (accountId, accountHolds) -> {
+      Map<Long, Hold> updated = accountHolds == null ? new ConcurrentHashMap<>() : accountHolds;
+      updated.put(hold.getHoldId(), hold);
+      return updated;
+    });
+  }
+
+  @Override
+  public void removeHold(Hold hold) {
+    holds.remove(hold.getHoldId(), hold);
+    holdsByAccount.computeIfPresent(hold.getAccountId(), (accountId, accountHolds) -> {
+      accountHolds.remove(hold.getHoldId(), hold);
+      return accountHolds.isEmpty() ? null : accountHolds;
+    });
+  }
+
+  @Override
+  public Hold getHold(Long holdId) {
+    return holds.get(holdId);
+  }
+
+  @Override
+  public List<Hold> getHolds(String accountId) {
+    Map<Long, Hold> accountHolds = holdsByAccount.get(accountId);
+    if (accountHolds == null) {
+      return new ArrayList<>();
+    }
+    List<Hold> result = new ArrayList<>(accountHolds.values());
+    result.sort(Comparator.comparing(Hold::getHoldId));
+    return result;
+  }
+
+  @Override
+  public void clearHolds() {
+    holds.clear();
+    holdsByAccount.clear();
+  }
+
+}
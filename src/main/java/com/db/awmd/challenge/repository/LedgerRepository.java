@@ -0,0 +1,18 @@
+package com.db.awmd.challenge.repository;
+
+import com.db.awmd.challenge.domain.LedgerEntry;
+
+import java.util.List;
+
+public interface LedgerRepository {
+
+  void append(LedgerEntry entry);
+
+  int getPartitionCount();
+
+  List<LedgerEntry> getPartition(int partition);
+
+  List<LedgerEntry> getEntries(String accountId);
+
+  void clearLedger();
+}
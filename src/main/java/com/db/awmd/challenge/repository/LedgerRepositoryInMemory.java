@@ -0,0 +1,93 @@
+package com.db.awmd.challenge.repository;
+
+import com.db.awmd.challenge.domain.LedgerEntry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Append-only ledger split into partitions by account, so every account's entries live in exactly one partition
+ * and partitions can be replayed independently.
+ */
+@Repository
+public class LedgerRepositoryInMemory implements LedgerRepository {
+
+  private final Partition[] partitions;
+
+  @Autowired
+  public LedgerRepositoryInMemory(@Value("${ledger.partitions:16}") int partitionCount) {
+    this.partitions = new Partition[partitionCount];
+    for (int i = 0; i < partitionCount; i++) {
+      partitions[i] = new Partition();
+    }
+  }
+
+  @Override
+  public void append(LedgerEntry entry) {
+    partitions[partitionOf(entry.getAccountId())].append(entry);
+  }
+
+  @Override
+  public int getPartitionCount() {
+    return partitions.length;
+  }
+
+  @Override
+  public List<LedgerEntry> getPartition(int partition) {
+    return partitions[partition].snapshot();
+  }
+
+  @Override
+  public List<LedgerEntry> getEntries(String accountId) {
+    return getPartition(partitionOf(accountId)).stream()
+      .filter(entry -> entry.getAccountId().equals(accountId))
+      .collect(Collectors.toList());
+  }
+
+  @Override
+  public void clearLedger() {
+    for (Partition partition : partitions) {
+      partition.clear();
+    }
+  }
+
+  private int partitionOf(String accountId) {
+    return (accountId.hashCode() & Integer.MAX_VALUE) % partitions.length;
+  }
+
+  /**
+   * Appends take the partition lock and publish an immutable view of the filled prefix. Slots in that prefix are
+   * never written again, so readers use the latest view without locking or copying and never hold up appends.
+   */
+  private static final class Partition {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private LedgerEntry[] entries = new LedgerEntry[INITIAL_CAPACITY];
+
+    private volatile List<LedgerEntry> view = Collections.emptyList();
+
+    synchronized void append(LedgerEntry entry) {
+      int size = view.size();
+      if (size == entries.length) {
+        entries = Arrays.copyOf(entries, size * 2);
+      }
+      entries[size] = entry;
+      view = Collections.unmodifiableList(Arrays.asList(entries).subList(0, size + 1));
+    }
+
+    synchronized void clear() {
+      entries = new LedgerEntry[INITIAL_CAPACITY];
+      view = Collections.emptyList();
+    }
+
+    List<LedgerEntry> snapshot() {
+      return view;
+    }
+  }
+}
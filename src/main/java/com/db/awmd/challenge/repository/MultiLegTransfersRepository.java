@@ -0,0 +1,12 @@
+package com.db.awmd.challenge.repository;
+
+import com.db.awmd.challenge.domain.MultiLegTransfer;
+
+public interface MultiLegTransfersRepository {
+
+  void createTransfer(MultiLegTransfer transfer);
+
+  MultiLegTransfer getTransfer(Long transferId);
+
+  void clearTransfers();
+}
@@ -0,0 +1,29 @@
+package com.db.awmd.challenge.repository;
+
+import com.db.awmd.challenge.domain.MultiLegTransfer;
+import org.springframework.stereotype.Repository;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Repository
+public class MultiLegTransfersRepositoryInMemory implements MultiLegTransfersRepository {
+
+  private final Map<Long, MultiLegTransfer> transfers = new ConcurrentHashMap<>();
+
+  @Override
+  public void createTransfer(MultiLegTransfer transfer) {
+    transfers.put(transfer.getTransferId(), transfer);
+  }
+
+  @Override
+  public MultiLegTransfer getTransfer(Long transferId) {
+    return transfers.get(transferId);
+  }
+
+  @Override
+  public void clearTransfers() {
+    transfers.clear();
+  }
+
+}
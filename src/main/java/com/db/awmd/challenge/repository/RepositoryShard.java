@@ -0,0 +1,75 @@
+package com.db.awmd.challenge.repository;
+
+import com.db.awmd.challenge.domain.ShardStats;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One partition of a sharded repository: an independent map with its own access counters.
+ */
+public class RepositoryShard<K, V> {
+
+  private final int index;
+  private final Map<K, V> entries = new ConcurrentHashMap<>();
+  private final LongAdder reads = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder writes = new LongAdder();
+
+  public RepositoryShard(int index) {
+    this.index = index;
+  }
+
+  public V putIfAbsent(K key, V value) {
+    writes.increment();
+    return entries.putIfAbsent(key, value);
+  }
+
+  public V get(K key) {
+    reads.increment();
+    V value = entries.get(key);
+    if (value == null) {
+      misses.increment();
+    }
+    return value;
+  }
+
+  public Collection<V> values() {
+    return entries.values();
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  public void clear() {
+    entries.clear();
+  }
+
+  public ShardStats stats() {
+    return new ShardStats(index, entries.size(), reads.sum(), misses.sum(), writes.sum());
+  }
+
+  static <K, V> RepositoryShard<K, V>[] create(int count) {
+    if (count <= 0) {
+      throw new IllegalArgumentException("Shard count must be positive");
+    }
+    RepositoryShard<K, V>[] shards = newShards(count);
+    for (int i = 0; i < count; i++) {
+      shards[i] = new RepositoryShard<>(i);
+    }
+    return shards;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <K, V> RepositoryShard<K, V>[] newShards(int size) {
+    return (RepositoryShard<K, V>[]) new RepositoryShard<?, ?>[size];
+  }
+
+  static int indexFor(Object key, int shardCount) {
+    int hash = key.hashCode();
+    return ((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % shardCount;
+  }
+}
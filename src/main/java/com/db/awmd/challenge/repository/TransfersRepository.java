@@ -3,6 +3,7 @@ package com.db.awmd.challenge.repository;
 import com.db.awmd.challenge.domain.Transfer;
 import com.db.awmd.challenge.exception.DuplicateTransferIdException;
 
+import java.util.Collections;
 import java.util.List;
 
 public interface TransfersRepository {
@@ -13,5 +14,15 @@ public interface TransfersRepository {
 
   List<Transfer> getTransfer();
 
+  long countTransfers();
+
   void clearTransfers();
+
+  /**
+   * Immediate transfers stored as PENDING, such as those accepted by an earlier run that stopped before executing
+   * them. Repositories that do not outlive the process have none.
+   */
+  default List<Transfer> getPendingTransfers() {
+    return Collections.emptyList();
+  }
 }
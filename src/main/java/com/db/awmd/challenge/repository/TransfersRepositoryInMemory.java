@@ -2,6 +2,7 @@ package com.db.awmd.challenge.repository;
 
 import com.db.awmd.challenge.domain.Transfer;
 import com.db.awmd.challenge.exception.DuplicateTransferIdException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
@@ -10,6 +11,7 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 @Repository
+@ConditionalOnProperty(name = "repository.type", havingValue = "in-memory", matchIfMissing = true)
 public class TransfersRepositoryInMemory implements TransfersRepository {
 
   private final Map<Long, Transfer> transfers = new ConcurrentHashMap<>();
@@ -38,4 +40,9 @@ public class TransfersRepositoryInMemory implements TransfersRepository {
     return new ArrayList<>(transfers.values());
   }
 
+  @Override
+  public long countTransfers() {
+    return transfers.size();
+  }
+
 }
@@ -0,0 +1,302 @@
+package com.db.awmd.challenge.repository;
+
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.exception.DuplicateTransferIdException;
+import com.db.awmd.challenge.service.TransferListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transfers stored in a relational table. New transfers and status changes are buffered and written by a
+ * background flusher as JDBC batches over one prepared statement each, so the transfer path never waits on a
+ * round trip unless the buffer is full. Reads see buffered transfers before they reach the table.
+ */
+@Slf4j
+@Repository
+@ConditionalOnProperty(name = "repository.type", havingValue = "jdbc")
+public class TransfersRepositoryJdbc implements TransfersRepository, TransferListener {
+
+  private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS transfer ("
+    + "transfer_id BIGINT PRIMARY KEY, sender_account_id VARCHAR(255), receiver_account_id VARCHAR(255), "
+    + "amount DECIMAL(30, 10), credited_amount DECIMAL(30, 10), execute_at BIGINT, status VARCHAR(16) NOT NULL, "
+    + "failure_cause VARCHAR(1024))";
+
+  private static final String COLUMNS = "transfer_id, sender_account_id, receiver_account_id, amount, "
+    + "credited_amount, execute_at, status, failure_cause";
+
+  private static final String INSERT = "INSERT INTO transfer (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+  private static final String UPDATE_STATUS = "UPDATE transfer SET credited_amount = ?, status = ?, "
+    + "failure_cause = ? WHERE transfer_id = ?";
+
+  private static final RowMapper<Transfer> ROW_MAPPER = (resultSet, row) -> {
+    long executeAt = resultSet.getLong(6);
+    boolean immediate = resultSet.wasNull();
+    Transfer transfer = new Transfer(resultSet.getLong(1), resultSet.getString(2), resultSet.getString(3),
+      resultSet.getBigDecimal(4), immediate ? null : executeAt);
+    transfer.setCreditedAmount(resultSet.getBigDecimal(5));
+    transfer.setStatus(Transfer.Status.valueOf(resultSet.getString(7)));
+    transfer.setFailureCause(resultSet.getString(8));
+    return transfer;
+  };
+
+  private final JdbcTemplate jdbcTemplate;
+
+  private final TransactionTemplate transactionTemplate;
+
+  private final int batchSize;
+
+  private final int maxBuffered;
+
+  private final long flushIntervalMillis;
+
+  private final Map<Long, Transfer> bufferedInserts = new ConcurrentHashMap<>();
+
+  private final Map<Long, Transfer> bufferedUpdates = new ConcurrentHashMap<>();
+
+  // Drained from the buffers but not committed yet, still visible to readers
+  private final Map<Long, Transfer> flushing = new ConcurrentHashMap<>();
+
+  private final AtomicLong flushedRows = new AtomicLong();
+
+  private final AtomicLong rejectedRows = new AtomicLong();
+
+  private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "transfer-write-behind");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  @Autowired
+  public TransfersRepositoryJdbc(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                 @Value("${repository.jdbc.batch-size:500}") int batchSize,
+                                 @Value("${repository.jdbc.max-buffered:20000}") int maxBuffered,
+                                 @Value("${repository.jdbc.flush-interval-millis:50}") long flushIntervalMillis) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.batchSize = batchSize;
+    this.maxBuffered = maxBuffered;
+    this.flushIntervalMillis = flushIntervalMillis;
+    jdbcTemplate.execute(CREATE_TABLE);
+    Long lastTransferId = jdbcTemplate.queryForObject("SELECT MAX(transfer_id) FROM transfer", Long.class);
+    if (lastTransferId != null) {
+      Transfer.advanceIdsPast(lastTransferId);
+    }
+  }
+
+  @PostConstruct
+  public void start() {
+    this.flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+      TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  public void stop() {
+    this.flusher.shutdown();
+    flushQuietly();
+  }
+
+  /**
+   * Duplicates are detected against buffered transfers; an id that already reached the table is rejected by the
+   * primary key when the buffer is flushed.
+   */
+  @Override
+  public void createTransfer(Transfer transfer) throws DuplicateTransferIdException {
+    if (bufferedInserts.putIfAbsent(transfer.getTransferId(), transfer) != null) {
+      throw new DuplicateTransferIdException(
+        "Transfer id " + transfer.getTransferId() + " already exists!");
+    }
+    if (bufferedInserts.size() >= maxBuffered) {
+      // The flusher is not keeping up, write on the caller's thread rather than grow without bound
+      flush();
+    }
+  }
+
+  @Override
+  public Transfer getTransfer(Long transferId) {
+    Transfer transfer = bufferedInserts.get(transferId);
+    if (transfer == null) {
+      transfer = bufferedUpdates.get(transferId);
+    }
+    if (transfer == null) {
+      transfer = flushing.get(transferId);
+    }
+    if (transfer != null) {
+      return transfer;
+    }
+    List<Transfer> rows = jdbcTemplate.query("SELECT " + COLUMNS + " FROM transfer WHERE transfer_id = ?",
+      ROW_MAPPER, transferId);
+    return rows.isEmpty() ? null : rows.get(0);
+  }
+
+  @Override
+  public List<Transfer> getTransfer() {
+    flush();
+    return jdbcTemplate.query("SELECT " + COLUMNS + " FROM transfer ORDER BY transfer_id", ROW_MAPPER);
+  }
+
+  @Override
+  public long countTransfers() {
+    flush();
+    return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transfer", Long.class);
+  }
+
+  @Override
+  public List<Transfer> getPendingTransfers() {
+    flush();
+    return jdbcTemplate.query("SELECT " + COLUMNS + " FROM transfer WHERE status = ? AND execute_at IS NULL "
+      + "ORDER BY transfer_id", ROW_MAPPER, Transfer.Status.PENDING.name());
+  }
+
+  @Override
+  public synchronized void clearTransfers() {
+    bufferedInserts.clear();
+    bufferedUpdates.clear();
+    flushing.clear();
+    jdbcTemplate.update("DELETE FROM transfer");
+  }
+
+  @Override
+  public void onCreated(Transfer transfer) {
+  }
+
+  @Override
+  public void onUpdated(Transfer transfer) {
+    // A transfer still waiting for its insert is written with its latest status anyway
+    if (!bufferedInserts.containsKey(transfer.getTransferId())) {
+      bufferedUpdates.put(transfer.getTransferId(), transfer);
+    }
+  }
+
+  /**
+   * Writes buffered inserts, then buffered status changes, each as batches inside one transaction.
+   *
+   * @return the number of rows written
+   */
+  public synchronized int flush() {
+    try {
+      int written = 0;
+      List<Transfer> inserts = drain(bufferedInserts);
+      if (!inserts.isEmpty()) {
+        written += insert(inserts);
+      }
+      written += update(drain(bufferedUpdates));
+      flushedRows.addAndGet(written);
+      return written;
+    } finally {
+      flushing.clear();
+    }
+  }
+
+  private int update(List<Transfer> updates) {
+    if (updates.isEmpty()) {
+      return 0;
+    }
+    try {
+      transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(UPDATE_STATUS, updates, batchSize,
+        (statement, transfer) -> {
+          statement.setBigDecimal(1, transfer.getCreditedAmount());
+          statement.setString(2, transfer.getStatus().name());
+          statement.setString(3, transfer.getFailureCause());
+          statement.setLong(4, transfer.getTransferId());
+        }));
+      return updates.size();
+    } catch (RuntimeException e) {
+      updates.forEach(transfer -> bufferedUpdates.putIfAbsent(transfer.getTransferId(), transfer));
+      throw e;
+    }
+  }
+
+  private int insert(List<Transfer> inserts) {
+    try {
+      transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(INSERT, inserts, batchSize, this::bindInsert));
+      return inserts.size();
+    } catch (DuplicateKeyException e) {
+      // Find the offending rows one by one so the rest of the batch is still stored
+      int written = 0;
+      for (Transfer transfer : inserts) {
+        try {
+          jdbcTemplate.update(INSERT, statement -> bindInsert(statement, transfer));
+          written++;
+        } catch (DuplicateKeyException duplicate) {
+          rejectedRows.incrementAndGet();
+          log.error("Dropping transfer {}, its id is already stored", transfer.getTransferId());
+        }
+      }
+      return written;
+    } catch (RuntimeException e) {
+      inserts.forEach(transfer -> bufferedInserts.putIfAbsent(transfer.getTransferId(), transfer));
+      throw e;
+    }
+  }
+
+  private void bindInsert(PreparedStatement statement, Transfer transfer) throws SQLException {
+    statement.setLong(1, transfer.getTransferId());
+    statement.setString(2, transfer.getSenderAccountId());
+    statement.setString(3, transfer.getReceiverAccountId());
+    statement.setBigDecimal(4, transfer.getAmount());
+    statement.setBigDecimal(5, transfer.getCreditedAmount());
+    if (transfer.getExecuteAt() != null) {
+      statement.setLong(6, transfer.getExecuteAt());
+    } else {
+      statement.setNull(6, Types.BIGINT);
+    }
+    statement.setString(7, transfer.getStatus().name());
+    statement.setString(8, transfer.getFailureCause());
+  }
+
+  private List<Transfer> drain(Map<Long, Transfer> buffer) {
+    List<Transfer> drained = new ArrayList<>(buffer.size());
+    for (Long transferId : buffer.keySet()) {
+      Transfer transfer = buffer.get(transferId);
+      if (transfer != null) {
+        flushing.put(transferId, transfer);
+        buffer.remove(transferId, transfer);
+        drained.add(transfer);
+      }
+    }
+    return drained;
+  }
+
+  private void flushQuietly() {
+    try {
+      flush();
+    } catch (RuntimeException e) {
+      log.warn("Transfer write-behind failed, retrying on the next flush: {}", e.toString());
+    }
+  }
+
+  public long getFlushedRows() {
+    return flushedRows.get();
+  }
+
+  public long getRejectedRows() {
+    return rejectedRows.get();
+  }
+
+  public int getBufferedCount() {
+    return bufferedInserts.size() + bufferedUpdates.size();
+  }
+}
@@ -0,0 +1,65 @@
+package com.db.awmd.challenge.repository;
+
+import com.db.awmd.challenge.domain.ShardStats;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.exception.DuplicateTransferIdException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Repository
+@ConditionalOnProperty(name = "repository.type", havingValue = "sharded")
+public class TransfersRepositorySharded implements TransfersRepository {
+
+  private final RepositoryShard<Long, Transfer>[] shards;
+
+  @Autowired
+  public TransfersRepositorySharded(@Value("${repository.shards:16}") int shardCount) {
+    this.shards = RepositoryShard.create(shardCount);
+  }
+
+  @Override
+  public void createTransfer(Transfer transfer) throws DuplicateTransferIdException {
+    Transfer previousTransfer = shardFor(transfer.getTransferId()).putIfAbsent(transfer.getTransferId(), transfer);
+    if (previousTransfer != null) {
+      throw new DuplicateTransferIdException(
+        "Transfer id " + transfer.getTransferId() + " already exists!");
+    }
+  }
+
+  @Override
+  public Transfer getTransfer(Long transferId) {
+    return shardFor(transferId).get(transferId);
+  }
+
+  @Override
+  public List<Transfer> getTransfer() {
+    return Arrays.stream(shards).parallel()
+      .flatMap(shard -> shard.values().stream())
+      .collect(Collectors.toList());
+  }
+
+  @Override
+  public long countTransfers() {
+    return Arrays.stream(shards).parallel().mapToLong(RepositoryShard::size).sum();
+  }
+
+  @Override
+  public void clearTransfers() {
+    Arrays.stream(shards).parallel().forEach(RepositoryShard::clear);
+  }
+
+  public List<ShardStats> getShardStats() {
+    return Arrays.stream(shards).map(RepositoryShard::stats).collect(Collectors.toList());
+  }
+
+  private RepositoryShard<Long, Transfer> shardFor(Long transferId) {
+    return shards[RepositoryShard.indexFor(transferId, shards.length)];
+  }
+
+}
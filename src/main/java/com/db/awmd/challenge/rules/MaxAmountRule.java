@@ -0,0 +1,28 @@
+package com.db.awmd.challenge.rules;
+
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.exception.TransferLimitExceededException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+@Component
+public class MaxAmountRule implements TransferRule {
+
+  private final BigDecimal maxAmount;
+
+  @Autowired
+  public MaxAmountRule(@Value("${rules.max-amount-per-transfer:0}") BigDecimal maxAmount) {
+    this.maxAmount = maxAmount;
+  }
+
+  @Override
+  public void check(Transfer transfer) {
+    if (maxAmount.signum() > 0 && transfer.getAmount().compareTo(maxAmount) > 0) {
+      throw new TransferLimitExceededException("Transfer amount " + transfer.getAmount()
+        + " exceeds the maximum of " + maxAmount + " per transfer");
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package com.db.awmd.challenge.rules;
+
+/**
+ * Count and amount over a sliding window, kept in a fixed ring of sub-window buckets so memory does not grow
+ * with traffic. Amounts are in minor units.
+ */
+public class SlidingWindowCounter {
+
+  private final long bucketMillis;
+  private final long[] bucketIds;
+  private final long[] counts;
+  private final long[] amounts;
+
+  public SlidingWindowCounter(long windowMillis, int buckets) {
+    this.bucketMillis = Math.max(windowMillis / buckets, 1);
+    this.bucketIds = new long[buckets];
+    this.counts = new long[buckets];
+    this.amounts = new long[buckets];
+  }
+
+  public synchronized void add(long amount, long nowMillis) {
+    long bucketId = nowMillis / bucketMillis;
+    int slot = (int) (bucketId % bucketIds.length);
+    if (bucketIds[slot] != bucketId) {
+      bucketIds[slot] = bucketId;
+      counts[slot] = 0;
+      amounts[slot] = 0;
+    }
+    counts[slot]++;
+    amounts[slot] += amount;
+  }
+
+  /**
+   * Takes back an amount added at {@code addedAtMillis}, unless its bucket has already left the window.
+   */
+  public synchronized void remove(long amount, long addedAtMillis) {
+    long bucketId = addedAtMillis / bucketMillis;
+    int slot = (int) (bucketId % bucketIds.length);
+    if (bucketIds[slot] == bucketId) {
+      counts[slot]--;
+      amounts[slot] -= amount;
+    }
+  }
+
+  public synchronized long getCount(long nowMillis) {
+    long oldest = nowMillis / bucketMillis - bucketIds.length;
+    long total = 0;
+    for (int i = 0; i < bucketIds.length; i++) {
+      if (bucketIds[i] > oldest) {
+        total += counts[i];
+      }
+    }
+    return total;
+  }
+
+  public synchronized long getAmount(long nowMillis) {
+    long oldest = nowMillis / bucketMillis - bucketIds.length;
+    long total = 0;
+    for (int i = 0; i < bucketIds.length; i++) {
+      if (bucketIds[i] > oldest) {
+        total += amounts[i];
+      }
+    }
+    return total;
+  }
+}
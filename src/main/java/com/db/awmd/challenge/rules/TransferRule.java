@@ -0,0 +1,26 @@
+package com.db.awmd.challenge.rules;
+
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.exception.TransferLimitExceededException;
+
+/**
+ * Pre-transfer check evaluated before any funds move. Rules that keep per-account history reserve the transfer
+ * while checking it, so concurrent transfers cannot both pass against the same headroom; every passed check is
+ * followed by exactly one {@link #record} or {@link #release}.
+ */
+public interface TransferRule {
+
+  void check(Transfer transfer) throws TransferLimitExceededException;
+
+  /**
+   * Called once the transfer has completed, keeping what the check reserved.
+   */
+  default void record(Transfer transfer) {
+  }
+
+  /**
+   * Called when a checked transfer did not complete, giving back what the check reserved.
+   */
+  default void release(Transfer transfer) {
+  }
+}
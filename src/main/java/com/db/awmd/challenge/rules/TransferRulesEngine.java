@@ -0,0 +1,48 @@
+package com.db.awmd.challenge.rules;
+
+import com.db.awmd.challenge.domain.Transfer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+public class TransferRulesEngine {
+
+  private final List<TransferRule> rules;
+
+  @Autowired
+  public TransferRulesEngine(List<TransferRule> rules) {
+    this.rules = rules;
+  }
+
+  /**
+   * Checks every rule; when one rejects the transfer, what the rules before it reserved is released again.
+   */
+  public void check(Transfer transfer) {
+    int passed = 0;
+    try {
+      for (TransferRule rule : rules) {
+        rule.check(transfer);
+        passed++;
+      }
+    } catch (RuntimeException r) {
+      for (int i = passed - 1; i >= 0; i--) {
+        rules.get(i).release(transfer);
+      }
+      throw r;
+    }
+  }
+
+  public void record(Transfer transfer) {
+    for (TransferRule rule : rules) {
+      rule.record(transfer);
+    }
+  }
+
+  public void release(Transfer transfer) {
+    for (TransferRule rule : rules) {
+      rule.release(transfer);
+    }
+  }
+}
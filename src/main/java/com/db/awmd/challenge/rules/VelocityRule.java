@@ -0,0 +1,133 @@
+package com.db.awmd.challenge.rules;
+
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.exception.TransferLimitExceededException;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Limits the number and total amount of completed transfers per key (sender, account pair...) over a sliding
+ * window. A limit of 0 disables that dimension. A transfer is counted as soon as it passes the check and taken
+ * out again if it does not complete.
+ *
+ * Checks, releases and evictions of a key all run inside the map's per-key compute, so a counter is never dropped
+ * while a check on it is in progress, and only counters with nothing left in their window are dropped. When every
+ * tracked key is still active a new key is rejected rather than let in unchecked.
+ */
+public class VelocityRule implements TransferRule {
+
+  private static final int BUCKETS = 60;
+
+  private final String name;
+  private final Function<Transfer, String> keyExtractor;
+  private final long windowMillis;
+  private final long maxCount;
+  private final long maxAmount;
+  private final int maxTrackedKeys;
+
+  private final Map<String, SlidingWindowCounter> counters = new ConcurrentHashMap<>();
+
+  private final AtomicInteger trackedKeys = new AtomicInteger();
+
+  private final AtomicLong lastEvictionMillis = new AtomicLong();
+
+  private final Map<Long, Reservation> reservations = new ConcurrentHashMap<>();
+
+  public VelocityRule(String name, Function<Transfer, String> keyExtractor, long windowMillis, long maxCount,
+                      BigDecimal maxAmount, int maxTrackedKeys) {
+    this.name = name;
+    this.keyExtractor = keyExtractor;
+    this.windowMillis = windowMillis;
+    this.maxCount = maxCount;
+    this.maxAmount = toMinorUnits(maxAmount);
+    this.maxTrackedKeys = maxTrackedKeys;
+  }
+
+  @Override
+  public void check(Transfer transfer) {
+    if (maxCount <= 0 && maxAmount <= 0) {
+      return;
+    }
+    String key = keyExtractor.apply(transfer);
+    long amount = toMinorUnits(transfer.getAmount());
+    long now = System.currentTimeMillis();
+    if (!counters.containsKey(key) && trackedKeys.get() >= maxTrackedKeys) {
+      evictIdle(now);
+    }
+
+    counters.compute(key, (k, counter) -> {
+      if (maxCount > 0 && (counter == null ? 0 : counter.getCount(now)) + 1 > maxCount) {
+        throw new TransferLimitExceededException("Limit " + name + " of " + maxCount + " transfers exceeded");
+      }
+      if (maxAmount > 0 && (counter == null ? 0 : counter.getAmount(now)) + amount > maxAmount) {
+        throw new TransferLimitExceededException("Limit " + name + " of "
+          + BigDecimal.valueOf(maxAmount, 2) + " exceeded");
+      }
+      if (counter == null) {
+        if (trackedKeys.incrementAndGet() > maxTrackedKeys) {
+          trackedKeys.decrementAndGet();
+          throw new TransferLimitExceededException("Limit " + name + " is already tracking " + maxTrackedKeys
+            + " active keys");
+        }
+        counter = new SlidingWindowCounter(windowMillis, BUCKETS);
+      }
+      counter.add(amount, now);
+      return counter;
+    });
+    reservations.put(transfer.getTransferId(), new Reservation(key, amount, now));
+  }
+
+  @Override
+  public void record(Transfer transfer) {
+    reservations.remove(transfer.getTransferId());
+  }
+
+  @Override
+  public void release(Transfer transfer) {
+    Reservation reservation = reservations.remove(transfer.getTransferId());
+    if (reservation != null) {
+      counters.computeIfPresent(reservation.getKey(), (key, counter) -> {
+        counter.remove(reservation.getAmount(), reservation.getReservedAt());
+        return counter;
+      });
+    }
+  }
+
+  /**
+   * Bounds memory under key churn by dropping the keys with nothing left in their window. Runs at most once per
+   * bucket, so a table full of active keys is not rescanned for every new key it rejects.
+   */
+  private void evictIdle(long now) {
+    long last = lastEvictionMillis.get();
+    if (now - last < Math.max(windowMillis / BUCKETS, 1) || !lastEvictionMillis.compareAndSet(last, now)) {
+      return;
+    }
+    for (String key : counters.keySet()) {
+      counters.computeIfPresent(key, (k, counter) -> {
+        if (counter.getCount(now) > 0) {
+          return counter;
+        }
+        trackedKeys.decrementAndGet();
+        return null;
+      });
+    }
+  }
+
+  private static long toMinorUnits(BigDecimal amount) {
+    return amount.movePointRight(2).setScale(0, RoundingMode.CEILING).longValueExact();
+  }
+
+  @Value
+  private static class Reservation {
+    String key;
+    long amount;
+    long reservedAt;
+  }
+}
@@ -0,0 +1,155 @@
+package com.db.awmd.challenge.scheduling;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel holding items until their deadline. Scheduling is O(1): items are queued lock-free and
+ * only the single ticker thread touches the buckets, releasing due items to the handler in batches.
+ */
+@Slf4j
+public class HashedTimingWheel<T> {
+
+  private final long tickMillis;
+  private final int mask;
+  private final Entry<T>[] buckets;
+  private final int batchSize;
+  private final Consumer<List<T>> releaseHandler;
+
+  private final Queue<Entry<T>> incoming = new ConcurrentLinkedQueue<>();
+  private final AtomicLong pending = new AtomicLong();
+  private final ScheduledExecutorService ticker;
+
+  private final long startTime;
+  private long tick;
+
+  public HashedTimingWheel(long tickMillis, int wheelSize, int batchSize, Consumer<List<T>> releaseHandler) {
+    if (tickMillis <= 0 || wheelSize <= 0 || batchSize <= 0) {
+      throw new IllegalArgumentException("Tick, wheel size and batch size must be positive");
+    }
+    int size = Integer.highestOneBit(wheelSize - 1) << 1;
+    this.tickMillis = tickMillis;
+    this.mask = Math.max(size, 1) - 1;
+    this.buckets = newBuckets(mask + 1);
+    this.batchSize = batchSize;
+    this.releaseHandler = releaseHandler;
+    this.startTime = System.currentTimeMillis();
+    this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "timing-wheel");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  public void start() {
+    ticker.scheduleAtFixedRate(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stops the ticker and hands back every item that has not been released yet, due or not.
+   */
+  public List<T> stop() {
+    ticker.shutdownNow();
+    try {
+      if (!ticker.awaitTermination(10, TimeUnit.SECONDS)) {
+        log.warn("Timing wheel ticker did not stop, unreleased items may be incomplete");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    List<T> unreleased = new ArrayList<>();
+    drainIncoming();
+    for (int i = 0; i < buckets.length; i++) {
+      for (Entry<T> entry = buckets[i]; entry != null; entry = entry.next) {
+        unreleased.add(entry.item);
+      }
+      buckets[i] = null;
+    }
+    pending.addAndGet(-unreleased.size());
+    return unreleased;
+  }
+
+  public void schedule(T item, long deadlineMillis) {
+    pending.incrementAndGet();
+    incoming.add(new Entry<>(item, deadlineMillis));
+  }
+
+  public long getPendingCount() {
+    return pending.get();
+  }
+
+  private void advance() {
+    long now = System.currentTimeMillis();
+    List<T> released = new ArrayList<>();
+    while (startTime + tick * tickMillis <= now) {
+      drainIncoming();
+      expireBucket((int) (tick & mask), released);
+      tick++;
+    }
+    for (int from = 0; from < released.size(); from += batchSize) {
+      try {
+        releaseHandler.accept(released.subList(from, Math.min(from + batchSize, released.size())));
+      } catch (RuntimeException r) {
+        log.error("Failed to release a batch of scheduled items", r);
+      }
+    }
+  }
+
+  private void drainIncoming() {
+    Entry<T> entry;
+    while ((entry = incoming.poll()) != null) {
+      long ticks = Math.max((entry.deadline - startTime + tickMillis - 1) / tickMillis, tick);
+      entry.rounds = (ticks - tick) / buckets.length;
+      int index = (int) (ticks & mask);
+      entry.next = buckets[index];
+      buckets[index] = entry;
+    }
+  }
+
+  private void expireBucket(int index, List<T> released) {
+    Entry<T> previous = null;
+    Entry<T> entry = buckets[index];
+    while (entry != null) {
+      Entry<T> next = entry.next;
+      if (entry.rounds <= 0) {
+        if (previous == null) {
+          buckets[index] = next;
+        } else {
+          previous.next = next;
+        }
+        pending.decrementAndGet();
+        released.add(entry.item);
+      } else {
+        entry.rounds--;
+        previous = entry;
+      }
+      entry = next;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> Entry<T>[] newBuckets(int size) {
+    return (Entry<T>[]) new Entry<?>[size];
+  }
+
+  private static final class Entry<T> {
+    private final T item;
+    private final long deadline;
+    private long rounds;
+    private Entry<T> next;
+
+    private Entry(T item, long deadline) {
+      this.item = item;
+      this.deadline = deadline;
+    }
+  }
+}
@@ -0,0 +1,162 @@
+package com.db.awmd.challenge.service;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.AccountImportResult;
+import com.db.awmd.challenge.exception.QuotaExceededException;
+import com.db.awmd.challenge.repository.AccountsRepository;
+import com.db.awmd.challenge.tenant.TenantNamespace;
+import com.db.awmd.challenge.tenant.TenantRegistry;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class AccountImportService {
+
+  private final AccountsRepository accountsRepository;
+
+  private final LedgerService ledgerService;
+
+  private final TenantRegistry tenantRegistry;
+
+  private final ObjectReader accountReader;
+
+  private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+  private final int batchSize;
+
+  @Autowired
+  public AccountImportService(AccountsRepository accountsRepository, LedgerService ledgerService,
+                              TenantRegistry tenantRegistry, ObjectMapper objectMapper,
+                              @Value("${accounts.import.batch-size:10000}") int batchSize) {
+    this.accountsRepository = accountsRepository;
+    this.ledgerService = ledgerService;
+    this.tenantRegistry = tenantRegistry;
+    this.accountReader = objectMapper.readerFor(Account.class);
+    this.batchSize = batchSize;
+  }
+
+  public AccountImportResult importAccounts(Reader source) throws IOException {
+    AccountImportResult result = new AccountImportResult();
+    BufferedReader reader = new BufferedReader(source, 1 << 16);
+    List<Line> batch = new ArrayList<>(batchSize);
+    long lineNumber = 0;
+    int items = 0;
+    String line;
+
+    while ((line = reader.readLine()) != null) {
+      lineNumber++;
+      if (!line.trim().isEmpty()) {
+        batch.add(new Line(lineNumber, line));
+        items++;
+      }
+      if (batch.size() == batchSize) {
+        importBatch(batch, result);
+        batch.clear();
+      }
+    }
+    importBatch(batch, result);
+    this.tenantRegistry.chargeBulkItems(items);
+
+    log.info("Imported {} accounts, {} duplicates, {} invalid, {} over quota", result.getImported(),
+      result.getDuplicateCount(), result.getInvalidCount(), result.getOverQuotaCount());
+    return result;
+  }
+
+  private void importBatch(List<Line> batch, AccountImportResult result) {
+    if (batch.isEmpty()) {
+      return;
+    }
+
+    // Lines are parsed on pool threads, which must read account ids into the caller's tenant namespace
+    List<Line> parsed = batch.parallelStream().map(TenantNamespace.bind(this::parse)).collect(Collectors.toList());
+
+    List<Account> valid = new ArrayList<>(parsed.size());
+    for (Line line : parsed) {
+      if (line.error != null) {
+        result.addInvalid("Line " + line.number + ": " + line.error);
+      } else if (reserve(line.account)) {
+        valid.add(line.account);
+      } else {
+        result.addOverQuota();
+      }
+    }
+
+    List<String> duplicates;
+    try {
+      duplicates = this.ledgerService.write(() -> {
+        List<String> rejected = this.accountsRepository.createAccounts(valid);
+        for (Account account : valid) {
+          if (this.accountsRepository.getAccount(account.getAccountId()) == account) {
+            this.ledgerService.recordOpening(account);
+          }
+        }
+        return rejected;
+      });
+    } catch (RuntimeException e) {
+      valid.forEach(account -> this.tenantRegistry.releaseAccount(account.getAccountId()));
+      throw e;
+    }
+    duplicates.forEach(this.tenantRegistry::releaseAccount);
+    duplicates.forEach(result::addDuplicate);
+    result.addImported(valid.size() - duplicates.size());
+  }
+
+  private boolean reserve(Account account) {
+    try {
+      this.tenantRegistry.reserveAccount(account.getAccountId());
+      return true;
+    } catch (QuotaExceededException e) {
+      return false;
+    }
+  }
+
+  private Line parse(Line line) {
+    try {
+      line.account = this.accountReader.readValue(line.text);
+    } catch (JsonProcessingException e) {
+      line.error = "Malformed account: " + e.getOriginalMessage();
+      return line;
+    } catch (IOException e) {
+      line.error = "Malformed account: " + e.getMessage();
+      return line;
+    }
+
+    Set<ConstraintViolation<Account>> violations = this.validator.validate(line.account);
+    if (!violations.isEmpty()) {
+      line.error = violations.stream()
+        .map(v -> v.getPropertyPath() + " " + v.getMessage())
+        .sorted()
+        .collect(Collectors.joining(", "));
+    }
+    return line;
+  }
+
+  private static final class Line {
+    private final long number;
+    private final String text;
+    private Account account;
+    private String error;
+
+    private Line(long number, String text) {
+      this.number = number;
+      this.text = text;
+    }
+  }
+}
@@ -0,0 +1,32 @@
+package com.db.awmd.challenge.service;
+
+import com.db.awmd.challenge.domain.Account;
+
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Runs an action while holding the locks of the given accounts. Callers pass the accounts sorted by id so every
+ * path acquires them in the same order. The locks are taken in a loop rather than by nesting, so a batch touching
+ * many accounts does not grow the stack.
+ */
+final class AccountLocks {
+
+  private AccountLocks() {
+  }
+
+  static boolean withLocks(List<Account> lockOrder, BooleanSupplier action) {
+    int locked = 0;
+    try {
+      for (Account account : lockOrder) {
+        account.getLock().lock();
+        locked++;
+      }
+      return action.getAsBoolean();
+    } finally {
+      for (int i = locked - 1; i >= 0; i--) {
+        lockOrder.get(i).getLock().unlock();
+      }
+    }
+  }
+}
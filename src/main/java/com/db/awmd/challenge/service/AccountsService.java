@@ -1,7 +1,9 @@
 package com.db.awmd.challenge.service;
 
 import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.exception.QuotaExceededException;
 import com.db.awmd.challenge.repository.AccountsRepository;
+import com.db.awmd.challenge.tenant.TenantRegistry;
 import lombok.Getter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -12,13 +14,42 @@ public class AccountsService {
   @Getter
   private final AccountsRepository accountsRepository;
 
+  private final LedgerService ledgerService;
+
+  // Absent outside the application context, where tenant quotas are not enforced
+  private final TenantRegistry tenantRegistry;
+
+  public AccountsService(AccountsRepository accountsRepository, LedgerService ledgerService) {
+    this(accountsRepository, ledgerService, null);
+  }
+
   @Autowired
-  public AccountsService(AccountsRepository accountsRepository) {
+  public AccountsService(AccountsRepository accountsRepository, LedgerService ledgerService,
+                         TenantRegistry tenantRegistry) {
     this.accountsRepository = accountsRepository;
+    this.ledgerService = ledgerService;
+    this.tenantRegistry = tenantRegistry;
   }
 
+  /**
+   * @throws QuotaExceededException when the account's tenant has no storage left for it
+   */
   public void createAccount(Account account) {
-    this.accountsRepository.createAccount(account);
+    if (this.tenantRegistry != null) {
+      this.tenantRegistry.reserveAccount(account.getAccountId());
+    }
+    boolean created = false;
+    try {
+      this.ledgerService.write(() -> {
+        this.accountsRepository.createAccount(account);
+        this.ledgerService.recordOpening(account);
+      });
+      created = true;
+    } finally {
+      if (!created && this.tenantRegistry != null) {
+        this.tenantRegistry.releaseAccount(account.getAccountId());
+      }
+    }
   }
 
   public Account getAccount(String accountId) {
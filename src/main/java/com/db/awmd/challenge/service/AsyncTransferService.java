@@ -0,0 +1,223 @@
+package com.db.awmd.challenge.service;
+
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.replication.PromotionListener;
+import com.db.awmd.challenge.replication.ReplicationRole;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accepts transfers as PENDING and executes them in the background. Each sender account maps to one
+ * single-threaded lane, so transfers from the same account run in the order they were accepted. A sweeper
+ * re-drives PENDING transfers that nobody has claimed for execution, such as those rejected by a full lane.
+ *
+ * On start, PENDING transfers left in the repository by an earlier run are picked up again. Only the JDBC
+ * repository outlives the process, and it writes behind: transfers accepted within the last flush interval before
+ * a crash are lost.
+ *
+ * A follower only mirrors the primary's transfers, so recovery and the sweeper stay idle until it is promoted.
+ */
+@Slf4j
+@Service
+public class AsyncTransferService implements PromotionListener {
+
+  private final TransfersService transfersService;
+
+  private final TransferQueryService transferQueryService;
+
+  private final boolean asyncByDefault;
+
+  private final long sweepIntervalMillis;
+
+  private final long staleAfterMillis;
+
+  private final int sweepBatchSize;
+
+  private final ThreadPoolExecutor[] lanes;
+
+  private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+  private volatile boolean follower;
+
+  private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "transfer-sweeper");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  public AsyncTransferService(TransfersService transfersService, TransferQueryService transferQueryService,
+                              boolean asyncByDefault, int workers, int queueCapacity, long sweepIntervalMillis,
+                              long staleAfterMillis, int sweepBatchSize) {
+    this(transfersService, transferQueryService, asyncByDefault, workers, queueCapacity, sweepIntervalMillis,
+      staleAfterMillis, sweepBatchSize, ReplicationRole.STANDALONE.name());
+  }
+
+  @Autowired
+  public AsyncTransferService(TransfersService transfersService, TransferQueryService transferQueryService,
+                              @Value("${transfers.async.default-enabled:false}") boolean asyncByDefault,
+                              @Value("${transfers.async.workers:4}") int workers,
+                              @Value("${transfers.async.queue-capacity:10000}") int queueCapacity,
+                              @Value("${transfers.async.sweep-interval-millis:5000}") long sweepIntervalMillis,
+                              @Value("${transfers.async.stale-after-millis:30000}") long staleAfterMillis,
+                              @Value("${transfers.async.sweep-batch-size:1000}") int sweepBatchSize,
+                              @Value("${replication.role:standalone}") String role) {
+    this.follower = ReplicationRole.parse(role) == ReplicationRole.FOLLOWER;
+    this.transfersService = transfersService;
+    this.transferQueryService = transferQueryService;
+    this.asyncByDefault = asyncByDefault;
+    this.sweepIntervalMillis = sweepIntervalMillis;
+    this.staleAfterMillis = staleAfterMillis;
+    this.sweepBatchSize = sweepBatchSize;
+    this.lanes = new ThreadPoolExecutor[workers];
+    for (int i = 0; i < workers; i++) {
+      lanes[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(queueCapacity));
+    }
+  }
+
+  @PostConstruct
+  public void start() {
+    recoverPending();
+    this.sweeper.scheduleWithFixedDelay(this::sweepQuietly, sweepIntervalMillis, sweepIntervalMillis,
+      TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Lets the lanes finish the transfers already queued, for up to 30 seconds, so their outcome reaches the
+   * repository before it is closed. Transfers still queued after that stay PENDING for the next start.
+   */
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    this.sweeper.shutdownNow();
+    for (ThreadPoolExecutor lane : lanes) {
+      lane.shutdown();
+    }
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+    for (ThreadPoolExecutor lane : lanes) {
+      if (!lane.awaitTermination(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS)) {
+        log.warn("Async transfer lanes still running at shutdown, {} transfers left pending", getQueuedCount());
+        return;
+      }
+    }
+  }
+
+  @Override
+  public void onPromoted() {
+    follower = false;
+  }
+
+  public boolean isAsyncByDefault() {
+    return asyncByDefault;
+  }
+
+  public void acceptTransfer(Transfer transfer) {
+    this.transfersService.createTransfer(transfer);
+    dispatch(transfer);
+  }
+
+  public long getQueuedCount() {
+    long queued = 0;
+    for (ThreadPoolExecutor lane : lanes) {
+      queued += lane.getQueue().size();
+    }
+    return queued;
+  }
+
+  /**
+   * Indexes and dispatches the PENDING transfers found in the repository. Does nothing on a follower.
+   *
+   * @return the number of transfers recovered
+   */
+  public int recoverPending() {
+    if (follower) {
+      return 0;
+    }
+    List<Transfer> pending = this.transfersService.getTransfersRepository().getPendingTransfers();
+    for (Transfer transfer : pending) {
+      this.transferQueryService.onCreated(transfer);
+      dispatch(transfer);
+    }
+    if (!pending.isEmpty()) {
+      log.warn("Recovered {} pending transfers from an earlier run", pending.size());
+    }
+    return pending.size();
+  }
+
+  /**
+   * Dispatches PENDING transfers that have not changed status for longer than the stale threshold and are not
+   * queued or claimed by an executor. Future-dated transfers belong to the scheduler and are skipped. Does nothing
+   * on a follower; once promoted, the transfers the old primary left PENDING are re-driven like any other.
+   *
+   * @return the number of transfers re-driven
+   */
+  public int sweep() {
+    if (follower) {
+      return 0;
+    }
+    long staleBefore = System.currentTimeMillis() - staleAfterMillis;
+    int redriven = 0;
+    for (Transfer transfer : this.transferQueryService.query(Transfer.Status.PENDING, null, staleBefore, null, null,
+      sweepBatchSize)) {
+      if (transfer.getExecuteAt() == null && transfer.getStatus() == Transfer.Status.PENDING && !transfer.isClaimed()
+        && dispatch(transfer)) {
+        redriven++;
+      }
+    }
+    if (redriven > 0) {
+      log.warn("Re-driving {} stale pending transfers", redriven);
+    }
+    return redriven;
+  }
+
+  private void sweepQuietly() {
+    try {
+      sweep();
+    } catch (RuntimeException e) {
+      log.error("Pending transfer sweep failed", e);
+    }
+  }
+
+  private boolean dispatch(Transfer transfer) {
+    if (!inFlight.add(transfer.getTransferId())) {
+      return false;
+    }
+    try {
+      laneFor(transfer).execute(() -> execute(transfer));
+      return true;
+    } catch (RejectedExecutionException e) {
+      // Stays PENDING, the sweeper picks it up once the lane drains
+      inFlight.remove(transfer.getTransferId());
+      log.warn("Transfer lane full, transfer {} left pending", transfer.getTransferId());
+      return false;
+    }
+  }
+
+  private void execute(Transfer transfer) {
+    try {
+      this.transfersService.executeTransfer(transfer);
+    } catch (RuntimeException r) {
+      log.info("Async transfer {} failed: {}", transfer.getTransferId(), r.getMessage());
+    } finally {
+      inFlight.remove(transfer.getTransferId());
+    }
+  }
+
+  private ThreadPoolExecutor laneFor(Transfer transfer) {
+    String senderAccountId = transfer.getSenderAccountId();
+    int hash = senderAccountId == null ? 0 : senderAccountId.hashCode();
+    return lanes[((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % lanes.length];
+  }
+}
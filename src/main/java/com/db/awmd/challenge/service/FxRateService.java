@@ -0,0 +1,83 @@
+package com.db.awmd.challenge.service;
+
+import com.db.awmd.challenge.fx.RateTable;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Slf4j
+@Service
+public class FxRateService {
+
+  private final String ratesFile;
+
+  private final AtomicReference<RateTable> rateTable;
+
+  @Autowired
+  public FxRateService(@Value("${fx.base-currency:EUR}") String baseCurrency,
+                       @Value("${fx.rates-file:}") String ratesFile) {
+    this.ratesFile = ratesFile;
+    this.rateTable = new AtomicReference<>(new RateTable(baseCurrency, Collections.emptyMap()));
+  }
+
+  @PostConstruct
+  public void loadConfiguredRates() throws IOException {
+    if (!ratesFile.isEmpty()) {
+      loadRates(Paths.get(ratesFile));
+    }
+  }
+
+  public RateTable getRateTable() {
+    return rateTable.get();
+  }
+
+  public boolean isSameCurrency(String fromCurrency, String toCurrency) {
+    return rateTable.get().isSameCurrency(fromCurrency, toCurrency);
+  }
+
+  public BigDecimal convert(BigDecimal amount, String fromCurrency, String toCurrency) {
+    return rateTable.get().convert(amount, fromCurrency, toCurrency);
+  }
+
+  public void updateRates(Map<String, BigDecimal> ratesPerBase) {
+    rateTable.set(new RateTable(rateTable.get().getBaseCurrency(), ratesPerBase));
+  }
+
+  /**
+   * Loads a CSV file of {@code CURRENCY,rate} lines, the rate being units of that currency per unit of the base
+   * currency. Blank lines and lines starting with '#' are skipped.
+   */
+  public void loadRates(Path path) throws IOException {
+    Map<String, BigDecimal> rates = new HashMap<>();
+    try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        line = line.trim();
+        if (line.isEmpty() || line.startsWith("#")) {
+          continue;
+        }
+        String[] fields = line.split(",");
+        if (fields.length != 2) {
+          throw new IOException("Malformed rate line: " + line);
+        }
+        rates.put(fields[0].trim(), new BigDecimal(fields[1].trim()));
+      }
+    }
+    updateRates(rates);
+    log.info("Loaded {} exchange rates from {}", rates.size(), path);
+  }
+}
@@ -0,0 +1,144 @@
+package com.db.awmd.challenge.service;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Hold;
+import com.db.awmd.challenge.exception.AccountNotFoundException;
+import com.db.awmd.challenge.exception.HoldNotFoundException;
+import com.db.awmd.challenge.exception.InvalidHoldException;
+import com.db.awmd.challenge.repository.HoldsRepository;
+import com.db.awmd.challenge.scheduling.HashedTimingWheel;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Places holds on available balances and captures, releases or expires them. Closed holds stay readable for the
+ * closed retention period, so clients can still look up their outcome, and are then removed from the repository.
+ */
+@Service
+public class HoldsService {
+
+  private final AccountsService accountsService;
+
+  @Getter
+  private final HoldsRepository holdsRepository;
+
+  private final LedgerService ledgerService;
+
+  private final HashedTimingWheel<Runnable> expiryWheel;
+
+  private final long closedRetentionMillis;
+
+  public HoldsService(AccountsService accountsService, HoldsRepository holdsRepository, LedgerService ledgerService,
+                      long tickMillis, int wheelSize) {
+    this(accountsService, holdsRepository, ledgerService, tickMillis, wheelSize, 60000);
+  }
+
+  @Autowired
+  public HoldsService(AccountsService accountsService, HoldsRepository holdsRepository, LedgerService ledgerService,
+                      @Value("${holds.expiry.tick-millis:100}") long tickMillis,
+                      @Value("${holds.expiry.wheel-size:512}") int wheelSize,
+                      @Value("${holds.closed-retention-millis:60000}") long closedRetentionMillis) {
+    this.accountsService = accountsService;
+    this.holdsRepository = holdsRepository;
+    this.ledgerService = ledgerService;
+    this.closedRetentionMillis = closedRetentionMillis;
+    this.expiryWheel = new HashedTimingWheel<>(tickMillis, wheelSize, Integer.MAX_VALUE,
+      expired -> expired.forEach(Runnable::run));
+  }
+
+  @PostConstruct
+  public void start() {
+    this.expiryWheel.start();
+  }
+
+  @PreDestroy
+  public void stop() {
+    this.expiryWheel.stop();
+  }
+
+  public Hold placeHold(String accountId, BigDecimal amount, Long expiresAt) {
+    Account account = getAccount(accountId);
+    account.hold(amount);
+    this.ledgerService.recordHoldChange(accountId, amount);
+
+    Hold hold = new Hold(accountId, amount, expiresAt);
+    this.holdsRepository.createHold(hold);
+    this.expiryWheel.schedule(() -> expireHold(hold, account), expiresAt);
+    return hold;
+  }
+
+  public Hold captureHold(String accountId, Long holdId, BigDecimal amount) {
+    Hold hold = getHold(accountId, holdId);
+    BigDecimal capturedAmount = amount == null ? hold.getAmount() : amount;
+    if (capturedAmount.signum() < 0 || capturedAmount.compareTo(hold.getAmount()) > 0) {
+      throw new InvalidHoldException("Capture amount " + capturedAmount + " must be between 0 and the held "
+        + hold.getAmount());
+    }
+    closeHold(hold, Hold.Status.CAPTURED);
+
+    hold.setCapturedAmount(capturedAmount);
+    Account account = getAccount(accountId);
+    this.ledgerService.write(() -> {
+      account.capture(hold.getAmount(), capturedAmount);
+      this.ledgerService.recordHoldChange(accountId, hold.getAmount().negate());
+      this.ledgerService.recordCapture(account, capturedAmount, "HOLD-" + hold.getHoldId());
+    });
+    return hold;
+  }
+
+  public Hold releaseHold(String accountId, Long holdId) {
+    Hold hold = getHold(accountId, holdId);
+    closeHold(hold, Hold.Status.RELEASED);
+
+    getAccount(accountId).release(hold.getAmount());
+    this.ledgerService.recordHoldChange(accountId, hold.getAmount().negate());
+    return hold;
+  }
+
+  public Hold getHold(String accountId, Long holdId) {
+    Hold hold = this.holdsRepository.getHold(holdId);
+    if (hold == null || !hold.getAccountId().equals(accountId)) {
+      throw new HoldNotFoundException("Not hold found with holdID: " + holdId + " for accountID: " + accountId);
+    }
+    return hold;
+  }
+
+  public List<Hold> getHolds(String accountId) {
+    return this.holdsRepository.getHolds(accountId);
+  }
+
+  private void expireHold(Hold hold, Account account) {
+    if (hold.close(Hold.Status.EXPIRED)) {
+      account.release(hold.getAmount());
+      this.ledgerService.recordHoldChange(hold.getAccountId(), hold.getAmount().negate());
+      scheduleRemoval(hold);
+    }
+  }
+
+  private void closeHold(Hold hold, Hold.Status finalStatus) {
+    if (!hold.close(finalStatus)) {
+      throw new InvalidHoldException("Hold " + hold.getHoldId() + " is already " + hold.getStatus().getDescription());
+    }
+    scheduleRemoval(hold);
+  }
+
+  private void scheduleRemoval(Hold hold) {
+    this.expiryWheel.schedule(() -> this.holdsRepository.removeHold(hold),
+      System.currentTimeMillis() + closedRetentionMillis);
+  }
+
+  private Account getAccount(String accountId) {
+    Account account = this.accountsService.getAccount(accountId);
+    if (account == null) {
+      throw new AccountNotFoundException("Not account found with accountID: " + accountId);
+    }
+    return account;
+  }
+}
@@ -0,0 +1,29 @@
+package com.db.awmd.challenge.service;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.LedgerEntry;
+
+import java.math.BigDecimal;
+
+/**
+ * Notified by {@link LedgerService} of every account opening and every entry appended. Entries are the only way
+ * balances change, so a listener sees every balance mutation.
+ */
+public interface LedgerListener {
+
+  void onAccountOpened(Account account);
+
+  void onEntry(LedgerEntry entry);
+
+  /**
+   * Holds move no money and leave no entry, so changes of an account's held amount are reported separately.
+   */
+  default void onHoldChanged(String accountId, BigDecimal heldDelta) {
+  }
+
+  /**
+   * A replay overwrote the balance of an account that did not match the ledger, without appending an entry.
+   */
+  default void onBalanceReplayed(Account account) {
+  }
+}
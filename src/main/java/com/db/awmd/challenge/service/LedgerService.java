@@ -0,0 +1,306 @@
+package com.db.awmd.challenge.service;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.LedgerEntry;
+import com.db.awmd.challenge.domain.ReplayResult;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.exception.ReplayRejectedException;
+import com.db.awmd.challenge.repository.AccountsRepository;
+import com.db.awmd.challenge.repository.LedgerRepository;
+import com.db.awmd.challenge.tenant.TenantNamespace;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Records every balance change as balanced entries: transfers debit one customer account and credit another, while
+ * opening balances and hold captures take their other side from an internal account per currency. Internal accounts
+ * exist in the ledger only; their ids start with the tenant separator, which no client can name.
+ */
+@Slf4j
+@Service
+public class LedgerService {
+
+  private static final String EQUITY_ACCOUNT = TenantNamespace.SEPARATOR + "EQUITY";
+
+  private static final String CLEARING_ACCOUNT = TenantNamespace.SEPARATOR + "CLEARING";
+
+  @Getter
+  private final LedgerRepository ledgerRepository;
+
+  private final AccountsRepository accountsRepository;
+
+  private final ForkJoinPool replayPool;
+
+  private final List<LedgerListener> ledgerListeners;
+
+  private final AtomicLong sequence = new AtomicLong();
+
+  /**
+   * Sequences handed out whose entries are still being appended. Guards sequence assignment, so the published
+   * watermark never passes a sequence that is not in the repository yet.
+   */
+  private final NavigableSet<Long> appending = new ConcurrentSkipListSet<>();
+
+  private final ReentrantReadWriteLock writes = new ReentrantReadWriteLock();
+
+  private final long quiesceTimeoutMillis;
+
+  @Autowired
+  public LedgerService(LedgerRepository ledgerRepository, AccountsRepository accountsRepository,
+                       List<LedgerListener> ledgerListeners,
+                       @Value("${ledger.replay-parallelism:0}") int replayParallelism,
+                       @Value("${ledger.replay-quiesce-timeout-millis:5000}") long quiesceTimeoutMillis) {
+    this.ledgerRepository = ledgerRepository;
+    this.accountsRepository = accountsRepository;
+    this.ledgerListeners = ledgerListeners;
+    this.replayPool = new ForkJoinPool(replayParallelism > 0 ? replayParallelism
+      : Runtime.getRuntime().availableProcessors());
+    this.quiesceTimeoutMillis = quiesceTimeoutMillis;
+  }
+
+  @PreDestroy
+  public void stop() {
+    this.replayPool.shutdown();
+  }
+
+  /**
+   * Every account gets an opening entry, even with a zero balance, so the ledger alone tells which accounts
+   * existed at any point. A non-zero opening balance is debited to the equity account of its currency.
+   */
+  public void recordOpening(Account account) {
+    this.ledgerListeners.forEach(listener -> listener.onAccountOpened(account));
+    BigDecimal balance = account.getBalance() == null ? BigDecimal.ZERO : account.getBalance();
+    long entrySequence = beginAppend();
+    try {
+      long timestamp = System.currentTimeMillis();
+      if (balance.signum() != 0) {
+        append(entrySequence, equityAccount(account.getCurrency()), LedgerEntry.Type.DEBIT, balance, "OPENING",
+          timestamp);
+      }
+      append(entrySequence, account.getAccountId(), LedgerEntry.Type.CREDIT, balance, "OPENING", timestamp);
+    } finally {
+      endAppend(entrySequence);
+    }
+  }
+
+  /**
+   * Both entries share one sequence and timestamp, so no cut of the ledger can hold only one side.
+   */
+  public void recordTransfer(Transfer transfer) {
+    Map<String, BigDecimal> debit = Collections.singletonMap(transfer.getSenderAccountId(), transfer.getAmount());
+    Map<String, BigDecimal> credit = Collections.singletonMap(transfer.getReceiverAccountId(),
+      transfer.getReceivedAmount());
+    recordEntries(debit, credit, "TRANSFER-" + transfer.getTransferId());
+  }
+
+  /**
+   * Records the legs of one balance change under a single sequence and timestamp.
+   */
+  public void recordEntries(Map<String, BigDecimal> debits, Map<String, BigDecimal> credits, String reference) {
+    long entrySequence = beginAppend();
+    try {
+      long timestamp = System.currentTimeMillis();
+      debits.forEach((accountId, amount) -> append(entrySequence, accountId, LedgerEntry.Type.DEBIT, amount,
+        reference, timestamp));
+      credits.forEach((accountId, amount) -> append(entrySequence, accountId, LedgerEntry.Type.CREDIT, amount,
+        reference, timestamp));
+    } finally {
+      endAppend(entrySequence);
+    }
+  }
+
+  /**
+   * Debits a captured hold to the account and credits it to the clearing account of the account's currency.
+   */
+  public void recordCapture(Account account, BigDecimal amount, String reference) {
+    recordEntries(Collections.singletonMap(account.getAccountId(), amount),
+      Collections.singletonMap(clearingAccount(account.getCurrency()), amount), reference);
+  }
+
+  public static String equityAccount(String currency) {
+    return currency == null ? EQUITY_ACCOUNT : EQUITY_ACCOUNT + TenantNamespace.SEPARATOR + currency;
+  }
+
+  public static String clearingAccount(String currency) {
+    return currency == null ? CLEARING_ACCOUNT : CLEARING_ACCOUNT + TenantNamespace.SEPARATOR + currency;
+  }
+
+  /**
+   * @return whether the id names an internal account, which has ledger entries but no {@link Account}
+   */
+  public static boolean isInternalAccount(String accountId) {
+    return !accountId.isEmpty() && accountId.charAt(0) == TenantNamespace.SEPARATOR;
+  }
+
+  public void recordHoldChange(String accountId, BigDecimal heldDelta) {
+    this.ledgerListeners.forEach(listener -> listener.onHoldChanged(accountId, heldDelta));
+  }
+
+  public long getLastSequence() {
+    return sequence.get();
+  }
+
+  /**
+   * The highest sequence up to which every entry is in the repository. Entries above it may still be appending,
+   * so a cut at this sequence never misses an entry below it.
+   */
+  public long getPublishedSequence() {
+    synchronized (appending) {
+      return appending.isEmpty() ? sequence.get() : appending.first() - 1;
+    }
+  }
+
+  /**
+   * Appends an entry replicated from another instance, keeping its sequence. Listeners are not notified.
+   */
+  public void restoreEntry(LedgerEntry entry) {
+    this.ledgerRepository.append(entry);
+    synchronized (appending) {
+      sequence.accumulateAndGet(entry.getSequence(), Math::max);
+    }
+  }
+
+  public List<LedgerEntry> getEntries(String accountId) {
+    return this.ledgerRepository.getEntries(accountId);
+  }
+
+  /**
+   * Runs a balance change together with the ledger entries recording it. Changes run concurrently with each other,
+   * but a replay that applies its balances waits for the running ones and holds new ones back.
+   */
+  public <T> T write(Supplier<T> change) {
+    writes.readLock().lock();
+    try {
+      return change.get();
+    } finally {
+      writes.readLock().unlock();
+    }
+  }
+
+  public void write(Runnable change) {
+    write(() -> {
+      change.run();
+      return null;
+    });
+  }
+
+  /**
+   * Rebuilds every account balance from the ledger, one fork-join task per partition. Sums are exact, so the
+   * result does not depend on the order entries were appended in.
+   *
+   * Without {@code apply} balance changes keep running, so changes in flight can show up as mismatches. Applying
+   * stops every change made through {@link #write} for the whole replay, so balances are only overwritten from a
+   * ledger that matches them.
+   *
+   * @param apply whether to overwrite the live balances with the replayed ones
+   * @throws ReplayRejectedException when running changes did not finish within the quiesce timeout
+   */
+  public ReplayResult replay(boolean apply) throws InterruptedException {
+    if (!apply) {
+      return doReplay(false);
+    }
+    if (!writes.writeLock().tryLock(quiesceTimeoutMillis, TimeUnit.MILLISECONDS)) {
+      throw new ReplayRejectedException("Balance changes did not stop within " + quiesceTimeoutMillis
+        + " ms, replayed balances were not applied");
+    }
+    try {
+      return doReplay(true);
+    } finally {
+      writes.writeLock().unlock();
+    }
+  }
+
+  private ReplayResult doReplay(boolean apply) throws InterruptedException {
+    long start = System.currentTimeMillis();
+    AtomicLong entries = new AtomicLong();
+
+    List<Map<String, BigDecimal>> projections;
+    try {
+      projections = replayPool.submit(() -> IntStream.range(0, ledgerRepository.getPartitionCount())
+        .parallel()
+        .mapToObj(partition -> project(partition, entries))
+        .collect(Collectors.toList())).get();
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Ledger replay failed", e.getCause());
+    }
+
+    Map<String, BigDecimal> balances = new TreeMap<>();
+    projections.forEach(balances::putAll);
+
+    List<String> mismatched = new ArrayList<>();
+    balances.forEach((accountId, balance) -> {
+      Account account = this.accountsRepository.getAccount(accountId);
+      if (account == null) {
+        return;
+      }
+      account.getLock().lock();
+      try {
+        if (account.getBalance().compareTo(balance) != 0) {
+          mismatched.add(accountId);
+          if (apply) {
+            account.setBalance(balance);
+            this.ledgerListeners.forEach(listener -> listener.onBalanceReplayed(account));
+          }
+        }
+      } finally {
+        account.getLock().unlock();
+      }
+    });
+
+    long elapsed = System.currentTimeMillis() - start;
+    log.info("Replayed {} ledger entries for {} accounts in {} ms, {} mismatches", entries.get(), balances.size(),
+      elapsed, mismatched.size());
+    return new ReplayResult(entries.get(), Collections.unmodifiableMap(balances), mismatched, apply, elapsed);
+  }
+
+  private Map<String, BigDecimal> project(int partition, AtomicLong entries) {
+    List<LedgerEntry> partitionEntries = this.ledgerRepository.getPartition(partition);
+    Map<String, BigDecimal> balances = new HashMap<>();
+    for (LedgerEntry entry : partitionEntries) {
+      balances.merge(entry.getAccountId(), entry.getSignedAmount(), BigDecimal::add);
+    }
+    entries.addAndGet(partitionEntries.size());
+    return balances;
+  }
+
+  private long beginAppend() {
+    synchronized (appending) {
+      long entrySequence = sequence.incrementAndGet();
+      appending.add(entrySequence);
+      return entrySequence;
+    }
+  }
+
+  private void endAppend(long entrySequence) {
+    appending.remove(entrySequence);
+  }
+
+  private void append(long entrySequence, String accountId, LedgerEntry.Type type, BigDecimal amount,
+                      String reference, long timestamp) {
+    LedgerEntry entry = new LedgerEntry(entrySequence, accountId, type, amount, reference, timestamp);
+    this.ledgerRepository.append(entry);
+    this.ledgerListeners.forEach(listener -> listener.onEntry(entry));
+  }
+}
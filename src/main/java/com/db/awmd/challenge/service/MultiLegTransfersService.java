@@ -0,0 +1,202 @@
+package com.db.awmd.challenge.service;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.MultiLegTransfer;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.exception.AccountNotFoundException;
+import com.db.awmd.challenge.exception.InsufficientFundsException;
+import com.db.awmd.challenge.exception.InvalidTransferException;
+import com.db.awmd.challenge.exception.QuotaExceededException;
+import com.db.awmd.challenge.exception.UnsupportedCurrencyException;
+import com.db.awmd.challenge.metrics.TransferMetrics;
+import com.db.awmd.challenge.repository.MultiLegTransfersRepository;
+import com.db.awmd.challenge.rules.TransferRulesEngine;
+import com.db.awmd.challenge.tenant.TenantRegistry;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Applies a transfer with any number of debit and credit legs as one all-or-nothing operation. Every debit leg goes
+ * through the transfer rules as a transfer of its own, then every account of the transfer is locked in id order
+ * and the debits are checked before anything moves.
+ */
+@Service
+public class MultiLegTransfersService {
+
+  @Getter
+  private final MultiLegTransfersRepository multiLegTransfersRepository;
+
+  private final AccountsService accountsService;
+
+  private final LedgerService ledgerService;
+
+  private final NotificationService notificationService;
+
+  private final FxRateService fxRateService;
+
+  private final TransferRulesEngine transferRules;
+
+  private final TransferMetrics transferMetrics;
+
+  private final List<TransferListener> transferListeners;
+
+  private final TenantRegistry tenantRegistry;
+
+  @Autowired
+  public MultiLegTransfersService(MultiLegTransfersRepository multiLegTransfersRepository,
+                                  AccountsService accountsService, LedgerService ledgerService,
+                                  NotificationService notificationService, FxRateService fxRateService,
+                                  TransferRulesEngine transferRules, TransferMetrics transferMetrics,
+                                  List<TransferListener> transferListeners, TenantRegistry tenantRegistry) {
+    this.multiLegTransfersRepository = multiLegTransfersRepository;
+    this.accountsService = accountsService;
+    this.ledgerService = ledgerService;
+    this.notificationService = notificationService;
+    this.fxRateService = fxRateService;
+    this.transferRules = transferRules;
+    this.transferMetrics = transferMetrics;
+    this.transferListeners = transferListeners;
+    this.tenantRegistry = tenantRegistry;
+  }
+
+  public void executeTransfer(MultiLegTransfer transfer) {
+    long start = System.nanoTime();
+    try {
+      doExecuteTransfer(transfer);
+    } finally {
+      this.transferMetrics.getExecuteLatency().record(System.nanoTime() - start);
+      this.transferListeners.forEach(listener -> listener.onMultiLegUpdated(transfer));
+    }
+  }
+
+  private void doExecuteTransfer(MultiLegTransfer transfer) {
+    // Counted against the tenant of the first debit, like a transfer against the tenant of its sender
+    String tenantAccountId = transfer.getDebits().isEmpty() ? null : transfer.getDebits().get(0).getAccountId();
+    try {
+      this.tenantRegistry.reserveTransfer(tenantAccountId);
+    } catch (QuotaExceededException e) {
+      transfer.setFailureCause(e.getMessage());
+      transfer.setStatus(Transfer.Status.FAILED);
+      throw e;
+    }
+    boolean created = false;
+    try {
+      this.multiLegTransfersRepository.createTransfer(transfer);
+      created = true;
+    } finally {
+      if (!created) {
+        this.tenantRegistry.releaseTransfer(tenantAccountId);
+      }
+    }
+    List<Transfer> checkedLegs = new ArrayList<>();
+    try {
+      Map<String, BigDecimal> debits = sumByAccount(transfer.getDebits());
+      Map<String, BigDecimal> credits = sumByAccount(transfer.getCredits());
+      BigDecimal debitTotal = debits.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+      BigDecimal creditTotal = credits.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+      if (debitTotal.compareTo(creditTotal) != 0) {
+        throw new InvalidTransferException("Debits of " + debitTotal + " do not match credits of " + creditTotal);
+      }
+
+      Map<String, Account> accounts = new HashMap<>();
+      debits.keySet().forEach(accountId -> accounts.put(accountId, lookup(accountId)));
+      credits.keySet().forEach(accountId -> accounts.computeIfAbsent(accountId, this::lookup));
+      String currency = null;
+      boolean first = true;
+      for (Account account : accounts.values()) {
+        if (!first && !this.fxRateService.isSameCurrency(currency, account.getCurrency())) {
+          throw new UnsupportedCurrencyException("All legs of a multi-leg transfer must share one currency");
+        }
+        currency = account.getCurrency();
+        first = false;
+      }
+
+      String reference = "MULTILEG-" + transfer.getTransferId();
+      for (Map.Entry<String, BigDecimal> debit : debits.entrySet()) {
+        Transfer leg = new Transfer(debit.getKey(), reference, debit.getValue());
+        this.transferRules.check(leg);
+        checkedLegs.add(leg);
+      }
+
+      // Ids are unique, so the sorted union of debit and credit ids is a consistent lock order
+      List<Account> lockOrder = new ArrayList<>(accounts.size());
+      new TreeMap<>(accounts).values().forEach(lockOrder::add);
+      this.ledgerService.write(() -> {
+        boolean settled = AccountLocks.withLocks(lockOrder, () -> {
+          if (!debitAll(debits, accounts)) {
+            return false;
+          }
+          credits.forEach((accountId, amount) -> accounts.get(accountId).deposit(amount));
+          return true;
+        });
+        if (!settled) {
+          throw new InsufficientFundsException("Not enough funds available to cover every debit leg of transfer "
+            + transfer.getTransferId());
+        }
+        transfer.setStatus(Transfer.Status.COMPLETED);
+        this.ledgerService.recordEntries(debits, credits, reference);
+      });
+    } catch (RuntimeException r) {
+      checkedLegs.forEach(this.transferRules::release);
+      transfer.setFailureCause(r.getMessage());
+      transfer.setStatus(Transfer.Status.FAILED);
+      throw r;
+    }
+    checkedLegs.forEach(this.transferRules::record);
+
+    sumByAccount(transfer.getCredits()).forEach((accountId, amount) -> {
+      this.notificationService.notifyAboutTransfer(this.accountsService.getAccount(accountId),
+        "You have received " + amount + " from multi-leg transfer " + transfer.getTransferId());
+    });
+  }
+
+  public MultiLegTransfer getTransfer(Long transferId) {
+    return this.multiLegTransfersRepository.getTransfer(transferId);
+  }
+
+  private boolean debitAll(Map<String, BigDecimal> debits, Map<String, Account> accounts) {
+    List<Account> debitAccounts = new ArrayList<>(debits.size());
+    debits.keySet().forEach(accountId -> debitAccounts.add(accounts.get(accountId)));
+    for (Account account : debitAccounts) {
+      if (account.getAvailableBalance().compareTo(debits.get(account.getAccountId())) < 0) {
+        return false;
+      }
+    }
+    // Optimistic engines commit without account locks, so a debit can still fail here; undo the applied ones
+    List<Account> debited = new ArrayList<>(debitAccounts.size());
+    for (Account account : debitAccounts) {
+      try {
+        account.withdraw(debits.get(account.getAccountId()));
+      } catch (InsufficientFundsException e) {
+        debited.forEach(undo -> undo.deposit(debits.get(undo.getAccountId())));
+        return false;
+      }
+      debited.add(account);
+    }
+    return true;
+  }
+
+  private Account lookup(String accountId) {
+    Account account = this.accountsService.getAccount(accountId);
+    if (account == null) {
+      throw new AccountNotFoundException("Not account found with accountID: " + accountId);
+    }
+    return account;
+  }
+
+  private static Map<String, BigDecimal> sumByAccount(List<MultiLegTransfer.Leg> legs) {
+    Map<String, BigDecimal> amounts = new TreeMap<>();
+    for (MultiLegTransfer.Leg leg : legs) {
+      amounts.merge(leg.getAccountId(), leg.getAmount(), BigDecimal::add);
+    }
+    return amounts;
+  }
+}
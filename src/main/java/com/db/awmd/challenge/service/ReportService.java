@@ -0,0 +1,242 @@
+package com.db.awmd.challenge.service;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.LedgerEntry;
+import com.db.awmd.challenge.domain.ReportResult;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.report.ChannelLineWriter;
+import com.db.awmd.challenge.report.ReportFormat;
+import com.db.awmd.challenge.repository.AccountsRepository;
+import com.db.awmd.challenge.repository.LedgerRepository;
+import com.db.awmd.challenge.repository.TransfersRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Writes end-of-day balance and transfer reports. The point-in-time view is a cut of the ledger at its published
+ * sequence, below which every entry is already appended: balances are the sum of the entries up to the cut stamped
+ * before the end of the day and the statement lines are all entries up to the cut stamped within the day, so
+ * transfers keep running while the report is produced. Both sides of a transfer share a sequence and timestamp,
+ * so the cut never splits one. Entries that do not come from a transfer, such as openings, hold captures and
+ * multi-leg transfers, have no transfer id and carry their ledger reference as the counterparty, so the lines of
+ * an account add up to its balance movement over the day. Each ledger partition is reported by its own fork-join
+ * task into its own pair of files.
+ */
+@Slf4j
+@Service
+public class ReportService {
+
+  private static final String TRANSFER_REFERENCE = "TRANSFER-";
+
+  private final LedgerService ledgerService;
+
+  private final AccountsRepository accountsRepository;
+
+  private final TransfersRepository transfersRepository;
+
+  private final Path reportsDirectory;
+
+  private final ZoneId zone;
+
+  private final int bufferSize;
+
+  private final ForkJoinPool reportPool;
+
+  @Autowired
+  public ReportService(LedgerService ledgerService, AccountsRepository accountsRepository,
+                       TransfersRepository transfersRepository,
+                       @Value("${reports.directory:reports}") String reportsDirectory,
+                       @Value("${reports.zone:UTC}") String zone,
+                       @Value("${reports.buffer-size:65536}") int bufferSize,
+                       @Value("${reports.parallelism:0}") int parallelism) {
+    this.ledgerService = ledgerService;
+    this.accountsRepository = accountsRepository;
+    this.transfersRepository = transfersRepository;
+    this.reportsDirectory = Paths.get(reportsDirectory);
+    this.zone = ZoneId.of(zone);
+    this.bufferSize = bufferSize;
+    this.reportPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+  }
+
+  @PreDestroy
+  public void stop() {
+    this.reportPool.shutdown();
+  }
+
+  public LocalDate today() {
+    return LocalDate.now(zone);
+  }
+
+  public ReportResult generateEndOfDay(LocalDate date, ReportFormat format) throws IOException, InterruptedException {
+    long start = System.currentTimeMillis();
+    long cutoff = this.ledgerService.getPublishedSequence();
+    long dayStart = date.atStartOfDay(zone).toInstant().toEpochMilli();
+    long dayEnd = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+
+    Path directory = Files.createDirectories(reportsDirectory.resolve(date + "-" + cutoff));
+    LedgerRepository ledgerRepository = this.ledgerService.getLedgerRepository();
+    AtomicLong accounts = new AtomicLong();
+    AtomicLong transferLines = new AtomicLong();
+
+    PartitionContext context = new PartitionContext(ledgerRepository, directory, format, cutoff, dayStart, dayEnd,
+      accounts, transferLines);
+    try {
+      reportPool.submit(new PartitionRangeTask(context, 0, ledgerRepository.getPartitionCount())).get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof UncheckedIOException) {
+        throw ((UncheckedIOException) e.getCause()).getCause();
+      }
+      throw new IllegalStateException("Report generation failed", e.getCause());
+    }
+
+    List<String> files = new ArrayList<>();
+    try (Stream<Path> paths = Files.list(directory)) {
+      paths.map(path -> path.getFileName().toString()).sorted().forEach(files::add);
+    }
+
+    long elapsed = System.currentTimeMillis() - start;
+    log.info("End-of-day report for {} at ledger sequence {}: {} accounts, {} statement lines in {} ms", date, cutoff,
+      accounts.get(), transferLines.get(), elapsed);
+    return new ReportResult(date.toString(), format.getExtension(), cutoff, directory.toAbsolutePath().toString(),
+      accounts.get(), transferLines.get(), Collections.unmodifiableList(files), elapsed);
+  }
+
+  private void reportPartition(PartitionContext context, int partition) throws IOException {
+    Map<String, BigDecimal> balances = new TreeMap<>();
+    Map<String, List<LedgerEntry>> dayEntries = new HashMap<>();
+
+    for (LedgerEntry entry : context.ledgerRepository.getPartition(partition)) {
+      if (entry.getSequence() > context.cutoff || entry.getTimestamp() >= context.dayEnd) {
+        continue;
+      }
+      balances.merge(entry.getAccountId(), entry.getSignedAmount(), BigDecimal::add);
+      if (entry.getTimestamp() >= context.dayStart) {
+        dayEntries.computeIfAbsent(entry.getAccountId(), accountId -> new ArrayList<>()).add(entry);
+      }
+    }
+
+    String suffix = String.format("-%03d.%s", partition, context.format.getExtension());
+    StringBuilder line = new StringBuilder(256);
+    long transferLines = 0;
+    try (ChannelLineWriter balanceWriter = new ChannelLineWriter(context.directory.resolve("balances" + suffix),
+      bufferSize);
+         ChannelLineWriter transferWriter = new ChannelLineWriter(context.directory.resolve("transfers" + suffix),
+           bufferSize)) {
+      balanceWriter.write(context.format.balanceHeader());
+      transferWriter.write(context.format.transferHeader());
+
+      for (Map.Entry<String, BigDecimal> balance : balances.entrySet()) {
+        String accountId = balance.getKey();
+        Account account = this.accountsRepository.getAccount(accountId);
+        line.setLength(0);
+        context.format.appendBalance(line, accountId, account == null ? null : account.getCurrency(),
+          balance.getValue());
+        balanceWriter.write(line);
+
+        List<LedgerEntry> entries = dayEntries.get(accountId);
+        if (entries == null) {
+          continue;
+        }
+        for (LedgerEntry entry : entries) {
+          boolean transfer = entry.getReference().startsWith(TRANSFER_REFERENCE);
+          String transferId = transfer ? entry.getReference().substring(TRANSFER_REFERENCE.length()) : null;
+          line.setLength(0);
+          context.format.appendTransfer(line, accountId, transferId, entry.getType().name(), entry.getAmount(),
+            transfer ? counterparty(transferId, entry) : entry.getReference(), entry.getTimestamp());
+          transferWriter.write(line);
+          transferLines++;
+        }
+      }
+    }
+    context.accounts.addAndGet(balances.size());
+    context.transferLines.addAndGet(transferLines);
+  }
+
+  private String counterparty(String transferId, LedgerEntry entry) {
+    Transfer transfer;
+    try {
+      transfer = this.transfersRepository.getTransfer(Long.valueOf(transferId));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+    if (transfer == null) {
+      return null;
+    }
+    return entry.getType() == LedgerEntry.Type.DEBIT ? transfer.getReceiverAccountId()
+      : transfer.getSenderAccountId();
+  }
+
+  private static class PartitionContext {
+
+    private final LedgerRepository ledgerRepository;
+    private final Path directory;
+    private final ReportFormat format;
+    private final long cutoff;
+    private final long dayStart;
+    private final long dayEnd;
+    private final AtomicLong accounts;
+    private final AtomicLong transferLines;
+
+    private PartitionContext(LedgerRepository ledgerRepository, Path directory, ReportFormat format, long cutoff,
+                             long dayStart, long dayEnd, AtomicLong accounts, AtomicLong transferLines) {
+      this.ledgerRepository = ledgerRepository;
+      this.directory = directory;
+      this.format = format;
+      this.cutoff = cutoff;
+      this.dayStart = dayStart;
+      this.dayEnd = dayEnd;
+      this.accounts = accounts;
+      this.transferLines = transferLines;
+    }
+  }
+
+  private class PartitionRangeTask extends RecursiveAction {
+
+    private final PartitionContext context;
+    private final int from;
+    private final int to;
+
+    private PartitionRangeTask(PartitionContext context, int from, int to) {
+      this.context = context;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > 1) {
+        int middle = (from + to) >>> 1;
+        invokeAll(new PartitionRangeTask(context, from, middle), new PartitionRangeTask(context, middle, to));
+        return;
+      }
+      try {
+        reportPartition(context, from);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+}
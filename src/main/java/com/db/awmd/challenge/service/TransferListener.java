@@ -0,0 +1,25 @@
+package com.db.awmd.challenge.service;
+
+import com.db.awmd.challenge.domain.MultiLegTransfer;
+import com.db.awmd.challenge.domain.Transfer;
+
+/**
+ * Notified by {@link TransfersService} when a transfer is stored and after each execution or settlement attempt.
+ * {@link #onUpdated} can be called again for a transfer whose status has not changed.
+ */
+public interface TransferListener {
+
+  void onCreated(Transfer transfer);
+
+  void onUpdated(Transfer transfer);
+
+  default void onCleared() {
+  }
+
+  /**
+   * Called by {@link MultiLegTransfersService} after each execution attempt. Its balance changes reach the ledger
+   * listeners like any other. The outbox records an event per call; the query indexes ignore multi-leg transfers.
+   */
+  default void onMultiLegUpdated(MultiLegTransfer transfer) {
+  }
+}
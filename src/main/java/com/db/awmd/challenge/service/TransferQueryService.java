@@ -0,0 +1,323 @@
+package com.db.awmd.challenge.service;
+
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.domain.TransferAggregate;
+import com.db.awmd.challenge.domain.TransferRollup;
+import com.db.awmd.challenge.tenant.TenantNamespace;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Aggregates and indexes over transfers, maintained as transfers are created and change status. Totals per
+ * status are current counts, rollups count the transfers that reached each status within a time bucket.
+ *
+ * The indexes only cover the rollup horizon, the retained buckets: whenever a new bucket opens, completed and
+ * failed transfers that reached their status before the horizon are evicted from them, while totals keep counting
+ * them. Pending transfers stay indexed however old they are, since the sweep looks them up by status.
+ *
+ * Multi-leg transfers are not indexed: they are numbered apart from plain transfers, so they would collide in the
+ * indexes keyed by transfer id, and they have no single sender or receiver to filter by. They are looked up by id
+ * and exported through {@link com.db.awmd.challenge.outbox.TransferOutbox}.
+ */
+@Service
+public class TransferQueryService implements TransferListener {
+
+  private final long bucketMillis;
+
+  private final int retainedBuckets;
+
+  private final int maxResults;
+
+  private final long horizonMillis;
+
+  private final Map<Long, StatusKey> positions = new ConcurrentHashMap<>();
+
+  private final Map<Transfer.Status, ConcurrentSkipListMap<StatusKey, Transfer>> byStatus =
+    new EnumMap<>(Transfer.Status.class);
+
+  private final ConcurrentSkipListMap<AmountKey, Transfer> byAmount = new ConcurrentSkipListMap<>();
+
+  private final Map<Transfer.Status, StatusAggregate> totals = new EnumMap<>(Transfer.Status.class);
+
+  private final ConcurrentSkipListMap<Long, Map<Transfer.Status, StatusAggregate>> rollups =
+    new ConcurrentSkipListMap<>();
+
+  public TransferQueryService() {
+    this(60, 1440, 1000);
+  }
+
+  @Autowired
+  public TransferQueryService(@Value("${transfers.query.rollup-bucket-seconds:60}") int bucketSeconds,
+                              @Value("${transfers.query.retained-buckets:1440}") int retainedBuckets,
+                              @Value("${transfers.query.max-results:1000}") int maxResults) {
+    this.bucketMillis = bucketSeconds * 1000L;
+    this.retainedBuckets = retainedBuckets;
+    this.maxResults = maxResults;
+    this.horizonMillis = bucketMillis * retainedBuckets;
+    for (Transfer.Status status : Transfer.Status.values()) {
+      byStatus.put(status, new ConcurrentSkipListMap<>());
+      totals.put(status, new StatusAggregate());
+    }
+  }
+
+  @Override
+  public void onCreated(Transfer transfer) {
+    StatusKey key = new StatusKey(transfer.getStatus(), System.currentTimeMillis(), transfer.getTransferId());
+    if (positions.putIfAbsent(transfer.getTransferId(), key) != null) {
+      return;
+    }
+    byStatus.get(key.status).put(key, transfer);
+    if (transfer.getAmount() != null) {
+      byAmount.put(new AmountKey(transfer.getAmount(), transfer.getTransferId()), transfer);
+    }
+    totals.get(key.status).add(1, transfer.getAmount());
+    rollup(key).get(key.status).add(1, transfer.getAmount());
+  }
+
+  /**
+   * Moves the transfer to the index of its current status. Transfers that were never created, or whose status
+   * has not changed since the last call, are left alone.
+   */
+  @Override
+  public void onUpdated(Transfer transfer) {
+    StatusKey previous = positions.get(transfer.getTransferId());
+    Transfer.Status status = transfer.getStatus();
+    if (previous == null || previous.status == status) {
+      return;
+    }
+    StatusKey key = new StatusKey(status, System.currentTimeMillis(), transfer.getTransferId());
+    if (!positions.replace(transfer.getTransferId(), previous, key)) {
+      return;
+    }
+    byStatus.get(previous.status).remove(previous);
+    byStatus.get(status).put(key, transfer);
+    totals.get(previous.status).add(-1, negate(transfer.getAmount()));
+    totals.get(status).add(1, transfer.getAmount());
+    rollup(key).get(status).add(1, transfer.getAmount());
+  }
+
+  public List<TransferAggregate> getTotals() {
+    List<TransferAggregate> aggregates = new ArrayList<>(totals.size());
+    totals.forEach((status, aggregate) -> aggregates.add(aggregate.toAggregate(status)));
+    return aggregates;
+  }
+
+  public TransferAggregate getTotal(Transfer.Status status) {
+    return totals.get(status).toAggregate(status);
+  }
+
+  public List<TransferRollup> getRollups(long since) {
+    List<TransferRollup> result = new ArrayList<>();
+    rollups.tailMap(since - since % bucketMillis, true).forEach((bucketStart, aggregates) -> {
+      List<TransferAggregate> statuses = new ArrayList<>(aggregates.size());
+      aggregates.forEach((status, aggregate) -> statuses.add(aggregate.toAggregate(status)));
+      result.add(new TransferRollup(bucketStart, statuses));
+    });
+    return result;
+  }
+
+  /**
+   * Most recent first when filtering by status or time, ascending amount when only an amount range is given. Only
+   * transfers visible in the current tenant namespace are returned, and completed or failed ones only within the
+   * rollup horizon.
+   */
+  public List<Transfer> query(Transfer.Status status, Long since, Long until, BigDecimal minAmount,
+                              BigDecimal maxAmount, int limit) {
+    int max = Math.min(limit, maxResults);
+    long from = since == null ? Long.MIN_VALUE : since;
+    long to = until == null ? Long.MAX_VALUE : until;
+    List<Transfer> result = new ArrayList<>();
+
+    if (status == null && (minAmount != null || maxAmount != null) && since == null && until == null) {
+      NavigableMap<AmountKey, Transfer> range = byAmount;
+      if (minAmount != null) {
+        range = range.tailMap(new AmountKey(minAmount, Long.MIN_VALUE), true);
+      }
+      if (maxAmount != null) {
+        range = range.headMap(new AmountKey(maxAmount, Long.MAX_VALUE), true);
+      }
+      for (Transfer transfer : range.values()) {
+        if (result.size() == max) {
+          break;
+        }
+        if (TenantNamespace.isVisible(transfer.getSenderAccountId())) {
+          result.add(transfer);
+        }
+      }
+      return result;
+    }
+
+    List<Transfer.Status> statuses = new ArrayList<>();
+    if (status != null) {
+      statuses.add(status);
+    } else {
+      statuses.addAll(byStatus.keySet());
+    }
+    List<StatusKey> keys = new ArrayList<>();
+    Map<StatusKey, Transfer> matches = new HashMap<>();
+    for (Transfer.Status candidate : statuses) {
+      NavigableMap<StatusKey, Transfer> range = byStatus.get(candidate)
+        .subMap(new StatusKey(candidate, from, Long.MIN_VALUE), true, new StatusKey(candidate, to, Long.MAX_VALUE), true)
+        .descendingMap();
+      int taken = 0;
+      for (Map.Entry<StatusKey, Transfer> entry : range.entrySet()) {
+        if (taken == max) {
+          break;
+        }
+        if (inRange(entry.getValue().getAmount(), minAmount, maxAmount)
+          && TenantNamespace.isVisible(entry.getValue().getSenderAccountId())) {
+          keys.add(entry.getKey());
+          matches.put(entry.getKey(), entry.getValue());
+          taken++;
+        }
+      }
+    }
+    keys.sort(Comparator.<StatusKey>naturalOrder().reversed());
+    for (StatusKey key : keys.subList(0, Math.min(max, keys.size()))) {
+      result.add(matches.get(key));
+    }
+    return result;
+  }
+
+  /**
+   * Removes the completed and failed transfers that reached their status before {@code before} from the indexes.
+   *
+   * @return the number of transfers evicted
+   */
+  public int evictTerminal(long before) {
+    int evicted = 0;
+    for (Transfer.Status status : Transfer.Status.values()) {
+      if (status == Transfer.Status.PENDING) {
+        continue;
+      }
+      Iterator<Map.Entry<StatusKey, Transfer>> expired =
+        byStatus.get(status).headMap(new StatusKey(status, before, Long.MIN_VALUE)).entrySet().iterator();
+      while (expired.hasNext()) {
+        Map.Entry<StatusKey, Transfer> entry = expired.next();
+        Transfer transfer = entry.getValue();
+        expired.remove();
+        if (positions.remove(transfer.getTransferId(), entry.getKey())) {
+          if (transfer.getAmount() != null) {
+            byAmount.remove(new AmountKey(transfer.getAmount(), transfer.getTransferId()));
+          }
+          evicted++;
+        }
+      }
+    }
+    return evicted;
+  }
+
+  @Override
+  public void onCleared() {
+    positions.clear();
+    byStatus.values().forEach(Map::clear);
+    byAmount.clear();
+    totals.values().forEach(StatusAggregate::reset);
+    rollups.clear();
+  }
+
+  private Map<Transfer.Status, StatusAggregate> rollup(StatusKey key) {
+    long bucketStart = key.timestamp - key.timestamp % bucketMillis;
+    Map<Transfer.Status, StatusAggregate> aggregates = rollups.get(bucketStart);
+    if (aggregates != null) {
+      return aggregates;
+    }
+    Map<Transfer.Status, StatusAggregate> created = new EnumMap<>(Transfer.Status.class);
+    for (Transfer.Status status : Transfer.Status.values()) {
+      created.put(status, new StatusAggregate());
+    }
+    aggregates = rollups.putIfAbsent(bucketStart, created);
+    if (aggregates != null) {
+      return aggregates;
+    }
+    while (rollups.size() > retainedBuckets) {
+      rollups.pollFirstEntry();
+    }
+    evictTerminal(bucketStart - horizonMillis);
+    return created;
+  }
+
+  private static boolean inRange(BigDecimal amount, BigDecimal minAmount, BigDecimal maxAmount) {
+    if (minAmount == null && maxAmount == null) {
+      return true;
+    }
+    return amount != null
+      && (minAmount == null || amount.compareTo(minAmount) >= 0)
+      && (maxAmount == null || amount.compareTo(maxAmount) <= 0);
+  }
+
+  private static BigDecimal negate(BigDecimal amount) {
+    return amount == null ? null : amount.negate();
+  }
+
+  private static class StatusAggregate {
+
+    private long count;
+    private BigDecimal amount = BigDecimal.ZERO;
+
+    synchronized void add(long delta, BigDecimal amountDelta) {
+      count += delta;
+      if (amountDelta != null) {
+        amount = amount.add(amountDelta);
+      }
+    }
+
+    synchronized void reset() {
+      count = 0;
+      amount = BigDecimal.ZERO;
+    }
+
+    synchronized TransferAggregate toAggregate(Transfer.Status status) {
+      return new TransferAggregate(status.name(), count, amount);
+    }
+  }
+
+  private static class StatusKey implements Comparable<StatusKey> {
+
+    private final Transfer.Status status;
+    private final long timestamp;
+    private final long transferId;
+
+    StatusKey(Transfer.Status status, long timestamp, long transferId) {
+      this.status = status;
+      this.timestamp = timestamp;
+      this.transferId = transferId;
+    }
+
+    @Override
+    public int compareTo(StatusKey other) {
+      int byTime = Long.compare(timestamp, other.timestamp);
+      return byTime != 0 ? byTime : Long.compare(transferId, other.transferId);
+    }
+  }
+
+  private static class AmountKey implements Comparable<AmountKey> {
+
+    private final BigDecimal amount;
+    private final long transferId;
+
+    AmountKey(BigDecimal amount, long transferId) {
+      this.amount = amount;
+      this.transferId = transferId;
+    }
+
+    @Override
+    public int compareTo(AmountKey other) {
+      int byAmount = amount.compareTo(other.amount);
+      return byAmount != 0 ? byAmount : Long.compare(transferId, other.transferId);
+    }
+  }
+}
@@ -0,0 +1,154 @@
+package com.db.awmd.challenge.service;
+
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.exception.AccountNotFoundException;
+import com.db.awmd.challenge.replication.PromotionListener;
+import com.db.awmd.challenge.replication.ReplicationRole;
+import com.db.awmd.challenge.scheduling.HashedTimingWheel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds future-dated transfers in a timing wheel until they are due. Transfers stay PENDING in the repository while
+ * they wait, so on start any that a previous run left behind are scheduled again. A follower leaves them to the
+ * primary and schedules the replicated ones only once it is promoted.
+ */
+@Slf4j
+@Service
+public class TransferScheduler implements PromotionListener {
+
+  private final AccountsService accountsService;
+
+  private final TransfersService transfersService;
+
+  private final HashedTimingWheel<Transfer> timingWheel;
+
+  private final ExecutorService releaseExecutor;
+
+  private volatile boolean follower;
+
+  public TransferScheduler(AccountsService accountsService, TransfersService transfersService, long tickMillis,
+                           int wheelSize, int batchSize, int workers) {
+    this(accountsService, transfersService, tickMillis, wheelSize, batchSize, workers,
+      ReplicationRole.STANDALONE.name());
+  }
+
+  @Autowired
+  public TransferScheduler(AccountsService accountsService, TransfersService transfersService,
+                           @Value("${transfers.scheduler.tick-millis:100}") long tickMillis,
+                           @Value("${transfers.scheduler.wheel-size:512}") int wheelSize,
+                           @Value("${transfers.scheduler.batch-size:1000}") int batchSize,
+                           @Value("${transfers.scheduler.workers:4}") int workers,
+                           @Value("${replication.role:standalone}") String role) {
+    this.follower = ReplicationRole.parse(role) == ReplicationRole.FOLLOWER;
+    this.accountsService = accountsService;
+    this.transfersService = transfersService;
+    this.timingWheel = new HashedTimingWheel<>(tickMillis, wheelSize, batchSize, this::release);
+    this.releaseExecutor = Executors.newFixedThreadPool(workers);
+  }
+
+  @PostConstruct
+  public void start() {
+    if (!follower) {
+      reschedulePending();
+    }
+    this.timingWheel.start();
+  }
+
+  @Override
+  public void onPromoted() {
+    follower = false;
+    reschedulePending();
+  }
+
+  /**
+   * Executes transfers that are already due and waits for running releases; transfers due later stay PENDING in the
+   * repository for the next start.
+   */
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    List<Transfer> due = new ArrayList<>();
+    int waiting = 0;
+    long now = System.currentTimeMillis();
+    for (Transfer transfer : this.timingWheel.stop()) {
+      if (transfer.getExecuteAt() <= now) {
+        due.add(transfer);
+      } else {
+        waiting++;
+      }
+    }
+    if (!due.isEmpty()) {
+      release(due);
+    }
+    this.releaseExecutor.shutdown();
+    if (!this.releaseExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+      log.warn("Scheduled transfer releases still running at shutdown");
+    }
+    if (waiting > 0) {
+      log.warn("{} scheduled transfers left pending at shutdown", waiting);
+    }
+  }
+
+  /**
+   * @throws AccountNotFoundException when either account does not exist yet
+   */
+  public void scheduleTransfer(Transfer transfer) {
+    requireAccount(transfer.getSenderAccountId());
+    requireAccount(transfer.getReceiverAccountId());
+    this.transfersService.createTransfer(transfer);
+    this.timingWheel.schedule(transfer, transfer.getExecuteAt());
+  }
+
+  /**
+   * Schedules the future-dated PENDING transfers found in the repository; those that fell due meanwhile are
+   * released on the next tick.
+   *
+   * @return the number of transfers scheduled
+   */
+  public int reschedulePending() {
+    int recovered = 0;
+    for (Transfer transfer : this.transfersService.getTransfer()) {
+      if (transfer.getExecuteAt() != null && transfer.getStatus() == Transfer.Status.PENDING) {
+        this.timingWheel.schedule(transfer, transfer.getExecuteAt());
+        recovered++;
+      }
+    }
+    if (recovered > 0) {
+      log.info("Rescheduled {} pending transfers", recovered);
+    }
+    return recovered;
+  }
+
+  public long getPendingCount() {
+    return this.timingWheel.getPendingCount();
+  }
+
+  private void requireAccount(String accountId) {
+    if (this.accountsService.getAccount(accountId) == null) {
+      throw new AccountNotFoundException("Not account found with accountID: " + accountId);
+    }
+  }
+
+  private void release(List<Transfer> batch) {
+    List<Transfer> transfers = new ArrayList<>(batch);
+    this.releaseExecutor.execute(() -> {
+      for (Transfer transfer : transfers) {
+        try {
+          this.transfersService.executeTransfer(transfer);
+        } catch (RuntimeException r) {
+          log.info("Scheduled transfer {} failed: {}", transfer.getTransferId(), r.getMessage());
+        }
+      }
+    });
+  }
+}
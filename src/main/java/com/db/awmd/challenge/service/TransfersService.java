@@ -2,12 +2,31 @@ package com.db.awmd.challenge.service;
 
 import com.db.awmd.challenge.domain.Account;
 import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.engine.TransferExecutionEngine;
 import com.db.awmd.challenge.exception.AccountNotFoundException;
+import com.db.awmd.challenge.exception.InsufficientFundsException;
+import com.db.awmd.challenge.exception.InvalidTransferException;
+import com.db.awmd.challenge.exception.QuotaExceededException;
+import com.db.awmd.challenge.exception.TransferLimitExceededException;
+import com.db.awmd.challenge.exception.UnsupportedCurrencyException;
+import com.db.awmd.challenge.metrics.TransferMetrics;
 import com.db.awmd.challenge.repository.TransfersRepository;
+import com.db.awmd.challenge.rules.TransferRulesEngine;
+import com.db.awmd.challenge.tenant.TenantRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 @Service
 public class TransfersService {
@@ -18,29 +37,94 @@ public class TransfersService {
 
   private final NotificationService notificationService;
 
+  private final FxRateService fxRateService;
+
+  private final LedgerService ledgerService;
+
+  private final TransferMetrics transferMetrics;
+
+  private final TransferRulesEngine transferRules;
+
+  private final List<TransferListener> transferListeners;
+
+  private final TransferExecutionEngine executionEngine;
+
+  // Absent outside the application context, where tenant quotas are not enforced
+  private final TenantRegistry tenantRegistry;
+
+  private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+  public TransfersService(AccountsService accountsService, TransfersRepository transfersRepository,
+                          NotificationService notificationService, FxRateService fxRateService,
+                          LedgerService ledgerService, TransferMetrics transferMetrics,
+                          TransferRulesEngine transferRules, List<TransferListener> transferListeners,
+                          TransferExecutionEngine executionEngine) {
+    this(accountsService, transfersRepository, notificationService, fxRateService, ledgerService, transferMetrics,
+      transferRules, transferListeners, executionEngine, null);
+  }
+
   @Autowired
-  public TransfersService(AccountsService accountsService, TransfersRepository transfersRepository, NotificationService notificationService) {
+  public TransfersService(AccountsService accountsService, TransfersRepository transfersRepository,
+                          NotificationService notificationService, FxRateService fxRateService,
+                          LedgerService ledgerService, TransferMetrics transferMetrics,
+                          TransferRulesEngine transferRules, List<TransferListener> transferListeners,
+                          TransferExecutionEngine executionEngine, TenantRegistry tenantRegistry) {
     this.accountsService = accountsService;
     this.transfersRepository = transfersRepository;
     this.notificationService = notificationService;
+    this.fxRateService = fxRateService;
+    this.ledgerService = ledgerService;
+    this.transferMetrics = transferMetrics;
+    this.transferRules = transferRules;
+    this.transferListeners = transferListeners;
+    this.executionEngine = executionEngine;
+    this.tenantRegistry = tenantRegistry;
   }
 
   public void executeTransfer(Transfer transfer) {
+    long start = System.nanoTime();
+    try {
+      doExecuteTransfer(transfer);
+    } finally {
+      this.transferMetrics.getExecuteLatency().record(System.nanoTime() - start);
+      this.transferListeners.forEach(listener -> listener.onUpdated(transfer));
+    }
+  }
+
+  private void doExecuteTransfer(Transfer transfer) {
 
     Account senderAccount = this.accountsService.getAccount(transfer.getSenderAccountId());
     Account receiverAccount = this.accountsService.getAccount(transfer.getReceiverAccountId());
 
+    boolean claimed = transfer.claim();
+    if (!claimed && transfer.getStatus() == Transfer.Status.PENDING) {
+      // Another executor holds the claim and settles the transfer
+      return;
+    }
     try {
-      if (transfer.getStatus() == Transfer.Status.PENDING) {
+      if (claimed) {
+        if (transfer.getAmount() == null || transfer.getAmount().signum() < 0) {
+          throw new InvalidTransferException("Amount to transfer must be positive.");
+        }
         if (senderAccount == null) {
           throw new AccountNotFoundException("Not account found with accountID: " + transfer.getSenderAccountId());
         }
         if (receiverAccount == null) {
           throw new AccountNotFoundException("Not account found with accountID: " + transfer.getReceiverAccountId());
         }
-        senderAccount.withdraw(transfer.getAmount());
-        receiverAccount.deposit(transfer.getAmount());
-        transfer.setStatus(Transfer.Status.COMPLETED);
+        BigDecimal creditedAmount = convert(transfer, senderAccount, receiverAccount);
+        this.transferRules.check(transfer);
+        try {
+          this.ledgerService.write(() -> {
+            this.executionEngine.transfer(senderAccount, receiverAccount, transfer.getAmount(), creditedAmount);
+            transfer.setStatus(Transfer.Status.COMPLETED);
+            this.ledgerService.recordTransfer(transfer);
+          });
+        } catch (RuntimeException r) {
+          this.transferRules.release(transfer);
+          throw r;
+        }
+        this.transferRules.record(transfer);
       } else {
         transfer.setFailureCause("Retrying an already " + transfer.getStatus().getDescription() + " transfer");
       }
@@ -54,16 +138,213 @@ public class TransfersService {
     }
 
     if (transfer.getStatus() == Transfer.Status.COMPLETED) {
-      notificationService.notifyAboutTransfer(senderAccount, "You have sent a transfer " +
-        "to Account: " + transfer.getReceiverAccountId() + " for an amount of " + transfer.getAmount());
+      notifyCompleted(transfer, senderAccount, receiverAccount);
+    }
+  }
+
+  public List<Transfer> executeTransfers(List<Transfer> transfers, boolean netting) {
+    if (this.tenantRegistry != null) {
+      this.tenantRegistry.chargeBulkItems(transfers.size());
+    }
+    // Batch elements skip request body validation, invalid ones fail here and are neither stored nor settled, and
+    // so do those over their tenant's storage quota
+    List<Transfer> valid = new ArrayList<>(transfers.size());
+    for (Transfer transfer : transfers) {
+      String violations = validate(transfer);
+      if (violations == null) {
+        try {
+          createTransfer(transfer);
+          valid.add(transfer);
+        } catch (QuotaExceededException e) {
+          // Failed by createTransfer
+        }
+      } else {
+        failTransfer(transfer, violations);
+      }
+    }
+
+    if (netting) {
+      settleNetted(valid);
+    } else {
+      settleGross(valid);
+    }
+    valid.forEach(transfer -> this.transferListeners.forEach(listener -> listener.onUpdated(transfer)));
+    return transfers;
+  }
 
-      notificationService.notifyAboutTransfer(receiverAccount, "You have received a transfer " +
-        "from Account: " + transfer.getSenderAccountId() + " for an amount of " + transfer.getAmount());
+  private String validate(Transfer transfer) {
+    Set<ConstraintViolation<Transfer>> violations = this.validator.validate(transfer);
+    if (violations.isEmpty()) {
+      return null;
     }
+    return violations.stream()
+      .map(v -> v.getPropertyPath() + " " + v.getMessage())
+      .sorted()
+      .collect(Collectors.joining(", "));
   }
 
+  private void settleGross(List<Transfer> transfers) {
+    for (Transfer transfer : transfers) {
+      try {
+        executeTransfer(transfer);
+      } catch (RuntimeException r) {
+        // Failure is already recorded on the transfer, keep settling the rest of the batch
+      }
+    }
+  }
+
+  private void settleNetted(List<Transfer> transfers) {
+    Map<String, Account> accounts = new HashMap<>();
+    Map<String, BigDecimal> positions = new TreeMap<>();
+    List<Transfer> nettable = new ArrayList<>(transfers.size());
+
+    for (Transfer transfer : transfers) {
+      if (!transfer.claim()) {
+        if (transfer.getStatus() != Transfer.Status.PENDING) {
+          transfer.setFailureCause("Retrying an already " + transfer.getStatus().getDescription() + " transfer");
+        }
+        continue;
+      }
+      Account senderAccount = lookupForNetting(transfer, transfer.getSenderAccountId());
+      Account receiverAccount = senderAccount == null ? null : lookupForNetting(transfer, transfer.getReceiverAccountId());
+      if (receiverAccount == null) {
+        continue;
+      }
+      BigDecimal creditedAmount;
+      try {
+        creditedAmount = convert(transfer, senderAccount, receiverAccount);
+        this.transferRules.check(transfer);
+      } catch (UnsupportedCurrencyException | TransferLimitExceededException e) {
+        failTransfer(transfer, e.getMessage());
+        continue;
+      }
+      accounts.put(senderAccount.getAccountId(), senderAccount);
+      accounts.put(receiverAccount.getAccountId(), receiverAccount);
+      positions.merge(senderAccount.getAccountId(), transfer.getAmount().negate(), BigDecimal::add);
+      positions.merge(receiverAccount.getAccountId(), creditedAmount, BigDecimal::add);
+      nettable.add(transfer);
+    }
+
+    // Accounts whose flows cancel out are neither locked nor mutated
+    positions.values().removeIf(position -> position.signum() == 0);
+    List<Account> lockOrder = new ArrayList<>(positions.size());
+    positions.keySet().forEach(accountId -> lockOrder.add(accounts.get(accountId)));
+
+    boolean settled = false;
+    try {
+      settled = this.ledgerService.write(() -> AccountLocks.withLocks(lockOrder, () -> {
+        for (Account account : lockOrder) {
+          BigDecimal position = positions.get(account.getAccountId());
+          if (position.signum() < 0 && account.getAvailableBalance().compareTo(position.negate()) < 0) {
+            return false;
+          }
+        }
+        // Optimistic engines commit without account locks, so a debit can still fail here; undo the applied ones
+        List<Account> debited = new ArrayList<>();
+        for (Account account : lockOrder) {
+          BigDecimal position = positions.get(account.getAccountId());
+          if (position.signum() < 0) {
+            try {
+              account.withdraw(position.negate());
+            } catch (InsufficientFundsException e) {
+              debited.forEach(undo -> undo.deposit(positions.get(undo.getAccountId()).negate()));
+              return false;
+            }
+            debited.add(account);
+          }
+        }
+        for (Account account : lockOrder) {
+          BigDecimal position = positions.get(account.getAccountId());
+          if (position.signum() > 0) {
+            account.deposit(position);
+          }
+        }
+        for (Transfer transfer : nettable) {
+          transfer.setStatus(Transfer.Status.COMPLETED);
+          this.ledgerService.recordTransfer(transfer);
+          this.transferRules.record(transfer);
+        }
+        return true;
+      }));
+    } finally {
+      if (!settled) {
+        // Claims and reservations are taken again when each transfer is settled on its own
+        for (Transfer transfer : nettable) {
+          this.transferRules.release(transfer);
+          transfer.unclaim();
+        }
+      }
+    }
+
+    if (!settled) {
+      // Net positions are not covered, fall back to settling each transfer on its own
+      settleGross(nettable);
+      return;
+    }
+
+    for (Transfer transfer : nettable) {
+      notifyCompleted(transfer, accounts.get(transfer.getSenderAccountId()), accounts.get(transfer.getReceiverAccountId()));
+    }
+  }
+
+  private BigDecimal convert(Transfer transfer, Account senderAccount, Account receiverAccount) {
+    if (this.fxRateService.isSameCurrency(senderAccount.getCurrency(), receiverAccount.getCurrency())) {
+      return transfer.getAmount();
+    }
+    BigDecimal creditedAmount = this.fxRateService.convert(transfer.getAmount(), senderAccount.getCurrency(),
+      receiverAccount.getCurrency());
+    transfer.setCreditedAmount(creditedAmount);
+    return creditedAmount;
+  }
+
+  private Account lookupForNetting(Transfer transfer, String accountId) {
+    Account account = accountId == null ? null : this.accountsService.getAccount(accountId);
+    if (account == null) {
+      failTransfer(transfer, "Not account found with accountID: " + accountId);
+    }
+    return account;
+  }
+
+  private void failTransfer(Transfer transfer, String failureCause) {
+    transfer.setFailureCause(failureCause);
+    transfer.setStatus(Transfer.Status.FAILED);
+  }
+
+  private void notifyCompleted(Transfer transfer, Account senderAccount, Account receiverAccount) {
+    notificationService.notifyAboutTransfer(senderAccount, "You have sent a transfer " +
+      "to Account: " + transfer.getReceiverAccountId() + " for an amount of " + transfer.getAmount());
+
+    notificationService.notifyAboutTransfer(receiverAccount, "You have received a transfer " +
+      "from Account: " + transfer.getSenderAccountId() + " for an amount of " + transfer.getReceivedAmount());
+  }
+
+  /**
+   * @throws QuotaExceededException when the sender's tenant has no storage left for the transfer, which is then
+   *                                failed without being stored
+   */
   public void createTransfer(Transfer transfer) {
-    this.transfersRepository.createTransfer(transfer);
+    if (this.tenantRegistry != null) {
+      try {
+        this.tenantRegistry.reserveTransfer(transfer.getSenderAccountId());
+      } catch (QuotaExceededException e) {
+        failTransfer(transfer, e.getMessage());
+        throw e;
+      }
+    }
+    boolean created = false;
+    try {
+      this.transfersRepository.createTransfer(transfer);
+      created = true;
+    } finally {
+      if (!created && this.tenantRegistry != null) {
+        this.tenantRegistry.releaseTransfer(transfer.getSenderAccountId());
+      }
+    }
+    this.transferListeners.forEach(listener -> listener.onCreated(transfer));
+  }
+
+  public TransfersRepository getTransfersRepository() {
+    return this.transfersRepository;
   }
 
   public Transfer getTransfer(Long transferId) {
@@ -76,6 +357,7 @@ public class TransfersService {
 
   public void clearTransfers() {
     this.transfersRepository.clearTransfers();
+    this.transferListeners.forEach(TransferListener::onCleared);
   }
 
 }
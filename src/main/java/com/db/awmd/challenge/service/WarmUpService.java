@@ -0,0 +1,203 @@
+package com.db.awmd.challenge.service;
+
+import com.db.awmd.challenge.admission.AdmissionControlFilter;
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.engine.ActorTransferEngine;
+import com.db.awmd.challenge.engine.LockingTransferEngine;
+import com.db.awmd.challenge.engine.OptimisticTransferEngine;
+import com.db.awmd.challenge.engine.TransferExecutionEngine;
+import com.db.awmd.challenge.metrics.TransferMetrics;
+import com.db.awmd.challenge.repository.AccountsRepositoryInMemory;
+import com.db.awmd.challenge.repository.LedgerRepositoryInMemory;
+import com.db.awmd.challenge.repository.TransfersRepositoryInMemory;
+import com.db.awmd.challenge.rules.TransferRulesEngine;
+import com.db.awmd.challenge.rules.VelocityRule;
+import com.db.awmd.challenge.web.binary.BinaryCodec;
+import com.db.awmd.challenge.web.binary.BinaryHttpMessageConverter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a synthetic workload through the JSON/binary codecs and the transfer pipeline once the application is up,
+ * so the JIT has compiled the hot paths before the instance reports itself ready. The workload runs against a
+ * throwaway service graph, including its own execution engine of the configured type: it never touches live
+ * accounts, the live ledger, the live engine or notifications.
+ * <p>
+ * It then sends loopback requests to the running server to warm the filters, MVC dispatch and message converters.
+ * Those are transfers that fail validation and lookups of accounts that do not exist, so they leave live state
+ * alone.
+ */
+@Slf4j
+@Service
+public class WarmUpService {
+
+  private static final int ACCOUNTS = 64;
+
+  private final ObjectMapper objectMapper;
+
+  private final FxRateService fxRateService;
+
+  private final boolean enabled;
+
+  private final int iterations;
+
+  private final Environment environment;
+
+  private final int httpRequests;
+
+  private final String baseUrl;
+
+  private volatile boolean complete;
+
+  @Autowired
+  public WarmUpService(ObjectMapper objectMapper, FxRateService fxRateService,
+                       Environment environment,
+                       @Value("${warmup.enabled:false}") boolean enabled,
+                       @Value("${warmup.iterations:20000}") int iterations,
+                       @Value("${warmup.http-requests:500}") int httpRequests,
+                       @Value("${warmup.base-url:}") String baseUrl) {
+    this.objectMapper = objectMapper;
+    this.fxRateService = fxRateService;
+    this.environment = environment;
+    this.enabled = enabled;
+    this.iterations = iterations;
+    this.httpRequests = httpRequests;
+    this.baseUrl = baseUrl;
+    this.complete = !enabled;
+  }
+
+  public boolean isComplete() {
+    return complete;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void startWarmUp() {
+    if (!enabled) {
+      return;
+    }
+    Thread thread = new Thread(this::warmUp, "warm-up");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  private void warmUp() {
+    long start = System.currentTimeMillis();
+    AccountsRepositoryInMemory accountsRepository = new AccountsRepositoryInMemory();
+    LedgerService ledgerService = new LedgerService(new LedgerRepositoryInMemory(1), accountsRepository,
+      Collections.emptyList(), 1, 5000);
+    TransferMetrics transferMetrics = new TransferMetrics();
+    TransferExecutionEngine executionEngine = createEngine(transferMetrics);
+    try {
+      AccountsService accountsService = new AccountsService(accountsRepository, ledgerService);
+      TransfersService transfersService = new TransfersService(accountsService, new TransfersRepositoryInMemory(),
+        (account, description) -> { }, fxRateService, ledgerService, transferMetrics,
+        new TransferRulesEngine(Collections.singletonList(new VelocityRule("warm-up", Transfer::getSenderAccountId,
+          TimeUnit.MINUTES.toMillis(1), Long.MAX_VALUE, BigDecimal.ZERO, ACCOUNTS))),
+        Collections.singletonList(new TransferQueryService()), executionEngine);
+
+      for (int i = 0; i < ACCOUNTS; i++) {
+        Account account = objectMapper.readValue("{\"accountId\":\"warmup-" + i + "\",\"balance\":1000000}",
+          Account.class);
+        accountsService.createAccount(account);
+        objectMapper.writeValueAsBytes(account);
+      }
+
+      for (int i = 0; i < iterations; i++) {
+        String json = "{\"senderAccountId\":\"warmup-" + (i % ACCOUNTS) + "\",\"receiverAccountId\":\"warmup-"
+          + ((i + 1) % ACCOUNTS) + "\",\"amount\":" + (i % 100) + ".25}";
+        Transfer transfer = objectMapper.readValue(json, Transfer.class);
+        transfersService.createTransfer(transfer);
+        transfersService.executeTransfer(transfer);
+        objectMapper.writeValueAsBytes(transfer);
+        BinaryCodec.decodeTransfer(BinaryCodec.encode(transfer));
+      }
+      log.info("Warm-up of {} transfers finished in {} ms", iterations, System.currentTimeMillis() - start);
+      warmUpHttp();
+    } catch (IOException | RuntimeException e) {
+      log.warn("Warm-up aborted, reporting ready anyway", e);
+    } finally {
+      if (executionEngine instanceof ActorTransferEngine) {
+        ((ActorTransferEngine) executionEngine).stop();
+      }
+      ledgerService.stop();
+      complete = true;
+    }
+  }
+
+  /**
+   * Builds an engine of the type the live one has, so the warm-up compiles the same code paths without sharing its
+   * mailboxes or metrics.
+   */
+  private TransferExecutionEngine createEngine(TransferMetrics transferMetrics) {
+    String engine = environment.getProperty("transfers.engine", "locking");
+    switch (engine) {
+      case "actor":
+        return new ActorTransferEngine(environment.getProperty("transfers.actor.parallelism", Integer.class, 0),
+          environment.getProperty("transfers.actor.batch-size", Integer.class, 256));
+      case "optimistic":
+        return new OptimisticTransferEngine(transferMetrics,
+          environment.getProperty("transfers.optimistic.max-retries", Integer.class, 8));
+      default:
+        return new LockingTransferEngine();
+    }
+  }
+
+  private void warmUpHttp() {
+    String port = environment.getProperty("local.server.port");
+    String url = !baseUrl.isEmpty() ? baseUrl : port != null ? "http://localhost:" + port : null;
+    if (url == null) {
+      log.info("No local server port, skipping the HTTP warm-up");
+      return;
+    }
+
+    long start = System.currentTimeMillis();
+    RestTemplate restTemplate = new RestTemplate();
+    restTemplate.setErrorHandler(new DefaultResponseErrorHandler() {
+      @Override
+      public boolean hasError(ClientHttpResponse response) {
+        // Warm-up requests are meant to be rejected
+        return false;
+      }
+    });
+    HttpHeaders json = headers(MediaType.APPLICATION_JSON);
+    HttpHeaders binary = headers(BinaryHttpMessageConverter.BINARY);
+    byte[] invalidTransfer = BinaryCodec.encode(new Transfer("warmup-0", "warmup-1", BigDecimal.ONE.negate())).array();
+
+    for (int i = 0; i < httpRequests; i++) {
+      restTemplate.exchange(url + "/v1/transfers", HttpMethod.POST, new HttpEntity<>(
+        "{\"senderAccountId\":\"warmup-" + i + "\",\"receiverAccountId\":\"warmup-0\",\"amount\":-1}", json),
+        String.class);
+      restTemplate.exchange(url + "/v1/transfers", HttpMethod.POST, new HttpEntity<>(invalidTransfer, binary),
+        byte[].class);
+      restTemplate.getForEntity(url + "/v1/accounts/warmup-" + i, String.class);
+    }
+    log.info("HTTP warm-up of {} requests finished in {} ms", 3 * httpRequests, System.currentTimeMillis() - start);
+  }
+
+  private static HttpHeaders headers(MediaType contentType) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(contentType);
+    // Keeps warm-up traffic in its own admission bucket
+    headers.set(AdmissionControlFilter.API_KEY_HEADER, "warm-up");
+    return headers;
+  }
+}
@@ -0,0 +1,27 @@
+package com.db.awmd.challenge.tenant;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+
+/**
+ * Reads client account ids into the namespace of the current tenant.
+ */
+public class TenantAccountIdDeserializer extends StdDeserializer<String> {
+
+  public TenantAccountIdDeserializer() {
+    super(String.class);
+  }
+
+  @Override
+  public String deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+    String accountId = parser.getValueAsString();
+    try {
+      return TenantNamespace.qualify(accountId);
+    } catch (IllegalArgumentException e) {
+      throw context.weirdStringException(accountId, String.class, e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,22 @@
+package com.db.awmd.challenge.tenant;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Writes stored account ids the way the current tenant knows them.
+ */
+public class TenantAccountIdSerializer extends StdSerializer<String> {
+
+  public TenantAccountIdSerializer() {
+    super(String.class);
+  }
+
+  @Override
+  public void serialize(String accountId, JsonGenerator generator, SerializerProvider provider) throws IOException {
+    generator.writeString(TenantNamespace.unqualify(accountId));
+  }
+}
@@ -0,0 +1,167 @@
+package com.db.awmd.challenge.tenant;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+/**
+ * Binds each API request to a tenant namespace, taken from the tenant header or a {@code /v1/tenants/{tenant}/...}
+ * path prefix, which is stripped before the request reaches the controllers. Tenant requests are limited to
+ * account-scoped endpoints and checked against the tenant's throughput quota, one token per write; bulk writes are
+ * charged the rest of their items and storage quotas are reserved per item as accounts and transfers are created.
+ * Requests without a tenant stay in the default namespace, cannot name ids inside a tenant namespace and only see
+ * its transfers, except for the aggregate statistics, which cover every tenant and are meant for operators.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 100)
+public class TenantFilter extends OncePerRequestFilter {
+
+  public static final String TENANT_HEADER = "X-Tenant-Id";
+
+  private static final String GUARDED_PATH = "/v1/";
+
+  private static final String TENANT_PREFIX = "/v1/tenants/";
+
+  private static final Pattern TENANT_ROUTES = Pattern.compile(
+    "/v1/accounts(/.*)?|/v1/ledger/(?!replay$)[^/]+|/v1/transfers(/batch|/\\d+|/multi-leg(/.*)?)?");
+
+  private final boolean enabled;
+
+  private final TenantRegistry tenantRegistry;
+
+  @Autowired
+  public TenantFilter(@Value("${tenants.enabled:true}") boolean enabled, TenantRegistry tenantRegistry) {
+    this.enabled = enabled;
+    this.tenantRegistry = tenantRegistry;
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !enabled || !request.getRequestURI().startsWith(request.getContextPath() + GUARDED_PATH);
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+    throws ServletException, IOException {
+
+    String path = request.getRequestURI().substring(request.getContextPath().length());
+    String tenant = request.getHeader(TENANT_HEADER);
+    HttpServletRequest scoped = request;
+
+    int tenantEnd = path.startsWith(TENANT_PREFIX) ? path.indexOf('/', TENANT_PREFIX.length()) : -1;
+    if (tenantEnd > 0) {
+      String pathTenant = path.substring(TENANT_PREFIX.length(), tenantEnd);
+      if (tenant != null && !tenant.equals(pathTenant)) {
+        reject(response, HttpStatus.BAD_REQUEST, "Tenant header " + tenant + " does not match path tenant " + pathTenant);
+        return;
+      }
+      tenant = pathTenant;
+      path = "/v1" + path.substring(tenantEnd);
+      scoped = new ScopedRequest(request, path);
+    }
+
+    if (tenant == null) {
+      if (path.indexOf(TenantNamespace.SEPARATOR) >= 0 || path.toUpperCase().contains("%3A")) {
+        reject(response, HttpStatus.BAD_REQUEST, "Ids containing '" + TenantNamespace.SEPARATOR
+          + "' are reserved for tenant namespaces");
+        return;
+      }
+      inNamespace(null, scoped, response, chain);
+      return;
+    }
+
+    if (!TenantRegistry.isValidId(tenant)) {
+      reject(response, HttpStatus.BAD_REQUEST, "Invalid tenant id " + tenant);
+      return;
+    }
+    boolean post = "POST".equals(request.getMethod());
+    if (!TENANT_ROUTES.matcher(path).matches() || (!post && "/v1/transfers".equals(path))) {
+      reject(response, HttpStatus.FORBIDDEN, path + " is not available to tenants");
+      return;
+    }
+    TenantState state = tenantRegistry.tenant(tenant);
+    if (state == null) {
+      reject(response, HttpStatus.FORBIDDEN, "Tenant limit reached, " + tenant + " cannot be registered");
+      return;
+    }
+
+    if (post) {
+      long waitMillis = state.tryAcquire();
+      if (waitMillis > 0) {
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf((waitMillis + 999) / 1000));
+        reject(response, HttpStatus.TOO_MANY_REQUESTS, "Rate limit exceeded for tenant " + tenant);
+        return;
+      }
+    }
+
+    long start = System.nanoTime();
+    try {
+      inNamespace(tenant, scoped, response, chain);
+    } finally {
+      state.recordRequest(System.nanoTime() - start);
+    }
+  }
+
+  private void inNamespace(String tenant, HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+    throws ServletException, IOException {
+    TenantNamespace.enter(tenant);
+    try {
+      chain.doFilter(request, response);
+    } finally {
+      TenantNamespace.exit();
+    }
+  }
+
+  private void reject(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+    log.debug(message);
+    response.setStatus(status.value());
+    response.setContentType("text/plain");
+    response.getWriter().write(message);
+  }
+
+  /**
+   * The request as if it had been sent without the tenant path prefix.
+   */
+  private static class ScopedRequest extends HttpServletRequestWrapper {
+
+    private final String path;
+
+    private ScopedRequest(HttpServletRequest request, String path) {
+      super(request);
+      this.path = path;
+    }
+
+    @Override
+    public String getRequestURI() {
+      return getContextPath() + path;
+    }
+
+    @Override
+    public StringBuffer getRequestURL() {
+      StringBuffer url = new StringBuffer(super.getRequestURL());
+      url.setLength(url.length() - super.getRequestURI().length());
+      return url.append(getRequestURI());
+    }
+
+    @Override
+    public String getServletPath() {
+      // An empty servlet path means the dispatcher maps the whole request path, keep it that way
+      return super.getServletPath().isEmpty() ? "" : path;
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package com.db.awmd.challenge.tenant;
+
+import java.util.function.Function;
+
+/**
+ * Accounts of a tenant are stored under ids qualified with the tenant id ({@code tenant:accountId}), so stores, locks,
+ * the ledger and replication keep tenants apart without knowing about them. The namespace of the current request is
+ * bound to the thread by {@link TenantFilter}; ids are qualified as requests are read and unqualified as responses
+ * are written.
+ */
+public final class TenantNamespace {
+
+  public static final char SEPARATOR = ':';
+
+  // Bound for requests in the default namespace, as opposed to no binding at all outside requests
+  private static final String DEFAULT = "";
+
+  private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+  private TenantNamespace() {
+  }
+
+  /**
+   * @return the tenant of the current request, null in the default namespace or outside a request
+   */
+  public static String current() {
+    String tenant = CURRENT.get();
+    return tenant == null || tenant.isEmpty() ? null : tenant;
+  }
+
+  static void enter(String tenant) {
+    CURRENT.set(tenant == null ? DEFAULT : tenant);
+  }
+
+  static void exit() {
+    CURRENT.remove();
+  }
+
+  /**
+   * Wraps a function so that it runs in the namespace of the calling thread, for work handed to other threads.
+   */
+  public static <T, R> Function<T, R> bind(Function<T, R> function) {
+    String tenant = CURRENT.get();
+    return value -> {
+      String previous = CURRENT.get();
+      set(tenant);
+      try {
+        return function.apply(value);
+      } finally {
+        set(previous);
+      }
+    };
+  }
+
+  /**
+   * Maps an account id as sent by a client to the id it is stored under.
+   *
+   * @throws IllegalArgumentException when a request in the default namespace names an id inside a tenant namespace
+   */
+  public static String qualify(String accountId) {
+    String tenant = CURRENT.get();
+    if (tenant == null || accountId == null || accountId.isEmpty()) {
+      return accountId;
+    }
+    if (tenant.isEmpty()) {
+      if (accountId.indexOf(SEPARATOR) >= 0) {
+        throw new IllegalArgumentException("Account id " + accountId + " is reserved for tenant namespaces");
+      }
+      return accountId;
+    }
+    return tenant + SEPARATOR + accountId;
+  }
+
+  /**
+   * Maps a stored account id back to the id the current tenant knows it by.
+   */
+  public static String unqualify(String accountId) {
+    String tenant = current();
+    if (tenant == null || accountId == null || accountId.length() <= tenant.length()
+      || accountId.charAt(tenant.length()) != SEPARATOR || !accountId.startsWith(tenant)) {
+      return accountId;
+    }
+    return accountId.substring(tenant.length() + 1);
+  }
+
+  /**
+   * @return the tenant a stored account id belongs to, null for the default namespace
+   */
+  public static String tenantOf(String accountId) {
+    int separator = accountId == null ? -1 : accountId.indexOf(SEPARATOR);
+    return separator < 0 ? null : accountId.substring(0, separator);
+  }
+
+  /**
+   * @return whether the current request may see data of the given stored account id
+   */
+  public static boolean isVisible(String accountId) {
+    String tenant = CURRENT.get();
+    if (tenant == null) {
+      return true;
+    }
+    String owner = tenantOf(accountId);
+    return tenant.isEmpty() ? owner == null : tenant.equals(owner);
+  }
+
+  private static void set(String tenant) {
+    if (tenant == null) {
+      CURRENT.remove();
+    } else {
+      CURRENT.set(tenant);
+    }
+  }
+}
@@ -0,0 +1,13 @@
+package com.db.awmd.challenge.tenant;
+
+import lombok.Value;
+
+@Value
+public class TenantQuota {
+
+  long maxAccounts;
+  long maxTransfers;
+  double ratePerSecond;
+  double burst;
+  int initialCapacity;
+}
@@ -0,0 +1,171 @@
+package com.db.awmd.challenge.tenant;
+
+import com.db.awmd.challenge.domain.TenantStats;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.exception.QuotaExceededException;
+import com.db.awmd.challenge.service.TransferListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Tenants known to this node. Quotas default to {@code tenants.defaults.*} and can be overridden per tenant under
+ * {@code tenants.overrides.<tenant>}. Storage usage is reserved item by item before an account or transfer is
+ * created, so concurrent creations cannot overshoot the quota.
+ *
+ * Transfers are never deleted from the transfers repository, so {@code max-transfers} is a hard lifetime limit: a
+ * reservation is only given back when the creation it was taken for fails, or when all transfers are cleared.
+ * Evicting completed transfers from the query indexes frees no storage and keeps their reservation.
+ */
+@Component
+public class TenantRegistry implements TransferListener {
+
+  private static final Pattern TENANT_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+  private final Environment environment;
+
+  private final int maxTenants;
+
+  private final Map<String, TenantState> tenants = new ConcurrentHashMap<>();
+
+  @Autowired
+  public TenantRegistry(Environment environment, @Value("${tenants.max-tenants:1000}") int maxTenants) {
+    this.environment = environment;
+    this.maxTenants = maxTenants;
+  }
+
+  public static boolean isValidId(String tenant) {
+    return tenant != null && TENANT_ID.matcher(tenant).matches();
+  }
+
+  /**
+   * @return the tenant, registered with its quotas on first use, or null once the tenant limit is reached
+   */
+  public TenantState tenant(String tenant) {
+    TenantState state = tenants.get(tenant);
+    if (state == null && tenants.size() < maxTenants) {
+      state = tenants.computeIfAbsent(tenant, key -> new TenantState(key, quotaFor(key)));
+    }
+    return state;
+  }
+
+  public TenantState getTenant(String tenant) {
+    return tenants.get(tenant);
+  }
+
+  /**
+   * Initial size of the tenant's account store partition.
+   */
+  public int getPartitionCapacity(String tenant) {
+    TenantState state = tenant(tenant);
+    return state != null ? state.getQuota().getInitialCapacity() : quotaFor(tenant).getInitialCapacity();
+  }
+
+  public List<TenantStats> getStats() {
+    return tenants.values().stream().map(TenantState::getStats)
+      .sorted((left, right) -> left.getTenant().compareTo(right.getTenant()))
+      .collect(Collectors.toList());
+  }
+
+  /**
+   * Reserves storage for one more account of the tenant the stored id belongs to. Ids in the default namespace
+   * are not limited.
+   *
+   * @throws QuotaExceededException when the tenant already stores as many accounts as its quota allows
+   */
+  public void reserveAccount(String accountId) {
+    TenantState state = stateOf(accountId);
+    if (state != null && !state.tryReserveAccount()) {
+      throw overQuota(state);
+    }
+  }
+
+  /**
+   * Gives back a reservation whose account was not created after all.
+   */
+  public void releaseAccount(String accountId) {
+    TenantState state = stateOf(accountId);
+    if (state != null) {
+      state.releaseAccount();
+    }
+  }
+
+  /**
+   * Reserves storage for one more transfer of the tenant the sender belongs to, for as long as the transfer is
+   * stored.
+   *
+   * @throws QuotaExceededException when the tenant already stores as many transfers as its quota allows
+   */
+  public void reserveTransfer(String senderAccountId) {
+    TenantState state = stateOf(senderAccountId);
+    if (state != null && !state.tryReserveTransfer()) {
+      throw overQuota(state);
+    }
+  }
+
+  /**
+   * Gives back the reservation of a transfer that was not stored after all.
+   */
+  public void releaseTransfer(String senderAccountId) {
+    TenantState state = stateOf(senderAccountId);
+    if (state != null) {
+      state.releaseTransfer();
+    }
+  }
+
+  /**
+   * Charges the items of a bulk request against the throughput quota of the current tenant. {@link TenantFilter}
+   * admits each request for one token, so the first item is already paid for.
+   */
+  public void chargeBulkItems(int items) {
+    String tenant = TenantNamespace.current();
+    TenantState state = tenant == null ? null : tenant(tenant);
+    if (state != null && items > 1) {
+      state.charge(items - 1);
+    }
+  }
+
+  @Override
+  public void onCreated(Transfer transfer) {
+  }
+
+  @Override
+  public void onUpdated(Transfer transfer) {
+  }
+
+  @Override
+  public void onCleared() {
+    tenants.values().forEach(TenantState::transfersCleared);
+  }
+
+  private QuotaExceededException overQuota(TenantState state) {
+    return new QuotaExceededException("Storage quota exceeded for tenant " + state.getTenant());
+  }
+
+  private TenantState stateOf(String accountId) {
+    String tenant = TenantNamespace.tenantOf(accountId);
+    return tenant == null ? null : tenant(tenant);
+  }
+
+  private TenantQuota quotaFor(String tenant) {
+    String prefix = "tenants.overrides." + tenant + ".";
+    return new TenantQuota(
+      property(prefix, "max-accounts", Long.class, 100_000L),
+      property(prefix, "max-transfers", Long.class, 1_000_000L),
+      property(prefix, "rate-per-second", Double.class, 500d),
+      property(prefix, "burst", Double.class, 1000d),
+      property(prefix, "initial-capacity", Integer.class, 1024));
+  }
+
+  private <T> T property(String prefix, String name, Class<T> type, T defaultValue) {
+    T value = environment.getProperty("tenants.defaults." + name, type, defaultValue);
+    return environment.getProperty(prefix + name, type, value);
+  }
+}
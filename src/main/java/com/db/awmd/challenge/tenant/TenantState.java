@@ -0,0 +1,108 @@
+package com.db.awmd.challenge.tenant;
+
+import com.db.awmd.challenge.admission.TokenBucket;
+import com.db.awmd.challenge.domain.TenantStats;
+import com.db.awmd.challenge.metrics.LatencyHistogram;
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Quotas, usage and request metrics of one tenant.
+ */
+public class TenantState {
+
+  private static final int LATENCY_WINDOW_SECONDS = 60;
+
+  @Getter
+  private final String tenant;
+
+  @Getter
+  private final TenantQuota quota;
+
+  private final TokenBucket requestBucket;
+
+  private final AtomicLong accounts = new AtomicLong();
+  private final AtomicLong transfers = new AtomicLong();
+
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder throttled = new LongAdder();
+  private final LongAdder overQuota = new LongAdder();
+  private final LatencyHistogram latencies = new LatencyHistogram(LATENCY_WINDOW_SECONDS);
+
+  TenantState(String tenant, TenantQuota quota) {
+    this.tenant = tenant;
+    this.quota = quota;
+    this.requestBucket = new TokenBucket(quota.getRatePerSecond(), quota.getBurst());
+  }
+
+  /**
+   * @return 0 if the request fits the tenant's throughput quota, otherwise the milliseconds until it would
+   */
+  long tryAcquire() {
+    long waitMillis = requestBucket.tryAcquire();
+    if (waitMillis > 0) {
+      throttled.increment();
+    }
+    return waitMillis;
+  }
+
+  /**
+   * Charges items beyond the one token {@link #tryAcquire} took for their request.
+   */
+  void charge(int items) {
+    requestBucket.charge(items);
+  }
+
+  boolean tryReserveAccount() {
+    return tryReserve(accounts, quota.getMaxAccounts());
+  }
+
+  boolean tryReserveTransfer() {
+    return tryReserve(transfers, quota.getMaxTransfers());
+  }
+
+  void releaseAccount() {
+    accounts.decrementAndGet();
+  }
+
+  void releaseTransfer() {
+    transfers.decrementAndGet();
+  }
+
+  void recordRequest(long nanos) {
+    requests.increment();
+    latencies.record(nanos);
+  }
+
+  void transfersCleared() {
+    transfers.set(0);
+  }
+
+  public long getAccounts() {
+    return accounts.get();
+  }
+
+  public long getTransfers() {
+    return transfers.get();
+  }
+
+  private boolean tryReserve(AtomicLong usage, long max) {
+    long used;
+    do {
+      used = usage.get();
+      if (used >= max) {
+        overQuota.increment();
+        return false;
+      }
+    } while (!usage.compareAndSet(used, used + 1));
+    return true;
+  }
+
+  public TenantStats getStats() {
+    return new TenantStats(tenant, accounts.get(), quota.getMaxAccounts(), transfers.get(), quota.getMaxTransfers(),
+      requests.sum(), throttled.sum(), overQuota.sum(), latencies.getPercentileMicros(50),
+      latencies.getPercentileMicros(99));
+  }
+}
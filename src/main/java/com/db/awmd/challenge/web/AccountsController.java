@@ -1,8 +1,15 @@
 package com.db.awmd.challenge.web;
 
 import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.AccountImportResult;
 import com.db.awmd.challenge.exception.DuplicateAccountIdException;
+import com.db.awmd.challenge.exception.QuotaExceededException;
+import com.db.awmd.challenge.logging.LogSampler;
+import com.db.awmd.challenge.logging.RequestLogSampling;
+import com.db.awmd.challenge.service.AccountImportService;
 import com.db.awmd.challenge.service.AccountsService;
+import com.db.awmd.challenge.tenant.TenantNamespace;
+import com.db.awmd.challenge.web.binary.BinaryHttpMessageConverter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -10,37 +17,67 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.io.IOException;
 
 @RestController
 @RequestMapping("/v1/accounts")
 @Slf4j
 public class AccountsController {
 
+  public static final String NDJSON_VALUE = "application/x-ndjson";
+
   private final AccountsService accountsService;
 
+  private final AccountImportService accountImportService;
+
+  private final LogSampler createLog;
+
+  private final LogSampler retrieveLog;
+
   @Autowired
-  public AccountsController(AccountsService accountsService) {
+  public AccountsController(AccountsService accountsService, AccountImportService accountImportService,
+                            RequestLogSampling logSampling) {
     this.accountsService = accountsService;
+    this.accountImportService = accountImportService;
+    this.createLog = logSampling.sampler("accounts.create");
+    this.retrieveLog = logSampling.sampler("accounts.retrieve");
   }
 
-  @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+  @PostMapping(consumes = {MediaType.APPLICATION_JSON_VALUE, BinaryHttpMessageConverter.BINARY_VALUE})
   public ResponseEntity<Object> createAccount(@RequestBody @Valid Account account) {
-    log.info("Creating account {}", account);
+    if (log.isInfoEnabled() && createLog.sample()) {
+      log.info("Creating account id={}", account.getAccountId());
+    }
 
     try {
       this.accountsService.createAccount(account);
     } catch (DuplicateAccountIdException daie) {
+      log.warn("Account creation failed: {}", daie.getMessage());
       return new ResponseEntity<>(daie.getMessage(), HttpStatus.BAD_REQUEST);
+    } catch (QuotaExceededException qe) {
+      log.warn("Account creation rejected: {}", qe.getMessage());
+      return new ResponseEntity<>(qe.getMessage(), HttpStatus.INSUFFICIENT_STORAGE);
     }
 
     return new ResponseEntity<>(HttpStatus.CREATED);
   }
 
+  @PostMapping(path = "/bulk", consumes = NDJSON_VALUE)
+  public ResponseEntity<AccountImportResult> importAccounts(HttpServletRequest request) throws IOException {
+    log.info("Importing accounts in bulk");
+
+    AccountImportResult result = this.accountImportService.importAccounts(request.getReader());
+    return new ResponseEntity<>(result, HttpStatus.OK);
+  }
+
   @GetMapping(path = "/{accountId}")
   public Account getAccount(@PathVariable String accountId) {
-    log.info("Retrieving account for id {}", accountId);
-    return this.accountsService.getAccount(accountId);
+    if (log.isInfoEnabled() && retrieveLog.sample()) {
+      log.info("Retrieving account id={}", accountId);
+    }
+    return this.accountsService.getAccount(TenantNamespace.qualify(accountId));
   }
 
 }
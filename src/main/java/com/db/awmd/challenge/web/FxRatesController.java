@@ -0,0 +1,50 @@
+package com.db.awmd.challenge.web;
+
+import com.db.awmd.challenge.fx.RateTable;
+import com.db.awmd.challenge.service.FxRateService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/v1/fx/rates")
+@Slf4j
+public class FxRatesController {
+
+  private final FxRateService fxRateService;
+
+  @Autowired
+  public FxRatesController(FxRateService fxRateService) {
+    this.fxRateService = fxRateService;
+  }
+
+  @GetMapping
+  public Map<String, BigDecimal> getRates() {
+    return this.fxRateService.getRateTable().getRates();
+  }
+
+  @PutMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<Object> updateRates(@RequestBody Map<String, BigDecimal> ratesPerBase) {
+    log.info("Updating {} exchange rates", ratesPerBase.size());
+    try {
+      this.fxRateService.updateRates(ratesPerBase);
+    } catch (IllegalArgumentException | ArithmeticException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+    RateTable rateTable = this.fxRateService.getRateTable();
+    return new ResponseEntity<>(rateTable.getRates(), HttpStatus.OK);
+  }
+
+  @PostMapping(path = "/reload")
+  public ResponseEntity<Object> reloadRates() throws IOException {
+    this.fxRateService.loadConfiguredRates();
+    return new ResponseEntity<>(this.fxRateService.getRateTable().getRates(), HttpStatus.OK);
+  }
+}
@@ -0,0 +1,44 @@
+package com.db.awmd.challenge.web;
+
+import com.db.awmd.challenge.health.CheckResult;
+import com.db.awmd.challenge.health.ReadinessCheck;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/health")
+public class HealthController {
+
+  private final List<ReadinessCheck> readinessChecks;
+
+  @Autowired
+  public HealthController(List<ReadinessCheck> readinessChecks) {
+    this.readinessChecks = readinessChecks;
+  }
+
+  @GetMapping(path = "/live")
+  public Map<String, Object> live() {
+    return Collections.singletonMap("status", "UP");
+  }
+
+  @GetMapping(path = "/ready")
+  public ResponseEntity<Map<String, Object>> ready() {
+    List<CheckResult> results = readinessChecks.stream().map(ReadinessCheck::check).collect(Collectors.toList());
+    boolean ready = results.stream().allMatch(CheckResult::isReady);
+
+    Map<String, Object> body = new LinkedHashMap<>();
+    body.put("status", ready ? "UP" : "OUT_OF_SERVICE");
+    body.put("checks", results);
+    return new ResponseEntity<>(body, ready ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE);
+  }
+}
@@ -0,0 +1,84 @@
+package com.db.awmd.challenge.web;
+
+import com.db.awmd.challenge.domain.Hold;
+import com.db.awmd.challenge.domain.HoldRequest;
+import com.db.awmd.challenge.exception.AccountNotFoundException;
+import com.db.awmd.challenge.exception.HoldNotFoundException;
+import com.db.awmd.challenge.exception.InsufficientFundsException;
+import com.db.awmd.challenge.exception.InvalidHoldException;
+import com.db.awmd.challenge.service.HoldsService;
+import com.db.awmd.challenge.tenant.TenantNamespace;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+import java.math.BigDecimal;
+import java.util.List;
+
+@RestController
+@RequestMapping("/v1/accounts/{accountId}/holds")
+@Slf4j
+public class HoldsController {
+
+  private final HoldsService holdsService;
+
+  @Autowired
+  public HoldsController(HoldsService holdsService) {
+    this.holdsService = holdsService;
+  }
+
+  @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<Object> placeHold(@PathVariable String accountId, @RequestBody @Valid HoldRequest request) {
+    try {
+      return new ResponseEntity<>(this.holdsService.placeHold(TenantNamespace.qualify(accountId), request.getAmount(),
+        request.getExpiresAt()), HttpStatus.CREATED);
+    } catch (InsufficientFundsException | AccountNotFoundException e) {
+      log.warn("Hold on account {} failed: {}", accountId, e.getMessage());
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+  }
+
+  @PostMapping(path = "/{holdId}/capture")
+  public ResponseEntity<Object> captureHold(@PathVariable String accountId, @PathVariable Long holdId,
+                                            @RequestParam(required = false) BigDecimal amount) {
+    try {
+      return new ResponseEntity<>(this.holdsService.captureHold(TenantNamespace.qualify(accountId), holdId, amount),
+        HttpStatus.OK);
+    } catch (HoldNotFoundException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+    } catch (InvalidHoldException | AccountNotFoundException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+  }
+
+  @PostMapping(path = "/{holdId}/release")
+  public ResponseEntity<Object> releaseHold(@PathVariable String accountId, @PathVariable Long holdId) {
+    try {
+      return new ResponseEntity<>(this.holdsService.releaseHold(TenantNamespace.qualify(accountId), holdId),
+        HttpStatus.OK);
+    } catch (HoldNotFoundException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+    } catch (InvalidHoldException | AccountNotFoundException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+  }
+
+  @GetMapping(path = "/{holdId}")
+  public ResponseEntity<Object> getHold(@PathVariable String accountId, @PathVariable Long holdId) {
+    try {
+      return new ResponseEntity<>(this.holdsService.getHold(TenantNamespace.qualify(accountId), holdId),
+        HttpStatus.OK);
+    } catch (HoldNotFoundException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+    }
+  }
+
+  @GetMapping
+  public List<Hold> getHolds(@PathVariable String accountId) {
+    return this.holdsService.getHolds(TenantNamespace.qualify(accountId));
+  }
+}
@@ -0,0 +1,25 @@
+package com.db.awmd.challenge.web;
+
+import com.db.awmd.challenge.domain.LaneStats;
+import com.db.awmd.challenge.lanes.LaneScheduler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/v1/lanes")
+public class LanesController {
+
+  private final LaneScheduler laneScheduler;
+
+  @Autowired
+  public LanesController(LaneScheduler laneScheduler) {
+    this.laneScheduler = laneScheduler;
+  }
+
+  @GetMapping(path = "/stats")
+  public List<LaneStats> getStats() {
+    return laneScheduler.getStats();
+  }
+}
@@ -0,0 +1,44 @@
+package com.db.awmd.challenge.web;
+
+import com.db.awmd.challenge.domain.LedgerEntry;
+import com.db.awmd.challenge.domain.ReplayResult;
+import com.db.awmd.challenge.exception.ReplayRejectedException;
+import com.db.awmd.challenge.service.LedgerService;
+import com.db.awmd.challenge.tenant.TenantNamespace;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/v1/ledger")
+@Slf4j
+public class LedgerController {
+
+  private final LedgerService ledgerService;
+
+  @Autowired
+  public LedgerController(LedgerService ledgerService) {
+    this.ledgerService = ledgerService;
+  }
+
+  @GetMapping(path = "/{accountId}")
+  public List<LedgerEntry> getEntries(@PathVariable String accountId) {
+    return this.ledgerService.getEntries(TenantNamespace.qualify(accountId));
+  }
+
+  @PostMapping(path = "/replay")
+  public ResponseEntity<ReplayResult> replay(@RequestParam(defaultValue = "false") boolean apply)
+    throws InterruptedException {
+    log.info("Replaying ledger, apply {}", apply);
+    try {
+      return new ResponseEntity<>(this.ledgerService.replay(apply), HttpStatus.OK);
+    } catch (ReplayRejectedException e) {
+      log.warn(e.getMessage());
+      return new ResponseEntity<>(HttpStatus.CONFLICT);
+    }
+  }
+}
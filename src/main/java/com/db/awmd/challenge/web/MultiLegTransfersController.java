@@ -0,0 +1,61 @@
+package com.db.awmd.challenge.web;
+
+import com.db.awmd.challenge.domain.MultiLegTransfer;
+import com.db.awmd.challenge.exception.AccountNotFoundException;
+import com.db.awmd.challenge.exception.InsufficientFundsException;
+import com.db.awmd.challenge.exception.InvalidTransferException;
+import com.db.awmd.challenge.exception.QuotaExceededException;
+import com.db.awmd.challenge.exception.TransferLimitExceededException;
+import com.db.awmd.challenge.exception.UnsupportedCurrencyException;
+import com.db.awmd.challenge.service.MultiLegTransfersService;
+import com.db.awmd.challenge.tenant.TenantNamespace;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+
+@RestController
+@RequestMapping("/v1/transfers/multi-leg")
+@Slf4j
+public class MultiLegTransfersController {
+
+  private final MultiLegTransfersService multiLegTransfersService;
+
+  @Autowired
+  public MultiLegTransfersController(MultiLegTransfersService multiLegTransfersService) {
+    this.multiLegTransfersService = multiLegTransfersService;
+  }
+
+  @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<MultiLegTransfer> executeTransfer(@RequestBody @Valid MultiLegTransfer transfer) {
+    log.info("Creating multi-leg transfer id={} with {} debits and {} credits", transfer.getTransferId(),
+      transfer.getDebits().size(), transfer.getCredits().size());
+    try {
+      this.multiLegTransfersService.executeTransfer(transfer);
+    } catch (InsufficientFundsException | AccountNotFoundException | UnsupportedCurrencyException
+      | InvalidTransferException e) {
+      log.warn("Multi-leg transfer {} failed: {}", transfer.getTransferId(), e.getMessage());
+      return new ResponseEntity<>(transfer, HttpStatus.BAD_REQUEST);
+    } catch (TransferLimitExceededException le) {
+      log.warn("Multi-leg transfer {} rejected by limits: {}", transfer.getTransferId(), le.getMessage());
+      return new ResponseEntity<>(transfer, HttpStatus.UNPROCESSABLE_ENTITY);
+    } catch (QuotaExceededException qe) {
+      log.warn("Multi-leg transfer {} rejected: {}", transfer.getTransferId(), qe.getMessage());
+      return new ResponseEntity<>(transfer, HttpStatus.INSUFFICIENT_STORAGE);
+    }
+    return new ResponseEntity<>(transfer, HttpStatus.CREATED);
+  }
+
+  @GetMapping(path = "/{transferId}")
+  public ResponseEntity<MultiLegTransfer> getTransfer(@PathVariable Long transferId) {
+    MultiLegTransfer transfer = this.multiLegTransfersService.getTransfer(transferId);
+    if (transfer == null || !TenantNamespace.isVisible(transfer.getDebits().get(0).getAccountId())) {
+      return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+    return new ResponseEntity<>(transfer, HttpStatus.OK);
+  }
+}
@@ -0,0 +1,30 @@
+package com.db.awmd.challenge.web;
+
+import com.db.awmd.challenge.domain.OutboxStatus;
+import com.db.awmd.challenge.outbox.OutboxRelay;
+import com.db.awmd.challenge.outbox.TransferOutbox;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.TreeMap;
+
+@RestController
+@RequestMapping("/v1/outbox")
+public class OutboxController {
+
+  private final TransferOutbox transferOutbox;
+
+  private final OutboxRelay outboxRelay;
+
+  @Autowired
+  public OutboxController(TransferOutbox transferOutbox, OutboxRelay outboxRelay) {
+    this.transferOutbox = transferOutbox;
+    this.outboxRelay = outboxRelay;
+  }
+
+  @GetMapping(path = "/status")
+  public OutboxStatus getStatus() {
+    return new OutboxStatus(transferOutbox.getHeadOffset(), transferOutbox.getRetainedCount(),
+      new TreeMap<>(outboxRelay.getCheckpoints()), outboxRelay.getExportedBatches(), outboxRelay.getFailedExports());
+  }
+}
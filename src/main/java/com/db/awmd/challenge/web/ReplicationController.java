@@ -0,0 +1,44 @@
+package com.db.awmd.challenge.web;
+
+import com.db.awmd.challenge.domain.ReplicationStatus;
+import com.db.awmd.challenge.replication.ReplicationReceiver;
+import com.db.awmd.challenge.replication.ReplicationRole;
+import com.db.awmd.challenge.replication.ReplicationSender;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/v1/replication")
+@Slf4j
+public class ReplicationController {
+
+  private final ReplicationSender replicationSender;
+
+  private final ReplicationReceiver replicationReceiver;
+
+  @Autowired
+  public ReplicationController(ReplicationSender replicationSender, ReplicationReceiver replicationReceiver) {
+    this.replicationSender = replicationSender;
+    this.replicationReceiver = replicationReceiver;
+  }
+
+  @GetMapping(path = "/status")
+  public ReplicationStatus getStatus() {
+    ReplicationRole role = replicationSender.isActive() ? ReplicationRole.PRIMARY
+      : replicationReceiver.isFollower() ? ReplicationRole.FOLLOWER : ReplicationRole.STANDALONE;
+    long sequence = replicationSender.getSequence();
+    long acknowledged = replicationSender.getAcknowledgedSequence();
+    return new ReplicationStatus(role.name(), replicationSender.isConnected(), replicationSender.isDiverged(),
+      sequence, acknowledged, sequence - acknowledged, replicationSender.getLagMillis(),
+      replicationSender.getUnconfirmedSyncEvents(), replicationReceiver.getAppliedSequence(),
+      replicationReceiver.getLastAppliedAt());
+  }
+
+  @PostMapping(path = "/promote")
+  public ReplicationStatus promote() {
+    log.warn("Promotion requested");
+    replicationReceiver.promote();
+    return getStatus();
+  }
+}
@@ -0,0 +1,45 @@
+package com.db.awmd.challenge.web;
+
+import com.db.awmd.challenge.domain.ReportResult;
+import com.db.awmd.challenge.report.ReportFormat;
+import com.db.awmd.challenge.service.ReportService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+@RestController
+@RequestMapping("/v1/reports")
+@Slf4j
+public class ReportsController {
+
+  private final ReportService reportService;
+
+  @Autowired
+  public ReportsController(ReportService reportService) {
+    this.reportService = reportService;
+  }
+
+  @PostMapping(path = "/end-of-day")
+  public ResponseEntity<Object> generateEndOfDay(@RequestParam(required = false) String date,
+                                                 @RequestParam(defaultValue = "csv") String format)
+    throws IOException, InterruptedException {
+    LocalDate reportDate;
+    ReportFormat reportFormat;
+    try {
+      reportDate = date == null ? this.reportService.today() : LocalDate.parse(date);
+      reportFormat = ReportFormat.valueOf(format.toUpperCase());
+    } catch (DateTimeParseException | IllegalArgumentException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    log.info("Generating end-of-day report for {} as {}", reportDate, reportFormat);
+    ReportResult result = this.reportService.generateEndOfDay(reportDate, reportFormat);
+    return new ResponseEntity<>(result, HttpStatus.OK);
+  }
+}
@@ -0,0 +1,41 @@
+package com.db.awmd.challenge.web;
+
+import com.db.awmd.challenge.domain.ShardStats;
+import com.db.awmd.challenge.repository.AccountsRepositorySharded;
+import com.db.awmd.challenge.repository.TransfersRepositorySharded;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Per-shard sizes and access counts of the sharded repositories, only mapped when {@code repository.type} is
+ * {@code sharded}.
+ */
+@RestController
+@RequestMapping("/v1/shards")
+@ConditionalOnProperty(name = "repository.type", havingValue = "sharded")
+public class ShardsController {
+
+  private final AccountsRepositorySharded accountsRepository;
+
+  private final TransfersRepositorySharded transfersRepository;
+
+  @Autowired
+  public ShardsController(AccountsRepositorySharded accountsRepository,
+                          TransfersRepositorySharded transfersRepository) {
+    this.accountsRepository = accountsRepository;
+    this.transfersRepository = transfersRepository;
+  }
+
+  @GetMapping(path = "/accounts")
+  public List<ShardStats> getAccountShards() {
+    return accountsRepository.getShardStats();
+  }
+
+  @GetMapping(path = "/transfers")
+  public List<ShardStats> getTransferShards() {
+    return transfersRepository.getShardStats();
+  }
+}
@@ -0,0 +1,37 @@
+package com.db.awmd.challenge.web;
+
+import com.db.awmd.challenge.domain.TenantStats;
+import com.db.awmd.challenge.tenant.TenantRegistry;
+import com.db.awmd.challenge.tenant.TenantState;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/v1/tenants")
+public class TenantsController {
+
+  private final TenantRegistry tenantRegistry;
+
+  @Autowired
+  public TenantsController(TenantRegistry tenantRegistry) {
+    this.tenantRegistry = tenantRegistry;
+  }
+
+  @GetMapping
+  public List<TenantStats> getStats() {
+    return tenantRegistry.getStats();
+  }
+
+  @GetMapping(path = "/{tenant}")
+  public ResponseEntity<TenantStats> getStats(@PathVariable String tenant) {
+    TenantState state = tenantRegistry.getTenant(tenant);
+    if (state == null) {
+      return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+    return new ResponseEntity<>(state.getStats(), HttpStatus.OK);
+  }
+}
@@ -1,18 +1,35 @@
 package com.db.awmd.challenge.web;
 
+import com.db.awmd.challenge.domain.EngineStats;
 import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.domain.TransferAggregate;
+import com.db.awmd.challenge.domain.TransferRollup;
 import com.db.awmd.challenge.exception.AccountNotFoundException;
 import com.db.awmd.challenge.exception.InsufficientFundsException;
+import com.db.awmd.challenge.exception.QuotaExceededException;
+import com.db.awmd.challenge.exception.TransferLimitExceededException;
+import com.db.awmd.challenge.exception.UnsupportedCurrencyException;
+import com.db.awmd.challenge.logging.LogSampler;
+import com.db.awmd.challenge.logging.RequestLogSampling;
+import com.db.awmd.challenge.metrics.TransferMetrics;
+import com.db.awmd.challenge.service.AsyncTransferService;
+import com.db.awmd.challenge.service.TransferQueryService;
+import com.db.awmd.challenge.service.TransferScheduler;
 import com.db.awmd.challenge.service.TransfersService;
+import com.db.awmd.challenge.tenant.TenantNamespace;
+import com.db.awmd.challenge.web.binary.BinaryHttpMessageConverter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import javax.validation.Valid;
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/v1/transfers")
@@ -21,39 +38,154 @@ public class TransfersController {
 
   private final TransfersService transfersService;
 
+  private final TransferScheduler transferScheduler;
+
+  private final TransferQueryService transferQueryService;
+
+  private final AsyncTransferService asyncTransferService;
+
+  private final TransferMetrics transferMetrics;
+
+  private final LogSampler createLog;
+
+  private final LogSampler retrieveLog;
+
   @Autowired
-  public TransfersController(TransfersService transfersService) {
+  public TransfersController(TransfersService transfersService, TransferScheduler transferScheduler,
+                             TransferQueryService transferQueryService, AsyncTransferService asyncTransferService,
+                             TransferMetrics transferMetrics, RequestLogSampling logSampling) {
     this.transfersService = transfersService;
+    this.transferScheduler = transferScheduler;
+    this.transferQueryService = transferQueryService;
+    this.asyncTransferService = asyncTransferService;
+    this.transferMetrics = transferMetrics;
+    this.createLog = logSampling.sampler("transfers.create");
+    this.retrieveLog = logSampling.sampler("transfers.retrieve");
   }
 
-  @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+  @PostMapping(consumes = {MediaType.APPLICATION_JSON_VALUE, BinaryHttpMessageConverter.BINARY_VALUE})
   public @ResponseBody
-  ResponseEntity<Transfer> executeTransfer(@RequestBody @Valid Transfer transfer) {
-    log.info("Creating transfer {}", transfer);
+  ResponseEntity<Transfer> executeTransfer(@RequestBody @Valid Transfer transfer,
+                                          @RequestParam(required = false) Boolean async) {
+    if (log.isInfoEnabled() && createLog.sample()) {
+      log.info("Creating transfer id={} sender={} receiver={} amount={}", transfer.getTransferId(),
+        transfer.getSenderAccountId(), transfer.getReceiverAccountId(), transfer.getAmount());
+    }
+
+    if (transfer.isScheduled()) {
+      try {
+        this.transferScheduler.scheduleTransfer(transfer);
+      } catch (AccountNotFoundException e) {
+        log.warn("Scheduled transfer rejected: {}", e.getMessage());
+        transfer.setFailureCause(e.getMessage());
+        transfer.setStatus(Transfer.Status.FAILED);
+        return new ResponseEntity<>(transfer, HttpStatus.BAD_REQUEST);
+      } catch (QuotaExceededException qe) {
+        return overQuota(transfer);
+      }
+      return new ResponseEntity<>(transfer, HttpStatus.ACCEPTED);
+    }
+
+    if (async != null ? async : this.asyncTransferService.isAsyncByDefault()) {
+      try {
+        this.asyncTransferService.acceptTransfer(transfer);
+      } catch (QuotaExceededException qe) {
+        return overQuota(transfer);
+      }
+      return ResponseEntity.accepted()
+        .location(ServletUriComponentsBuilder.fromCurrentContextPath().path("/v1/transfers/{transferId}")
+          .buildAndExpand(transfer.getTransferId()).toUri())
+        .body(transfer);
+    }
 
     try {
       this.transfersService.createTransfer(transfer);
       this.transfersService.executeTransfer(transfer);
-    } catch (InsufficientFundsException | AccountNotFoundException te) {
+    } catch (InsufficientFundsException | AccountNotFoundException | UnsupportedCurrencyException te) {
+      log.warn("Transfer failed {}", transfer);
       return new ResponseEntity<>(transfer, HttpStatus.BAD_REQUEST);
+    } catch (TransferLimitExceededException le) {
+      log.warn("Transfer rejected by limits {}", transfer);
+      return new ResponseEntity<>(transfer, HttpStatus.UNPROCESSABLE_ENTITY);
+    } catch (QuotaExceededException qe) {
+      return overQuota(transfer);
     }
 
     return new ResponseEntity<>(transfer, HttpStatus.CREATED);
 
   }
 
+  private ResponseEntity<Transfer> overQuota(Transfer transfer) {
+    log.warn("Transfer rejected by storage quota {}", transfer);
+    return new ResponseEntity<>(transfer, HttpStatus.INSUFFICIENT_STORAGE);
+  }
+
+  @PostMapping(path = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+  public @ResponseBody
+  ResponseEntity<List<Transfer>> executeTransfers(@RequestBody List<Transfer> transfers,
+                                                  @RequestParam(defaultValue = "false") boolean netting) {
+    log.info("Creating batch of {} transfers, netting {}", transfers.size(), netting);
+    if (transfers.contains(null)) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+
+    return new ResponseEntity<>(this.transfersService.executeTransfers(transfers, netting), HttpStatus.OK);
+  }
+
   @GetMapping(path = "/{transferId}")
   public @ResponseBody
   Transfer getTransfer(@PathVariable Long transferId) {
-    log.info("Retrieving transfer for id {}", transferId);
+    if (log.isInfoEnabled() && retrieveLog.sample()) {
+      log.info("Retrieving transfer id={}", transferId);
+    }
+
+    Transfer transfer = this.transfersService.getTransfer(transferId);
+    return transfer != null && TenantNamespace.isVisible(transfer.getSenderAccountId()) ? transfer : null;
+  }
+
+  @GetMapping(path = "/query")
+  public ResponseEntity<Object> queryTransfers(@RequestParam(required = false) String status,
+                                               @RequestParam(required = false) Long since,
+                                               @RequestParam(required = false) Long until,
+                                               @RequestParam(required = false) Long withinSeconds,
+                                               @RequestParam(required = false) BigDecimal minAmount,
+                                               @RequestParam(required = false) BigDecimal maxAmount,
+                                               @RequestParam(defaultValue = "100") int limit) {
+    Transfer.Status transferStatus;
+    try {
+      transferStatus = status == null ? null : Transfer.Status.valueOf(status.toUpperCase());
+    } catch (IllegalArgumentException e) {
+      return new ResponseEntity<>("Unknown transfer status " + status, HttpStatus.BAD_REQUEST);
+    }
+    if (withinSeconds != null) {
+      since = System.currentTimeMillis() - withinSeconds * 1000;
+    }
+    return new ResponseEntity<>(this.transferQueryService.query(transferStatus, since, until, minAmount, maxAmount,
+      limit), HttpStatus.OK);
+  }
+
+  // Aggregates cover every tenant; tenants cannot reach them, see TenantFilter
+  @GetMapping(path = "/stats")
+  public List<TransferAggregate> getTransferStats() {
+    return this.transferQueryService.getTotals();
+  }
+
+  @GetMapping(path = "/stats/engine")
+  public EngineStats getEngineStats() {
+    return this.transferMetrics.getEngineStats();
+  }
 
-    return this.transfersService.getTransfer(transferId);
+  @GetMapping(path = "/stats/rollups")
+  public List<TransferRollup> getTransferRollups(@RequestParam(defaultValue = "3600") long withinSeconds) {
+    return this.transferQueryService.getRollups(System.currentTimeMillis() - withinSeconds * 1000);
   }
 
   @GetMapping
   public @ResponseBody
   List<Transfer> getTransfers() {
-    return this.transfersService.getTransfer();
+    return this.transfersService.getTransfer().stream()
+      .filter(transfer -> TenantNamespace.isVisible(transfer.getSenderAccountId()))
+      .collect(Collectors.toList());
   }
 
 }
@@ -0,0 +1,189 @@
+package com.db.awmd.challenge.web.binary;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.tenant.TenantNamespace;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Length-prefixed binary encoding of accounts and transfers for internal machine clients.
+ * <p>
+ * Every message is a frame of {@code [int32 length][int8 type][fields...]}, big-endian. Strings are
+ * {@code [int32 length][utf-8 bytes]} and decimals {@code [int32 scale][int32 length][unscaled bytes]};
+ * a length of -1 encodes null. Nullable longs are {@code [int8 present][int64 value]}.
+ */
+public final class BinaryCodec {
+
+  public static final byte ACCOUNT = 1;
+  public static final byte TRANSFER = 2;
+
+  private static final int NULL_LENGTH = -1;
+
+  private BinaryCodec() {
+  }
+
+  public static ByteBuffer encode(Account account) {
+    byte[] accountId = bytes(TenantNamespace.unqualify(account.getAccountId()));
+    byte[] balance = unscaled(account.getBalance());
+    byte[] currency = bytes(account.getCurrency());
+
+    ByteBuffer buffer = ByteBuffer.allocate(4 + 1 + sizeOf(accountId) + sizeOf(balance) + 4 + sizeOf(currency));
+    buffer.putInt(buffer.capacity() - 4);
+    buffer.put(ACCOUNT);
+    putBytes(buffer, accountId);
+    putDecimal(buffer, account.getBalance(), balance);
+    putBytes(buffer, currency);
+    buffer.flip();
+    return buffer;
+  }
+
+  public static ByteBuffer encode(Transfer transfer) {
+    byte[] sender = bytes(TenantNamespace.unqualify(transfer.getSenderAccountId()));
+    byte[] receiver = bytes(TenantNamespace.unqualify(transfer.getReceiverAccountId()));
+    byte[] amount = unscaled(transfer.getAmount());
+    byte[] failureCause = bytes(transfer.getFailureCause());
+
+    ByteBuffer buffer = ByteBuffer.allocate(4 + 1 + 8 + sizeOf(sender) + sizeOf(receiver) + sizeOf(amount) + 4
+      + 9 + 1 + sizeOf(failureCause));
+    buffer.putInt(buffer.capacity() - 4);
+    buffer.put(TRANSFER);
+    buffer.putLong(transfer.getTransferId());
+    putBytes(buffer, sender);
+    putBytes(buffer, receiver);
+    putDecimal(buffer, transfer.getAmount(), amount);
+    putNullableLong(buffer, transfer.getExecuteAt());
+    buffer.put(transfer.getStatus() == null ? -1 : (byte) transfer.getStatus().ordinal());
+    putBytes(buffer, failureCause);
+    buffer.flip();
+    return buffer;
+  }
+
+  public static Account decodeAccount(ByteBuffer buffer) {
+    readHeader(buffer, ACCOUNT);
+    return new Account(TenantNamespace.qualify(getString(buffer)), getDecimal(buffer), getString(buffer));
+  }
+
+  /**
+   * Decodes a submitted transfer. As with JSON submission, the transfer id, status and failure cause are always
+   * assigned by the server, so only the requested fields are read and the rest of the frame is skipped.
+   */
+  public static Transfer decodeTransfer(ByteBuffer buffer) {
+    readHeader(buffer, TRANSFER);
+    buffer.getLong();
+    Transfer transfer = new Transfer(TenantNamespace.qualify(getString(buffer)), TenantNamespace.qualify(getString(buffer)),
+      getDecimal(buffer), getNullableLong(buffer));
+    buffer.get();
+    skipBytes(buffer);
+    return transfer;
+  }
+
+  /**
+   * Decodes a transfer returned by the server, including its outcome.
+   */
+  public static Transfer decodeTransferResult(ByteBuffer buffer) {
+    readHeader(buffer, TRANSFER);
+    Transfer transfer = new Transfer(buffer.getLong(), getString(buffer), getString(buffer), getDecimal(buffer),
+      getNullableLong(buffer));
+    byte status = buffer.get();
+    if (status < -1 || status >= Transfer.Status.values().length) {
+      throw new IllegalArgumentException("Unknown transfer status " + status);
+    }
+    if (status >= 0) {
+      transfer.setStatus(Transfer.Status.values()[status]);
+    }
+    transfer.setFailureCause(getString(buffer));
+    return transfer;
+  }
+
+  private static void readHeader(ByteBuffer buffer, byte expectedType) {
+    int length = buffer.getInt();
+    if (length != buffer.remaining()) {
+      throw new IllegalArgumentException("Frame length " + length + " does not match " + buffer.remaining() + " bytes");
+    }
+    byte type = buffer.get();
+    if (type != expectedType) {
+      throw new IllegalArgumentException("Unexpected message type " + type);
+    }
+  }
+
+  private static byte[] bytes(String value) {
+    return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static byte[] unscaled(BigDecimal value) {
+    return value == null ? null : value.unscaledValue().toByteArray();
+  }
+
+  private static int sizeOf(byte[] value) {
+    return 4 + (value == null ? 0 : value.length);
+  }
+
+  private static void putBytes(ByteBuffer buffer, byte[] value) {
+    if (value == null) {
+      buffer.putInt(NULL_LENGTH);
+    } else {
+      buffer.putInt(value.length);
+      buffer.put(value);
+    }
+  }
+
+  private static void putDecimal(ByteBuffer buffer, BigDecimal value, byte[] unscaled) {
+    buffer.putInt(value == null ? 0 : value.scale());
+    putBytes(buffer, unscaled);
+  }
+
+  private static void putNullableLong(ByteBuffer buffer, Long value) {
+    buffer.put(value == null ? (byte) 0 : (byte) 1);
+    buffer.putLong(value == null ? 0L : value);
+  }
+
+  /**
+   * Reads a length prefix, rejecting lengths the frame cannot hold before anything is allocated for them.
+   */
+  private static int getLength(ByteBuffer buffer) {
+    int length = buffer.getInt();
+    if (length != NULL_LENGTH && (length < 0 || length > buffer.remaining())) {
+      throw new IllegalArgumentException("Field length " + length + " exceeds the " + buffer.remaining()
+        + " bytes left in the frame");
+    }
+    return length;
+  }
+
+  private static void skipBytes(ByteBuffer buffer) {
+    int length = getLength(buffer);
+    if (length != NULL_LENGTH) {
+      buffer.position(buffer.position() + length);
+    }
+  }
+
+  private static String getString(ByteBuffer buffer) {
+    int length = getLength(buffer);
+    if (length == NULL_LENGTH) {
+      return null;
+    }
+    String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+    buffer.position(buffer.position() + length);
+    return value;
+  }
+
+  private static BigDecimal getDecimal(ByteBuffer buffer) {
+    int scale = buffer.getInt();
+    int length = getLength(buffer);
+    if (length == NULL_LENGTH) {
+      return null;
+    }
+    byte[] unscaled = new byte[length];
+    buffer.get(unscaled);
+    return new BigDecimal(new BigInteger(unscaled), scale);
+  }
+
+  private static Long getNullableLong(ByteBuffer buffer) {
+    boolean present = buffer.get() != 0;
+    long value = buffer.getLong();
+    return present ? value : null;
+  }
+}
@@ -0,0 +1,51 @@
+package com.db.awmd.challenge.web.binary;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Transfer;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public class BinaryHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+  public static final String BINARY_VALUE = "application/x-bank-binary";
+
+  public static final MediaType BINARY = MediaType.valueOf(BINARY_VALUE);
+
+  public BinaryHttpMessageConverter() {
+    super(BINARY);
+  }
+
+  @Override
+  protected boolean supports(Class<?> clazz) {
+    return Account.class == clazz || Transfer.class == clazz;
+  }
+
+  @Override
+  protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(StreamUtils.copyToByteArray(inputMessage.getBody()));
+    try {
+      return clazz == Account.class ? BinaryCodec.decodeAccount(buffer) : BinaryCodec.decodeTransfer(buffer);
+    } catch (RuntimeException r) {
+      throw new HttpMessageNotReadableException("Malformed binary message: " + r.getMessage(), r);
+    }
+  }
+
+  @Override
+  protected void writeInternal(Object value, HttpOutputMessage outputMessage) throws IOException {
+    ByteBuffer buffer = value instanceof Account
+      ? BinaryCodec.encode((Account) value) : BinaryCodec.encode((Transfer) value);
+    outputMessage.getBody().write(buffer.array(), buffer.arrayOffset(), buffer.remaining());
+  }
+
+  @Override
+  protected Long getContentLength(Object value, MediaType contentType) {
+    return null;
+  }
+}
@@ -19,6 +19,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.setup.MockMvcBuilders.webAppContextSetup;
 
@@ -102,4 +103,31 @@ public class AccountsControllerTest {
       .andExpect(
         content().string("{\"accountId\":\"" + uniqueAccountId + "\",\"balance\":123.45}"));
   }
+
+  @Test
+  public void importAccounts() throws Exception {
+    this.accountsService.createAccount(new Account("Id-Existing", new BigDecimal("10")));
+
+    String body = "{\"accountId\":\"Id-1\",\"balance\":100}\n"
+      + "{\"accountId\":\"Id-2\",\"balance\":200}\n"
+      + "\n"
+      + "{\"accountId\":\"Id-Existing\",\"balance\":300}\n"
+      + "{\"accountId\":\"Id-3\",\"balance\":-1}\n"
+      + "{\"accountId\":\"Id-4\",\"balance\n"
+      + "{\"accountId\":\"Id-1\",\"balance\":400}\n";
+
+    this.mockMvc.perform(post("/v1/accounts/bulk").contentType("application/x-ndjson").content(body))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.imported").value(2))
+      .andExpect(jsonPath("$.duplicateCount").value(2))
+      .andExpect(jsonPath("$.duplicates[0]").value("Id-Existing"))
+      .andExpect(jsonPath("$.duplicates[1]").value("Id-1"))
+      .andExpect(jsonPath("$.invalidCount").value(2));
+
+    assertThat(accountsService.getAccount("Id-1").getBalance()).isEqualByComparingTo("100");
+    assertThat(accountsService.getAccount("Id-2").getBalance()).isEqualByComparingTo("200");
+    assertThat(accountsService.getAccount("Id-Existing").getBalance()).isEqualByComparingTo("10");
+    assertThat(accountsService.getAccount("Id-3")).isNull();
+    assertThat(accountsService.getAccount("Id-4")).isNull();
+  }
 }
@@ -0,0 +1,109 @@
+package com.db.awmd.challenge;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.engine.ActorTransferEngine;
+import com.db.awmd.challenge.exception.InsufficientFundsException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class ActorTransferEngineTest {
+
+  private ActorTransferEngine engine;
+
+  @Before
+  public void startEngine() {
+    engine = new ActorTransferEngine(4, 64);
+  }
+
+  @After
+  public void stopEngine() {
+    engine.stop();
+  }
+
+  @Test
+  public void failedDebitLeavesBothAccountsUntouched() {
+    Account sender = new Account("ID-1", new BigDecimal("50"));
+    Account receiver = new Account("ID-2", new BigDecimal("0"));
+
+    try {
+      engine.transfer(sender, receiver, new BigDecimal("60"), new BigDecimal("60"));
+      fail("Should have failed on insufficient funds");
+    } catch (InsufficientFundsException e) {
+      assertThat(e.getMessage()).contains("ID-1");
+    }
+
+    assertThat(sender.getBalance()).isEqualByComparingTo("50");
+    assertThat(receiver.getBalance()).isEqualByComparingTo("0");
+  }
+
+  @Test
+  public void failedCreditIsCompensated() {
+    Account sender = new Account("ID-1", new BigDecimal("50"));
+    Account receiver = new Account("ID-2", new BigDecimal("0"));
+
+    CompletableFuture<Void> result = engine.transferAsync(sender, receiver, new BigDecimal("20"), null);
+    try {
+      result.join();
+      fail("Should have failed on the credit");
+    } catch (CompletionException e) {
+      assertThat(e.getCause()).isInstanceOf(NullPointerException.class);
+    }
+
+    assertThat(sender.getBalance()).isEqualByComparingTo("50");
+    assertThat(receiver.getBalance()).isEqualByComparingTo("0");
+
+    // The receiver's mailbox keeps working after the failed credit
+    engine.transfer(sender, receiver, new BigDecimal("20"), new BigDecimal("20"));
+    assertThat(receiver.getBalance()).isEqualByComparingTo("20");
+  }
+
+  @Test
+  public void concurrentTransfersConserveFunds() throws Exception {
+    List<Account> accounts = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      accounts.add(new Account("ID-" + i, new BigDecimal("1000")));
+    }
+    // One hot receiver takes a credit from every transfer
+    Account hot = new Account("ID-Hot", BigDecimal.ZERO);
+
+    ExecutorService callers = Executors.newFixedThreadPool(16);
+    List<Future<?>> results = new ArrayList<>();
+    for (int i = 0; i < 4000; i++) {
+      Account sender = accounts.get(i % accounts.size());
+      Account receiver = i % 2 == 0 ? hot : accounts.get((i + 3) % accounts.size());
+      results.add(callers.submit(() -> {
+        try {
+          engine.transfer(sender, receiver, BigDecimal.ONE, BigDecimal.ONE);
+        } catch (InsufficientFundsException e) {
+          // Expected once a sender runs dry
+        }
+      }));
+    }
+    for (Future<?> result : results) {
+      result.get();
+    }
+    callers.shutdown();
+
+    BigDecimal total = hot.getBalance();
+    for (Account account : accounts) {
+      assertThat(account.getBalance().signum()).isGreaterThanOrEqualTo(0);
+      total = total.add(account.getBalance());
+    }
+    assertThat(total).isEqualByComparingTo("8000");
+    assertThat(hot.getBalance()).isEqualByComparingTo("2000");
+    assertThat(engine.getMailboxCount()).isEqualTo(9);
+  }
+}
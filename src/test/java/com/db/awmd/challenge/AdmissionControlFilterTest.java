@@ -0,0 +1,122 @@
+package com.db.awmd.challenge;
+
+import com.db.awmd.challenge.admission.AdaptiveConcurrencyLimiter;
+import com.db.awmd.challenge.admission.AdmissionControlFilter;
+import com.db.awmd.challenge.service.AccountsService;
+import com.db.awmd.challenge.service.TransfersService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.setup.MockMvcBuilders.webAppContextSetup;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@WebAppConfiguration
+public class AdmissionControlFilterTest {
+
+  private static final String TRANSFER = "{\"senderAccountId\":\"ID-Sender\",\"receiverAccountId\":\"ID-Receiver\",\"amount\":1}";
+
+  private MockMvc mockMvc;
+
+  @Autowired
+  private AccountsService accountsService;
+
+  @Autowired
+  private TransfersService transfersService;
+
+  @Autowired
+  private WebApplicationContext webApplicationContext;
+
+  @Before
+  public void prepareMockMvc() throws Exception {
+    AdmissionControlFilter filter = new AdmissionControlFilter(true, 0.001, 2, 100, 64, 8, 512, 100);
+    this.mockMvc = webAppContextSetup(this.webApplicationContext).addFilters(filter).build();
+
+    accountsService.getAccountsRepository().clearAccounts();
+    transfersService.clearTransfers();
+
+    this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+      .content("{\"accountId\":\"ID-Sender\",\"balance\":1000}"));
+    this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+      .content("{\"accountId\":\"ID-Receiver\",\"balance\":1000}"));
+  }
+
+  @Test
+  public void rejectsClientOverQuota() throws Exception {
+    for (int i = 0; i < 2; i++) {
+      this.mockMvc.perform(post("/v1/transfers").header(AdmissionControlFilter.API_KEY_HEADER, "client-a")
+        .contentType(MediaType.APPLICATION_JSON).content(TRANSFER)).andExpect(status().isCreated());
+    }
+
+    this.mockMvc.perform(post("/v1/transfers").header(AdmissionControlFilter.API_KEY_HEADER, "client-a")
+      .contentType(MediaType.APPLICATION_JSON).content(TRANSFER))
+      .andExpect(status().isTooManyRequests())
+      .andExpect(header().string("Retry-After", "1000"));
+
+    this.mockMvc.perform(post("/v1/transfers").header(AdmissionControlFilter.API_KEY_HEADER, "client-b")
+      .contentType(MediaType.APPLICATION_JSON).content(TRANSFER)).andExpect(status().isCreated());
+  }
+
+  @Test
+  public void doesNotLimitReads() throws Exception {
+    for (int i = 0; i < 5; i++) {
+      this.mockMvc.perform(get("/v1/transfers").header(AdmissionControlFilter.API_KEY_HEADER, "client-a"))
+        .andExpect(status().isOk());
+    }
+  }
+
+  @Test
+  public void newClientsCannotResetTrackedBuckets() throws Exception {
+    AdmissionControlFilter filter = new AdmissionControlFilter(true, 0.001, 1, 1, 64, 8, 512, 100);
+
+    assertThat(submit(filter, "client-a").getStatus()).isEqualTo(200);
+    assertThat(submit(filter, "client-a").getStatus()).isEqualTo(429);
+
+    // The table is full and client-a's bucket is still draining, so newcomers share the overflow bucket
+    assertThat(submit(filter, "client-b").getStatus()).isEqualTo(200);
+    assertThat(submit(filter, "client-c").getStatus()).isEqualTo(429);
+    assertThat(filter.getTrackedClients()).isEqualTo(1);
+
+    assertThat(submit(filter, "client-a").getStatus()).isEqualTo(429);
+  }
+
+  @Test
+  public void concurrencyRetryAfterFollowsObservedLatency() throws Exception {
+    AdmissionControlFilter filter = new AdmissionControlFilter(true, 1000, 1000, 100, 1, 1, 1, 100);
+    AdaptiveConcurrencyLimiter limiter = filter.getConcurrencyLimiter();
+    assertThat(limiter.tryAcquire()).isTrue();
+    limiter.release(TimeUnit.SECONDS.toNanos(3));
+    assertThat(limiter.tryAcquire()).isTrue();
+
+    MockHttpServletResponse rejected = submit(filter, "client-a");
+    assertThat(rejected.getStatus()).isEqualTo(429);
+    assertThat(rejected.getHeader("Retry-After")).isEqualTo("3");
+    limiter.release(0);
+  }
+
+  private MockHttpServletResponse submit(AdmissionControlFilter filter, String client) throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", "/v1/transfers");
+    request.addHeader(AdmissionControlFilter.API_KEY_HEADER, client);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(request, response, new MockFilterChain());
+    return response;
+  }
+}
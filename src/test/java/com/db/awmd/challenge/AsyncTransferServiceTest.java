@@ -0,0 +1,125 @@
+package com.db.awmd.challenge;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.service.AccountsService;
+import com.db.awmd.challenge.service.AsyncTransferService;
+import com.db.awmd.challenge.service.TransferQueryService;
+import com.db.awmd.challenge.service.TransfersService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class AsyncTransferServiceTest {
+
+  @Autowired
+  private AccountsService accountsService;
+
+  @Autowired
+  private TransfersService transfersService;
+
+  @Autowired
+  private TransferQueryService transferQueryService;
+
+  private AsyncTransferService asyncTransferService;
+
+  @Before
+  public void prepareAccounts() {
+    accountsService.getAccountsRepository().clearAccounts();
+    transfersService.clearTransfers();
+    asyncTransferService = new AsyncTransferService(transfersService, transferQueryService, true, 2, 100, 60000, 0,
+      100);
+
+    this.accountsService.createAccount(new Account("ID-1", new BigDecimal(1000)));
+    this.accountsService.createAccount(new Account("ID-2", new BigDecimal(1000)));
+  }
+
+  @After
+  public void stopAsyncTransferService() throws InterruptedException {
+    asyncTransferService.stop();
+  }
+
+  @Test
+  public void executesAcceptedTransfersInOrderPerSender() throws Exception {
+    List<Transfer> transfers = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      Transfer transfer = new Transfer("ID-1", "ID-2", new BigDecimal("150"));
+      transfers.add(transfer);
+      asyncTransferService.acceptTransfer(transfer);
+    }
+
+    awaitSettled(transfers);
+
+    // Sender funds cover the first six transfers only, in acceptance order
+    for (int i = 0; i < transfers.size(); i++) {
+      assertThat(transfers.get(i).getStatus())
+        .isEqualTo(i < 6 ? Transfer.Status.COMPLETED : Transfer.Status.FAILED);
+    }
+    assertThat(accountsService.getAccount("ID-1").getBalance()).isEqualByComparingTo("100");
+  }
+
+  @Test
+  public void sweepRedrivesAbandonedPendingTransfers() throws Exception {
+    Transfer abandoned = new Transfer("ID-1", "ID-2", new BigDecimal("10"));
+    this.transfersService.createTransfer(abandoned);
+    Transfer scheduled = new Transfer("ID-1", "ID-2", new BigDecimal("10"), System.currentTimeMillis() + 60000);
+    this.transfersService.createTransfer(scheduled);
+    Thread.sleep(5);
+
+    assertThat(asyncTransferService.sweep()).isEqualTo(1);
+    awaitSettled(Collections.singletonList(abandoned));
+
+    assertThat(abandoned.getStatus()).isEqualTo(Transfer.Status.COMPLETED);
+    assertThat(scheduled.getStatus()).isEqualTo(Transfer.Status.PENDING);
+    assertThat(asyncTransferService.sweep()).isEqualTo(0);
+  }
+
+  @Test
+  public void claimedTransfersAreNotExecutedAgain() throws Exception {
+    Transfer claimed = new Transfer("ID-1", "ID-2", new BigDecimal("10"));
+    this.transfersService.createTransfer(claimed);
+    assertThat(claimed.claim()).isTrue();
+    Thread.sleep(5);
+
+    // Whoever holds the claim settles it; neither the sweeper nor a second execution touches it
+    assertThat(asyncTransferService.sweep()).isEqualTo(0);
+    this.transfersService.executeTransfer(claimed);
+    assertThat(claimed.getStatus()).isEqualTo(Transfer.Status.PENDING);
+    assertThat(accountsService.getAccount("ID-1").getBalance()).isEqualByComparingTo("1000");
+    assertThat(claimed.claim()).isFalse();
+  }
+
+  @Test
+  public void stopFinishesQueuedTransfers() throws Exception {
+    List<Transfer> transfers = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      Transfer transfer = new Transfer("ID-1", "ID-2", new BigDecimal("10"));
+      transfers.add(transfer);
+      asyncTransferService.acceptTransfer(transfer);
+    }
+
+    asyncTransferService.stop();
+
+    assertThat(transfers).extracting(Transfer::getStatus).doesNotContain(Transfer.Status.PENDING);
+    assertThat(accountsService.getAccount("ID-1").getBalance()).isEqualByComparingTo("500");
+  }
+
+  private void awaitSettled(List<Transfer> transfers) throws InterruptedException {
+    for (int i = 0; i < 200 && transfers.stream().anyMatch(t -> t.getStatus() == Transfer.Status.PENDING); i++) {
+      Thread.sleep(10);
+    }
+  }
+}
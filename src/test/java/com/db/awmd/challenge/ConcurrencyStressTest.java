@@ -0,0 +1,157 @@
+package com.db.awmd.challenge;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.engine.LockingTransferEngine;
+import com.db.awmd.challenge.engine.OptimisticTransferEngine;
+import com.db.awmd.challenge.exception.InsufficientFundsException;
+import com.db.awmd.challenge.metrics.TransferMetrics;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Races two or three actors on fresh {@link Account} and {@link Transfer} instances many times over and checks the
+ * outcome histogram: forbidden outcomes must never show up, and every outcome seen must be one of the allowed ones.
+ */
+public class ConcurrencyStressTest {
+
+  private static final int ITERATIONS = 20000;
+
+  @Test
+  public void concurrentDepositsAreNotLost() throws Exception {
+    Map<String, Long> outcomes = StressHarness.run(ITERATIONS, () -> new Account("ID-1", BigDecimal.ZERO),
+      account -> account.getBalance().toPlainString() + "/v" + account.getVersion(),
+      account -> account.deposit(BigDecimal.ONE),
+      account -> account.deposit(BigDecimal.ONE));
+
+    assertThat(outcomes).containsOnlyKeys("2/v2");
+  }
+
+  @Test
+  public void concurrentWithdrawalsNeverOverdraw() throws Exception {
+    Map<String, Long> outcomes = StressHarness.run(ITERATIONS, Race::new,
+      race -> race.account.getBalance().toPlainString() + "/" + race.outcome(),
+      race -> race.first = attempt(() -> race.account.withdraw(BigDecimal.ONE)),
+      race -> race.second = attempt(() -> race.account.withdraw(BigDecimal.ONE)));
+
+    assertThat(outcomes.keySet()).isSubsetOf("0/ok,failed", "0/failed,ok");
+  }
+
+  @Test
+  public void holdAndWithdrawalCompeteForTheSameFunds() throws Exception {
+    Map<String, Long> outcomes = StressHarness.run(ITERATIONS, Race::new,
+      race -> race.account.getBalance().toPlainString() + "+" + race.account.getHeldBalance().toPlainString() + "/"
+        + race.outcome(),
+      race -> race.first = attempt(() -> race.account.hold(BigDecimal.ONE)),
+      race -> race.second = attempt(() -> race.account.withdraw(BigDecimal.ONE)));
+
+    assertThat(outcomes.keySet()).isSubsetOf("1+1/ok,failed", "0+0/failed,ok");
+  }
+
+  @Test
+  public void staleOptimisticCommitIsRejected() throws Exception {
+    Map<String, Long> outcomes = StressHarness.run(ITERATIONS, Race::new,
+      race -> race.account.getBalance().toPlainString() + "/" + race.outcome(),
+      race -> {
+        Account.Snapshot snapshot = race.account.getSnapshot();
+        race.first = race.account.commit(snapshot, snapshot.getBalance().add(BigDecimal.TEN)) ? "ok" : "failed";
+      },
+      race -> race.second = attempt(() -> race.account.deposit(BigDecimal.ONE)));
+
+    // "11/ok,ok" would mean the commit computed from an old snapshot overwrote the deposit
+    assertThat(outcomes.keySet()).isSubsetOf("12/ok,ok", "2/failed,ok");
+  }
+
+  @Test
+  public void completedTransferIsNeverReverted() throws Exception {
+    Map<String, Long> outcomes = StressHarness.run(ITERATIONS,
+      () -> new TransferRace(new Transfer("ID-1", "ID-2", BigDecimal.ONE)),
+      race -> race.transfer.getStatus().name() + "/" + race.outcome(),
+      race -> race.first = attempt(() -> race.transfer.setStatus(Transfer.Status.COMPLETED)),
+      race -> race.second = attempt(() -> race.transfer.setStatus(Transfer.Status.FAILED)));
+
+    assertThat(outcomes.keySet()).isSubsetOf("COMPLETED/ok,ok", "COMPLETED/ok,failed");
+  }
+
+  @Test
+  public void lockingTransferConservesMoney() throws Exception {
+    LockingTransferEngine engine = new LockingTransferEngine();
+    Map<String, Long> outcomes = StressHarness.run(ITERATIONS, Pair::new, Pair::conservation,
+      pair -> pair.first = attempt(() -> engine.transfer(pair.a, pair.b, BigDecimal.ONE, BigDecimal.ONE)),
+      pair -> pair.second = attempt(() -> engine.transfer(pair.b, pair.a, BigDecimal.ONE, BigDecimal.ONE)),
+      Pair::observe);
+
+    assertThat(outcomes).containsKey("2/ok,ok");
+    // Readers do not take locks, so they may see money in flight between the two legs
+    assertThat(outcomes.keySet()).isSubsetOf("2/ok,ok", "2/ok,ok/in-flight");
+  }
+
+  @Test
+  public void optimisticTransferConservesMoney() throws Exception {
+    OptimisticTransferEngine engine = new OptimisticTransferEngine(new TransferMetrics(), 2);
+    Map<String, Long> outcomes = StressHarness.run(ITERATIONS, Pair::new, Pair::conservation,
+      pair -> pair.first = attempt(() -> engine.transfer(pair.a, pair.b, BigDecimal.ONE, BigDecimal.ONE)),
+      pair -> pair.second = attempt(() -> engine.transfer(pair.b, pair.a, BigDecimal.ONE, BigDecimal.ONE)),
+      Pair::observe);
+
+    assertThat(outcomes).containsKey("2/ok,ok");
+    assertThat(outcomes.keySet()).isSubsetOf("2/ok,ok", "2/ok,ok/in-flight");
+  }
+
+  private static String attempt(Runnable action) {
+    try {
+      action.run();
+      return "ok";
+    } catch (InsufficientFundsException | UnsupportedOperationException e) {
+      return "failed";
+    }
+  }
+
+  private static class Race {
+
+    final Account account = new Account("ID-1", BigDecimal.ONE);
+    volatile String first;
+    volatile String second;
+
+    String outcome() {
+      return first + "," + second;
+    }
+  }
+
+  private static class TransferRace {
+
+    final Transfer transfer;
+    volatile String first;
+    volatile String second;
+
+    TransferRace(Transfer transfer) {
+      this.transfer = transfer;
+    }
+
+    String outcome() {
+      return first + "," + second;
+    }
+  }
+
+  private static class Pair {
+
+    final Account a = new Account("ID-A", BigDecimal.ONE);
+    final Account b = new Account("ID-B", BigDecimal.ONE);
+    volatile String first;
+    volatile String second;
+    volatile boolean inFlight;
+
+    void observe() {
+      inFlight = a.getBalance().add(b.getBalance()).compareTo(new BigDecimal(2)) != 0;
+    }
+
+    String conservation() {
+      return a.getBalance().add(b.getBalance()).toPlainString() + "/" + first + "," + second
+        + (inFlight ? "/in-flight" : "");
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package com.db.awmd.challenge;
+
+import com.db.awmd.challenge.health.CheckResult;
+import com.db.awmd.challenge.health.ReplicationLagReadinessCheck;
+import com.db.awmd.challenge.metrics.TransferMetrics;
+import com.db.awmd.challenge.replication.ReplicationSender;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItems;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.setup.MockMvcBuilders.webAppContextSetup;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"warmup.enabled=false", "health.readiness.transfer-p99-millis=50"})
+@WebAppConfiguration
+public class HealthControllerTest {
+
+  private MockMvc mockMvc;
+
+  @Autowired
+  private TransferMetrics transferMetrics;
+
+  @Autowired
+  private WebApplicationContext webApplicationContext;
+
+  @Before
+  public void prepareMockMvc() {
+    this.mockMvc = webAppContextSetup(this.webApplicationContext).build();
+  }
+
+  @Test
+  public void live() throws Exception {
+    this.mockMvc.perform(get("/health/live")).andExpect(status().isOk())
+      .andExpect(jsonPath("$.status").value("UP"));
+  }
+
+  @Test
+  public void readinessFollowsTransferLatency() throws Exception {
+    this.mockMvc.perform(get("/health/ready")).andExpect(status().isOk())
+      .andExpect(jsonPath("$.status").value("UP"));
+
+    for (int i = 0; i < 100; i++) {
+      transferMetrics.getExecuteLatency().record(TimeUnit.MILLISECONDS.toNanos(200));
+    }
+
+    this.mockMvc.perform(get("/health/ready")).andExpect(status().isServiceUnavailable())
+      .andExpect(jsonPath("$.status").value("OUT_OF_SERVICE"));
+  }
+
+  @Test
+  public void readinessReportsBacklogs() throws Exception {
+    this.mockMvc.perform(get("/health/ready"))
+      .andExpect(jsonPath("$.checks[*].name", hasItems("queuedTransfers", "replicationLagMillis", "outboxBacklog",
+        "unconfirmedSyncReplicationEvents")));
+
+    ReplicationSender sender = mock(ReplicationSender.class);
+    when(sender.getLagMillis()).thenReturn(6000L);
+    CheckResult lagging = new ReplicationLagReadinessCheck(sender, 5000).check();
+    assertThat(lagging.isReady()).isFalse();
+    assertThat(lagging.getValue()).isEqualTo(6000);
+  }
+}
@@ -0,0 +1,49 @@
+package com.db.awmd.challenge;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Records invocations and responses of concurrent operations against a shared logical clock, so the real-time
+ * order between operations that did not overlap is preserved for {@link LinearizabilityChecker}.
+ */
+final class History<O, R> {
+
+  private final AtomicLong clock = new AtomicLong();
+
+  private final ConcurrentLinkedQueue<Operation<O, R>> operations = new ConcurrentLinkedQueue<>();
+
+  R record(O input, Supplier<R> call) {
+    long invokedAt = clock.incrementAndGet();
+    R output = call.get();
+    operations.add(new Operation<>(input, output, invokedAt, clock.incrementAndGet()));
+    return output;
+  }
+
+  List<Operation<O, R>> getOperations() {
+    return new ArrayList<>(operations);
+  }
+
+  static final class Operation<O, R> {
+
+    final O input;
+    final R output;
+    final long invokedAt;
+    final long returnedAt;
+
+    Operation(O input, R output, long invokedAt, long returnedAt) {
+      this.input = input;
+      this.output = output;
+      this.invokedAt = invokedAt;
+      this.returnedAt = returnedAt;
+    }
+
+    @Override
+    public String toString() {
+      return "[" + invokedAt + "," + returnedAt + "] " + input + " -> " + output;
+    }
+  }
+}
@@ -0,0 +1,147 @@
+package com.db.awmd.challenge;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Hold;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.exception.HoldNotFoundException;
+import com.db.awmd.challenge.exception.InsufficientFundsException;
+import com.db.awmd.challenge.exception.InvalidHoldException;
+import com.db.awmd.challenge.service.AccountsService;
+import com.db.awmd.challenge.repository.HoldsRepositoryInMemory;
+import com.db.awmd.challenge.service.HoldsService;
+import com.db.awmd.challenge.service.LedgerService;
+import com.db.awmd.challenge.service.TransfersService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class HoldsServiceTest {
+
+  private static final long ONE_HOUR = 3_600_000;
+
+  @Autowired
+  private HoldsService holdsService;
+
+  @Autowired
+  private AccountsService accountsService;
+
+  @Autowired
+  private TransfersService transfersService;
+
+  @Autowired
+  private LedgerService ledgerService;
+
+  @Before
+  public void prepareAccounts() {
+    accountsService.getAccountsRepository().clearAccounts();
+    holdsService.getHoldsRepository().clearHolds();
+
+    this.accountsService.createAccount(new Account("ID-Holder", new BigDecimal(1000)));
+    this.accountsService.createAccount(new Account("ID-Receiver", new BigDecimal(1000)));
+  }
+
+  @Test
+  public void holdReducesAvailableBalance() throws Exception {
+    this.holdsService.placeHold("ID-Holder", new BigDecimal(600), System.currentTimeMillis() + ONE_HOUR);
+
+    Account account = this.accountsService.getAccount("ID-Holder");
+    assertThat(account.getBalance()).isEqualByComparingTo("1000");
+    assertThat(account.getAvailableBalance()).isEqualByComparingTo("400");
+
+    Transfer transfer = new Transfer("ID-Holder", "ID-Receiver", new BigDecimal(500));
+    this.transfersService.createTransfer(transfer);
+    try {
+      this.transfersService.executeTransfer(transfer);
+      fail("Should have failed when transferring held funds");
+    } catch (InsufficientFundsException ex) {
+      assertThat(transfer.getStatus()).isEqualTo(Transfer.Status.FAILED);
+    }
+
+    try {
+      this.holdsService.placeHold("ID-Holder", new BigDecimal(500), System.currentTimeMillis() + ONE_HOUR);
+      fail("Should have failed when holding more than the available balance");
+    } catch (InsufficientFundsException ex) {
+      assertThat(account.getAvailableBalance()).isEqualByComparingTo("400");
+    }
+  }
+
+  @Test
+  public void captureAndRelease() throws Exception {
+    Hold captured = this.holdsService.placeHold("ID-Holder", new BigDecimal(600), System.currentTimeMillis() + ONE_HOUR);
+    Hold released = this.holdsService.placeHold("ID-Holder", new BigDecimal(100), System.currentTimeMillis() + ONE_HOUR);
+
+    this.holdsService.captureHold("ID-Holder", captured.getHoldId(), new BigDecimal(250));
+    this.holdsService.releaseHold("ID-Holder", released.getHoldId());
+
+    Account account = this.accountsService.getAccount("ID-Holder");
+    assertThat(captured.getStatus()).isEqualTo(Hold.Status.CAPTURED);
+    assertThat(captured.getCapturedAmount()).isEqualByComparingTo("250");
+    assertThat(released.getStatus()).isEqualTo(Hold.Status.RELEASED);
+    assertThat(account.getBalance()).isEqualByComparingTo("750");
+    assertThat(account.getAvailableBalance()).isEqualByComparingTo("750");
+
+    try {
+      this.holdsService.releaseHold("ID-Holder", captured.getHoldId());
+      fail("Should have failed when releasing a captured hold");
+    } catch (InvalidHoldException ex) {
+      assertThat(ex.getMessage()).isEqualTo("Hold " + captured.getHoldId() + " is already Captured");
+    }
+    assertThat(account.getAvailableBalance()).isEqualByComparingTo("750");
+  }
+
+  @Test
+  public void closedHoldsAreRemovedAfterRetention() throws Exception {
+    HoldsService shortRetention = new HoldsService(this.accountsService, new HoldsRepositoryInMemory(),
+      this.ledgerService, 10, 64, 50);
+    shortRetention.start();
+    try {
+      Hold open = shortRetention.placeHold("ID-Holder", new BigDecimal(100), System.currentTimeMillis() + ONE_HOUR);
+      Hold released = shortRetention.placeHold("ID-Holder", new BigDecimal(200),
+        System.currentTimeMillis() + ONE_HOUR);
+      shortRetention.releaseHold("ID-Holder", released.getHoldId());
+      assertThat(shortRetention.getHolds("ID-Holder")).containsExactly(open, released);
+
+      long timeout = System.currentTimeMillis() + 5000;
+      while (shortRetention.getHolds("ID-Holder").size() > 1 && System.currentTimeMillis() < timeout) {
+        Thread.sleep(10);
+      }
+      assertThat(shortRetention.getHolds("ID-Holder")).containsExactly(open);
+      try {
+        shortRetention.getHold("ID-Holder", released.getHoldId());
+        fail("Should have removed the released hold");
+      } catch (HoldNotFoundException ex) {
+        assertThat(shortRetention.getHold("ID-Holder", open.getHoldId())).isSameAs(open);
+      }
+    } finally {
+      shortRetention.stop();
+    }
+  }
+
+  @Test
+  public void expiredHoldIsReleased() throws Exception {
+    Hold hold = this.holdsService.placeHold("ID-Holder", new BigDecimal(600), System.currentTimeMillis() + 200);
+    Account account = this.accountsService.getAccount("ID-Holder");
+    assertThat(account.getAvailableBalance()).isEqualByComparingTo("400");
+
+    long timeout = System.currentTimeMillis() + 5000;
+    // The expiry thread marks the hold expired before it gives the funds back
+    while ((hold.getStatus() == Hold.Status.ACTIVE || account.getAvailableBalance().compareTo(account.getBalance()) < 0)
+      && System.currentTimeMillis() < timeout) {
+      Thread.sleep(50);
+    }
+
+    assertThat(hold.getStatus()).isEqualTo(Hold.Status.EXPIRED);
+    assertThat(account.getAvailableBalance()).isEqualByComparingTo("1000");
+    assertThat(account.getBalance()).isEqualByComparingTo("1000");
+  }
+}
@@ -0,0 +1,189 @@
+package com.db.awmd.challenge;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.exception.DuplicateAccountIdException;
+import com.db.awmd.challenge.exception.DuplicateTransferIdException;
+import com.db.awmd.challenge.repository.AccountsRepositoryJdbc;
+import com.db.awmd.challenge.repository.TransfersRepository;
+import com.db.awmd.challenge.repository.TransfersRepositoryJdbc;
+import com.db.awmd.challenge.service.AccountsService;
+import com.db.awmd.challenge.service.AsyncTransferService;
+import com.db.awmd.challenge.service.LedgerService;
+import com.db.awmd.challenge.service.TransferQueryService;
+import com.db.awmd.challenge.service.TransfersService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"repository.type=jdbc", "repository.jdbc.batch-size=16",
+  "repository.jdbc.flush-interval-millis=3600000", "spring.datasource.url=jdbc:h2:mem:jdbc-repositories;MVCC=TRUE"})
+public class JdbcRepositoriesTest {
+
+  @Autowired
+  private AccountsService accountsService;
+
+  @Autowired
+  private TransfersService transfersService;
+
+  @Autowired
+  private TransfersRepository transfersRepository;
+
+  @Autowired
+  private LedgerService ledgerService;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  private AccountsRepositoryJdbc accountsRepository;
+
+  @Before
+  public void prepareAccounts() {
+    accountsRepository = (AccountsRepositoryJdbc) accountsService.getAccountsRepository();
+    accountsRepository.clearAccounts();
+    transfersService.clearTransfers();
+
+    for (int i = 0; i < 10; i++) {
+      this.accountsService.createAccount(new Account("ID-" + i, new BigDecimal(100)));
+    }
+  }
+
+  @Test
+  public void writesTransfersAndBalancesBehind() throws Exception {
+    for (int i = 0; i < 40; i++) {
+      Transfer transfer = new Transfer("ID-" + (i % 10), "ID-" + ((i + 1) % 10), new BigDecimal(i % 10 == 0 ? 5 : 1));
+      this.transfersService.createTransfer(transfer);
+      this.transfersService.executeTransfer(transfer);
+    }
+    Transfer failed = new Transfer("ID-1", "ID-2", new BigDecimal(1000));
+    this.transfersService.createTransfer(failed);
+    try {
+      this.transfersService.executeTransfer(failed);
+      fail("Should have failed when trying to transfer more funds than available");
+    } catch (RuntimeException expected) {
+      // Recorded as FAILED
+    }
+
+    assertThat(transfersRepository).isInstanceOf(TransfersRepositoryJdbc.class);
+    assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transfer", Long.class)).isZero();
+    assertThat(transfersService.getTransfer(failed.getTransferId())).isSameAs(failed);
+    assertThat(accountsRepository.getStoredBalance("ID-0")).isEqualByComparingTo("100");
+    assertThat(accountsRepository.getDirtyCount()).isEqualTo(10);
+
+    assertThat(((TransfersRepositoryJdbc) transfersRepository).flush()).isEqualTo(41);
+    assertThat(accountsRepository.flush()).isEqualTo(10);
+
+    assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transfer WHERE status = 'COMPLETED'", Long.class))
+      .isEqualTo(40);
+    Transfer stored = transfersService.getTransfer(failed.getTransferId());
+    assertThat(stored).isNotSameAs(failed);
+    assertThat(stored.getStatus()).isEqualTo(Transfer.Status.FAILED);
+    assertThat(stored.getFailureCause()).isEqualTo(failed.getFailureCause());
+    assertThat(stored.getAmount()).isEqualByComparingTo("1000");
+    assertThat(accountsRepository.getStoredBalance("ID-0")).isEqualByComparingTo("84");
+    assertThat(accountsRepository.getStoredBalance("ID-1")).isEqualByComparingTo("116");
+    assertThat(accountsService.getAccount("ID-1").getBalance()).isEqualByComparingTo("116");
+    assertThat(transfersService.getTransfer()).hasSize(41);
+  }
+
+  @Test
+  public void replayedBalancesAreWrittenBehind() throws Exception {
+    accountsRepository.flush();
+    accountsService.getAccount("ID-3").setBalance(new BigDecimal(500));
+    jdbcTemplate.update("UPDATE account SET balance = 500 WHERE account_id = 'ID-3'");
+
+    assertThat(ledgerService.replay(true).getMismatchedAccounts()).containsExactly("ID-3");
+    assertThat(accountsRepository.getDirtyCount()).isEqualTo(1);
+    assertThat(accountsRepository.flush()).isEqualTo(1);
+    assertThat(accountsRepository.getStoredBalance("ID-3")).isEqualByComparingTo("100");
+  }
+
+  @Test
+  public void statusChangesAfterInsertAreWrittenAsUpdates() throws Exception {
+    Transfer transfer = new Transfer("ID-0", "ID-1", new BigDecimal(10));
+    this.transfersService.createTransfer(transfer);
+    assertThat(transfersRepository.countTransfers()).isEqualTo(1);
+    assertThat(jdbcTemplate.queryForObject("SELECT status FROM transfer", String.class)).isEqualTo("PENDING");
+
+    this.transfersService.executeTransfer(transfer);
+    ((TransfersRepositoryJdbc) transfersRepository).flush();
+
+    assertThat(jdbcTemplate.queryForObject("SELECT status FROM transfer", String.class)).isEqualTo("COMPLETED");
+  }
+
+  @Test
+  public void recoversPendingTransfersAfterRestart() throws Exception {
+    Transfer accepted = new Transfer("ID-0", "ID-1", new BigDecimal(10));
+    this.transfersService.createTransfer(accepted);
+    Transfer scheduled = new Transfer("ID-0", "ID-1", new BigDecimal(10), System.currentTimeMillis() + 60000);
+    this.transfersService.createTransfer(scheduled);
+    ((TransfersRepositoryJdbc) transfersRepository).flush();
+
+    // A fresh service only knows the stored rows, as after a restart
+    AsyncTransferService restarted = new AsyncTransferService(transfersService, new TransferQueryService(), true, 1,
+      100, 60000, 60000, 100);
+    try {
+      assertThat(restarted.recoverPending()).isEqualTo(1);
+      for (int i = 0; i < 200
+        && transfersRepository.getTransfer(accepted.getTransferId()).getStatus() != Transfer.Status.COMPLETED; i++) {
+        Thread.sleep(10);
+      }
+    } finally {
+      restarted.stop();
+    }
+
+    assertThat(accountsService.getAccount("ID-0").getBalance()).isEqualByComparingTo("90");
+    ((TransfersRepositoryJdbc) transfersRepository).flush();
+    assertThat(jdbcTemplate.queryForObject("SELECT status FROM transfer WHERE transfer_id = ?", String.class,
+      accepted.getTransferId())).isEqualTo("COMPLETED");
+    // Future-dated transfers are left to the scheduler
+    assertThat(transfersRepository.getPendingTransfers()).isEmpty();
+    assertThat(jdbcTemplate.queryForObject("SELECT status FROM transfer WHERE transfer_id = ?", String.class,
+      scheduled.getTransferId())).isEqualTo("PENDING");
+  }
+
+  @Test
+  public void rejectsDuplicates() throws Exception {
+    try {
+      this.accountsService.createAccount(new Account("ID-3", BigDecimal.ONE));
+      fail("Should have failed when adding duplicate account");
+    } catch (DuplicateAccountIdException ex) {
+      assertThat(ex.getMessage()).isEqualTo("Account id ID-3 already exists!");
+    }
+
+    List<String> duplicates = accountsRepository.createAccounts(Arrays.asList(new Account("ID-4", BigDecimal.ONE),
+      new Account("ID-10", BigDecimal.ONE), new Account("ID-10", BigDecimal.TEN)));
+    assertThat(duplicates).containsExactly("ID-4", "ID-10");
+    assertThat(accountsRepository.countAccounts()).isEqualTo(11);
+    assertThat(accountsService.getAccount("ID-10").getBalance()).isEqualByComparingTo("1");
+
+    Transfer transfer = new Transfer("ID-0", "ID-1", BigDecimal.ONE);
+    this.transfersService.createTransfer(transfer);
+    try {
+      this.transfersService.createTransfer(transfer);
+      fail("Should have failed when adding duplicate transfer");
+    } catch (DuplicateTransferIdException ex) {
+      assertThat(ex.getMessage()).isEqualTo("Transfer id " + transfer.getTransferId() + " already exists!");
+    }
+
+    // Once flushed, the primary key rejects the id and the rest of the batch is still stored
+    ((TransfersRepositoryJdbc) transfersRepository).flush();
+    this.transfersService.createTransfer(transfer);
+    this.transfersService.createTransfer(new Transfer("ID-0", "ID-1", BigDecimal.ONE));
+    ((TransfersRepositoryJdbc) transfersRepository).flush();
+    assertThat(((TransfersRepositoryJdbc) transfersRepository).getRejectedRows()).isEqualTo(1);
+    assertThat(transfersRepository.countTransfers()).isEqualTo(2);
+  }
+}
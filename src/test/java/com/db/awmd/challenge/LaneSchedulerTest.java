@@ -0,0 +1,173 @@
+package com.db.awmd.challenge;
+
+import com.db.awmd.challenge.exception.LaneRejectedException;
+import com.db.awmd.challenge.lanes.Lane;
+import com.db.awmd.challenge.lanes.LaneScheduler;
+import com.db.awmd.challenge.lanes.TrafficLaneFilter;
+import org.junit.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class LaneSchedulerTest {
+
+  @Test
+  public void strictPolicyDrainsInteractiveFirst() throws Exception {
+    LaneScheduler scheduler = new LaneScheduler("strict", 1, 1, 100, 4, 1, 100, 1, 5000);
+
+    List<Lane> order = grantOrder(scheduler, 4, 4);
+
+    assertThat(order).containsExactly(Lane.INTERACTIVE, Lane.INTERACTIVE, Lane.INTERACTIVE, Lane.INTERACTIVE,
+      Lane.BULK, Lane.BULK, Lane.BULK, Lane.BULK);
+  }
+
+  @Test
+  public void weightedPolicySharesSlotsByWeight() throws Exception {
+    LaneScheduler scheduler = new LaneScheduler("weighted", 1, 1, 100, 3, 1, 100, 1, 5000);
+
+    List<Lane> order = grantOrder(scheduler, 6, 6);
+
+    // Every window of four grants holds three interactive and one bulk while both lanes are waiting
+    assertThat(Collections.frequency(order.subList(0, 4), Lane.BULK)).isEqualTo(1);
+    assertThat(Collections.frequency(order.subList(4, 8), Lane.BULK)).isEqualTo(1);
+    assertThat(order.subList(8, 12)).contains(Lane.BULK);
+  }
+
+  @Test
+  public void bulkLaneCannotTakeMoreThanItsShare() throws Exception {
+    LaneScheduler scheduler = new LaneScheduler("weighted", 4, 4, 10, 4, 2, 10, 1, 50);
+
+    LaneScheduler.Permit first = scheduler.acquire(Lane.BULK);
+    LaneScheduler.Permit second = scheduler.acquire(Lane.BULK);
+    try {
+      scheduler.acquire(Lane.BULK);
+      fail("bulk lane should be capped at two");
+    } catch (LaneRejectedException expected) {
+    }
+
+    LaneScheduler.Permit interactive = scheduler.acquire(Lane.INTERACTIVE);
+    assertThat(scheduler.getActive(Lane.INTERACTIVE)).isEqualTo(1);
+    assertThat(scheduler.getActive(Lane.BULK)).isEqualTo(2);
+
+    first.close();
+    first.close();
+    assertThat(scheduler.getActive(Lane.BULK)).isEqualTo(1);
+    second.close();
+    interactive.close();
+    assertThat(scheduler.getStats().get(1).getRejected()).isEqualTo(1);
+    assertThat(scheduler.getStats().get(1).getCompleted()).isEqualTo(2);
+  }
+
+  @Test
+  public void rejectsWhenLaneQueueIsFull() throws Exception {
+    LaneScheduler scheduler = new LaneScheduler("weighted", 1, 1, 1, 4, 1, 0, 1, 5000);
+
+    LaneScheduler.Permit held = scheduler.acquire(Lane.INTERACTIVE);
+    Thread waiter = new Thread(() -> {
+      try {
+        scheduler.acquire(Lane.INTERACTIVE).close();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    waiter.start();
+    awaitQueued(scheduler, Lane.INTERACTIVE, 1);
+
+    try {
+      scheduler.acquire(Lane.INTERACTIVE);
+      fail("interactive queue holds one waiter");
+    } catch (LaneRejectedException expected) {
+    }
+    try {
+      scheduler.acquire(Lane.BULK);
+      fail("bulk queue has no room");
+    } catch (LaneRejectedException expected) {
+    }
+
+    held.close();
+    waiter.join(5000);
+    assertThat(scheduler.getStats().get(0).getCompleted()).isEqualTo(2);
+  }
+
+  @Test
+  public void filterSendsBatchEndpointsToBulkLane() throws Exception {
+    LaneScheduler scheduler = new LaneScheduler("weighted", 4, 4, 10, 4, 1, 0, 1, 50);
+    TrafficLaneFilter filter = new TrafficLaneFilter(true, scheduler);
+    LaneScheduler.Permit bulk = scheduler.acquire(Lane.BULK);
+
+    MockHttpServletResponse batch = new MockHttpServletResponse();
+    filter.doFilter(new MockHttpServletRequest("POST", "/v1/transfers/batch"), batch, new MockFilterChain());
+    assertThat(batch.getStatus()).isEqualTo(503);
+    assertThat(batch.getHeader("Retry-After")).isEqualTo("1");
+
+    MockHttpServletResponse multiLeg = new MockHttpServletResponse();
+    filter.doFilter(new MockHttpServletRequest("POST", "/v1/transfers/multi-leg"), multiLeg, new MockFilterChain());
+    assertThat(multiLeg.getStatus()).isEqualTo(503);
+
+    MockHttpServletRequest promoted = new MockHttpServletRequest("POST", "/v1/accounts/bulk");
+    promoted.addHeader(TrafficLaneFilter.TRAFFIC_CLASS_HEADER, "interactive");
+    MockHttpServletResponse promotedResponse = new MockHttpServletResponse();
+    filter.doFilter(promoted, promotedResponse, new MockFilterChain());
+    assertThat(promotedResponse.getStatus()).isEqualTo(503);
+
+    MockHttpServletRequest demoted = new MockHttpServletRequest("POST", "/v1/transfers");
+    demoted.addHeader(TrafficLaneFilter.TRAFFIC_CLASS_HEADER, "bulk");
+    MockHttpServletResponse demotedResponse = new MockHttpServletResponse();
+    filter.doFilter(demoted, demotedResponse, new MockFilterChain());
+    assertThat(demotedResponse.getStatus()).isEqualTo(503);
+
+    MockHttpServletResponse single = new MockHttpServletResponse();
+    filter.doFilter(new MockHttpServletRequest("POST", "/v1/transfers"), single, new MockFilterChain());
+    assertThat(single.getStatus()).isEqualTo(200);
+
+    bulk.close();
+    assertThat(scheduler.getActive(Lane.INTERACTIVE)).isEqualTo(0);
+    assertThat(scheduler.getStats().get(0).getCompleted()).isEqualTo(1);
+  }
+
+  /**
+   * Holds the only slot while the given number of waiters queue up in each lane, then releases it and returns the
+   * order in which the waiters were granted.
+   */
+  private List<Lane> grantOrder(LaneScheduler scheduler, int interactive, int bulk) throws Exception {
+    List<Lane> order = Collections.synchronizedList(new ArrayList<>());
+    List<Thread> threads = new ArrayList<>();
+    LaneScheduler.Permit held = scheduler.acquire(Lane.INTERACTIVE);
+    for (int i = 0; i < interactive + bulk; i++) {
+      Lane lane = i < interactive ? Lane.INTERACTIVE : Lane.BULK;
+      Thread thread = new Thread(() -> {
+        try (LaneScheduler.Permit permit = scheduler.acquire(lane)) {
+          order.add(permit.getLane());
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+    awaitQueued(scheduler, Lane.INTERACTIVE, interactive);
+    awaitQueued(scheduler, Lane.BULK, bulk);
+
+    held.close();
+    for (Thread thread : threads) {
+      thread.join(5000);
+    }
+    assertThat(order).hasSize(interactive + bulk);
+    return order;
+  }
+
+  private void awaitQueued(LaneScheduler scheduler, Lane lane, int queued) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (scheduler.getQueued(lane) < queued && System.currentTimeMillis() < deadline) {
+      Thread.sleep(5);
+    }
+    assertThat(scheduler.getQueued(lane)).isEqualTo(queued);
+  }
+}
@@ -0,0 +1,51 @@
+package com.db.awmd.challenge;
+
+import com.db.awmd.challenge.metrics.LatencyHistogram;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LatencyHistogramTest {
+
+  @Test
+  public void reportsUpperBoundsOfPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram(10);
+    for (int i = 1; i <= 100; i++) {
+      histogram.record(TimeUnit.MILLISECONDS.toNanos(i));
+    }
+
+    assertThat(histogram.getCount()).isEqualTo(100);
+    assertThat(histogram.getPercentileMicros(50)).isBetween(50_000L, 56_250L);
+    assertThat(histogram.getPercentileMicros(100)).isBetween(100_000L, 112_500L);
+  }
+
+  @Test
+  public void keepsEverySampleRecordedAcrossSecondBoundaries() throws Exception {
+    LatencyHistogram histogram = new LatencyHistogram(60);
+    List<Thread> recorders = new ArrayList<>();
+    long until = System.currentTimeMillis() + 1500;
+    long[] recorded = new long[8];
+    for (int t = 0; t < recorded.length; t++) {
+      int index = t;
+      Thread recorder = new Thread(() -> {
+        while (System.currentTimeMillis() < until) {
+          histogram.record(1000);
+          recorded[index]++;
+        }
+      });
+      recorders.add(recorder);
+      recorder.start();
+    }
+    long total = 0;
+    for (int t = 0; t < recorded.length; t++) {
+      recorders.get(t).join();
+      total += recorded[t];
+    }
+
+    assertThat(histogram.getCount()).isEqualTo(total);
+  }
+}
@@ -0,0 +1,182 @@
+package com.db.awmd.challenge;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.LedgerEntry;
+import com.db.awmd.challenge.domain.ReplayResult;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.exception.ReplayRejectedException;
+import com.db.awmd.challenge.repository.AccountsRepositoryInMemory;
+import com.db.awmd.challenge.repository.LedgerRepositoryInMemory;
+import com.db.awmd.challenge.service.AccountsService;
+import com.db.awmd.challenge.service.LedgerService;
+import com.db.awmd.challenge.service.TransfersService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class LedgerServiceTest {
+
+  @Autowired
+  private LedgerService ledgerService;
+
+  @Autowired
+  private AccountsService accountsService;
+
+  @Autowired
+  private TransfersService transfersService;
+
+  @Before
+  public void prepareAccounts() {
+    accountsService.getAccountsRepository().clearAccounts();
+    ledgerService.getLedgerRepository().clearLedger();
+
+    for (int i = 0; i < 50; i++) {
+      this.accountsService.createAccount(new Account("ID-" + i, new BigDecimal(1000)));
+    }
+  }
+
+  @Test
+  public void recordsDoubleEntries() throws Exception {
+    Transfer transfer = new Transfer("ID-0", "ID-1", new BigDecimal("12.50"));
+    this.transfersService.createTransfer(transfer);
+    this.transfersService.executeTransfer(transfer);
+
+    List<LedgerEntry> entries = this.ledgerService.getEntries("ID-0");
+    assertThat(entries).hasSize(2);
+    assertThat(entries.get(0).getType()).isEqualTo(LedgerEntry.Type.CREDIT);
+    assertThat(entries.get(0).getReference()).isEqualTo("OPENING");
+    assertThat(entries.get(1).getType()).isEqualTo(LedgerEntry.Type.DEBIT);
+    assertThat(entries.get(1).getAmount()).isEqualByComparingTo("12.50");
+    assertThat(entries.get(1).getReference()).isEqualTo("TRANSFER-" + transfer.getTransferId());
+
+    // Both sides share a sequence, so a cut of the ledger holds either both or neither
+    LedgerEntry credit = this.ledgerService.getEntries("ID-1").get(1);
+    assertThat(credit.getSequence()).isEqualTo(entries.get(1).getSequence());
+    assertThat(this.ledgerService.getPublishedSequence()).isEqualTo(this.ledgerService.getLastSequence());
+  }
+
+  @Test
+  public void openingsAndCapturesPostTheirOtherSideToInternalAccounts() {
+    Account account = this.accountsService.getAccount("ID-0");
+    this.ledgerService.recordCapture(account, new BigDecimal(100), "HOLD-1");
+
+    assertThat(sum(this.ledgerService.getEntries(LedgerService.equityAccount(null))))
+      .isEqualByComparingTo("-50000");
+    assertThat(sum(this.ledgerService.getEntries(LedgerService.clearingAccount(null)))).isEqualByComparingTo("100");
+    assertThat(sum(this.ledgerService.getEntries("ID-0"))).isEqualByComparingTo("900");
+    assertThat(LedgerService.isInternalAccount(LedgerService.equityAccount("EUR"))).isTrue();
+    assertThat(LedgerService.isInternalAccount("ID-0")).isFalse();
+  }
+
+  @Test
+  public void replayRebuildsBalances() throws Exception {
+    for (int i = 0; i < 1000; i++) {
+      Transfer transfer = new Transfer("ID-" + (i % 50), "ID-" + ((i * 7 + 3) % 50), new BigDecimal(i % 13));
+      this.transfersService.createTransfer(transfer);
+      this.transfersService.executeTransfer(transfer);
+    }
+
+    ReplayResult result = this.ledgerService.replay(false);
+    assertThat(result.getEntries()).isEqualTo(2 * 50 + 2 * 1000);
+    assertThat(result.getMismatchedAccounts()).isEmpty();
+    for (int i = 0; i < 50; i++) {
+      assertThat(result.getBalances().get("ID-" + i))
+        .isEqualByComparingTo(this.accountsService.getAccount("ID-" + i).getBalance());
+    }
+
+    this.accountsService.getAccount("ID-7").setBalance(BigDecimal.ZERO);
+    BigDecimal expected = result.getBalances().get("ID-7");
+
+    result = this.ledgerService.replay(true);
+    assertThat(result.getMismatchedAccounts()).containsExactly("ID-7");
+    assertThat(this.accountsService.getAccount("ID-7").getBalance()).isEqualByComparingTo(expected);
+  }
+
+  @Test
+  public void applyingReplayWaitsForRunningChanges() throws Exception {
+    CountDownLatch inside = new CountDownLatch(1);
+    CountDownLatch finish = new CountDownLatch(1);
+    Account account = this.accountsService.getAccount("ID-3");
+    Thread writer = new Thread(() -> this.ledgerService.write(() -> {
+      inside.countDown();
+      try {
+        finish.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      // Balance and ledger disagree until the entry lands
+      account.withdraw(new BigDecimal(100));
+      this.ledgerService.recordCapture(account, new BigDecimal(100), "TEST");
+    }));
+    writer.start();
+    inside.await();
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<ReplayResult> replay = executor.submit(() -> this.ledgerService.replay(true));
+      Thread.sleep(100);
+      assertThat(replay.isDone()).isFalse();
+
+      finish.countDown();
+      ReplayResult result = replay.get(5, TimeUnit.SECONDS);
+      assertThat(result.getMismatchedAccounts()).isEmpty();
+      assertThat(account.getBalance()).isEqualByComparingTo("900");
+    } finally {
+      executor.shutdownNow();
+      writer.join(5000);
+    }
+  }
+
+  @Test
+  public void applyingReplayIsRejectedWhenChangesDoNotStop() throws Exception {
+    AccountsRepositoryInMemory accountsRepository = new AccountsRepositoryInMemory();
+    LedgerService ledger = new LedgerService(new LedgerRepositoryInMemory(1), accountsRepository,
+      Collections.emptyList(), 1, 50);
+    CountDownLatch inside = new CountDownLatch(1);
+    CountDownLatch finish = new CountDownLatch(1);
+    Thread writer = new Thread(() -> ledger.write(() -> {
+      inside.countDown();
+      try {
+        finish.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }));
+    writer.start();
+    inside.await();
+
+    try {
+      ledger.replay(true);
+      fail("Replay should not apply while a change is running");
+    } catch (ReplayRejectedException expected) {
+    } finally {
+      finish.countDown();
+      writer.join(5000);
+    }
+    assertThat(ledger.replay(true).getMismatchedAccounts()).isEmpty();
+    ledger.stop();
+  }
+
+  private static BigDecimal sum(List<LedgerEntry> entries) {
+    return entries.stream()
+      .map(entry -> entry.getType() == LedgerEntry.Type.CREDIT ? entry.getAmount() : entry.getAmount().negate())
+      .reduce(BigDecimal.ZERO, BigDecimal::add);
+  }
+}
@@ -0,0 +1,96 @@
+package com.db.awmd.challenge;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Wing and Gong search with memoisation: looks for a sequential order of the recorded operations that respects
+ * their real-time order and in which the sequential model returns exactly what each operation observed.
+ */
+final class LinearizabilityChecker<S, O, R> {
+
+  interface Model<S, O, R> {
+
+    S initial();
+
+    Step<S, R> apply(S state, O input);
+  }
+
+  static final class Step<S, R> {
+
+    final S state;
+    final R output;
+
+    Step(S state, R output) {
+      this.state = state;
+      this.output = output;
+    }
+  }
+
+  private final Model<S, O, R> model;
+
+  LinearizabilityChecker(Model<S, O, R> model) {
+    this.model = model;
+  }
+
+  boolean isLinearizable(List<History.Operation<O, R>> history) {
+    return search(history, new BitSet(history.size()), model.initial(), new HashSet<>());
+  }
+
+  private boolean search(List<History.Operation<O, R>> history, BitSet linearized, S state, Set<Visited<S>> visited) {
+    if (linearized.cardinality() == history.size()) {
+      return true;
+    }
+    if (!visited.add(new Visited<>(linearized, state))) {
+      return false;
+    }
+    // Only operations invoked before the earliest pending response can take effect next
+    long earliestReturn = Long.MAX_VALUE;
+    for (int i = linearized.nextClearBit(0); i < history.size(); i = linearized.nextClearBit(i + 1)) {
+      earliestReturn = Math.min(earliestReturn, history.get(i).returnedAt);
+    }
+    for (int i = linearized.nextClearBit(0); i < history.size(); i = linearized.nextClearBit(i + 1)) {
+      History.Operation<O, R> operation = history.get(i);
+      if (operation.invokedAt > earliestReturn) {
+        continue;
+      }
+      Step<S, R> step = model.apply(state, operation.input);
+      if (Objects.equals(step.output, operation.output)) {
+        BitSet next = (BitSet) linearized.clone();
+        next.set(i);
+        if (search(history, next, step.state, visited)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static final class Visited<S> {
+
+    private final BitSet linearized;
+    private final S state;
+
+    Visited(BitSet linearized, S state) {
+      this.linearized = linearized;
+      this.state = state;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Visited)) {
+        return false;
+      }
+      Visited<?> that = (Visited<?>) other;
+      return linearized.equals(that.linearized) && state.equals(that.state);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * linearized.hashCode() + state.hashCode();
+    }
+  }
+}
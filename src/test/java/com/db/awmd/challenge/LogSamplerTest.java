@@ -0,0 +1,61 @@
+package com.db.awmd.challenge;
+
+import com.db.awmd.challenge.logging.LogSampler;
+import com.db.awmd.challenge.logging.RequestLogSampling;
+import org.junit.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LogSamplerTest {
+
+  @Test
+  public void letsThroughOneEventPerRate() {
+    LogSampler sampler = new LogSampler(10, 0);
+
+    assertThat(sampled(sampler, 100)).isEqualTo(10);
+    assertThat(sampler.getDropped()).isEqualTo(90);
+  }
+
+  @Test
+  public void capsEventsPerSecond() {
+    int sampled;
+    long second;
+    do {
+      // Retried if the calls straddle a second, which opens a fresh window
+      second = System.currentTimeMillis() / 1000;
+      sampled = sampled(new LogSampler(1, 5), 100);
+    } while (System.currentTimeMillis() / 1000 != second);
+
+    assertThat(sampled).isEqualTo(5);
+  }
+
+  @Test
+  public void endpointSettingsOverrideTheDefaults() {
+    MockEnvironment environment = new MockEnvironment()
+      .withProperty("logging.sampling.rate", "10")
+      .withProperty("logging.sampling.endpoints.createTransfer.rate", "2");
+    RequestLogSampling sampling = new RequestLogSampling(environment);
+
+    assertThat(sampling.sampler("createTransfer")).isSameAs(sampling.sampler("createTransfer"));
+    assertThat(sampled(sampling.sampler("createTransfer"), 100)).isEqualTo(50);
+    assertThat(sampled(sampling.sampler("getTransfer"), 100)).isEqualTo(10);
+  }
+
+  @Test
+  public void logsEverythingWithoutSettings() {
+    RequestLogSampling sampling = new RequestLogSampling(new MockEnvironment());
+
+    assertThat(sampled(sampling.sampler("createTransfer"), 100)).isEqualTo(100);
+  }
+
+  private static int sampled(LogSampler sampler, int calls) {
+    int sampled = 0;
+    for (int i = 0; i < calls; i++) {
+      if (sampler.sample()) {
+        sampled++;
+      }
+    }
+    return sampled;
+  }
+}
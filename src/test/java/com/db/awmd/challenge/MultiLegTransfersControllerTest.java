@@ -0,0 +1,121 @@
+package com.db.awmd.challenge;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.service.AccountsService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.setup.MockMvcBuilders.webAppContextSetup;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "rules.max-amount-per-transfer=8000")
+@WebAppConfiguration
+public class MultiLegTransfersControllerTest {
+
+  private MockMvc mockMvc;
+
+  @Autowired
+  private AccountsService accountsService;
+
+  @Autowired
+  private WebApplicationContext webApplicationContext;
+
+  @Before
+  public void prepareMockMvc() {
+    this.mockMvc = webAppContextSetup(this.webApplicationContext).build();
+
+    accountsService.getAccountsRepository().clearAccounts();
+    accountsService.createAccount(new Account("ID-Employer", new BigDecimal("10000")));
+    accountsService.createAccount(new Account("ID-Partner", new BigDecimal("100")));
+    for (int i = 0; i < 500; i++) {
+      accountsService.createAccount(new Account("ID-Employee-" + i, BigDecimal.ZERO));
+    }
+  }
+
+  @Test
+  public void payrollWithManyCredits() throws Exception {
+    StringBuilder credits = new StringBuilder();
+    for (int i = 0; i < 500; i++) {
+      credits.append(i == 0 ? "" : ",").append("{\"accountId\":\"ID-Employee-").append(i).append("\",\"amount\":15}");
+    }
+    MvcResult result = this.mockMvc.perform(post("/v1/transfers/multi-leg").contentType(MediaType.APPLICATION_JSON)
+      .content("{\"debits\":[{\"accountId\":\"ID-Employer\",\"amount\":7500}],\"credits\":[" + credits + "]}"))
+      .andExpect(status().isCreated())
+      .andExpect(jsonPath("$.status").value("Completed"))
+      .andReturn();
+
+    assertThat(accountsService.getAccount("ID-Employer").getBalance()).isEqualByComparingTo("2500");
+    assertThat(accountsService.getAccount("ID-Employee-0").getBalance()).isEqualByComparingTo("15");
+    assertThat(accountsService.getAccount("ID-Employee-499").getBalance()).isEqualByComparingTo("15");
+
+    String transferId = result.getResponse().getContentAsString().replaceAll(".*\"transferId\":(\\d+).*", "$1");
+    this.mockMvc.perform(get("/v1/transfers/multi-leg/" + transferId))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.credits.length()").value(500));
+  }
+
+  @Test
+  public void failingDebitLegMovesNothing() throws Exception {
+    this.mockMvc.perform(post("/v1/transfers/multi-leg").contentType(MediaType.APPLICATION_JSON)
+      .content("{\"debits\":[{\"accountId\":\"ID-Employer\",\"amount\":100},{\"accountId\":\"ID-Partner\",\"amount\":200}],"
+        + "\"credits\":[{\"accountId\":\"ID-Employee-0\",\"amount\":150},{\"accountId\":\"ID-Employee-1\",\"amount\":150}]}"))
+      .andExpect(status().isBadRequest())
+      .andExpect(jsonPath("$.status").value("Failed"));
+
+    assertThat(accountsService.getAccount("ID-Employer").getBalance()).isEqualByComparingTo("10000");
+    assertThat(accountsService.getAccount("ID-Partner").getBalance()).isEqualByComparingTo("100");
+    assertThat(accountsService.getAccount("ID-Employee-0").getBalance()).isEqualByComparingTo("0");
+  }
+
+  @Test
+  public void debitLegsGoThroughTheTransferRules() throws Exception {
+    this.mockMvc.perform(post("/v1/transfers/multi-leg").contentType(MediaType.APPLICATION_JSON)
+      .content("{\"debits\":[{\"accountId\":\"ID-Employer\",\"amount\":9000}],"
+        + "\"credits\":[{\"accountId\":\"ID-Employee-0\",\"amount\":4500},"
+        + "{\"accountId\":\"ID-Employee-1\",\"amount\":4500}]}"))
+      .andExpect(status().isUnprocessableEntity())
+      .andExpect(jsonPath("$.status").value("Failed"));
+
+    assertThat(accountsService.getAccount("ID-Employer").getBalance()).isEqualByComparingTo("10000");
+    assertThat(accountsService.getAccount("ID-Employee-0").getBalance()).isEqualByComparingTo("0");
+  }
+
+  @Test
+  public void unbalancedLegsAreRejected() throws Exception {
+    this.mockMvc.perform(post("/v1/transfers/multi-leg").contentType(MediaType.APPLICATION_JSON)
+      .content("{\"debits\":[{\"accountId\":\"ID-Employer\",\"amount\":100}],"
+        + "\"credits\":[{\"accountId\":\"ID-Employee-0\",\"amount\":90}]}"))
+      .andExpect(status().isBadRequest())
+      .andExpect(jsonPath("$.failureCause").value("Debits of 100 do not match credits of 90"));
+
+    assertThat(accountsService.getAccount("ID-Employer").getBalance()).isEqualByComparingTo("10000");
+  }
+
+  @Test
+  public void unknownAccountAndEmptyLegs() throws Exception {
+    this.mockMvc.perform(post("/v1/transfers/multi-leg").contentType(MediaType.APPLICATION_JSON)
+      .content("{\"debits\":[{\"accountId\":\"ID-Employer\",\"amount\":10}],"
+        + "\"credits\":[{\"accountId\":\"ID-Missing\",\"amount\":10}]}"))
+      .andExpect(status().isBadRequest());
+
+    this.mockMvc.perform(post("/v1/transfers/multi-leg").contentType(MediaType.APPLICATION_JSON)
+      .content("{\"debits\":[],\"credits\":[{\"accountId\":\"ID-Employee-0\",\"amount\":10}]}"))
+      .andExpect(status().isBadRequest());
+  }
+}
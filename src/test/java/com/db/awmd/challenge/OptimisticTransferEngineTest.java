@@ -0,0 +1,100 @@
+package com.db.awmd.challenge;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.engine.OptimisticTransferEngine;
+import com.db.awmd.challenge.exception.InsufficientFundsException;
+import com.db.awmd.challenge.metrics.TransferMetrics;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class OptimisticTransferEngineTest {
+
+  @Test
+  public void commitsBumpVersions() {
+    TransferMetrics metrics = new TransferMetrics();
+    OptimisticTransferEngine engine = new OptimisticTransferEngine(metrics, 8);
+    Account sender = new Account("ID-1", new BigDecimal("100"));
+    Account receiver = new Account("ID-2", new BigDecimal("0"));
+
+    engine.transfer(sender, receiver, new BigDecimal("40"), new BigDecimal("40"));
+
+    assertThat(sender.getBalance()).isEqualByComparingTo("60");
+    assertThat(receiver.getBalance()).isEqualByComparingTo("40");
+    assertThat(sender.getVersion()).isEqualTo(1);
+    assertThat(receiver.getVersion()).isEqualTo(1);
+    assertThat(metrics.getEngineStats().getCommits()).isEqualTo(1);
+    assertThat(metrics.getEngineStats().getConflicts()).isEqualTo(0);
+  }
+
+  @Test
+  public void staleSnapshotIsRejected() {
+    Account account = new Account("ID-1", new BigDecimal("100"));
+    Account.Snapshot snapshot = account.getSnapshot();
+
+    account.deposit(BigDecimal.ONE);
+
+    assertThat(account.commit(snapshot, BigDecimal.ZERO)).isFalse();
+    assertThat(account.getBalance()).isEqualByComparingTo("101");
+  }
+
+  @Test
+  public void insufficientFunds() {
+    OptimisticTransferEngine engine = new OptimisticTransferEngine(new TransferMetrics(), 8);
+    Account sender = new Account("ID-1", new BigDecimal("10"));
+    Account receiver = new Account("ID-2", new BigDecimal("0"));
+
+    try {
+      engine.transfer(sender, receiver, new BigDecimal("11"), new BigDecimal("11"));
+      fail("Should have failed on insufficient funds");
+    } catch (InsufficientFundsException e) {
+      assertThat(sender.getBalance()).isEqualByComparingTo("10");
+      assertThat(receiver.getBalance()).isEqualByComparingTo("0");
+    }
+  }
+
+  @Test
+  public void fallsBackToLockingWithoutRetries() {
+    TransferMetrics metrics = new TransferMetrics();
+    OptimisticTransferEngine engine = new OptimisticTransferEngine(metrics, 0);
+    Account sender = new Account("ID-1", new BigDecimal("10"));
+    Account receiver = new Account("ID-2", new BigDecimal("0"));
+
+    engine.transfer(sender, receiver, new BigDecimal("10"), new BigDecimal("10"));
+
+    assertThat(receiver.getBalance()).isEqualByComparingTo("10");
+    assertThat(metrics.getEngineStats().getFallbacks()).isEqualTo(1);
+  }
+
+  @Test
+  public void contendedTransfersConserveFunds() throws Exception {
+    TransferMetrics metrics = new TransferMetrics();
+    OptimisticTransferEngine engine = new OptimisticTransferEngine(metrics, 4);
+    Account first = new Account("ID-1", new BigDecimal("10000"));
+    Account second = new Account("ID-2", new BigDecimal("10000"));
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<?>> results = new ArrayList<>();
+    for (int i = 0; i < 10000; i++) {
+      boolean forward = i % 2 == 0;
+      results.add(executor.submit(() -> engine.transfer(forward ? first : second, forward ? second : first,
+        BigDecimal.ONE, BigDecimal.ONE)));
+    }
+    for (Future<?> result : results) {
+      result.get();
+    }
+    executor.shutdown();
+
+    assertThat(first.getBalance()).isEqualByComparingTo("10000");
+    assertThat(second.getBalance()).isEqualByComparingTo("10000");
+    assertThat(metrics.getEngineStats().getCommits() + metrics.getEngineStats().getFallbacks()).isEqualTo(10000);
+  }
+}
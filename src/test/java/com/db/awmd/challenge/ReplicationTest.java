@@ -0,0 +1,206 @@
+package com.db.awmd.challenge;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Hold;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.engine.LockingTransferEngine;
+import com.db.awmd.challenge.metrics.TransferMetrics;
+import com.db.awmd.challenge.outbox.TransferOutbox;
+import com.db.awmd.challenge.replication.ReplicationReceiver;
+import com.db.awmd.challenge.replication.ReplicationSender;
+import com.db.awmd.challenge.repository.AccountsRepositoryInMemory;
+import com.db.awmd.challenge.repository.HoldsRepositoryInMemory;
+import com.db.awmd.challenge.repository.LedgerRepositoryInMemory;
+import com.db.awmd.challenge.repository.TransfersRepositoryInMemory;
+import com.db.awmd.challenge.rules.TransferRulesEngine;
+import com.db.awmd.challenge.service.AccountsService;
+import com.db.awmd.challenge.service.AsyncTransferService;
+import com.db.awmd.challenge.service.FxRateService;
+import com.db.awmd.challenge.service.HoldsService;
+import com.db.awmd.challenge.service.LedgerService;
+import com.db.awmd.challenge.service.TransferQueryService;
+import com.db.awmd.challenge.service.TransferScheduler;
+import com.db.awmd.challenge.service.TransfersService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Primary and follower talk over a real localhost socket; each side has its own repositories and ledger.
+ */
+public class ReplicationTest {
+
+  private AccountsRepositoryInMemory followerAccounts;
+
+  private TransfersRepositoryInMemory followerTransfers;
+
+  private LedgerService followerLedger;
+
+  private TransferOutbox followerOutbox;
+
+  private AsyncTransferService followerAsync;
+
+  private TransferScheduler followerScheduler;
+
+  private ReplicationReceiver receiver;
+
+  private ReplicationSender sender;
+
+  private LedgerService primaryLedger;
+
+  private AccountsService primaryAccounts;
+
+  private TransfersService primaryTransfers;
+
+  @Before
+  public void startPrimaryAndFollower() throws Exception {
+    followerAccounts = new AccountsRepositoryInMemory();
+    followerTransfers = new TransfersRepositoryInMemory();
+    followerLedger = new LedgerService(new LedgerRepositoryInMemory(4), followerAccounts, Collections.emptyList(), 1, 5000);
+    followerOutbox = new TransferOutbox();
+    TransferQueryService followerQuery = new TransferQueryService();
+    AccountsService followerAccountsService = new AccountsService(followerAccounts, followerLedger);
+    TransfersService followerTransfersService = new TransfersService(followerAccountsService, followerTransfers,
+      (account, description) -> { }, new FxRateService("EUR", ""), followerLedger, new TransferMetrics(),
+      new TransferRulesEngine(Collections.emptyList()), Collections.singletonList(followerQuery),
+      new LockingTransferEngine());
+    followerAsync = new AsyncTransferService(followerTransfersService, followerQuery, true, 1, 100, 60000, 0, 100,
+      "follower");
+    followerScheduler = new TransferScheduler(followerAccountsService, followerTransfersService, 10, 64, 100, 1,
+      "follower");
+    followerScheduler.start();
+    receiver = new ReplicationReceiver(followerAccounts, followerTransfers, followerLedger,
+      Arrays.asList(followerOutbox, followerQuery), Arrays.asList(followerAsync, followerScheduler), "follower", 0);
+    receiver.start();
+
+    sender = new ReplicationSender("primary", "localhost", receiver.getLocalPort(), 100, 10000, true, 5000, 50);
+    sender.start();
+
+    AccountsRepositoryInMemory accountsRepository = new AccountsRepositoryInMemory();
+    primaryLedger = new LedgerService(new LedgerRepositoryInMemory(4), accountsRepository,
+      Collections.singletonList(sender), 1, 5000);
+    primaryAccounts = new AccountsService(accountsRepository, primaryLedger);
+    primaryTransfers = new TransfersService(primaryAccounts, new TransfersRepositoryInMemory(),
+      (account, description) -> { }, new FxRateService("EUR", ""), primaryLedger, new TransferMetrics(),
+      new TransferRulesEngine(Collections.emptyList()), Collections.singletonList(sender),
+      new LockingTransferEngine());
+  }
+
+  @After
+  public void stopPrimaryAndFollower() throws Exception {
+    sender.stop();
+    receiver.stop();
+    followerAsync.stop();
+    followerScheduler.stop();
+    primaryLedger.stop();
+    followerLedger.stop();
+  }
+
+  @Test
+  public void followerMirrorsAccountsTransfersAndLedger() {
+    primaryAccounts.createAccount(new Account("ID-1", new BigDecimal("1000"), "EUR"));
+    primaryAccounts.createAccount(new Account("ID-2", new BigDecimal("500"), "EUR"));
+
+    Transfer completed = new Transfer("ID-1", "ID-2", new BigDecimal("250"));
+    primaryTransfers.createTransfer(completed);
+    primaryTransfers.executeTransfer(completed);
+    Transfer failed = new Transfer("ID-2", "ID-1", new BigDecimal("5000"));
+    primaryTransfers.executeTransfers(Arrays.asList(failed), false);
+
+    // Synchronous mode: every mutation has been acknowledged by the follower before returning
+    assertThat(sender.getAcknowledgedSequence()).isEqualTo(sender.getSequence());
+    assertThat(followerAccounts.getAccount("ID-1").getBalance()).isEqualByComparingTo("750");
+    assertThat(followerAccounts.getAccount("ID-2").getBalance()).isEqualByComparingTo("750");
+    assertThat(followerAccounts.getAccount("ID-2").getCurrency()).isEqualTo("EUR");
+    assertThat(followerTransfers.getTransfer(completed.getTransferId()).getStatus())
+      .isEqualTo(Transfer.Status.COMPLETED);
+    assertThat(followerTransfers.getTransfer(failed.getTransferId()).getStatus()).isEqualTo(Transfer.Status.FAILED);
+    assertThat(followerTransfers.getTransfer(failed.getTransferId()).getFailureCause())
+      .isEqualTo(failed.getFailureCause());
+    assertThat(followerLedger.getEntries("ID-1")).hasSize(2);
+    assertThat(followerLedger.getLastSequence()).isEqualTo(primaryLedger.getLastSequence());
+    assertThat(sender.getLagMillis()).isEqualTo(0);
+    assertThat(followerOutbox.getHeadOffset()).isZero();
+  }
+
+  @Test
+  public void followerMirrorsHeldAmounts() {
+    primaryAccounts.createAccount(new Account("ID-1", new BigDecimal("100")));
+    HoldsService holdsService = new HoldsService(primaryAccounts, new HoldsRepositoryInMemory(), primaryLedger, 100, 8);
+
+    Hold captured = holdsService.placeHold("ID-1", new BigDecimal("30"), System.currentTimeMillis() + 60000);
+    Hold released = holdsService.placeHold("ID-1", new BigDecimal("20"), System.currentTimeMillis() + 60000);
+    assertThat(followerAccounts.getAccount("ID-1").getHeldBalance()).isEqualByComparingTo("50");
+
+    holdsService.captureHold("ID-1", captured.getHoldId(), new BigDecimal("25"));
+    holdsService.releaseHold("ID-1", released.getHoldId());
+
+    assertThat(followerAccounts.getAccount("ID-1").getHeldBalance()).isEqualByComparingTo("0");
+    assertThat(followerAccounts.getAccount("ID-1").getBalance()).isEqualByComparingTo("75");
+  }
+
+  @Test
+  public void timedOutSyncWritesAreReportedUntilAcknowledged() {
+    // Never started, so nothing is ever acknowledged
+    ReplicationSender unacknowledged = new ReplicationSender("primary", "localhost", 0, 100, 100, true, 10, 50);
+
+    unacknowledged.onHoldChanged("ID-1", BigDecimal.ONE);
+    unacknowledged.onHoldChanged("ID-1", BigDecimal.ONE);
+
+    assertThat(unacknowledged.getUnconfirmedSyncEvents()).isEqualTo(2);
+    assertThat(sender.getUnconfirmedSyncEvents()).isEqualTo(0);
+  }
+
+  @Test
+  public void promotedFollowerStopsFollowing() {
+    primaryAccounts.createAccount(new Account("ID-1", new BigDecimal("10")));
+    assertThat(receiver.isFollower()).isTrue();
+
+    receiver.promote();
+
+    assertThat(receiver.isFollower()).isFalse();
+    // The opening event and both sides of the opening entry
+    assertThat(receiver.getAppliedSequence()).isEqualTo(3);
+    assertThat(followerAccounts.getAccount("ID-1").getBalance()).isEqualByComparingTo("10");
+  }
+
+  @Test
+  public void followerLeavesPendingTransfersToThePrimaryUntilPromoted() throws Exception {
+    primaryAccounts.createAccount(new Account("ID-1", new BigDecimal("100")));
+    primaryAccounts.createAccount(new Account("ID-2", BigDecimal.ZERO));
+    // Accepted on the primary but not executed, so both stay PENDING there past the stale threshold
+    Transfer pending = new Transfer("ID-1", "ID-2", new BigDecimal("30"));
+    primaryTransfers.createTransfer(pending);
+    Transfer scheduled = new Transfer("ID-1", "ID-2", new BigDecimal("20"), System.currentTimeMillis() + 1000);
+    primaryTransfers.createTransfer(scheduled);
+    Thread.sleep(5);
+
+    assertThat(followerAsync.recoverPending()).isZero();
+    assertThat(followerAsync.sweep()).isZero();
+    assertThat(followerScheduler.getPendingCount()).isZero();
+    assertThat(followerAccounts.getAccount("ID-1").getBalance()).isEqualByComparingTo("100");
+
+    receiver.promote();
+
+    assertThat(followerScheduler.getPendingCount()).isEqualTo(1);
+    assertThat(followerAsync.sweep()).isEqualTo(1);
+    long timeout = System.currentTimeMillis() + 5000;
+    while ((followerTransfers.getTransfer(pending.getTransferId()).getStatus() == Transfer.Status.PENDING
+      || followerTransfers.getTransfer(scheduled.getTransferId()).getStatus() == Transfer.Status.PENDING)
+      && System.currentTimeMillis() < timeout) {
+      Thread.sleep(10);
+    }
+    assertThat(followerTransfers.getTransfer(pending.getTransferId()).getStatus())
+      .isEqualTo(Transfer.Status.COMPLETED);
+    assertThat(followerTransfers.getTransfer(scheduled.getTransferId()).getStatus())
+      .isEqualTo(Transfer.Status.COMPLETED);
+    assertThat(followerAccounts.getAccount("ID-1").getBalance()).isEqualByComparingTo("50");
+    assertThat(followerAccounts.getAccount("ID-2").getBalance()).isEqualByComparingTo("50");
+  }
+}
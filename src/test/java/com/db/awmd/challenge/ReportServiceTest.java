@@ -0,0 +1,152 @@
+package com.db.awmd.challenge;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.ReportResult;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.report.ReportFormat;
+import com.db.awmd.challenge.repository.TransfersRepository;
+import com.db.awmd.challenge.service.AccountsService;
+import com.db.awmd.challenge.service.LedgerService;
+import com.db.awmd.challenge.service.ReportService;
+import com.db.awmd.challenge.service.TransfersService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class ReportServiceTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Autowired
+  private LedgerService ledgerService;
+
+  @Autowired
+  private AccountsService accountsService;
+
+  @Autowired
+  private TransfersService transfersService;
+
+  @Autowired
+  private TransfersRepository transfersRepository;
+
+  private ReportService reportService;
+
+  @Before
+  public void prepareAccounts() {
+    accountsService.getAccountsRepository().clearAccounts();
+    ledgerService.getLedgerRepository().clearLedger();
+    reportService = new ReportService(ledgerService, accountsService.getAccountsRepository(),
+      transfersRepository, folder.getRoot().getPath(), "UTC", 64, 4);
+
+    for (int i = 0; i < 100; i++) {
+      this.accountsService.createAccount(new Account("ID-" + i, new BigDecimal(1000)));
+    }
+  }
+
+  @After
+  public void stopReportService() {
+    reportService.stop();
+  }
+
+  @Test
+  public void writesBalancesAndDayTransfersAsCsv() throws Exception {
+    Transfer transfer = new Transfer("ID-0", "ID-1", new BigDecimal("12.50"));
+    this.transfersService.createTransfer(transfer);
+    this.transfersService.executeTransfer(transfer);
+
+    ReportResult result = reportService.generateEndOfDay(reportService.today(), ReportFormat.CSV);
+
+    // The equity account holds the other side of every opening, so the balances add up to zero
+    assertThat(result.getAccounts()).isEqualTo(101);
+    // Both sides of each opening and of the transfer
+    assertThat(result.getTransferLines()).isEqualTo(202);
+
+    List<String> balances = readLines(result, "balances");
+    assertThat(balances).hasSize(101);
+    assertThat(balances).contains("ID-0,,987.50", "ID-1,,1012.50", "ID-2,,1000", ":EQUITY,,-100000");
+
+    List<String> transfers = readLines(result, "transfers");
+    String debit = "ID-0," + transfer.getTransferId() + ",DEBIT,12.50,ID-1";
+    String credit = "ID-1," + transfer.getTransferId() + ",CREDIT,12.50,ID-0";
+    String opening = "ID-2,,CREDIT,1000,OPENING";
+    assertThat(transfers).hasSize(202).contains(debit + "," + timestampOf(transfers, debit),
+      credit + "," + timestampOf(transfers, credit), opening + "," + timestampOf(transfers, opening));
+  }
+
+  @Test
+  public void ignoresTransfersOutsideTheDay() throws Exception {
+    Transfer transfer = new Transfer("ID-0", "ID-1", new BigDecimal("10"));
+    this.transfersService.createTransfer(transfer);
+    this.transfersService.executeTransfer(transfer);
+
+    // Every account was opened today, so none of them existed at the end of the previous day
+    ReportResult previousDay = reportService.generateEndOfDay(reportService.today().minusDays(1), ReportFormat.NDJSON);
+    assertThat(previousDay.getTransferLines()).isEqualTo(0);
+    assertThat(previousDay.getAccounts()).isEqualTo(0);
+    assertThat(readLines(previousDay, "balances")).isEmpty();
+
+    ReportResult today = reportService.generateEndOfDay(reportService.today(), ReportFormat.NDJSON);
+    assertThat(today.getCutoffSequence()).isEqualTo(this.ledgerService.getLastSequence());
+    List<String> lines = readLines(today, "transfers");
+    assertThat(lines).hasSize(202);
+    String opening = "{\"accountId\":\"ID-0\",\"direction\":\"CREDIT\",\"amount\":1000,"
+      + "\"counterpartyAccountId\":\"OPENING\",";
+    assertThat(lines.stream().filter(line -> line.startsWith(opening)).count()).isEqualTo(1);
+    assertThat(lines.stream().filter(line -> line.contains("\"transferId\":" + transfer.getTransferId() + ","))
+      .count()).isEqualTo(2);
+  }
+
+  @Test
+  public void includesAccountsOpenedWithoutBalance() throws Exception {
+    this.accountsService.createAccount(new Account("ID-Empty", BigDecimal.ZERO));
+
+    ReportResult result = reportService.generateEndOfDay(reportService.today(), ReportFormat.CSV);
+
+    assertThat(result.getAccounts()).isEqualTo(102);
+    assertThat(readLines(result, "balances")).contains("ID-Empty,,0");
+  }
+
+  private List<String> readLines(ReportResult result, String prefix) throws Exception {
+    Path directory = Paths.get(result.getDirectory());
+    List<String> lines = new ArrayList<>();
+    for (String file : result.getFiles()) {
+      if (!file.startsWith(prefix)) {
+        continue;
+      }
+      for (String line : Files.readAllLines(directory.resolve(file), StandardCharsets.UTF_8)) {
+        if (!line.startsWith("accountId,")) {
+          lines.add(line);
+        }
+      }
+    }
+    return lines;
+  }
+
+  private String timestampOf(List<String> lines, String prefix) {
+    for (String line : lines) {
+      if (line.startsWith(prefix + ",")) {
+        return line.substring(line.lastIndexOf(',') + 1);
+      }
+    }
+    return "";
+  }
+}
@@ -0,0 +1,103 @@
+package com.db.awmd.challenge;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.ShardStats;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.repository.AccountsRepositorySharded;
+import com.db.awmd.challenge.repository.TransfersRepository;
+import com.db.awmd.challenge.repository.TransfersRepositorySharded;
+import com.db.awmd.challenge.service.AccountsService;
+import com.db.awmd.challenge.service.TransfersService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.setup.MockMvcBuilders.webAppContextSetup;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"repository.type=sharded", "repository.shards=4"})
+@WebAppConfiguration
+public class ShardedRepositoriesTest {
+
+  @Autowired
+  private WebApplicationContext webApplicationContext;
+
+  @Autowired
+  private AccountsService accountsService;
+
+  @Autowired
+  private TransfersService transfersService;
+
+  @Autowired
+  private TransfersRepository transfersRepository;
+
+  @Before
+  public void prepareAccounts() {
+    accountsService.getAccountsRepository().clearAccounts();
+    transfersService.clearTransfers();
+
+    for (int i = 0; i < 100; i++) {
+      this.accountsService.createAccount(new Account("ID-" + i, new BigDecimal(100)));
+    }
+  }
+
+  @Test
+  public void spreadsAccountsAcrossShards() throws Exception {
+    assertThat(accountsService.getAccountsRepository()).isInstanceOf(AccountsRepositorySharded.class);
+    AccountsRepositorySharded repository = (AccountsRepositorySharded) accountsService.getAccountsRepository();
+
+    assertThat(repository.countAccounts()).isEqualTo(100);
+    List<ShardStats> stats = repository.getShardStats();
+    assertThat(stats).hasSize(4);
+    assertThat(stats.stream().mapToLong(ShardStats::getSize).sum()).isEqualTo(100);
+    assertThat(stats.stream().allMatch(shard -> shard.getSize() > 0)).isTrue();
+
+    assertThat(repository.getAccount("ID-42").getBalance()).isEqualByComparingTo("100");
+    assertThat(repository.getAccount("missing")).isNull();
+    assertThat(stats.stream().mapToLong(ShardStats::getWrites).sum()).isGreaterThanOrEqualTo(100);
+  }
+
+  @Test
+  public void executesTransfersOnShards() throws Exception {
+    for (int i = 0; i < 100; i++) {
+      Transfer transfer = new Transfer("ID-" + i, "ID-" + ((i + 1) % 100), new BigDecimal(10));
+      this.transfersService.createTransfer(transfer);
+      this.transfersService.executeTransfer(transfer);
+    }
+
+    assertThat(transfersRepository).isInstanceOf(TransfersRepositorySharded.class);
+    assertThat(transfersRepository.countTransfers()).isEqualTo(100);
+    List<Transfer> transfers = transfersService.getTransfer();
+    assertThat(transfers).hasSize(100);
+    assertThat(transfers.stream().allMatch(transfer -> transfer.getStatus() == Transfer.Status.COMPLETED)).isTrue();
+    assertThat(accountsService.getAccount("ID-0").getBalance()).isEqualByComparingTo("100");
+
+    transfersService.clearTransfers();
+    assertThat(transfersRepository.countTransfers()).isEqualTo(0);
+  }
+
+  @Test
+  public void exposesShardStats() throws Exception {
+    MockMvc mockMvc = webAppContextSetup(this.webApplicationContext).build();
+    mockMvc.perform(get("/v1/shards/accounts"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.length()").value(4))
+      .andExpect(jsonPath("$[0].shard").value(0));
+    mockMvc.perform(get("/v1/shards/transfers"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.length()").value(4));
+  }
+}
@@ -0,0 +1,78 @@
+package com.db.awmd.challenge;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * jcstress-style runner: every actor gets its own thread and walks the same batch of fresh states in lock-step, so
+ * the actors race on each state. The arbiter then reduces every state to an outcome, and the outcome histogram is
+ * returned for the test to sort into acceptable and forbidden results.
+ */
+final class StressHarness {
+
+  private static final int BATCH_SIZE = 64;
+
+  private StressHarness() {
+  }
+
+  @SafeVarargs
+  static <S, R extends Comparable<R>> Map<R, Long> run(int iterations, Supplier<S> state, Function<S, R> arbiter,
+                                                       Consumer<S>... actors) throws InterruptedException {
+    CyclicBarrier barrier = new CyclicBarrier(actors.length + 1);
+    List<List<S>> batches = new ArrayList<>();
+    for (int done = 0; done < iterations; done += BATCH_SIZE) {
+      List<S> batch = new ArrayList<>(BATCH_SIZE);
+      for (int i = 0; i < BATCH_SIZE; i++) {
+        batch.add(state.get());
+      }
+      batches.add(batch);
+    }
+
+    List<Thread> threads = new ArrayList<>();
+    List<Throwable> failures = new ArrayList<>();
+    for (Consumer<S> actor : actors) {
+      Thread thread = new Thread(() -> {
+        try {
+          for (List<S> batch : batches) {
+            barrier.await();
+            batch.forEach(actor);
+          }
+        } catch (InterruptedException | BrokenBarrierException e) {
+          Thread.currentThread().interrupt();
+        } catch (RuntimeException | Error e) {
+          synchronized (failures) {
+            failures.add(e);
+          }
+          barrier.reset();
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+
+    try {
+      for (int i = 0; i < batches.size(); i++) {
+        barrier.await();
+      }
+    } catch (BrokenBarrierException e) {
+      // An actor failed, reported below
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    if (!failures.isEmpty()) {
+      throw new AssertionError("Actor failed", failures.get(0));
+    }
+
+    Map<R, Long> outcomes = new TreeMap<>();
+    batches.forEach(batch -> batch.forEach(raced -> outcomes.merge(arbiter.apply(raced), 1L, Long::sum)));
+    return outcomes;
+  }
+}
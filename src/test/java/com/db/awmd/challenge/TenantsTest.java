@@ -0,0 +1,228 @@
+package com.db.awmd.challenge;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.service.AccountsService;
+import com.db.awmd.challenge.service.TransfersService;
+import com.db.awmd.challenge.tenant.TenantFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.setup.MockMvcBuilders.webAppContextSetup;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"tenants.overrides.small.max-accounts=2", "tenants.overrides.slow.rate-per-second=0.001",
+  "tenants.overrides.slow.burst=2", "tenants.overrides.bulk.max-accounts=2",
+  "tenants.overrides.bulk.rate-per-second=0.001", "tenants.overrides.bulk.burst=4"})
+@WebAppConfiguration
+public class TenantsTest {
+
+  private MockMvc mockMvc;
+
+  @Autowired
+  private AccountsService accountsService;
+
+  @Autowired
+  private TransfersService transfersService;
+
+  @Autowired
+  private TenantFilter tenantFilter;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private WebApplicationContext webApplicationContext;
+
+  @Before
+  public void prepareMockMvc() {
+    this.mockMvc = webAppContextSetup(this.webApplicationContext).addFilters(tenantFilter).build();
+
+    accountsService.getAccountsRepository().clearAccounts();
+    transfersService.clearTransfers();
+  }
+
+  @Test
+  public void sameAccountIdIsIsolatedPerTenant() throws Exception {
+    this.mockMvc.perform(post("/v1/accounts").header(TenantFilter.TENANT_HEADER, "acme")
+      .contentType(MediaType.APPLICATION_JSON).content("{\"accountId\":\"A1\",\"balance\":100}"))
+      .andExpect(status().isCreated());
+    this.mockMvc.perform(post("/v1/tenants/globex/accounts")
+      .contentType(MediaType.APPLICATION_JSON).content("{\"accountId\":\"A1\",\"balance\":5}"))
+      .andExpect(status().isCreated());
+    this.mockMvc.perform(post("/v1/accounts")
+      .contentType(MediaType.APPLICATION_JSON).content("{\"accountId\":\"A1\",\"balance\":1}"))
+      .andExpect(status().isCreated());
+
+    this.mockMvc.perform(get("/v1/accounts/A1").header(TenantFilter.TENANT_HEADER, "acme"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.accountId").value("A1"))
+      .andExpect(jsonPath("$.balance").value(100));
+    this.mockMvc.perform(get("/v1/tenants/globex/accounts/A1"))
+      .andExpect(jsonPath("$.balance").value(5));
+    this.mockMvc.perform(get("/v1/accounts/A1"))
+      .andExpect(jsonPath("$.balance").value(1));
+
+    assertThat(accountsService.getAccount("acme:A1").getBalance()).isEqualByComparingTo("100");
+    assertThat(accountsService.getAccount("globex:A1").getBalance()).isEqualByComparingTo("5");
+    assertThat(accountsService.getAccountsRepository().countAccounts()).isEqualTo(3);
+  }
+
+  @Test
+  public void transfersStayInsideTheirNamespace() throws Exception {
+    this.mockMvc.perform(post("/v1/accounts/bulk").header(TenantFilter.TENANT_HEADER, "acme")
+      .contentType("application/x-ndjson")
+      .content("{\"accountId\":\"A1\",\"balance\":100}\n{\"accountId\":\"A2\",\"balance\":0}\n"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.imported").value(2));
+
+    String created = this.mockMvc.perform(post("/v1/transfers").header(TenantFilter.TENANT_HEADER, "acme")
+      .contentType(MediaType.APPLICATION_JSON)
+      .content("{\"senderAccountId\":\"A1\",\"receiverAccountId\":\"A2\",\"amount\":10}"))
+      .andExpect(status().isCreated())
+      .andExpect(jsonPath("$.senderAccountId").value("A1"))
+      .andReturn().getResponse().getContentAsString();
+    long transferId = objectMapper.readTree(created).get("transferId").asLong();
+
+    assertThat(accountsService.getAccount("acme:A1").getBalance()).isEqualByComparingTo("90");
+    assertThat(accountsService.getAccount("acme:A2").getBalance()).isEqualByComparingTo("10");
+
+    this.mockMvc.perform(get("/v1/transfers/" + transferId).header(TenantFilter.TENANT_HEADER, "acme"))
+      .andExpect(jsonPath("$.receiverAccountId").value("A2"));
+    this.mockMvc.perform(get("/v1/transfers/" + transferId).header(TenantFilter.TENANT_HEADER, "globex"))
+      .andExpect(content().string(""));
+    this.mockMvc.perform(get("/v1/transfers/" + transferId))
+      .andExpect(content().string(""));
+
+    this.mockMvc.perform(get("/v1/tenants/acme/ledger/A1"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$[0].accountId").value("A1"));
+  }
+
+  @Test
+  public void defaultNamespaceCannotNameTenantAccounts() throws Exception {
+    this.mockMvc.perform(post("/v1/accounts").header(TenantFilter.TENANT_HEADER, "acme")
+      .contentType(MediaType.APPLICATION_JSON).content("{\"accountId\":\"A1\",\"balance\":100}"))
+      .andExpect(status().isCreated());
+
+    this.mockMvc.perform(get("/v1/accounts/acme:A1")).andExpect(status().isBadRequest());
+    this.mockMvc.perform(post("/v1/accounts")
+      .contentType(MediaType.APPLICATION_JSON).content("{\"accountId\":\"acme:A2\",\"balance\":100}"))
+      .andExpect(status().isBadRequest());
+    this.mockMvc.perform(post("/v1/tenants/globex/accounts").header(TenantFilter.TENANT_HEADER, "acme")
+      .contentType(MediaType.APPLICATION_JSON).content("{\"accountId\":\"A2\",\"balance\":100}"))
+      .andExpect(status().isBadRequest());
+
+    assertThat(accountsService.getAccount("acme:A2")).isNull();
+  }
+
+  @Test
+  public void tenantsCannotReachOperatorEndpoints() throws Exception {
+    this.mockMvc.perform(get("/v1/transfers").header(TenantFilter.TENANT_HEADER, "acme"))
+      .andExpect(status().isForbidden());
+    this.mockMvc.perform(post("/v1/ledger/replay").header(TenantFilter.TENANT_HEADER, "acme"))
+      .andExpect(status().isForbidden());
+    this.mockMvc.perform(get("/v1/tenants/acme/transfers/stats")).andExpect(status().isForbidden());
+    this.mockMvc.perform(get("/v1/accounts/A1").header(TenantFilter.TENANT_HEADER, "not a tenant"))
+      .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  public void enforcesStorageAndThroughputQuotas() throws Exception {
+    for (int i = 0; i < 2; i++) {
+      this.mockMvc.perform(post("/v1/tenants/small/accounts")
+        .contentType(MediaType.APPLICATION_JSON).content("{\"accountId\":\"S" + i + "\",\"balance\":1}"))
+        .andExpect(status().isCreated());
+    }
+    this.mockMvc.perform(post("/v1/tenants/small/accounts")
+      .contentType(MediaType.APPLICATION_JSON).content("{\"accountId\":\"S2\",\"balance\":1}"))
+      .andExpect(status().isInsufficientStorage());
+
+    for (int i = 0; i < 2; i++) {
+      this.mockMvc.perform(post("/v1/tenants/slow/accounts")
+        .contentType(MediaType.APPLICATION_JSON).content("{\"accountId\":\"S" + i + "\",\"balance\":1}"))
+        .andExpect(status().isCreated());
+    }
+    this.mockMvc.perform(post("/v1/tenants/slow/accounts")
+      .contentType(MediaType.APPLICATION_JSON).content("{\"accountId\":\"S2\",\"balance\":1}"))
+      .andExpect(status().isTooManyRequests())
+      .andExpect(header().string("Retry-After", "1000"));
+    this.mockMvc.perform(post("/v1/tenants/small/accounts/S0/holds")
+      .contentType(MediaType.APPLICATION_JSON)
+      .content("{\"amount\":1,\"expiresAt\":" + (System.currentTimeMillis() + 60000) + "}"))
+      .andExpect(status().isCreated())
+      .andExpect(jsonPath("$.accountId").value("S0"));
+
+    this.mockMvc.perform(get("/v1/tenants/small"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.accounts").value(2))
+      .andExpect(jsonPath("$.requests").value(4))
+      .andExpect(jsonPath("$.overQuota").value(1));
+    this.mockMvc.perform(get("/v1/tenants/slow"))
+      .andExpect(jsonPath("$.throttled").value(1));
+    this.mockMvc.perform(get("/v1/tenants/nobody")).andExpect(status().isNotFound());
+  }
+
+  @Test
+  public void bulkWritesAreReservedAndChargedPerItem() throws Exception {
+    this.mockMvc.perform(post("/v1/tenants/bulk/accounts/bulk").contentType("application/x-ndjson")
+      .content("{\"accountId\":\"B1\",\"balance\":1}\n{\"accountId\":\"B2\",\"balance\":1}\n"
+        + "{\"accountId\":\"B3\",\"balance\":1}\n"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.imported").value(2))
+      .andExpect(jsonPath("$.overQuotaCount").value(1));
+    assertThat(accountsService.getAccount("bulk:B3")).isNull();
+
+    // Three items took three of the four tokens, so one request is left
+    this.mockMvc.perform(post("/v1/tenants/bulk/transfers").contentType(MediaType.APPLICATION_JSON)
+      .content("{\"senderAccountId\":\"B1\",\"receiverAccountId\":\"B2\",\"amount\":1}"))
+      .andExpect(status().isCreated());
+    this.mockMvc.perform(post("/v1/tenants/bulk/transfers").contentType(MediaType.APPLICATION_JSON)
+      .content("{\"senderAccountId\":\"B1\",\"receiverAccountId\":\"B2\",\"amount\":1}"))
+      .andExpect(status().isTooManyRequests());
+    this.mockMvc.perform(get("/v1/tenants/bulk"))
+      .andExpect(jsonPath("$.accounts").value(2))
+      .andExpect(jsonPath("$.transfers").value(1))
+      .andExpect(jsonPath("$.overQuota").value(1));
+  }
+
+  @Test
+  public void defaultNamespaceOnlyListsItsOwnTransfers() throws Exception {
+    accountsService.createAccount(new Account("acme:A1", new BigDecimal(100)));
+    accountsService.createAccount(new Account("acme:A2", new BigDecimal(100)));
+    accountsService.createAccount(new Account("D1", new BigDecimal(100)));
+    accountsService.createAccount(new Account("D2", new BigDecimal(100)));
+    this.mockMvc.perform(post("/v1/tenants/acme/transfers").contentType(MediaType.APPLICATION_JSON)
+      .content("{\"senderAccountId\":\"A1\",\"receiverAccountId\":\"A2\",\"amount\":7}"))
+      .andExpect(status().isCreated());
+    this.mockMvc.perform(post("/v1/transfers").contentType(MediaType.APPLICATION_JSON)
+      .content("{\"senderAccountId\":\"D1\",\"receiverAccountId\":\"D2\",\"amount\":5}"))
+      .andExpect(status().isCreated());
+
+    this.mockMvc.perform(get("/v1/transfers"))
+      .andExpect(jsonPath("$.length()").value(1))
+      .andExpect(jsonPath("$[0].senderAccountId").value("D1"));
+    this.mockMvc.perform(get("/v1/transfers/query").param("minAmount", "1"))
+      .andExpect(jsonPath("$.length()").value(1))
+      .andExpect(jsonPath("$[0].amount").value(5));
+    this.mockMvc.perform(get("/v1/transfers/query").param("status", "COMPLETED"))
+      .andExpect(jsonPath("$.length()").value(1));
+  }
+}
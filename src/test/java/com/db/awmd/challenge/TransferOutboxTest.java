@@ -0,0 +1,225 @@
+package com.db.awmd.challenge;
+
+import com.db.awmd.challenge.domain.MultiLegTransfer;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.outbox.FileOutboxSink;
+import com.db.awmd.challenge.outbox.InProcessBrokerSink;
+import com.db.awmd.challenge.outbox.OutboxBatch;
+import com.db.awmd.challenge.outbox.OutboxEvent;
+import com.db.awmd.challenge.outbox.OutboxRelay;
+import com.db.awmd.challenge.outbox.OutboxSink;
+import com.db.awmd.challenge.outbox.TransferOutbox;
+import com.db.awmd.challenge.repository.TransfersRepositoryInMemory;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TransferOutboxTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void recordsOneEventPerStatusChange() {
+    TransferOutbox outbox = new TransferOutbox();
+    Transfer transfer = new Transfer("ID-1", "ID-2", new BigDecimal("10"));
+
+    outbox.onCreated(transfer);
+    outbox.onUpdated(transfer);
+    transfer.setFailureCause("Not enough funds");
+    transfer.setStatus(Transfer.Status.FAILED);
+    outbox.onUpdated(transfer);
+    outbox.onUpdated(transfer);
+
+    List<OutboxEvent> events = outbox.read(1, 10);
+    assertThat(events).hasSize(2);
+    assertThat(events.get(0).getStatus()).isEqualTo(Transfer.Status.PENDING);
+    assertThat(events.get(0).getFailureCause()).isNull();
+    assertThat(events.get(1).getStatus()).isEqualTo(Transfer.Status.FAILED);
+    assertThat(events.get(1).getFailureCause()).isEqualTo("Not enough funds");
+    assertThat(outbox.read(2, 10)).hasSize(1);
+  }
+
+  @Test
+  public void failingSinkIsRetriedWithoutHoldingBackOthers() throws Exception {
+    TransferOutbox outbox = new TransferOutbox();
+    InProcessBrokerSink broker = new InProcessBrokerSink(10);
+    FlakySink flaky = new FlakySink(1);
+    OutboxRelay relay = new OutboxRelay(outbox, Arrays.asList(flaky, broker), "", 1000, 3);
+
+    for (int i = 0; i < 5; i++) {
+      outbox.onCreated(new Transfer("ID-1", "ID-2", BigDecimal.ONE));
+    }
+
+    assertThat(relay.relay()).isEqualTo(2);
+    assertThat(relay.getCheckpoints()).containsEntry("broker", 5L).doesNotContainKey("flaky");
+    assertThat(relay.getFailedExports()).isEqualTo(1);
+    assertThat(outbox.getRetainedCount()).isEqualTo(5);
+
+    assertThat(relay.relay()).isEqualTo(2);
+    assertThat(flaky.offsets).containsExactly(1L, 2L, 3L, 4L, 5L);
+    assertThat(outbox.getRetainedCount()).isZero();
+
+    List<String> lines = new ArrayList<>();
+    OutboxBatch batch;
+    while ((batch = broker.poll(0, TimeUnit.MILLISECONDS)) != null) {
+      lines.addAll(batch.readLines());
+    }
+    assertThat(lines).hasSize(5);
+    assertThat(lines.get(0)).startsWith("{\"offset\":1,").contains("\"status\":\"PENDING\"", "\"amount\":1");
+  }
+
+  @Test
+  public void checkpointsSurviveRestart() throws Exception {
+    String checkpointFile = folder.getRoot().toPath().resolve("checkpoints.properties").toString();
+    TransferOutbox outbox = new TransferOutbox();
+    InProcessBrokerSink broker = new InProcessBrokerSink(10);
+    OutboxRelay relay = new OutboxRelay(outbox, Collections.singletonList(broker), checkpointFile, 1000, 100);
+    outbox.onCreated(new Transfer("ID-1", "ID-2", BigDecimal.ONE));
+    outbox.onCreated(new Transfer("ID-1", "ID-2", BigDecimal.ONE));
+    relay.relay();
+
+    TransferOutbox restarted = new TransferOutbox();
+    OutboxRelay restartedRelay = new OutboxRelay(restarted, Collections.singletonList(broker), checkpointFile, 1000,
+      100);
+    restarted.onCreated(new Transfer("ID-1", "ID-2", BigDecimal.ONE));
+
+    assertThat(restartedRelay.getCheckpoints()).containsEntry("broker", 2L);
+    assertThat(restartedRelay.relay()).isEqualTo(1);
+    broker.poll(0, TimeUnit.MILLISECONDS);
+    OutboxBatch batch = broker.poll(0, TimeUnit.MILLISECONDS);
+    assertThat(batch.getFirstOffset()).isEqualTo(3);
+    assertThat(batch.getLastOffset()).isEqualTo(3);
+  }
+
+  @Test
+  public void laggingSinkResumesFromTheLogAfterRestart() throws Exception {
+    String checkpointFile = folder.getRoot().toPath().resolve("checkpoints.properties").toString();
+    String logDirectory = folder.getRoot().toPath().resolve("log").toString();
+    TransferOutbox outbox = new TransferOutbox(new TransfersRepositoryInMemory(), logDirectory, 2);
+    InProcessBrokerSink broker = new InProcessBrokerSink(10);
+    FlakySink flaky = new FlakySink(0);
+    OutboxRelay relay = new OutboxRelay(outbox, Arrays.asList(flaky, broker), checkpointFile, 1000, 100);
+    outbox.onCreated(new Transfer("ID-1", "ID-2", BigDecimal.ONE));
+    relay.relay();
+    outbox.onCreated(new Transfer("ID-1", "ID-2", BigDecimal.ONE));
+    outbox.onCreated(new Transfer("ID-1", "ID-2", BigDecimal.ONE));
+    flaky.failures = 1;
+    relay.relay();
+    assertThat(relay.getCheckpoints()).containsEntry("flaky", 1L).containsEntry("broker", 3L);
+
+    // Not stopped, as after a crash
+    TransferOutbox restarted = new TransferOutbox(new TransfersRepositoryInMemory(), logDirectory, 2);
+    OutboxRelay restartedRelay = new OutboxRelay(restarted, Arrays.asList(flaky, broker), checkpointFile, 1000, 100);
+    restarted.onCreated(new Transfer("ID-1", "ID-2", BigDecimal.ONE));
+
+    assertThat(restartedRelay.getCheckpoints()).containsEntry("flaky", 1L).containsEntry("broker", 3L);
+    assertThat(restartedRelay.relay()).isEqualTo(2);
+    assertThat(flaky.offsets).containsExactly(1L, 2L, 3L, 4L);
+    assertThat(restartedRelay.getBacklog()).isZero();
+    // Only the segment still being appended to is kept
+    assertThat(Files.list(Paths.get(logDirectory)).count()).isEqualTo(1);
+  }
+
+  @Test
+  public void finalStatusOfTransfersPendingAcrossRestartIsRecorded() throws Exception {
+    String logDirectory = folder.getRoot().toPath().resolve("log").toString();
+    TransfersRepositoryInMemory transfersRepository = new TransfersRepositoryInMemory();
+    TransferOutbox outbox = new TransferOutbox(transfersRepository, logDirectory, 1);
+    Transfer transfer = new Transfer("ID-1", "ID-2", BigDecimal.ONE);
+    transfersRepository.createTransfer(transfer);
+    outbox.onCreated(transfer);
+    outbox.onCreated(new Transfer("ID-1", "ID-2", BigDecimal.ONE));
+    // The PENDING event has been exported and its segment deleted
+    outbox.truncate(1);
+
+    TransferOutbox restarted = new TransferOutbox(transfersRepository, logDirectory, 1);
+    assertThat(restarted.getTailOffset()).isEqualTo(2);
+    transfer.setStatus(Transfer.Status.COMPLETED);
+    restarted.onUpdated(transfer);
+    restarted.onUpdated(transfer);
+
+    List<OutboxEvent> events = restarted.read(3, 10);
+    assertThat(events).hasSize(1);
+    assertThat(events.get(0).getStatus()).isEqualTo(Transfer.Status.COMPLETED);
+  }
+
+  @Test
+  public void recordsMultiLegTransfers() throws Exception {
+    String logDirectory = folder.getRoot().toPath().resolve("log").toString();
+    TransferOutbox outbox = new TransferOutbox(new TransfersRepositoryInMemory(), logDirectory, 100);
+    MultiLegTransfer transfer = new MultiLegTransfer(
+      Collections.singletonList(new MultiLegTransfer.Leg("ID-1", new BigDecimal("30"))),
+      Arrays.asList(new MultiLegTransfer.Leg("ID-2", new BigDecimal("10")),
+        new MultiLegTransfer.Leg("ID-3", new BigDecimal("20"))));
+    transfer.setStatus(Transfer.Status.COMPLETED);
+
+    outbox.onMultiLegUpdated(transfer);
+
+    OutboxEvent event = new TransferOutbox(new TransfersRepositoryInMemory(), logDirectory, 100).read(1, 10).get(0);
+    assertThat(event.getType()).isEqualTo(OutboxEvent.Type.MULTI_LEG);
+    assertThat(event.getTransferId()).isEqualTo(transfer.getTransferId());
+    assertThat(event.getAmount()).isEqualByComparingTo("30");
+    assertThat(event.getCredits()).isEqualTo(transfer.getCredits());
+    assertThat(OutboxBatch.of(Collections.singletonList(event)).readLines().get(0))
+      .contains("\"type\":\"MULTI_LEG\"", "\"credits\":[{\"accountId\":\"ID-2\",\"amount\":10},");
+  }
+
+  @Test
+  public void fileSinkWritesOneCompressedFilePerBatch() throws Exception {
+    Path directory = folder.getRoot().toPath().resolve("transfers");
+    FileOutboxSink sink = new FileOutboxSink(directory.toString());
+    TransferOutbox outbox = new TransferOutbox();
+    OutboxRelay relay = new OutboxRelay(outbox, Collections.singletonList(sink), "", 1000, 2);
+    for (int i = 0; i < 3; i++) {
+      outbox.onCreated(new Transfer("ID-1", "ID-2", BigDecimal.TEN));
+    }
+
+    relay.relay();
+
+    List<String> files = Files.list(directory).map(file -> file.getFileName().toString()).sorted()
+      .collect(Collectors.toList());
+    assertThat(files).containsExactly("transfers-0000000000000000001-0000000000000000002.ndjson.gz",
+      "transfers-0000000000000000003-0000000000000000003.ndjson.gz");
+  }
+
+  private static class FlakySink implements OutboxSink {
+
+    private final List<Long> offsets = new ArrayList<>();
+
+    private int failures;
+
+    FlakySink(int failures) {
+      this.failures = failures;
+    }
+
+    @Override
+    public String getName() {
+      return "flaky";
+    }
+
+    @Override
+    public void export(OutboxBatch batch) throws IOException {
+      if (failures-- > 0) {
+        throw new IOException("Broker unavailable");
+      }
+      for (long offset = batch.getFirstOffset(); offset <= batch.getLastOffset(); offset++) {
+        offsets.add(offset);
+      }
+    }
+  }
+}
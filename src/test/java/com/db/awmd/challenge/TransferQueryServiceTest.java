@@ -0,0 +1,51 @@
+package com.db.awmd.challenge;
+
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.service.TransferQueryService;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TransferQueryServiceTest {
+
+  @Test
+  public void evictsTerminalTransfersOutsideTheHorizon() throws Exception {
+    TransferQueryService queryService = new TransferQueryService();
+    transfer(queryService, new BigDecimal(10), Transfer.Status.COMPLETED);
+    transfer(queryService, new BigDecimal(20), Transfer.Status.FAILED);
+    Transfer pending = transfer(queryService, new BigDecimal(30), Transfer.Status.PENDING);
+    Thread.sleep(5);
+
+    assertThat(queryService.evictTerminal(System.currentTimeMillis())).isEqualTo(2);
+
+    assertThat(queryService.query(null, null, null, null, null, 100)).containsExactly(pending);
+    assertThat(queryService.query(null, null, null, BigDecimal.ZERO, null, 100)).containsExactly(pending);
+    assertThat(queryService.query(Transfer.Status.COMPLETED, null, null, null, null, 100)).isEmpty();
+    // Totals still count what has been evicted
+    assertThat(queryService.getTotal(Transfer.Status.COMPLETED).getCount()).isEqualTo(1);
+    assertThat(queryService.getTotal(Transfer.Status.FAILED).getCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void keepsTerminalTransfersWithinTheHorizon() {
+    TransferQueryService queryService = new TransferQueryService();
+    long before = System.currentTimeMillis();
+    Transfer completed = transfer(queryService, new BigDecimal(10), Transfer.Status.COMPLETED);
+
+    assertThat(queryService.evictTerminal(before)).isZero();
+    assertThat(queryService.query(Transfer.Status.COMPLETED, null, null, null, null, 100))
+      .containsExactly(completed);
+  }
+
+  private static Transfer transfer(TransferQueryService queryService, BigDecimal amount, Transfer.Status status) {
+    Transfer transfer = new Transfer("ID-0", "ID-1", amount);
+    queryService.onCreated(transfer);
+    if (status != Transfer.Status.PENDING) {
+      transfer.setStatus(status);
+      queryService.onUpdated(transfer);
+    }
+    return transfer;
+  }
+}
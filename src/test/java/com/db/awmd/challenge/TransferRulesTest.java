@@ -0,0 +1,152 @@
+package com.db.awmd.challenge;
+
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.exception.TransferLimitExceededException;
+import com.db.awmd.challenge.rules.MaxAmountRule;
+import com.db.awmd.challenge.rules.SlidingWindowCounter;
+import com.db.awmd.challenge.rules.TransferRulesEngine;
+import com.db.awmd.challenge.rules.VelocityRule;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class TransferRulesTest {
+
+  @Test
+  public void slidingWindowCounterExpiresOldBuckets() {
+    SlidingWindowCounter counter = new SlidingWindowCounter(60_000, 60);
+
+    counter.add(100, 0);
+    counter.add(250, 30_000);
+
+    assertThat(counter.getCount(59_999)).isEqualTo(2);
+    assertThat(counter.getAmount(59_999)).isEqualTo(350);
+    assertThat(counter.getCount(60_000)).isEqualTo(1);
+    assertThat(counter.getAmount(60_000)).isEqualTo(250);
+    assertThat(counter.getCount(120_000)).isEqualTo(0);
+  }
+
+  @Test
+  public void maxAmountPerTransfer() {
+    MaxAmountRule rule = new MaxAmountRule(new BigDecimal("1000"));
+
+    rule.check(new Transfer("Id-1", "Id-2", new BigDecimal("1000")));
+    try {
+      rule.check(new Transfer("Id-1", "Id-2", new BigDecimal("1000.01")));
+      fail("Should have rejected a transfer above the maximum amount");
+    } catch (TransferLimitExceededException e) {
+      assertThat(e.getMessage()).contains("1000.01");
+    }
+  }
+
+  @Test
+  public void senderCountAndAmountLimits() {
+    VelocityRule countRule = new VelocityRule("sender count", Transfer::getSenderAccountId, 60_000, 2,
+      BigDecimal.ZERO, 100);
+    VelocityRule amountRule = new VelocityRule("sender amount", Transfer::getSenderAccountId, 60_000, 0,
+      new BigDecimal("100"), 100);
+    TransferRulesEngine engine = new TransferRulesEngine(Arrays.asList(countRule, amountRule));
+
+    executeWithRules(engine, new Transfer("Id-1", "Id-2", new BigDecimal("40")));
+    executeWithRules(engine, new Transfer("Id-1", "Id-3", new BigDecimal("50")));
+
+    assertRejected(engine, new Transfer("Id-1", "Id-2", new BigDecimal("1")));
+
+    VelocityRule amountOnlyRule = new VelocityRule("sender amount", Transfer::getSenderAccountId, 60_000, 0,
+      new BigDecimal("100"), 100);
+    engine = new TransferRulesEngine(Arrays.asList(amountOnlyRule));
+    executeWithRules(engine, new Transfer("Id-1", "Id-2", new BigDecimal("90")));
+    assertRejected(engine, new Transfer("Id-1", "Id-2", new BigDecimal("10.01")));
+    executeWithRules(engine, new Transfer("Id-1", "Id-2", new BigDecimal("10")));
+
+    // Other senders have their own window
+    executeWithRules(engine, new Transfer("Id-2", "Id-1", new BigDecimal("100")));
+  }
+
+  @Test
+  public void pairLimitIsPerDirection() {
+    VelocityRule pairRule = new VelocityRule("pair", t -> t.getSenderAccountId() + "->" + t.getReceiverAccountId(),
+      60_000, 1, BigDecimal.ZERO, 100);
+    TransferRulesEngine engine = new TransferRulesEngine(Arrays.asList(pairRule));
+
+    executeWithRules(engine, new Transfer("Id-1", "Id-2", new BigDecimal("10")));
+    assertRejected(engine, new Transfer("Id-1", "Id-2", new BigDecimal("10")));
+    executeWithRules(engine, new Transfer("Id-2", "Id-1", new BigDecimal("10")));
+    executeWithRules(engine, new Transfer("Id-1", "Id-3", new BigDecimal("10")));
+  }
+
+  @Test
+  public void checkReservesUntilReleased() {
+    VelocityRule countRule = new VelocityRule("sender count", Transfer::getSenderAccountId, 60_000, 1,
+      BigDecimal.ZERO, 100);
+    TransferRulesEngine engine = new TransferRulesEngine(Arrays.asList(countRule));
+
+    Transfer first = new Transfer("Id-1", "Id-2", new BigDecimal("10"));
+    engine.check(first);
+    // The first transfer has not completed yet, but it already holds the only slot
+    assertRejected(engine, new Transfer("Id-1", "Id-2", new BigDecimal("10")));
+
+    engine.release(first);
+    executeWithRules(engine, new Transfer("Id-1", "Id-2", new BigDecimal("10")));
+    assertRejected(engine, new Transfer("Id-1", "Id-2", new BigDecimal("10")));
+  }
+
+  @Test
+  public void rejectionReleasesEarlierRules() {
+    VelocityRule countRule = new VelocityRule("sender count", Transfer::getSenderAccountId, 60_000, 1,
+      BigDecimal.ZERO, 100);
+    VelocityRule amountRule = new VelocityRule("sender amount", Transfer::getSenderAccountId, 60_000, 0,
+      new BigDecimal("100"), 100);
+    TransferRulesEngine engine = new TransferRulesEngine(Arrays.asList(countRule, amountRule));
+
+    assertRejected(engine, new Transfer("Id-1", "Id-2", new BigDecimal("101")));
+    executeWithRules(engine, new Transfer("Id-1", "Id-2", new BigDecimal("100")));
+  }
+
+  @Test
+  public void evictsExpiredKeysBeforeActiveOnes() throws InterruptedException {
+    VelocityRule countRule = new VelocityRule("sender count", Transfer::getSenderAccountId, 600, 1,
+      BigDecimal.ZERO, 2);
+    TransferRulesEngine engine = new TransferRulesEngine(Arrays.asList(countRule));
+
+    executeWithRules(engine, new Transfer("Id-1", "Id-2", new BigDecimal("10")));
+    Thread.sleep(700);
+    executeWithRules(engine, new Transfer("Id-2", "Id-1", new BigDecimal("10")));
+
+    // The table is full; Id-1's window has expired, so it makes room and Id-2 keeps its history
+    executeWithRules(engine, new Transfer("Id-3", "Id-1", new BigDecimal("10")));
+    assertRejected(engine, new Transfer("Id-2", "Id-1", new BigDecimal("10")));
+  }
+
+  @Test
+  public void rejectsNewKeysWhileEveryTrackedKeyIsActive() {
+    VelocityRule countRule = new VelocityRule("sender count", Transfer::getSenderAccountId, 60_000, 2,
+      BigDecimal.ZERO, 1);
+    TransferRulesEngine engine = new TransferRulesEngine(Arrays.asList(countRule));
+
+    executeWithRules(engine, new Transfer("Id-1", "Id-2", new BigDecimal("10")));
+    assertRejected(engine, new Transfer("Id-2", "Id-1", new BigDecimal("10")));
+
+    // Id-1 kept its history rather than being evicted to make room
+    executeWithRules(engine, new Transfer("Id-1", "Id-2", new BigDecimal("10")));
+    assertRejected(engine, new Transfer("Id-1", "Id-2", new BigDecimal("10")));
+  }
+
+  private void executeWithRules(TransferRulesEngine engine, Transfer transfer) {
+    engine.check(transfer);
+    engine.record(transfer);
+  }
+
+  private void assertRejected(TransferRulesEngine engine, Transfer transfer) {
+    try {
+      engine.check(transfer);
+      fail("Should have rejected transfer " + transfer);
+    } catch (TransferLimitExceededException e) {
+      assertThat(e.getMessage()).startsWith("Limit");
+    }
+  }
+}
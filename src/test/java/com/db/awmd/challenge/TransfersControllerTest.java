@@ -4,7 +4,10 @@ import com.db.awmd.challenge.domain.Account;
 import com.db.awmd.challenge.domain.Transfer;
 import com.db.awmd.challenge.service.AccountsService;
 import com.db.awmd.challenge.service.NotificationService;
+import com.db.awmd.challenge.service.TransferScheduler;
 import com.db.awmd.challenge.service.TransfersService;
+import com.db.awmd.challenge.web.binary.BinaryCodec;
+import com.db.awmd.challenge.web.binary.BinaryHttpMessageConverter;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Before;
@@ -24,6 +27,7 @@ import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.web.context.WebApplicationContext;
 
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.concurrent.*;
 
@@ -31,6 +35,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.setup.MockMvcBuilders.webAppContextSetup;
 
@@ -435,4 +440,246 @@ public class TransfersControllerTest {
 
 
   }
+
+  @Test
+  public void createScheduledTransfer() throws Exception {
+    long executeAt = System.currentTimeMillis() + 300;
+    MvcResult result = this.mockMvc.perform(post("/v1/transfers").contentType(MediaType.APPLICATION_JSON)
+      .content("{\"senderAccountId\":\"ID-Sender\",\"receiverAccountId\":\"ID-Receiver\",\"amount\":200,"
+        + "\"executeAt\":" + executeAt + "}"))
+      .andExpect(status().isAccepted()).andReturn();
+
+    ObjectMapper om = new ObjectMapper();
+    om.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    Transfer transfer = om.readValue(result.getResponse().getContentAsString(), Transfer.class);
+    assertThat(transfer.getStatus()).isEqualTo(Transfer.Status.PENDING);
+    assertThat(transfer.getExecuteAt()).isEqualTo(executeAt);
+    assertThat(accountsService.getAccount("ID-Sender").getBalance()).isEqualByComparingTo("1000");
+
+    Transfer stored = transfersService.getTransfer().get(0);
+    long timeout = System.currentTimeMillis() + 5000;
+    while (stored.getStatus() == Transfer.Status.PENDING && System.currentTimeMillis() < timeout) {
+      Thread.sleep(50);
+    }
+
+    assertThat(stored.getStatus()).isEqualTo(Transfer.Status.COMPLETED);
+    assertThat(System.currentTimeMillis()).isGreaterThanOrEqualTo(executeAt);
+    assertThat(accountsService.getAccount("ID-Sender").getBalance()).isEqualByComparingTo("800");
+    assertThat(accountsService.getAccount("ID-Receiver").getBalance()).isEqualByComparingTo("1200");
+  }
+
+  @Test
+  public void createScheduledTransferToUnknownAccount() throws Exception {
+    this.mockMvc.perform(post("/v1/transfers").contentType(MediaType.APPLICATION_JSON)
+      .content("{\"senderAccountId\":\"ID-Sender\",\"receiverAccountId\":\"NotExists\",\"amount\":200,"
+        + "\"executeAt\":" + (System.currentTimeMillis() + 60000) + "}"))
+      .andExpect(status().isBadRequest())
+      .andExpect(jsonPath("$.status").value("Failed"));
+
+    assertThat(transfersService.getTransfer()).isEmpty();
+  }
+
+  @Test
+  public void pendingScheduledTransfersSurviveSchedulerRestart() throws Exception {
+    Transfer transfer = new Transfer("ID-Sender", "ID-Receiver", new BigDecimal(200),
+      System.currentTimeMillis() + 200);
+    TransferScheduler scheduler = new TransferScheduler(accountsService, transfersService, 10, 64, 100, 1);
+    scheduler.start();
+    scheduler.scheduleTransfer(transfer);
+    scheduler.stop();
+
+    assertThat(transfer.getStatus()).isEqualTo(Transfer.Status.PENDING);
+
+    TransferScheduler restarted = new TransferScheduler(accountsService, transfersService, 10, 64, 100, 1);
+    restarted.start();
+    try {
+      assertThat(restarted.getPendingCount()).isEqualTo(1);
+      long timeout = System.currentTimeMillis() + 5000;
+      while (transfer.getStatus() == Transfer.Status.PENDING && System.currentTimeMillis() < timeout) {
+        Thread.sleep(20);
+      }
+      assertThat(transfer.getStatus()).isEqualTo(Transfer.Status.COMPLETED);
+      assertThat(accountsService.getAccount("ID-Receiver").getBalance()).isEqualByComparingTo("1200");
+    } finally {
+      restarted.stop();
+    }
+  }
+
+  @Test
+  public void createNettedTransfers() throws Exception {
+    MvcResult result = this.mockMvc.perform(post("/v1/transfers/batch?netting=true").contentType(MediaType.APPLICATION_JSON)
+      .content("[{\"senderAccountId\":\"ID-Sender\",\"receiverAccountId\":\"ID-Receiver\",\"amount\":1100},"
+        + "{\"senderAccountId\":\"ID-Receiver\",\"receiverAccountId\":\"ID-Sender\",\"amount\":600}]"))
+      .andExpect(status().isOk()).andReturn();
+
+    ObjectMapper om = new ObjectMapper();
+    om.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    Transfer[] transfers = om.readValue(result.getResponse().getContentAsString(), Transfer[].class);
+    assertThat(transfers).hasSize(2);
+    assertThat(transfers[0].getStatus()).isEqualTo(Transfer.Status.COMPLETED);
+    assertThat(transfers[1].getStatus()).isEqualTo(Transfer.Status.COMPLETED);
+
+    verify(notificationService, times(4)).notifyAboutTransfer(notificationRcvrCaptor.capture(), notificationTextCaptor.capture());
+    assertThat(accountsService.getAccount("ID-Sender").getBalance()).isEqualByComparingTo("500");
+    assertThat(accountsService.getAccount("ID-Receiver").getBalance()).isEqualByComparingTo("1500");
+  }
+
+  @Test
+  public void createGrossTransfersRejectsInvalidAmounts() throws Exception {
+    MvcResult result = this.mockMvc.perform(post("/v1/transfers/batch?netting=false").contentType(MediaType.APPLICATION_JSON)
+      .content("[{\"senderAccountId\":\"ID-Sender\",\"receiverAccountId\":\"ID-Receiver\",\"amount\":-100},"
+        + "{\"senderAccountId\":\"ID-Sender\",\"receiverAccountId\":\"ID-Receiver\"},"
+        + "{\"senderAccountId\":\"ID-Sender\",\"receiverAccountId\":\"ID-Receiver\",\"amount\":100}]"))
+      .andExpect(status().isOk()).andReturn();
+
+    ObjectMapper om = new ObjectMapper();
+    om.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    Transfer[] transfers = om.readValue(result.getResponse().getContentAsString(), Transfer[].class);
+    assertThat(transfers).hasSize(3);
+    assertThat(transfers[0].getStatus()).isEqualTo(Transfer.Status.FAILED);
+    assertThat(transfers[0].getFailureCause()).isEqualTo("amount Amount to transfer must be positive.");
+    assertThat(transfers[1].getStatus()).isEqualTo(Transfer.Status.FAILED);
+    assertThat(transfers[2].getStatus()).isEqualTo(Transfer.Status.COMPLETED);
+
+    assertThat(transfersService.getTransfer(transfers[0].getTransferId())).isNull();
+    assertThat(accountsService.getAccount("ID-Sender").getBalance()).isEqualByComparingTo("900");
+    assertThat(accountsService.getAccount("ID-Receiver").getBalance()).isEqualByComparingTo("1100");
+  }
+
+  @Test
+  public void createTransfersRejectsNullElements() throws Exception {
+    this.mockMvc.perform(post("/v1/transfers/batch").contentType(MediaType.APPLICATION_JSON)
+      .content("[{\"senderAccountId\":\"ID-Sender\",\"receiverAccountId\":\"ID-Receiver\",\"amount\":100},null]"))
+      .andExpect(status().isBadRequest());
+
+    assertThat(accountsService.getAccount("ID-Sender").getBalance()).isEqualByComparingTo("1000");
+  }
+
+  @Test
+  public void createBinaryTransfer() throws Exception {
+    ByteBuffer request = BinaryCodec.encode(new Transfer("ID-Sender", "ID-Receiver", new BigDecimal("200.50")));
+
+    MvcResult result = this.mockMvc.perform(post("/v1/transfers")
+      .contentType(BinaryHttpMessageConverter.BINARY).accept(BinaryHttpMessageConverter.BINARY)
+      .content(request.array()))
+      .andExpect(status().isCreated()).andReturn();
+
+    assertThat(result.getResponse().getContentType()).isEqualTo(BinaryHttpMessageConverter.BINARY_VALUE);
+    Transfer transfer = BinaryCodec.decodeTransferResult(ByteBuffer.wrap(result.getResponse().getContentAsByteArray()));
+    assertThat(transfer.getStatus()).isEqualTo(Transfer.Status.COMPLETED);
+    assertThat(transfer.getSenderAccountId()).isEqualTo("ID-Sender");
+    assertThat(transfer.getReceiverAccountId()).isEqualTo("ID-Receiver");
+    assertThat(transfer.getAmount()).isEqualTo(new BigDecimal("200.50"));
+    assertThat(transfer.getFailureCause()).isNull();
+
+    assertThat(accountsService.getAccount("ID-Sender").getBalance()).isEqualByComparingTo("799.50");
+  }
+
+  @Test
+  public void createBinaryTransferIgnoresClientOutcome() throws Exception {
+    Transfer submitted = new Transfer("ID-Sender", "ID-Receiver", new BigDecimal("50"));
+    submitted.setStatus(Transfer.Status.COMPLETED);
+    submitted.setFailureCause("client supplied");
+
+    MvcResult result = this.mockMvc.perform(post("/v1/transfers")
+      .contentType(BinaryHttpMessageConverter.BINARY).accept(BinaryHttpMessageConverter.BINARY)
+      .content(BinaryCodec.encode(submitted).array()))
+      .andExpect(status().isCreated()).andReturn();
+
+    Transfer transfer = BinaryCodec.decodeTransferResult(ByteBuffer.wrap(result.getResponse().getContentAsByteArray()));
+    assertThat(transfer.getStatus()).isEqualTo(Transfer.Status.COMPLETED);
+    assertThat(transfer.getFailureCause()).isNull();
+    assertThat(accountsService.getAccount("ID-Sender").getBalance()).isEqualByComparingTo("950");
+  }
+
+  @Test
+  public void createBinaryTransferOversizedField() throws Exception {
+    // A sender id claiming two gigabytes inside a frame of a few bytes
+    this.mockMvc.perform(post("/v1/transfers")
+      .contentType(BinaryHttpMessageConverter.BINARY)
+      .content(new byte[]{0, 0, 0, 17, 2, 0, 0, 0, 0, 0, 0, 0, 1, 0x7f, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0, 0, 0, 0}))
+      .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  public void createBinaryTransferMalformed() throws Exception {
+    this.mockMvc.perform(post("/v1/transfers")
+      .contentType(BinaryHttpMessageConverter.BINARY).content(new byte[]{0, 0, 0, 9, 2, 1}))
+      .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  public void queryTransfersByStatusAndAmount() throws Exception {
+    for (String amount : new String[]{"100", "300", "5000"}) {
+      Transfer transfer = new Transfer("ID-Sender", "ID-Receiver", new BigDecimal(amount));
+      this.transfersService.createTransfer(transfer);
+      try {
+        this.transfersService.executeTransfer(transfer);
+      } catch (RuntimeException e) {
+        // The 5000 transfer fails on insufficient funds
+      }
+    }
+
+    this.mockMvc.perform(get("/v1/transfers/query?status=failed&withinSeconds=300"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.length()").value(1))
+      .andExpect(jsonPath("$[0].amount").value(5000));
+
+    this.mockMvc.perform(get("/v1/transfers/query?minAmount=200"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.length()").value(2))
+      .andExpect(jsonPath("$[0].amount").value(300))
+      .andExpect(jsonPath("$[1].amount").value(5000));
+
+    this.mockMvc.perform(get("/v1/transfers/query?status=completed&maxAmount=200"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.length()").value(1))
+      .andExpect(jsonPath("$[0].amount").value(100));
+
+    this.mockMvc.perform(get("/v1/transfers/query?status=unknown")).andExpect(status().isBadRequest());
+  }
+
+  @Test
+  public void transferStatsByStatus() throws Exception {
+    Transfer completed = new Transfer("ID-Sender", "ID-Receiver", new BigDecimal("250"));
+    this.transfersService.createTransfer(completed);
+    this.transfersService.executeTransfer(completed);
+    Transfer pending = new Transfer("ID-Sender", "ID-Receiver", new BigDecimal("40"));
+    this.transfersService.createTransfer(pending);
+
+    this.mockMvc.perform(get("/v1/transfers/stats"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$[?(@.status == 'COMPLETED')].count").value(1))
+      .andExpect(jsonPath("$[?(@.status == 'COMPLETED')].amount").value(250))
+      .andExpect(jsonPath("$[?(@.status == 'PENDING')].count").value(1))
+      .andExpect(jsonPath("$[?(@.status == 'FAILED')].count").value(0));
+
+    this.mockMvc.perform(get("/v1/transfers/stats/rollups?withinSeconds=60"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$[0].bucketStart").isNumber())
+      .andExpect(jsonPath("$[0].statuses.length()").value(Transfer.Status.values().length));
+  }
+
+  @Test
+  public void createTransferAsync() throws Exception {
+    MvcResult result = this.mockMvc.perform(post("/v1/transfers?async=true").contentType(MediaType.APPLICATION_JSON)
+      .content("{\"senderAccountId\":\"ID-Sender\",\"receiverAccountId\":\"ID-Receiver\",\"amount\":300}"))
+      .andExpect(status().isAccepted()).andReturn();
+
+    String location = result.getResponse().getHeader("Location");
+    assertThat(location).contains("/v1/transfers/");
+
+    Transfer.Status transferStatus = Transfer.Status.PENDING;
+    ObjectMapper om = new ObjectMapper();
+    om.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    for (int i = 0; i < 100 && transferStatus == Transfer.Status.PENDING; i++) {
+      Thread.sleep(20);
+      MvcResult poll = this.mockMvc.perform(get(location.substring(location.indexOf("/v1/"))))
+        .andExpect(status().isOk()).andReturn();
+      transferStatus = om.readValue(poll.getResponse().getContentAsString(), Transfer.class).getStatus();
+    }
+
+    assertThat(transferStatus).isEqualTo(Transfer.Status.COMPLETED);
+    assertThat(accountsService.getAccount("ID-Sender").getBalance()).isEqualByComparingTo("700");
+  }
 }
@@ -0,0 +1,409 @@
+package com.db.awmd.challenge;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.engine.ActorTransferEngine;
+import com.db.awmd.challenge.engine.LockingTransferEngine;
+import com.db.awmd.challenge.engine.OptimisticTransferEngine;
+import com.db.awmd.challenge.engine.TransferExecutionEngine;
+import com.db.awmd.challenge.metrics.TransferMetrics;
+import com.db.awmd.challenge.repository.AccountsRepositoryInMemory;
+import com.db.awmd.challenge.repository.LedgerRepositoryInMemory;
+import com.db.awmd.challenge.repository.TransfersRepositoryInMemory;
+import com.db.awmd.challenge.rules.TransferRulesEngine;
+import com.db.awmd.challenge.service.AccountsService;
+import com.db.awmd.challenge.service.FxRateService;
+import com.db.awmd.challenge.service.LedgerService;
+import com.db.awmd.challenge.service.TransfersService;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs small randomised histories of concurrent transfers through {@link TransfersService} and checks each one
+ * against a sequential model of the accounts. The locking engine holds both account locks across the debit and the
+ * credit, so it is checked with each transfer as one atomic step; a run with a paused credit shows another transfer
+ * cannot observe the gap. The optimistic and actor engines commit the debit and the credit separately and another
+ * transfer can see the debit alone, so they are checked per leg: the debit decides the outcome, and the credit takes
+ * effect after it, both within the call. Balances are read once the workers are done.
+ */
+public class TransfersLinearizabilityTest {
+
+  private static final List<String> ACCOUNTS = Arrays.asList("ID-A", "ID-B", "ID-C");
+
+  private static final int ROUNDS = 200;
+
+  private static final int THREADS = 3;
+
+  private static final int OPERATIONS_PER_THREAD = 4;
+
+  private static final String CREDITED = "CREDITED";
+
+  private static final LinearizabilityChecker<Accounts, Operation, String> CHECKER =
+    new LinearizabilityChecker<>(new AccountsModel());
+
+  @Test
+  public void lockingEngineIsLinearizable() throws Exception {
+    checkRounds(new LockingTransferEngine(), false);
+  }
+
+  /**
+   * Only per leg: the engine validates the sender's version alone and commits the credit separately.
+   */
+  @Test
+  public void optimisticEngineLegsAreLinearizable() throws Exception {
+    checkRounds(new OptimisticTransferEngine(new TransferMetrics(), 1), true);
+  }
+
+  /**
+   * Only per leg, see {@link #atomicModelRejectsHalfAppliedTransfers} for a history this engine can produce.
+   */
+  @Test
+  public void actorEngineLegsAreLinearizable() throws Exception {
+    ActorTransferEngine engine = new ActorTransferEngine(THREADS, 4);
+    try {
+      checkRounds(engine, true);
+    } finally {
+      engine.stop();
+    }
+  }
+
+  @Test
+  public void checkerRejectsLostUpdate() {
+    // Both transfers completed, yet the final balance only reflects one of them
+    List<History.Operation<Operation, String>> history = Arrays.asList(
+      new History.Operation<>(Operation.transfer(1, "ID-A", "ID-B", 1), "COMPLETED", 1, 4),
+      new History.Operation<>(Operation.transfer(2, "ID-A", "ID-B", 1), "COMPLETED", 2, 3),
+      new History.Operation<>(Operation.balance("ID-B"), "4", 5, 6));
+
+    assertThat(CHECKER.isLinearizable(legs(history))).isFalse();
+    assertThat(CHECKER.isLinearizable(legs(Arrays.asList(history.get(0), history.get(1),
+      new History.Operation<>(Operation.balance("ID-B"), "5", 5, 6))))).isTrue();
+  }
+
+  @Test
+  public void checkerRejectsFailureWithFundsAvailable() {
+    // A starts with 3 and nothing else touches it, so neither debit can fail
+    List<History.Operation<Operation, String>> history = Arrays.asList(
+      new History.Operation<>(Operation.transfer(1, "ID-A", "ID-B", 2), "FAILED", 1, 2),
+      new History.Operation<>(Operation.transfer(2, "ID-A", "ID-C", 2), "FAILED", 3, 4));
+
+    assertThat(CHECKER.isLinearizable(legs(history))).isFalse();
+  }
+
+  @Test
+  public void atomicModelRejectsHalfAppliedTransfers() {
+    // #2 sees A already debited by #1, then #3 sees B not yet credited by it: fine per leg, impossible atomically
+    List<History.Operation<Operation, String>> history = Arrays.asList(
+      new History.Operation<>(Operation.transfer(1, "ID-A", "ID-B", 3), "COMPLETED", 1, 10),
+      new History.Operation<>(Operation.transfer(2, "ID-A", "ID-C", 1), "FAILED", 2, 3),
+      new History.Operation<>(Operation.transfer(3, "ID-B", "ID-C", 4), "FAILED", 4, 5));
+
+    assertThat(CHECKER.isLinearizable(history)).isFalse();
+    assertThat(CHECKER.isLinearizable(legs(history))).isTrue();
+  }
+
+  @Test
+  public void lockingEngineHidesAPausedCredit() throws Exception {
+    List<History.Operation<Operation, String>> history = pausedCreditHistory(new LockingTransferEngine());
+
+    assertThat(CHECKER.isLinearizable(history)).as("%s", history).isTrue();
+  }
+
+  @Test
+  public void pausedCreditExposesHalfAppliedTransfer() throws Exception {
+    // Each leg under its own account lock only
+    List<History.Operation<Operation, String>> history = pausedCreditHistory((sender, receiver, debit, credit) -> {
+      sender.withdraw(debit);
+      receiver.deposit(credit);
+    });
+
+    assertThat(CHECKER.isLinearizable(history)).as("%s", history).isFalse();
+    assertThat(CHECKER.isLinearizable(legs(history))).as("%s", history).isTrue();
+  }
+
+  private void checkRounds(TransferExecutionEngine engine, boolean perLeg) throws Exception {
+    long seed = System.nanoTime();
+    Random random = new Random(seed);
+    for (int round = 0; round < ROUNDS; round++) {
+      List<History.Operation<Operation, String>> recorded = runRound(engine, random);
+      List<History.Operation<Operation, String>> history = perLeg ? legs(recorded) : recorded;
+      assertThat(CHECKER.isLinearizable(history))
+        .as("Round %d of seed %d is not linearizable: %s", round, seed, history)
+        .isTrue();
+    }
+  }
+
+  private List<History.Operation<Operation, String>> runRound(TransferExecutionEngine engine, Random random)
+    throws InterruptedException {
+    AccountsRepositoryInMemory accountsRepository = new AccountsRepositoryInMemory();
+    LedgerService ledgerService = new LedgerService(new LedgerRepositoryInMemory(1), accountsRepository,
+      Collections.emptyList(), 1, 5000);
+    AccountsService accountsService = new AccountsService(accountsRepository, ledgerService);
+    TransfersService transfersService = transfersService(accountsService, ledgerService, engine);
+    ACCOUNTS.forEach(accountId -> accountsService.createAccount(new Account(accountId, new BigDecimal(3))));
+
+    History<Operation, String> history = new History<>();
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> workers = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      List<Operation> operations = new ArrayList<>();
+      List<Integer> pauses = new ArrayList<>();
+      for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+        int from = random.nextInt(ACCOUNTS.size());
+        int to = (from + 1 + random.nextInt(ACCOUNTS.size() - 1)) % ACCOUNTS.size();
+        operations.add(Operation.transfer(t * OPERATIONS_PER_THREAD + i, ACCOUNTS.get(from), ACCOUNTS.get(to),
+          1 + random.nextInt(4)));
+        pauses.add(random.nextInt(2000));
+      }
+      Thread worker = new Thread(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          return;
+        }
+        for (int i = 0; i < operations.size(); i++) {
+          pause(pauses.get(i));
+          Operation operation = operations.get(i);
+          history.record(operation, () -> execute(transfersService, operation));
+        }
+      });
+      worker.start();
+      workers.add(worker);
+    }
+    start.countDown();
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    ledgerService.stop();
+
+    for (String accountId : ACCOUNTS) {
+      history.record(Operation.balance(accountId),
+        () -> Long.toString(accountsService.getAccount(accountId).getBalance().longValueExact()));
+    }
+    return history.getOperations();
+  }
+
+  /**
+   * Runs #1 A->B 3, whose credit to B waits until #2 A->C 1 and then #3 B->C 4 have returned, or for half a second
+   * at most. An engine that lets go of A between the legs lets both of them see the debit without the credit.
+   */
+  private List<History.Operation<Operation, String>> pausedCreditHistory(TransferExecutionEngine engine)
+    throws InterruptedException {
+    CountDownLatch debited = new CountDownLatch(1);
+    CountDownLatch observed = new CountDownLatch(1);
+    AccountsRepositoryInMemory accountsRepository = new AccountsRepositoryInMemory();
+    LedgerService ledgerService = new LedgerService(new LedgerRepositoryInMemory(1), accountsRepository,
+      Collections.emptyList(), 1, 5000);
+    AccountsService accountsService = new AccountsService(accountsRepository, ledgerService);
+    TransfersService transfersService = transfersService(accountsService, ledgerService, engine);
+    accountsService.createAccount(new Account("ID-A", new BigDecimal(3)));
+    accountsService.createAccount(new Account("ID-B", new BigDecimal(3)) {
+      @Override
+      public void deposit(BigDecimal amount) {
+        debited.countDown();
+        try {
+          observed.await(500, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        super.deposit(amount);
+      }
+    });
+    accountsService.createAccount(new Account("ID-C", new BigDecimal(3)));
+
+    History<Operation, String> history = new History<>();
+    Operation first = Operation.transfer(1, "ID-A", "ID-B", 3);
+    Thread worker = new Thread(() -> history.record(first, () -> execute(transfersService, first)));
+    worker.start();
+    debited.await();
+    Operation second = Operation.transfer(2, "ID-A", "ID-C", 1);
+    history.record(second, () -> execute(transfersService, second));
+    Operation third = Operation.transfer(3, "ID-B", "ID-C", 4);
+    history.record(third, () -> execute(transfersService, third));
+    observed.countDown();
+    worker.join();
+    ledgerService.stop();
+
+    for (String accountId : ACCOUNTS) {
+      history.record(Operation.balance(accountId),
+        () -> Long.toString(accountsService.getAccount(accountId).getBalance().longValueExact()));
+    }
+    return history.getOperations();
+  }
+
+  private static TransfersService transfersService(AccountsService accountsService, LedgerService ledgerService,
+                                                   TransferExecutionEngine engine) {
+    return new TransfersService(accountsService, new TransfersRepositoryInMemory(), (account, description) -> { },
+      new FxRateService("EUR", ""), ledgerService, new TransferMetrics(),
+      new TransferRulesEngine(Collections.emptyList()), Collections.emptyList(), engine);
+  }
+
+  /**
+   * Splits every transfer into its debit, which carries the recorded outcome, and for completed transfers a credit
+   * over the same interval.
+   */
+  private static List<History.Operation<Operation, String>> legs(List<History.Operation<Operation, String>> history) {
+    List<History.Operation<Operation, String>> legs = new ArrayList<>();
+    for (History.Operation<Operation, String> operation : history) {
+      Operation input = operation.input;
+      if (input.kind != Kind.TRANSFER) {
+        legs.add(operation);
+        continue;
+      }
+      legs.add(new History.Operation<>(input.leg(Kind.DEBIT), operation.output, operation.invokedAt,
+        operation.returnedAt));
+      if (Transfer.Status.COMPLETED.name().equals(operation.output)) {
+        legs.add(new History.Operation<>(input.leg(Kind.CREDIT), CREDITED, operation.invokedAt,
+          operation.returnedAt));
+      }
+    }
+    return legs;
+  }
+
+  private static String execute(TransfersService transfersService, Operation operation) {
+    Transfer transfer = new Transfer(operation.from, operation.to, new BigDecimal(operation.amount));
+    transfersService.createTransfer(transfer);
+    try {
+      transfersService.executeTransfer(transfer);
+    } catch (RuntimeException e) {
+      // Recorded as FAILED on the transfer
+    }
+    return transfer.getStatus().name();
+  }
+
+  private static void pause(int spins) {
+    // Busy-wait rather than sleep so that threads overlap at fine granularity
+    long deadline = System.nanoTime() + spins * 100L;
+    while (System.nanoTime() < deadline) {
+      if (spins % 7 == 0) {
+        Thread.yield();
+      }
+    }
+  }
+
+  private enum Kind {
+    TRANSFER, DEBIT, CREDIT, BALANCE
+  }
+
+  private static final class Operation {
+
+    final Kind kind;
+    final long id;
+    final String from;
+    final String to;
+    final long amount;
+
+    private Operation(Kind kind, long id, String from, String to, long amount) {
+      this.kind = kind;
+      this.id = id;
+      this.from = from;
+      this.to = to;
+      this.amount = amount;
+    }
+
+    static Operation transfer(long id, String from, String to, long amount) {
+      return new Operation(Kind.TRANSFER, id, from, to, amount);
+    }
+
+    static Operation balance(String accountId) {
+      return new Operation(Kind.BALANCE, 0, accountId, null, 0);
+    }
+
+    Operation leg(Kind leg) {
+      return new Operation(leg, id, from, to, amount);
+    }
+
+    @Override
+    public String toString() {
+      return kind == Kind.BALANCE ? "balance(" + from + ")"
+        : kind.name().toLowerCase() + "#" + id + "(" + from + "->" + to + ", " + amount + ")";
+    }
+  }
+
+  /**
+   * Balances plus the transfers whose debit has been applied but whose credit has not.
+   */
+  private static final class Accounts {
+
+    final Map<String, Long> balances;
+    final Set<Long> debited;
+
+    Accounts(Map<String, Long> balances, Set<Long> debited) {
+      this.balances = balances;
+      this.debited = debited;
+    }
+
+    Accounts move(String accountId, long delta, Set<Long> debited) {
+      Map<String, Long> next = new TreeMap<>(balances);
+      next.merge(accountId, delta, Long::sum);
+      return new Accounts(next, debited);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof Accounts && balances.equals(((Accounts) other).balances)
+        && debited.equals(((Accounts) other).debited);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * balances.hashCode() + debited.hashCode();
+    }
+  }
+
+  private static final class AccountsModel implements LinearizabilityChecker.Model<Accounts, Operation, String> {
+
+    @Override
+    public Accounts initial() {
+      Map<String, Long> balances = new TreeMap<>();
+      ACCOUNTS.forEach(accountId -> balances.put(accountId, 3L));
+      return new Accounts(balances, Collections.emptySet());
+    }
+
+    @Override
+    public LinearizabilityChecker.Step<Accounts, String> apply(Accounts accounts, Operation operation) {
+      switch (operation.kind) {
+        case BALANCE:
+          return new LinearizabilityChecker.Step<>(accounts, Long.toString(accounts.balances.get(operation.from)));
+        case DEBIT:
+          if (accounts.balances.get(operation.from) < operation.amount) {
+            return new LinearizabilityChecker.Step<>(accounts, Transfer.Status.FAILED.name());
+          }
+          Set<Long> debited = new HashSet<>(accounts.debited);
+          debited.add(operation.id);
+          return new LinearizabilityChecker.Step<>(accounts.move(operation.from, -operation.amount, debited),
+            Transfer.Status.COMPLETED.name());
+        case CREDIT:
+          if (!accounts.debited.contains(operation.id)) {
+            // A credit cannot take effect before its debit
+            return new LinearizabilityChecker.Step<>(accounts, "CREDIT-BEFORE-DEBIT");
+          }
+          Set<Long> pending = new HashSet<>(accounts.debited);
+          pending.remove(operation.id);
+          return new LinearizabilityChecker.Step<>(accounts.move(operation.to, operation.amount, pending), CREDITED);
+        case TRANSFER:
+          if (accounts.balances.get(operation.from) < operation.amount) {
+            return new LinearizabilityChecker.Step<>(accounts, Transfer.Status.FAILED.name());
+          }
+          return new LinearizabilityChecker.Step<>(accounts.move(operation.from, -operation.amount, accounts.debited)
+            .move(operation.to, operation.amount, accounts.debited), Transfer.Status.COMPLETED.name());
+        default:
+          throw new IllegalArgumentException("Unknown operation: " + operation);
+      }
+    }
+  }
+}
@@ -5,7 +5,9 @@ import com.db.awmd.challenge.domain.Transfer;
 import com.db.awmd.challenge.exception.AccountNotFoundException;
 import com.db.awmd.challenge.exception.DuplicateTransferIdException;
 import com.db.awmd.challenge.exception.InsufficientFundsException;
+import com.db.awmd.challenge.exception.UnsupportedCurrencyException;
 import com.db.awmd.challenge.service.AccountsService;
+import com.db.awmd.challenge.service.FxRateService;
 import com.db.awmd.challenge.service.TransfersService;
 import org.junit.Before;
 import org.junit.Test;
@@ -15,6 +17,9 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.fail;
@@ -29,6 +34,9 @@ public class TransfersServiceTest {
   @Autowired
   private AccountsService accountsService;
 
+  @Autowired
+  private FxRateService fxRateService;
+
   @Before
   public void prepareAccounts() {
 
@@ -172,4 +180,97 @@ public class TransfersServiceTest {
     assertThat(this.accountsService.getAccount("ID-Sender").getBalance()).isEqualTo(new BigDecimal(900));
   }
 
+  @Test
+  public void executeNettedTransfers() throws Exception {
+    List<Transfer> transfers = Arrays.asList(
+      new Transfer("ID-Sender", "ID-Receiver", new BigDecimal(1500)),
+      new Transfer("ID-Receiver", "ID-Sender", new BigDecimal(600)),
+      new Transfer("ID-Sender", "NOT_EXISTS", new BigDecimal(10)));
+
+    this.transfersService.executeTransfers(transfers, true);
+
+    assertThat(transfers.get(0).getStatus()).isEqualTo(Transfer.Status.COMPLETED);
+    assertThat(transfers.get(1).getStatus()).isEqualTo(Transfer.Status.COMPLETED);
+    assertThat(transfers.get(2).getStatus()).isEqualTo(Transfer.Status.FAILED);
+    assertThat(transfers.get(2).getFailureCause()).isEqualTo("Not account found with accountID: NOT_EXISTS");
+    assertThat(this.transfersService.getTransfer(transfers.get(0).getTransferId())).isNotNull();
+
+    assertThat(this.accountsService.getAccount("ID-Sender").getBalance()).isEqualByComparingTo("100");
+    assertThat(this.accountsService.getAccount("ID-Receiver").getBalance()).isEqualByComparingTo("1900");
+  }
+
+  @Test
+  public void executeNettedTransfersNotCovered() throws Exception {
+    List<Transfer> transfers = Arrays.asList(
+      new Transfer("ID-Sender", "ID-Receiver", new BigDecimal(1500)),
+      new Transfer("ID-Receiver", "ID-Sender", new BigDecimal(100)));
+
+    this.transfersService.executeTransfers(transfers, true);
+
+    assertThat(transfers.get(0).getStatus()).isEqualTo(Transfer.Status.FAILED);
+    assertThat(transfers.get(0).getFailureCause()).isEqualTo("Account id: ID-Sender does not have enough funds available!");
+    assertThat(transfers.get(1).getStatus()).isEqualTo(Transfer.Status.COMPLETED);
+
+    assertThat(this.accountsService.getAccount("ID-Sender").getBalance()).isEqualByComparingTo("1100");
+    assertThat(this.accountsService.getAccount("ID-Receiver").getBalance()).isEqualByComparingTo("900");
+  }
+
+  @Test
+  public void executeCrossCurrencyTransfer() throws Exception {
+    this.fxRateService.updateRates(Collections.singletonMap("USD", new BigDecimal("1.1")));
+    this.accountsService.createAccount(new Account("ID-Euro", new BigDecimal(1000), "EUR"));
+    this.accountsService.createAccount(new Account("ID-Dollar", new BigDecimal(1000), "USD"));
+
+    Transfer transfer = new Transfer("ID-Euro", "ID-Dollar", new BigDecimal(100));
+    this.transfersService.createTransfer(transfer);
+    this.transfersService.executeTransfer(transfer);
+
+    assertThat(transfer.getStatus()).isEqualTo(Transfer.Status.COMPLETED);
+    assertThat(transfer.getCreditedAmount()).isEqualByComparingTo("110");
+    assertThat(this.accountsService.getAccount("ID-Euro").getBalance()).isEqualByComparingTo("900");
+    assertThat(this.accountsService.getAccount("ID-Dollar").getBalance()).isEqualByComparingTo("1110");
+
+    transfer = new Transfer("ID-Dollar", "ID-Sender", new BigDecimal(110));
+    this.transfersService.createTransfer(transfer);
+    this.transfersService.executeTransfer(transfer);
+    assertThat(this.accountsService.getAccount("ID-Sender").getBalance()).isEqualByComparingTo("1100");
+  }
+
+  @Test
+  public void executeCrossCurrencyTransferAtParityRecordsCreditedAmount() throws Exception {
+    this.fxRateService.updateRates(Collections.singletonMap("CHF", new BigDecimal("1")));
+    this.accountsService.createAccount(new Account("ID-Euro", new BigDecimal(1000), "EUR"));
+    this.accountsService.createAccount(new Account("ID-Franc", new BigDecimal(1000), "CHF"));
+
+    Transfer sameCurrency = new Transfer("ID-Sender", "ID-Euro", new BigDecimal("100.00"));
+    this.transfersService.createTransfer(sameCurrency);
+    this.transfersService.executeTransfer(sameCurrency);
+    assertThat(sameCurrency.getCreditedAmount()).isNull();
+
+    Transfer crossCurrency = new Transfer("ID-Euro", "ID-Franc", new BigDecimal("100.00"));
+    this.transfersService.createTransfer(crossCurrency);
+    this.transfersService.executeTransfer(crossCurrency);
+    assertThat(crossCurrency.getStatus()).isEqualTo(Transfer.Status.COMPLETED);
+    assertThat(crossCurrency.getCreditedAmount()).isEqualByComparingTo("100");
+    assertThat(this.accountsService.getAccount("ID-Franc").getBalance()).isEqualByComparingTo("1100");
+  }
+
+  @Test
+  public void executeTransferUnsupportedCurrency() throws Exception {
+    this.fxRateService.updateRates(Collections.emptyMap());
+    this.accountsService.createAccount(new Account("ID-Yen", new BigDecimal(1000), "JPY"));
+
+    Transfer transfer = new Transfer("ID-Sender", "ID-Yen", new BigDecimal(100));
+    this.transfersService.createTransfer(transfer);
+    try {
+      this.transfersService.executeTransfer(transfer);
+      fail("Should have failed when transferring to a currency without exchange rate");
+    } catch (UnsupportedCurrencyException ex) {
+      assertThat(ex.getMessage()).isEqualTo("No exchange rate available for currency: JPY");
+    }
+
+    assertThat(transfer.getStatus()).isEqualTo(Transfer.Status.FAILED);
+    assertThat(this.accountsService.getAccount("ID-Sender").getBalance()).isEqualByComparingTo("1000");
+    assertThat(this.accountsService.getAccount("ID-Yen").getBalance()).isEqualByComparingTo("1000");
+  }
 }
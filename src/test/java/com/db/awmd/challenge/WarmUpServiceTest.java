@@ -0,0 +1,66 @@
+package com.db.awmd.challenge;
+
+import com.db.awmd.challenge.health.WarmUpReadinessCheck;
+import com.db.awmd.challenge.service.FxRateService;
+import com.db.awmd.challenge.service.WarmUpService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WarmUpServiceTest {
+
+  @Test
+  public void readinessStaysDownUntilWarmUpCompletes() throws Exception {
+    CountDownLatch requested = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger requests = new AtomicInteger();
+    HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/", exchange -> {
+      requests.incrementAndGet();
+      requested.countDown();
+      try {
+        release.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      exchange.sendResponseHeaders(400, -1);
+      exchange.close();
+    });
+    ExecutorService executor = Executors.newCachedThreadPool();
+    server.setExecutor(executor);
+    server.start();
+    try {
+      WarmUpService warmUpService = new WarmUpService(new ObjectMapper(), new FxRateService("EUR", ""),
+        new MockEnvironment().withProperty("transfers.engine", "actor"), true, 100, 2,
+        "http://127.0.0.1:" + server.getAddress().getPort());
+      WarmUpReadinessCheck check = new WarmUpReadinessCheck(warmUpService);
+      assertThat(check.check().isReady()).isFalse();
+
+      warmUpService.startWarmUp();
+      assertThat(requested.await(10, TimeUnit.SECONDS)).isTrue();
+      // The in-memory workload is done and the loopback requests are being held
+      assertThat(check.check().isReady()).isFalse();
+
+      release.countDown();
+      long deadline = System.currentTimeMillis() + 10000;
+      while (!warmUpService.isComplete() && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      assertThat(check.check().isReady()).isTrue();
+      assertThat(requests.get()).isEqualTo(6);
+    } finally {
+      server.stop(0);
+      executor.shutdownNow();
+    }
+  }
+}